@@ -47,6 +47,7 @@ import org.apache.camel.spi.ProcessorFactory;
 import org.apache.camel.spi.Registry;
 import org.apache.camel.spi.ServicePool;
 import org.apache.camel.spi.ShutdownStrategy;
+import org.apache.camel.spi.StreamCacheManager;
 import org.apache.camel.spi.TypeConverterRegistry;
 import org.apache.camel.spi.UuidGenerator;
 
@@ -870,6 +871,20 @@ public interface CamelContext extends SuspendableService, RuntimeConfiguration {
      */
     void setInflightRepository(InflightRepository repository);
 
+    /**
+     * Gets the stream cache manager which tracks the memory and disk used by stream caches
+     *
+     * @return the manager
+     */
+    StreamCacheManager getStreamCacheManager();
+
+    /**
+     * Sets a custom stream cache manager to use
+     *
+     * @param streamCacheManager the manager
+     */
+    void setStreamCacheManager(StreamCacheManager streamCacheManager);
+
     /**
      * Gets the the application context class loader which may be helpful for running camel in other containers
      *
@@ -151,12 +151,13 @@ public interface Exchange {
     String ROLLBACK_ONLY_LAST      = "CamelRollbackOnlyLast";
     String ROUTE_STOP              = "CamelRouteStop";
 
-    String SOAP_ACTION        = "CamelSoapAction";
-    String SKIP_GZIP_ENCODING = "CamelSkipGzipEncoding";
-    String SLIP_ENDPOINT      = "CamelSlipEndpoint";
-    String SPLIT_INDEX        = "CamelSplitIndex";
-    String SPLIT_COMPLETE     = "CamelSplitComplete";
-    String SPLIT_SIZE         = "CamelSplitSize";
+    String SOAP_ACTION            = "CamelSoapAction";
+    String SKIP_GZIP_ENCODING     = "CamelSkipGzipEncoding";
+    String SLIP_ENDPOINT          = "CamelSlipEndpoint";
+    String SPLIT_INDEX            = "CamelSplitIndex";
+    String SPLIT_COMPLETE         = "CamelSplitComplete";
+    String SPLIT_SIZE             = "CamelSplitSize";
+    String STREAM_CACHE_THROTTLED = "CamelStreamCacheThrottled";
 
     String TIMER_FIRED_TIME      = "CamelTimerFiredTime";
     String TIMER_NAME            = "CamelTimerName";
@@ -53,7 +53,7 @@ public class DefaultErrorHandlerBuilder extends ErrorHandlerBuilderSupport {
     protected Endpoint deadLetter;
     protected String deadLetterUri;
     protected boolean useOriginalMessage;
-    protected boolean asyncDelayedRedelivery;
+    protected boolean asyncDelayedRedelivery = true;
 
     public DefaultErrorHandlerBuilder() {
     }
@@ -166,6 +166,17 @@ public class DefaultErrorHandlerBuilder extends ErrorHandlerBuilderSupport {
         return this;
     }
 
+    /**
+     * Will block the current thread while waiting for a delayed redelivery.
+     *
+     * @see org.apache.camel.processor.RedeliveryPolicy#setAsyncDelayedRedelivery(boolean)
+     * @return the builder
+     */
+    public DefaultErrorHandlerBuilder syncDelayedRedelivery() {
+        getRedeliveryPolicy().setAsyncDelayedRedelivery(false);
+        return this;
+    }
+
     /**
      * Sets whether the exchange should be marked as handled or not.
      *
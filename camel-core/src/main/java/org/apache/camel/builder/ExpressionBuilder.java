@@ -39,6 +39,9 @@ import org.apache.camel.component.bean.BeanInvocation;
 import org.apache.camel.component.properties.PropertiesComponent;
 import org.apache.camel.impl.ExpressionAdapter;
 import org.apache.camel.language.bean.BeanLanguage;
+import org.apache.camel.language.tokenizer.ReaderTokenIterator;
+import org.apache.camel.language.tokenizer.TokenIterator;
+import org.apache.camel.language.tokenizer.XmlTokenIterator;
 import org.apache.camel.model.language.MethodCallExpression;
 import org.apache.camel.spi.Language;
 import org.apache.camel.util.ExchangeHelper;
@@ -995,17 +998,68 @@ public final class ExpressionBuilder {
      */
     public static Expression tokenizeExpression(final Expression expression,
                                                 final String token) {
+        return tokenizeExpression(expression, token, 1);
+    }
+
+    /**
+     * Returns a tokenize expression which will tokenize the string with the
+     * given token, combining the given number of tokens into each value.
+     * <p/>
+     * The token is used as a regular expression delimiter, as it always has been. If the token has no regular
+     * expression characters, then the content is read in a streaming fashion by matching the token literally,
+     * so this is suitable for splitting big files. Combining tokens is only supported for such tokens.
+     */
+    public static Expression tokenizeExpression(final Expression expression,
+                                                final String token, final int group) {
+        if (!TokenIterator.isLiteral(token)) {
+            if (group > 1) {
+                throw new IllegalArgumentException("Cannot combine " + group + " tokens when the token is a regular expression: " + token);
+            }
+            return new ExpressionAdapter() {
+                public Object evaluate(Exchange exchange) {
+                    Object value = expression.evaluate(exchange, Object.class);
+                    Scanner scanner = ObjectHelper.getScanner(exchange, value);
+                    scanner.useDelimiter(token);
+                    return scanner;
+                }
+
+                @Override
+                public String toString() {
+                    return "tokenize(" + expression + ", " + token + ")";
+                }
+            };
+        }
+
         return new ExpressionAdapter() {
             public Object evaluate(Exchange exchange) {
                 Object value = expression.evaluate(exchange, Object.class);
-                Scanner scanner = ObjectHelper.getScanner(exchange, value);
-                scanner.useDelimiter(token);
-                return scanner;
+                return new TokenIterator(ReaderTokenIterator.createReader(exchange, value), token, group);
+            }
+
+            @Override
+            public String toString() {
+                return "tokenize(" + expression + ", " + token + (group > 1 ? ", " + group : "") + ")";
+            }
+        };
+    }
+
+    /**
+     * Returns a tokenize expression which will tokenize the XML content into the
+     * elements with the given tag name, without parsing the XML.
+     * <p/>
+     * The content is read in a streaming fashion so this is suitable for splitting big files.
+     */
+    public static Expression tokenizeXMLExpression(final Expression expression,
+                                                   final String tagName) {
+        return new ExpressionAdapter() {
+            public Object evaluate(Exchange exchange) {
+                Object value = expression.evaluate(exchange, Object.class);
+                return new XmlTokenIterator(ReaderTokenIterator.createReader(exchange, value), tagName);
             }
 
             @Override
             public String toString() {
-                return "tokenize(" + expression + ", " + token + ")";
+                return "tokenizeXML(" + expression + ", " + tagName + ")";
             }
         };
     }
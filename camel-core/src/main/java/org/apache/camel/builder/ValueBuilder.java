@@ -169,6 +169,25 @@ public class ValueBuilder implements Expression {
         return new ValueBuilder(newExp);
     }
 
+    /**
+     * Tokenizes the string conversion of this expression using the given
+     * token, combining the given number of tokens into each value.
+     * The token must not contain regular expression characters.
+     */
+    public ValueBuilder tokenize(String token, int group) {
+        Expression newExp = ExpressionBuilder.tokenizeExpression(expression, token, group);
+        return new ValueBuilder(newExp);
+    }
+
+    /**
+     * Tokenizes the XML content of this expression into the elements
+     * with the given tag name
+     */
+    public ValueBuilder tokenizeXML(String tagName) {
+        Expression newExp = ExpressionBuilder.tokenizeXMLExpression(expression, tagName);
+        return new ValueBuilder(newExp);
+    }
+
     /**
      * Tokenizes the string conversion of this expression using the given
      * regular expression
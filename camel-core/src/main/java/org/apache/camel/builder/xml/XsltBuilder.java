@@ -23,6 +23,8 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
@@ -42,6 +44,8 @@ import org.apache.camel.converter.jaxp.XmlConverter;
 import org.apache.camel.impl.SynchronizationAdapter;
 import org.apache.camel.util.ExchangeHelper;
 import org.apache.camel.util.FileUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import static org.apache.camel.util.ObjectHelper.notNull;
 
@@ -51,13 +55,20 @@ import static org.apache.camel.util.ObjectHelper.notNull;
  * <p/>
  * Will by defult output the result as a String. You can chose which kind of output
  * you want using the <tt>outputXXX</tt> methods.
+ * <p/>
+ * The {@link Transformer}s are pooled and reused across exchanges, as creating a new
+ * {@link Transformer} for each exchange is expensive. Use the <tt>transformerCacheSize</tt>
+ * option to configure the maximum number of idle transformers to keep, or 0 to not pool.
  *
  * @version $Revision$
  */
 public class XsltBuilder implements Processor {
+    private static final transient Log LOG = LogFactory.getLog(XsltBuilder.class);
     private Map<String, Object> parameters = new HashMap<String, Object>();
     private XmlConverter converter = new XmlConverter();
-    private Templates template;
+    private volatile Templates template;
+    private volatile BlockingQueue<Transformer> transformers;
+    private int transformerCacheSize = 10;
     private ResultHandlerFactory resultHandlerFactory = new StringResultHandlerFactory();
     private boolean failOnNullBody = true;
     private URIResolver uriResolver;
@@ -67,7 +78,7 @@ public class XsltBuilder implements Processor {
     }
 
     public XsltBuilder(Templates templates) {
-        this.template = templates;
+        setTemplate(templates);
     }
 
     @Override
@@ -84,18 +95,27 @@ public class XsltBuilder implements Processor {
             exchange.addOnCompletion(new XsltBuilderOnCompletion(fileName));
         }
 
-        Transformer transformer = getTemplate().newTransformer();
-        configureTransformer(transformer, exchange);
-        Source source = getSource(exchange);
-        ResultHandler resultHandler = resultHandlerFactory.createResult(exchange);
-        Result result = resultHandler.getResult();
-
-        // lets copy the headers before we invoke the transform in case they modify them
-        Message out = exchange.getOut();
-        out.copyFrom(exchange.getIn());
-
-        transformer.transform(source, result);
-        resultHandler.setBody(out);
+        // get the pool before the template, as the template is set before its pool when the template is changed
+        BlockingQueue<Transformer> pool = transformers;
+        Transformer transformer = pool != null ? pool.poll() : null;
+        if (transformer == null) {
+            transformer = getTemplate().newTransformer();
+        }
+        try {
+            configureTransformer(transformer, exchange);
+            Source source = getSource(exchange);
+            ResultHandler resultHandler = resultHandlerFactory.createResult(exchange);
+            Result result = resultHandler.getResult();
+
+            // lets copy the headers before we invoke the transform in case they modify them
+            Message out = exchange.getOut();
+            out.copyFrom(exchange.getIn());
+
+            transformer.transform(source, result);
+            resultHandler.setBody(out);
+        } finally {
+            releaseTransformer(pool, transformer);
+        }
     }
 
     // Builder methods
@@ -185,6 +205,14 @@ public class XsltBuilder implements Processor {
         return this;
     }
 
+    /**
+     * Sets the maximum number of idle {@link Transformer}s to keep for reuse, use 0 to not reuse transformers.
+     */
+    public XsltBuilder transformerCacheSize(int transformerCacheSize) {
+        setTransformerCacheSize(transformerCacheSize);
+        return this;
+    }
+
     public XsltBuilder parameter(String name, Object value) {
         parameters.put(name, value);
         return this;
@@ -211,8 +239,10 @@ public class XsltBuilder implements Processor {
 
     public void setTemplate(Templates template) {
         this.template = template;
+        // the pooled transformers belongs to the previous template so create a new pool
+        this.transformers = transformerCacheSize > 0 ? new ArrayBlockingQueue<Transformer>(transformerCacheSize) : null;
     }
-    
+
     public Templates getTemplate() {
         return template;
     }
@@ -297,6 +327,16 @@ public class XsltBuilder implements Processor {
         this.uriResolver = uriResolver;
     }
 
+    public int getTransformerCacheSize() {
+        return transformerCacheSize;
+    }
+
+    public void setTransformerCacheSize(int transformerCacheSize) {
+        this.transformerCacheSize = transformerCacheSize;
+        // create the pool using the new size
+        this.transformers = transformerCacheSize > 0 ? new ArrayBlockingQueue<Transformer>(transformerCacheSize) : null;
+    }
+
     public boolean isDeleteOutputFile() {
         return deleteOutputFile;
     }
@@ -313,7 +353,14 @@ public class XsltBuilder implements Processor {
      */
     protected Source getSource(Exchange exchange) {
         Message in = exchange.getIn();
-        Source source = in.getBody(Source.class);
+        Source source;
+        Object body = in.getBody();
+        if (body instanceof InputStream) {
+            // stream the input directly to the transformer instead of converting it to a DOM first
+            source = new StreamSource((InputStream) body);
+        } else {
+            source = in.getBody(Source.class);
+        }
         if (source == null) {
             if (isFailOnNullBody()) {
                 throw new ExpectedBodyTypeException(exchange, Source.class);
@@ -348,6 +395,25 @@ public class XsltBuilder implements Processor {
         transformer.setParameter("out", exchange.getOut());
     }
 
+    /**
+     * Releases the transformer back to the given pool after resetting it so it does not keep any parameters
+     * or references to the exchange. The transformer is discarded if the pool is full or the transformer cannot be reset.
+     */
+    protected void releaseTransformer(BlockingQueue<Transformer> pool, Transformer transformer) {
+        if (pool == null) {
+            return;
+        }
+        try {
+            transformer.reset();
+        } catch (UnsupportedOperationException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Cannot reset transformer: " + transformer + " so it will not be reused");
+            }
+            return;
+        }
+        pool.offer(transformer);
+    }
+
     protected void addParameters(Transformer transformer, Map<String, Object> map) {
         Set<Map.Entry<String, Object>> propertyEntries = map.entrySet();
         for (Map.Entry<String, Object> entry : propertyEntries) {
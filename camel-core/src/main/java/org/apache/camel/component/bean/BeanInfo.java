@@ -72,6 +72,7 @@ public class BeanInfo {
     private final List<MethodInfo> operationsWithCustomAnnotation = new ArrayList<MethodInfo>();
     private final List<MethodInfo> operationsWithHandlerAnnotation = new ArrayList<MethodInfo>();
     private final Map<Method, MethodInfo> methodMap = new ConcurrentHashMap<Method, MethodInfo>();
+    private final Map<MethodChoiceKey, MethodInfo> chosenMethods = new ConcurrentHashMap<MethodChoiceKey, MethodInfo>();
     private MethodInfo defaultMethod;
     private BeanInfo superBeanInfo;
 
@@ -143,7 +144,7 @@ public class BeanInfo {
                     // there are more methods with that name so we cannot decide which to use
 
                     // but first lets try to choose a method and see if that comply with the name
-                    methodInfo = chooseMethod(pojo, exchange, name);
+                    methodInfo = chooseMethodUsingCache(pojo, exchange, name);
                     if (methodInfo == null || !name.equals(methodInfo.getMethod().getName())) {
                         throw new AmbiguousMethodCallException(exchange, methods);
                     }
@@ -155,7 +156,7 @@ public class BeanInfo {
         }
         if (methodInfo == null) {
             // no name or type
-            methodInfo = chooseMethod(pojo, exchange, null);
+            methodInfo = chooseMethodUsingCache(pojo, exchange, null);
         }
         if (methodInfo == null) {
             methodInfo = defaultMethod;
@@ -343,6 +344,34 @@ public class BeanInfo {
         return new MethodInfo(camelContext, clazz, method, parameters, bodyParameters, hasCustomAnnotation, hasHandlerAnnotation);
     }
 
+    /**
+     * Chooses the method to invoke using a cache of the methods previously chosen for the same method name,
+     * message body type and exchange pattern, so we do not have to go through the method selection for every exchange.
+     * <p/>
+     * The chosen method is only cached if the choice did not depend on the exchange having an exception,
+     * or on having to convert the message body to find a matching method, as these choices depends on the
+     * actual values and not only the types.
+     */
+    protected MethodInfo chooseMethodUsingCache(Object pojo, Exchange exchange, String name) throws AmbiguousMethodCallException {
+        if (exchange.getException() != null) {
+            return chooseMethod(pojo, exchange, name);
+        }
+
+        Object body = exchange.getIn().getBody();
+        MethodChoiceKey key = new MethodChoiceKey(name, body != null ? body.getClass() : null, exchange.getPattern().isOutCapable());
+        MethodInfo answer = chosenMethods.get(key);
+        if (answer == null) {
+            answer = chooseMethod(pojo, exchange, name);
+            // if the body was converted then the choice depends on the body value so it cannot be cached
+            if (answer != null && exchange.getIn().getBody() == body) {
+                chosenMethods.put(key, answer);
+            }
+        } else if (LOG.isTraceEnabled()) {
+            LOG.trace("Using previously chosen method: " + answer + " for " + key);
+        }
+        return answer;
+    }
+
     /**
      * Lets try choose one of the available methods to invoke if we can match
      * the message body to the body parameter
@@ -642,6 +671,45 @@ public class BeanInfo {
         return null;
     }
 
+    /**
+     * Key for the cache of chosen methods.
+     */
+    private static final class MethodChoiceKey {
+        private final String name;
+        private final Class<?> bodyType;
+        private final boolean outCapable;
+
+        private MethodChoiceKey(String name, Class<?> bodyType, boolean outCapable) {
+            this.name = name;
+            this.bodyType = bodyType;
+            this.outCapable = outCapable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MethodChoiceKey)) {
+                return false;
+            }
+            MethodChoiceKey that = (MethodChoiceKey) o;
+            return outCapable == that.outCapable && bodyType == that.bodyType && ObjectHelper.equal(name, that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            int answer = name != null ? name.hashCode() : 0;
+            answer = 31 * answer + (bodyType != null ? bodyType.hashCode() : 0);
+            return 31 * answer + (outCapable ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return "MethodChoiceKey[name=" + name + ", bodyType=" + bodyType + ", outCapable=" + outCapable + "]";
+        }
+    }
+
     private static void removeAllSetterOrGetterMethods(List<MethodInfo> methods) {
         Iterator<MethodInfo> it = methods.iterator();
         while (it.hasNext()) {
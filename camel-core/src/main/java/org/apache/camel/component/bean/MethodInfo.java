@@ -54,6 +54,7 @@ import static org.apache.camel.util.ObjectHelper.asString;
  */
 public class MethodInfo {
     private static final transient Log LOG = LogFactory.getLog(MethodInfo.class);
+    private static final Object[] EMPTY_ARGUMENTS = new Object[0];
 
     private CamelContext camelContext;
     private Class<?> type;
@@ -106,6 +107,18 @@ public class MethodInfo {
         this.hasHandlerAnnotation = hasHandlerAnnotation;
         this.parametersExpression = createParametersExpression();
 
+        // the bean binding only invokes public methods, so suppress the access checks for each invocation
+        // which otherwise happens when the declaring class is not public
+        if (!method.isAccessible()) {
+            try {
+                method.setAccessible(true);
+            } catch (SecurityException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Cannot suppress access checks for method: " + method + " due " + e.getMessage());
+                }
+            }
+        }
+
         Pattern oneway = findOneWayAnnotation(method);
         if (oneway != null) {
             pattern = oneway.value();
@@ -329,9 +342,12 @@ public class MethodInfo {
         }
 
         final Expression[] expressions = new Expression[size];
+        // the parameter types as wrapper types so we can detect arguments which do not need any type conversion
+        final Class<?>[] types = new Class<?>[size];
         for (int i = 0; i < size; i++) {
             Expression parameterExpression = parameters.get(i).getExpression();
             expressions[i] = parameterExpression;
+            types[i] = ObjectHelper.convertPrimitiveTypeToWrapperType(parameters.get(i).getType());
             if (LOG.isTraceEnabled()) {
                 LOG.trace("Parameter #" + i + " has expression: " + parameterExpression);
             }
@@ -339,22 +355,32 @@ public class MethodInfo {
         return new Expression() {
             @SuppressWarnings("unchecked")
             public <T> T evaluate(Exchange exchange, Class<T> type) {
+                if (size == 0) {
+                    return (T) EMPTY_ARGUMENTS;
+                }
+
                 Object[] answer = new Object[size];
-                Object body = exchange.getIn().getBody();
-                boolean multiParameterArray = false;
-                if (exchange.getIn().getHeader(Exchange.BEAN_MULTI_PARAMETER_ARRAY) != null) {
-                    multiParameterArray = exchange.getIn().getHeader(Exchange.BEAN_MULTI_PARAMETER_ARRAY, Boolean.class);
+                Boolean multiParameterArray = exchange.getIn().getHeader(Exchange.BEAN_MULTI_PARAMETER_ARRAY, Boolean.class);
+                Object[] body = null;
+                if (multiParameterArray != null && multiParameterArray) {
+                    body = (Object[]) exchange.getIn().getBody();
                 }
                 for (int i = 0; i < size; i++) {
                     Object value = null;
-                    if (multiParameterArray) {
-                        value = ((Object[])body)[i];
+                    if (body != null) {
+                        value = body[i];
                     } else {
                         Expression expression = expressions[i];
                         if (expression != null) {
                             // use object first to avoid type conversion so we know if there is a value or not
                             Object result = expression.evaluate(exchange, Object.class);
-                            if (result != null) {
+                            if (result != null && types[i].isInstance(result)) {
+                                // the value is already of the expected type so no need to convert it
+                                value = result;
+                                if (LOG.isTraceEnabled()) {
+                                    LOG.trace("Parameter #" + i + " evaluated as: " + value + " type: " + ObjectHelper.type(value));
+                                }
+                            } else if (result != null) {
                                 // we got a value now try to convert it to the expected type
                                 try {
                                     value = exchange.getContext().getTypeConverter().mandatoryConvertTo(parameters.get(i).getType(), result);
@@ -26,6 +26,9 @@ import org.apache.camel.util.LRUCache;
 /**
  * Represents a cache of MethodInfo objects to avoid the expense of introspection for each invocation of a method
  * via a proxy
+ * <p/>
+ * The lookups do not take any locks, so the given caches must be safe for concurrent access, which the default
+ * {@link LRUCache} is. Concurrent lookups of the same method may introspect it more than once, which is harmless.
  *
  * @version $Revision$
  */
@@ -48,7 +51,7 @@ public class MethodInfoCache {
         this.methodCache = methodCache;
     }
 
-    public synchronized MethodInfo getMethodInfo(Method method) {
+    public MethodInfo getMethodInfo(Method method) {
         MethodInfo answer = methodCache.get(method);
         if (answer == null) {
             answer = createMethodInfo(method);
@@ -63,7 +66,7 @@ public class MethodInfoCache {
         return info.getMethodInfo(method);
     }
 
-    protected synchronized BeanInfo getBeanInfo(Class<?> declaringClass) {
+    protected BeanInfo getBeanInfo(Class<?> declaringClass) {
         BeanInfo beanInfo = classCache.get(declaringClass);
         if (beanInfo == null) {
             beanInfo = createBeanInfo(declaringClass);
@@ -17,36 +17,139 @@
 package org.apache.camel.component.file;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.apache.camel.util.FileUtil;
 import org.apache.camel.util.ObjectHelper;
 
 /**
  * File consumer.
+ * <p/>
+ * If the endpoint is configured with a <tt>scanPoolSize</tt> the directories is scanned in parallel using a thread pool,
+ * where each directory is listed by its own task. If the files are not to be sorted, the files is then processed
+ * while the directories is still being scanned.
+ * <p/>
+ * If the endpoint is configured with <tt>skipUnchangedDirectories</tt> the consumer remembers the directories which had
+ * no files to consume, and does not list them again until their last modified timestamp changes, which happens
+ * when files is added, removed or renamed in the directory. Do not use this option with filters which can change their
+ * outcome over time, such as a file name expression depending on the current date.
  */
 public class FileConsumer extends GenericFileConsumer<File> {
 
+    // marks the end of a directory scan
+    private static final GenericFile<File> END = new GenericFile<File>();
+    private static final long UNCHANGED_GRACE_PERIOD = 2000;
     private String endpointPath;
+    private volatile ExecutorService scanExecutor;
+    // the directories which had no files to consume when last listed
+    private final Map<String, UnchangedDirectory> unchangedDirectories = new ConcurrentHashMap<String, UnchangedDirectory>();
 
     public FileConsumer(GenericFileEndpoint<File> endpoint, Processor processor, GenericFileOperations<File> operations) {
         super(endpoint, processor, operations);
         this.endpointPath = endpoint.getConfiguration().getDirectory();
     }
 
+    @Override
+    protected int poll() throws Exception {
+        ExecutorService executor = scanExecutor;
+        // the files can only be processed while scanning if they are not to be sorted
+        if (executor == null || endpoint.getSorter() != null || endpoint.getSortBy() != null) {
+            return super.poll();
+        }
+
+        // must reset for each poll
+        fileExpressionResult = null;
+        shutdownRunningTask = null;
+        pendingExchanges = 0;
+
+        String name = endpoint.getConfiguration().getDirectory();
+        if (!isValidDirectory(new File(name))) {
+            return 0;
+        }
+
+        DirectoryScan scan = new DirectoryScan(executor, name);
+        GenericFile<File> next = null;
+        int index = 0;
+        try {
+            next = scan.take();
+            while (next != null && isBatchAllowed()) {
+                GenericFile<File> file = next;
+                // we must know if there is a next file to know if this file completes the batch
+                next = scan.take();
+
+                Exchange exchange = createExchange(file);
+                // the total is not known until the scan is complete so use the number of files found so far
+                int total = next == null ? index + 1 : scan.getFound();
+                exchange.setProperty(Exchange.BATCH_INDEX, index);
+                exchange.setProperty(Exchange.BATCH_SIZE, total);
+                exchange.setProperty(Exchange.BATCH_COMPLETE, next == null);
+
+                // update pending number of exchanges
+                pendingExchanges = total - index - 1;
+
+                // process the current exchange
+                processExchange(exchange);
+                index++;
+            }
+        } finally {
+            // remove the files not processed from the in progress list in case we are stopping
+            if (next != null) {
+                endpoint.getInProgressRepository().remove(next.getAbsoluteFilePath());
+            }
+            scan.cancel();
+        }
+
+        if (index > 0 && log.isDebugEnabled()) {
+            log.debug("Total " + index + " files consumed");
+        }
+
+        postPollCheck();
+
+        return index;
+    }
+
     protected boolean pollDirectory(String fileName, List<GenericFile<File>> fileList) {
         if (log.isTraceEnabled()) {
             log.trace("pollDirectory from fileName: " + fileName);
         }
 
         File directory = new File(fileName);
-        if (!directory.exists() || !directory.isDirectory()) {
-            if (log.isDebugEnabled()) {
-                log.debug("Cannot poll as directory does not exists or its not a directory: " + directory);
+        if (!isValidDirectory(directory)) {
+            return true;
+        }
+
+        ExecutorService executor = scanExecutor;
+        if (executor != null) {
+            // scan the directory and its sub directories in parallel
+            DirectoryScan scan = new DirectoryScan(executor, fileName);
+            GenericFile<File> file;
+            while ((file = scan.take()) != null) {
+                fileList.add(file);
             }
-            if (getEndpoint().isDirectoryMustExist()) {
-                throw new GenericFileOperationFailedException("Directory does not exist: " + directory);
+            return !scan.isLimitHit();
+        }
+
+        long lastModified = getUnchangedLastModified(directory);
+        String[] subDirectories = getUnchangedSubDirectories(fileName, lastModified);
+        if (subDirectories != null) {
+            if (log.isTraceEnabled()) {
+                log.trace("Skipping unchanged directory: " + directory.getPath());
+            }
+            for (String subDirectory : subDirectories) {
+                boolean canPollMore = pollDirectory(subDirectory, fileList);
+                if (!canPollMore) {
+                    return false;
+                }
             }
             return true;
         }
@@ -56,6 +159,7 @@ public class FileConsumer extends GenericFileConsumer<File> {
         }
         File[] files = directory.listFiles();
         if (files == null || files.length == 0) {
+            updateUnchangedDirectory(fileName, lastModified, false, null);
             // no files in this directory to poll
             if (log.isTraceEnabled()) {
                 log.trace("No files found in directory: " + directory.getPath());
@@ -68,6 +172,8 @@ public class FileConsumer extends GenericFileConsumer<File> {
             }
         }
 
+        boolean hasFiles = false;
+        List<String> validSubDirectories = new ArrayList<String>();
         for (File file : files) {
             // check if we can continue polling in files
             if (!canPollMoreFiles(fileList)) {
@@ -87,6 +193,7 @@ public class FileConsumer extends GenericFileConsumer<File> {
                 if (endpoint.isRecursive() && isValidFile(gf, true)) {
                     // recursive scan and add the sub files and folders
                     String subDirectory = fileName + File.separator + file.getName();
+                    validSubDirectories.add(subDirectory);
                     boolean canPollMore = pollDirectory(subDirectory, fileList);
                     if (!canPollMore) {
                         return false;
@@ -95,6 +202,7 @@ public class FileConsumer extends GenericFileConsumer<File> {
             } else {
                 // Windows can report false to a file on a share so regard it always as a file (if its not a directory)
                 if (isValidFile(gf, false)) {
+                    hasFiles = true;
                     if (isInProgress(gf)) {
                         if (log.isTraceEnabled()) {
                             log.trace("Skipping as file is already in progress: " + gf.getFileName());
@@ -110,6 +218,55 @@ public class FileConsumer extends GenericFileConsumer<File> {
             }
         }
 
+        updateUnchangedDirectory(fileName, lastModified, hasFiles, validSubDirectories);
+        return true;
+    }
+
+    private long getUnchangedLastModified(File directory) {
+        // must get the timestamp before listing the directory so we do not miss changes while listing
+        return getEndpoint().isSkipUnchangedDirectories() ? directory.lastModified() : 0;
+    }
+
+    /**
+     * Gets the sub directories of the given directory if its unchanged since it was listed without any files to consume.
+     *
+     * @return the sub directories, or <tt>null</tt> if the directory must be listed
+     */
+    private String[] getUnchangedSubDirectories(String fileName, long lastModified) {
+        if (!getEndpoint().isSkipUnchangedDirectories()) {
+            return null;
+        }
+        UnchangedDirectory unchanged = unchangedDirectories.get(fileName);
+        if (unchanged != null && unchanged.lastModified == lastModified) {
+            return unchanged.subDirectories;
+        }
+        return null;
+    }
+
+    private void updateUnchangedDirectory(String fileName, long lastModified, boolean hasFiles, List<String> subDirectories) {
+        if (!getEndpoint().isSkipUnchangedDirectories()) {
+            return;
+        }
+        // the timestamp may only have a granularity of seconds, so only regard the directory as unchanged
+        // if it has not been modified recently, as files could otherwise be added without changing the timestamp
+        if (hasFiles || lastModified <= 0 || System.currentTimeMillis() - lastModified < UNCHANGED_GRACE_PERIOD) {
+            unchangedDirectories.remove(fileName);
+        } else {
+            String[] names = subDirectories != null ? subDirectories.toArray(new String[subDirectories.size()]) : new String[0];
+            unchangedDirectories.put(fileName, new UnchangedDirectory(lastModified, names));
+        }
+    }
+
+    private boolean isValidDirectory(File directory) {
+        if (!directory.exists() || !directory.isDirectory()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot poll as directory does not exists or its not a directory: " + directory);
+            }
+            if (getEndpoint().isDirectoryMustExist()) {
+                throw new GenericFileOperationFailedException("Directory does not exist: " + directory);
+            }
+            return false;
+        }
         return true;
     }
 
@@ -169,4 +326,222 @@ public class FileConsumer extends GenericFileConsumer<File> {
     public FileEndpoint getEndpoint() {
         return (FileEndpoint) super.getEndpoint();
     }
+
+    @Override
+    protected void doStart() throws Exception {
+        if (getEndpoint().getScanPoolSize() > 0) {
+            scanExecutor = getEndpoint().getCamelContext().getExecutorServiceStrategy()
+                    .newFixedThreadPool(this, "FileScanner", getEndpoint().getScanPoolSize());
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        if (scanExecutor != null) {
+            // do not shutdown now as a scan in progress must be able to complete its tasks
+            getEndpoint().getCamelContext().getExecutorServiceStrategy().shutdown(scanExecutor);
+            scanExecutor = null;
+        }
+    }
+
+    /**
+     * A scan of a directory and its sub directories, where each directory is listed by its own task.
+     * <p/>
+     * The valid files is added to a queue as they are found, so they can be taken before the scan is complete.
+     */
+    private final class DirectoryScan {
+        private final ExecutorService executor;
+        private final BlockingQueue<GenericFile<File>> queue = new LinkedBlockingQueue<GenericFile<File>>();
+        private final AtomicInteger tasks = new AtomicInteger();
+        private final AtomicInteger found = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean limitHit;
+        private volatile RuntimeException exception;
+        private boolean done;
+
+        private DirectoryScan(ExecutorService executor, String fileName) {
+            this.executor = executor;
+            submit(fileName);
+        }
+
+        /**
+         * Takes the next file found, waiting for it to be found if needed.
+         *
+         * @return the file, or <tt>null</tt> if the scan is complete
+         */
+        public GenericFile<File> take() {
+            if (done) {
+                return null;
+            }
+
+            GenericFile<File> answer = null;
+            boolean interrupted = false;
+            while (answer == null) {
+                try {
+                    answer = queue.take();
+                } catch (InterruptedException e) {
+                    // stop scanning but we must wait for the tasks to complete
+                    interrupted = true;
+                    cancelled = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (answer == END) {
+                done = true;
+                if (exception != null) {
+                    throw exception;
+                }
+                return null;
+            }
+            return answer;
+        }
+
+        /**
+         * Cancels the scan and removes the files found, but not taken, from the in progress list.
+         */
+        public void cancel() {
+            cancelled = true;
+            while (!done) {
+                try {
+                    GenericFile<File> file = take();
+                    if (file != null) {
+                        endpoint.getInProgressRepository().remove(file.getAbsoluteFilePath());
+                    }
+                } catch (RuntimeException e) {
+                    // ignore as the exception has already been thrown from take
+                }
+            }
+        }
+
+        public int getFound() {
+            return found.get();
+        }
+
+        public boolean isLimitHit() {
+            return limitHit;
+        }
+
+        private void submit(final String fileName) {
+            tasks.incrementAndGet();
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            if (!cancelled) {
+                                scanDirectory(fileName);
+                            }
+                        } catch (RuntimeException e) {
+                            exception = e;
+                            cancelled = true;
+                        } finally {
+                            taskDone();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the consumer is being stopped
+                cancelled = true;
+                taskDone();
+            }
+        }
+
+        private void taskDone() {
+            if (tasks.decrementAndGet() == 0) {
+                queue.add(END);
+            }
+        }
+
+        private boolean incrementFound() {
+            while (true) {
+                int current = found.get();
+                if (maxMessagesPerPoll > 0 && current >= maxMessagesPerPoll) {
+                    return false;
+                }
+                if (found.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void scanDirectory(String fileName) {
+            File directory = new File(fileName);
+            long lastModified = getUnchangedLastModified(directory);
+            String[] subDirectories = getUnchangedSubDirectories(fileName, lastModified);
+            if (subDirectories != null) {
+                if (log.isTraceEnabled()) {
+                    log.trace("Skipping unchanged directory: " + directory.getPath());
+                }
+                for (String subDirectory : subDirectories) {
+                    submit(subDirectory);
+                }
+                return;
+            }
+
+            if (log.isTraceEnabled()) {
+                log.trace("Polling directory: " + directory.getPath());
+            }
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+
+            boolean hasFiles = false;
+            List<String> validSubDirectories = new ArrayList<String>();
+            for (File file : files) {
+                if (cancelled) {
+                    return;
+                }
+
+                // creates a generic file
+                GenericFile<File> gf = asGenericFile(endpointPath, file);
+
+                if (file.isDirectory()) {
+                    if (endpoint.isRecursive() && isValidFile(gf, true)) {
+                        // scan the sub directory in its own task
+                        String subDirectory = fileName + File.separator + file.getName();
+                        validSubDirectories.add(subDirectory);
+                        submit(subDirectory);
+                    }
+                } else if (isValidFile(gf, false)) {
+                    hasFiles = true;
+                    if (isInProgress(gf)) {
+                        if (log.isTraceEnabled()) {
+                            log.trace("Skipping as file is already in progress: " + gf.getFileName());
+                        }
+                    } else if (!incrementFound()) {
+                        // we hit the limit so do not add the file
+                        endpoint.getInProgressRepository().remove(gf.getAbsoluteFilePath());
+                        limitHit = true;
+                        cancelled = true;
+                        return;
+                    } else {
+                        if (log.isTraceEnabled()) {
+                            log.trace("Adding valid file: " + file);
+                        }
+                        queue.add(gf);
+                    }
+                }
+            }
+
+            updateUnchangedDirectory(fileName, lastModified, hasFiles, validSubDirectories);
+        }
+    }
+
+    /**
+     * A directory which had no files to consume when it was listed.
+     */
+    private static final class UnchangedDirectory {
+        private final long lastModified;
+        private final String[] subDirectories;
+
+        private UnchangedDirectory(long lastModified, String[] subDirectories) {
+            this.lastModified = lastModified;
+            this.subDirectories = subDirectories;
+        }
+    }
 }
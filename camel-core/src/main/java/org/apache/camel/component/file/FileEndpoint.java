@@ -35,6 +35,8 @@ public class FileEndpoint extends GenericFileEndpoint<File> {
 
     private FileOperations operations = new FileOperations(this);
     private File file;
+    private int scanPoolSize;
+    private boolean skipUnchangedDirectories;
 
     public FileEndpoint() {
         // use marker file as default exclusive read locks
@@ -124,6 +126,30 @@ public class FileEndpoint extends GenericFileEndpoint<File> {
         getConfiguration().setDirectory(file.getPath());
     }
 
+    public int getScanPoolSize() {
+        return scanPoolSize;
+    }
+
+    /**
+     * Sets the number of threads used to scan the directories in parallel.
+     * Is by default 0 which scans the directories in the polling thread.
+     */
+    public void setScanPoolSize(int scanPoolSize) {
+        this.scanPoolSize = scanPoolSize;
+    }
+
+    public boolean isSkipUnchangedDirectories() {
+        return skipUnchangedDirectories;
+    }
+
+    /**
+     * Sets whether to skip listing directories which had no files to consume when last listed,
+     * and which last modified timestamp has not changed since.
+     */
+    public void setSkipUnchangedDirectories(boolean skipUnchangedDirectories) {
+        this.skipUnchangedDirectories = skipUnchangedDirectories;
+    }
+
     @Override
     public String getScheme() {
         return "file";
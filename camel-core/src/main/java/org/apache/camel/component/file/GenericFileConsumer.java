@@ -101,10 +101,7 @@ public abstract class GenericFileConsumer<T> extends ScheduledPollConsumer imple
         // sort using build in sorters so we can use expressions
         LinkedList<Exchange> exchanges = new LinkedList<Exchange>();
         for (GenericFile<T> file : files) {
-            Exchange exchange = endpoint.createExchange(file);
-            endpoint.configureExchange(exchange);
-            endpoint.configureMessage(file, exchange.getIn());
-            exchanges.add(exchange);
+            exchanges.add(createExchange(file));
         }
         // sort files using exchange comparator if provided
         if (endpoint.getSortBy() != null) {
@@ -125,6 +122,19 @@ public abstract class GenericFileConsumer<T> extends ScheduledPollConsumer imple
         return polledMessages;
     }
 
+    /**
+     * Creates the exchange to process the polled file
+     *
+     * @param file the polled file
+     * @return the exchange
+     */
+    protected Exchange createExchange(GenericFile<T> file) {
+        Exchange exchange = endpoint.createExchange(file);
+        endpoint.configureExchange(exchange);
+        endpoint.configureMessage(file, exchange.getIn());
+        return exchange;
+    }
+
     public void setMaxMessagesPerPoll(int maxMessagesPerPoll) {
         this.maxMessagesPerPoll = maxMessagesPerPoll;
     }
@@ -482,9 +492,9 @@ public abstract class GenericFileConsumer<T> extends ScheduledPollConsumer imple
 
     @Override
     protected void doStart() throws Exception {
-        super.doStart();
-        
-        // prepare on startup
+        // prepare on startup before the first poll can be scheduled
         endpoint.getGenericFileProcessStrategy().prepareOnStartup(operations, endpoint);
+
+        super.doStart();
     }
 }
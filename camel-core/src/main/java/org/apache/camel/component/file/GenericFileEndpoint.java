@@ -86,6 +86,7 @@ public abstract class GenericFileEndpoint<T> extends ScheduledPollEndpoint {
     protected String readLock = "none";
     protected long readLockCheckInterval = 1000;
     protected long readLockTimeout = 10000;
+    protected long readLockMinAge;
     protected GenericFileExclusiveReadLockStrategy<T> exclusiveReadLockStrategy;
     protected boolean keepLastModified;
     protected String doneFileName;
@@ -432,6 +433,18 @@ public abstract class GenericFileEndpoint<T> extends ScheduledPollEndpoint {
         this.readLockTimeout = readLockTimeout;
     }
 
+    public long getReadLockMinAge() {
+        return readLockMinAge;
+    }
+
+    /**
+     * Sets the minimum age in millis of the last modified timestamp of a file, for the <tt>changed</tt> read lock
+     * to accept the file without waiting for the check interval. Is disabled by default.
+     */
+    public void setReadLockMinAge(long readLockMinAge) {
+        this.readLockMinAge = readLockMinAge;
+    }
+
     public int getBufferSize() {
         return bufferSize;
     }
@@ -614,6 +627,9 @@ public abstract class GenericFileEndpoint<T> extends ScheduledPollEndpoint {
         if (readLockTimeout > 0) {
             params.put("readLockTimeout", readLockTimeout);
         }
+        if (readLockMinAge > 0) {
+            params.put("readLockMinAge", readLockMinAge);
+        }
 
         return params;
     }
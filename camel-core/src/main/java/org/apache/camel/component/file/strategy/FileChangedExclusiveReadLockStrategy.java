@@ -30,11 +30,17 @@ import org.apache.commons.logging.LogFactory;
 /**
  * Acquires exclusive read lock to the given file by checking whether the file is being
  * changed by scanning the file at different intervals (to detect changes).
+ * <p/>
+ * If a <tt>minAge</tt> is set, then a file which has not been modified within the min age is regarded as
+ * not being changed without having to wait for the check interval. This is disabled by default, as the
+ * last modified timestamp is compared to the local clock, which may not be in sync with the clock of a
+ * remote file system.
  */
 public class FileChangedExclusiveReadLockStrategy extends MarkerFileExclusiveReadLockStrategy {
     private static final transient Log LOG = LogFactory.getLog(FileChangedExclusiveReadLockStrategy.class);
     private long timeout;
     private long checkInterval = 1000;
+    private long minAge;
 
     @Override
     public void prepareOnStartup(GenericFileOperations<File> operations, GenericFileEndpoint<File> endpoint) {
@@ -73,7 +79,14 @@ public class FileChangedExclusiveReadLockStrategy extends MarkerFileExclusiveRea
                     LOG.trace("Previous length: " + length + ", new length: " + newLength);
                 }
 
-                if (newLastModified == lastModified && newLength == length) {
+                // the file is regarded as not being changed if it has not been modified within the min age
+                // so we do not need to wait to detect changes
+                boolean unchanged = minAge > 0 && lastModified == Long.MIN_VALUE && newLastModified > 0
+                        && System.currentTimeMillis() - newLastModified > minAge;
+
+                if (unchanged || (newLastModified == lastModified && newLength == length)) {
+                    lastModified = newLastModified;
+                    length = newLength;
                     // let super handle the last part of acquiring the lock now the file is not
                     // currently being in progress of being copied as file length and modified
                     // are stable
@@ -141,4 +154,12 @@ public class FileChangedExclusiveReadLockStrategy extends MarkerFileExclusiveRea
         this.checkInterval = checkInterval;
     }
 
+    public long getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(long minAge) {
+        this.minAge = minAge;
+    }
+
 }
\ No newline at end of file
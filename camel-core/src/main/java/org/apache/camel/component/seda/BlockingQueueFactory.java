@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Factory of {@link BlockingQueue} which is used by the {@link SedaComponent}
+ * to create the queue the SEDA endpoints use to hold the pending exchanges.
+ *
+ * @version $Revision$
+ */
+public interface BlockingQueueFactory<E> {
+
+    /**
+     * Creates a new queue with the default capacity of this factory.
+     *
+     * @return the queue
+     */
+    BlockingQueue<E> create();
+
+    /**
+     * Creates a new queue which is bounded to the given capacity.
+     *
+     * @param capacity the capacity, must be a positive number
+     * @return the queue
+     */
+    BlockingQueue<E> create(int capacity);
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A {@link BlockingQueueFactory} which creates {@link LinkedBlockingQueue} queues.
+ * <p/>
+ * This is the default factory which is unbounded unless a capacity is given.
+ *
+ * @version $Revision$
+ */
+public class LinkedBlockingQueueFactory<E> implements BlockingQueueFactory<E> {
+
+    public BlockingQueue<E> create() {
+        return new LinkedBlockingQueue<E>();
+    }
+
+    public BlockingQueue<E> create(int capacity) {
+        return new LinkedBlockingQueue<E>(capacity);
+    }
+
+    @Override
+    public String toString() {
+        return "LinkedBlockingQueueFactory";
+    }
+}
@@ -0,0 +1,388 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * A bounded {@link BlockingQueue} backed by a preallocated array which is used as a ring buffer.
+ * <p/>
+ * Each slot in the ring has a sequence number which is used to coordinate the producers and consumers
+ * without any locking, and no nodes are allocated when elements is added. The capacity is always rounded
+ * up to the nearest power of two, with a minimum of two.
+ * <p/>
+ * When a thread has to wait for the queue to become non empty (or non full) the configured
+ * {@link RingBufferWaitStrategy} is used. Only the <tt>Block</tt> strategy will use a lock, and only
+ * when there are threads actually waiting.
+ *
+ * @version $Revision$
+ */
+public class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private static final int SPIN_TRIES = 100;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final RingBufferProducerType producerType;
+    private final RingBufferWaitStrategy waitStrategy;
+
+    // only used by the Block wait strategy
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public RingBufferQueue(int capacity) {
+        this(capacity, RingBufferProducerType.Multi, RingBufferWaitStrategy.Block);
+    }
+
+    public RingBufferQueue(int capacity, RingBufferProducerType producerType, RingBufferWaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be a positive number, was " + capacity);
+        }
+        ObjectHelper.notNull(producerType, "producerType");
+        ObjectHelper.notNull(waitStrategy, "waitStrategy");
+
+        // the sequences requires at least two slots to tell a published slot from a released slot
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public RingBufferProducerType getProducerType() {
+        return producerType;
+    }
+
+    public RingBufferWaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!doOffer(e)) {
+            return false;
+        }
+        signal(notEmpty);
+        return true;
+    }
+
+    public E poll() {
+        E answer = doPoll();
+        if (answer != null) {
+            signal(notFull);
+        }
+        return answer;
+    }
+
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int tries = 0;
+        while (!doOffer(e)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            tries = await(notFull, false, tries, remaining);
+        }
+        signal(notEmpty);
+        return true;
+    }
+
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int tries = 0;
+        while (!doOffer(e)) {
+            tries = await(notFull, false, tries, Long.MAX_VALUE);
+        }
+        signal(notEmpty);
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int tries = 0;
+        E answer;
+        while ((answer = doPoll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            tries = await(notEmpty, true, tries, remaining);
+        }
+        signal(notFull);
+        return answer;
+    }
+
+    public E take() throws InterruptedException {
+        int tries = 0;
+        E answer;
+        while ((answer = doPoll()) == null) {
+            tries = await(notEmpty, true, tries, Long.MAX_VALUE);
+        }
+        signal(notFull);
+        return answer;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            long pos = head.get();
+            int index = (int) (pos & mask);
+            long seq = sequences.get(index);
+            if (seq - (pos + 1) < 0) {
+                return null;
+            }
+            Object answer = buffer[index];
+            // only trust the element if the slot was not consumed while we read it
+            if (head.get() == pos && answer != null) {
+                return (E) answer;
+            }
+        }
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = doPoll()) != null) {
+            c.add(e);
+            n++;
+        }
+        if (n > 0) {
+            signal(notFull);
+        }
+        return n;
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            // noop
+        }
+    }
+
+    public int size() {
+        // read head first as it can only move forward, then the size is never negative
+        long h = head.get();
+        long t = tail.get();
+        long size = t - h;
+        if (size < 0) {
+            return 0;
+        }
+        return size > capacity ? capacity : (int) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns a weakly consistent iterator which is a snapshot of the elements in the queue
+     * at the time the iterator was created.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        List<E> answer = new ArrayList<E>(size());
+        long t = tail.get();
+        for (long pos = head.get(); pos < t; pos++) {
+            int index = (int) (pos & mask);
+            // only include slots which has been published and not yet consumed
+            if (sequences.get(index) == pos + 1) {
+                Object e = buffer[index];
+                if (e != null) {
+                    answer.add((E) e);
+                }
+            }
+        }
+        final Iterator<E> it = answer.iterator();
+        return new Iterator<E>() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            public E next() {
+                return it.next();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("Remove is not supported by this iterator");
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferQueue[capacity=" + capacity + ", size=" + size() + ", producerType="
+                + producerType + ", waitStrategy=" + waitStrategy + "]";
+    }
+
+    private boolean doOffer(E e) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                if (producerType == RingBufferProducerType.Single) {
+                    tail.set(pos + 1);
+                    break;
+                } else if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+            } else if (dif < 0) {
+                // the slot has not been consumed yet so we are full
+                return false;
+            }
+            pos = tail.get();
+        }
+        int index = (int) (pos & mask);
+        buffer[index] = e;
+        // publish the element to the consumers
+        sequences.set(index, pos + 1);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E doPoll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+            } else if (dif < 0) {
+                // the slot has not been published yet so we are empty
+                return null;
+            }
+            pos = head.get();
+        }
+        int index = (int) (pos & mask);
+        E answer = (E) buffer[index];
+        buffer[index] = null;
+        // release the slot to the producers for the next lap
+        sequences.set(index, pos + capacity);
+        return answer;
+    }
+
+    private int await(Condition condition, boolean waitForElement, int tries, long nanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        switch (waitStrategy) {
+        case Yield:
+            Thread.yield();
+            return tries + 1;
+        case SpinThenPark:
+            if (tries < SPIN_TRIES) {
+                return tries + 1;
+            }
+            // park with an increasing delay up till the max
+            long park = Math.min(Math.min(nanos, MAX_PARK_NANOS), 1000L << Math.min(tries - SPIN_TRIES, 10));
+            LockSupport.parkNanos(park);
+            return tries + 1;
+        default:
+            lock.lockInterruptibly();
+            try {
+                waiters.incrementAndGet();
+                try {
+                    // check again while holding the lock to not miss a signal
+                    boolean ready = waitForElement ? sequenceReady(head.get(), 1) : sequenceReady(tail.get(), 0);
+                    if (!ready) {
+                        condition.awaitNanos(nanos);
+                    }
+                } finally {
+                    waiters.decrementAndGet();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return tries + 1;
+        }
+    }
+
+    private boolean sequenceReady(long pos, int offset) {
+        return sequences.get((int) (pos & mask)) - (pos + offset) >= 0;
+    }
+
+    private void signal(Condition condition) {
+        // avoid the lock unless there is a thread waiting on the Block strategy
+        if (waitStrategy == RingBufferWaitStrategy.Block && waiters.get() > 0) {
+            lock.lock();
+            try {
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
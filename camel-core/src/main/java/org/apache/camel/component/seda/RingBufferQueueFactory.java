@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A {@link BlockingQueueFactory} which creates {@link RingBufferQueue} queues.
+ * <p/>
+ * A ring buffer is always bounded, so if no capacity is given the {@link #getDefaultCapacity()} is used.
+ *
+ * @version $Revision$
+ */
+public class RingBufferQueueFactory<E> implements BlockingQueueFactory<E> {
+
+    private int defaultCapacity = 1024;
+    private RingBufferProducerType producerType = RingBufferProducerType.Multi;
+    private RingBufferWaitStrategy waitStrategy = RingBufferWaitStrategy.Block;
+
+    public RingBufferQueueFactory() {
+    }
+
+    public RingBufferQueueFactory(RingBufferProducerType producerType, RingBufferWaitStrategy waitStrategy) {
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public BlockingQueue<E> create() {
+        return create(defaultCapacity);
+    }
+
+    public BlockingQueue<E> create(int capacity) {
+        return new RingBufferQueue<E>(capacity, producerType, waitStrategy);
+    }
+
+    public int getDefaultCapacity() {
+        return defaultCapacity;
+    }
+
+    public void setDefaultCapacity(int defaultCapacity) {
+        this.defaultCapacity = defaultCapacity;
+    }
+
+    public RingBufferProducerType getProducerType() {
+        return producerType;
+    }
+
+    public void setProducerType(RingBufferProducerType producerType) {
+        this.producerType = producerType;
+    }
+
+    public RingBufferWaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(RingBufferWaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferQueueFactory[producerType=" + producerType + ", waitStrategy=" + waitStrategy + "]";
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+/**
+ * Represent the strategies a {@link RingBufferQueue} can use when a thread must wait
+ * for the queue to become non empty (or non full).
+ * <ul>
+ *   <li>Block - parks the thread on a lock condition and is signalled when the queue changes</li>
+ *   <li>SpinThenPark - busy spins for a short while and then parks the thread in small increments</li>
+ *   <li>Yield - yields the thread in a loop, which gives the lowest latency at the cost of CPU</li>
+ * </ul>
+ *
+ * @version $Revision$
+ */
+public enum RingBufferWaitStrategy {
+
+    Block, SpinThenPark, Yield
+}
@@ -19,7 +19,6 @@ package org.apache.camel.component.seda;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
@@ -34,25 +33,80 @@ import org.apache.camel.impl.DefaultComponent;
 public class SedaComponent extends DefaultComponent {
     protected final int maxConcurrentConsumers = 500;
     private final Map<String, BlockingQueue<Exchange>> queues = new HashMap<String, BlockingQueue<Exchange>>();
+    private BlockingQueueFactory<Exchange> queueFactory;
 
     public synchronized BlockingQueue<Exchange> createQueue(String uri, Map<String, Object> parameters) {
         String key = getQueueKey(uri);
 
+        // always resolve the queue factory so its options is not left as unknown parameters
+        BlockingQueueFactory<Exchange> factory = resolveQueueFactory(parameters);
+
         if (queues.containsKey(key)) {
             return queues.get(key);
         }
 
         // create queue
-        BlockingQueue<Exchange> queue;
         Integer size = getAndRemoveParameter(parameters, "size", Integer.class);
+        BlockingQueue<Exchange> queue = createQueue(factory, size);
+
+        queues.put(key, queue);
+        return queue;
+    }
+
+    /**
+     * Creates a new queue using the given factory
+     *
+     * @param factory the factory
+     * @param size    optional size to bound the queue
+     * @return the queue
+     */
+    protected BlockingQueue<Exchange> createQueue(BlockingQueueFactory<Exchange> factory, Integer size) {
         if (size != null && size > 0) {
-            queue = new LinkedBlockingQueue<Exchange>(size);
+            return factory.create(size);
         } else {
-            queue = new LinkedBlockingQueue<Exchange>();
+            return factory.create();
         }
+    }
 
-        queues.put(key, queue);
-        return queue;
+    /**
+     * Resolves the {@link BlockingQueueFactory} to use, which is either referred to using the
+     * <tt>queueFactory</tt> option, created from the <tt>queueType</tt> option, or the one configured
+     * on this component.
+     *
+     * @param parameters the parameters, the queue options will be removed
+     * @return the factory to use
+     */
+    @SuppressWarnings("unchecked")
+    protected BlockingQueueFactory<Exchange> resolveQueueFactory(Map<String, Object> parameters) {
+        BlockingQueueFactory<Exchange> factory = resolveAndRemoveReferenceParameter(parameters, "queueFactory", BlockingQueueFactory.class);
+        SedaQueueType type = getAndRemoveParameter(parameters, "queueType", SedaQueueType.class);
+        RingBufferProducerType producerType = getAndRemoveParameter(parameters, "producerType", RingBufferProducerType.class, RingBufferProducerType.Multi);
+        RingBufferWaitStrategy waitStrategy = getAndRemoveParameter(parameters, "waitStrategy", RingBufferWaitStrategy.class, RingBufferWaitStrategy.Block);
+
+        if (factory != null) {
+            return factory;
+        } else if (type == SedaQueueType.RingBuffer) {
+            return new RingBufferQueueFactory<Exchange>(producerType, waitStrategy);
+        } else if (type == SedaQueueType.LinkedBlocking) {
+            return new LinkedBlockingQueueFactory<Exchange>();
+        }
+        return getQueueFactory();
+    }
+
+    public BlockingQueueFactory<Exchange> getQueueFactory() {
+        if (queueFactory == null) {
+            queueFactory = new LinkedBlockingQueueFactory<Exchange>();
+        }
+        return queueFactory;
+    }
+
+    /**
+     * Sets the default {@link BlockingQueueFactory} to use for creating the queues.
+     * <p/>
+     * Is default {@link LinkedBlockingQueueFactory}.
+     */
+    public void setQueueFactory(BlockingQueueFactory<Exchange> queueFactory) {
+        this.queueFactory = queueFactory;
     }
 
     @Override
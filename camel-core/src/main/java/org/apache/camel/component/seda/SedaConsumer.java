@@ -16,18 +16,25 @@
  */
 package org.apache.camel.component.seda;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.AsyncProcessor;
-import org.apache.camel.Consumer;
+import org.apache.camel.BatchConsumer;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.apache.camel.ShutdownRunningTask;
+import org.apache.camel.impl.DefaultExchange;
 import org.apache.camel.impl.LoggingExceptionHandler;
 import org.apache.camel.impl.ServiceSupport;
 import org.apache.camel.impl.converter.AsyncProcessorTypeConverter;
@@ -35,27 +42,44 @@ import org.apache.camel.processor.MulticastProcessor;
 import org.apache.camel.spi.ExceptionHandler;
 import org.apache.camel.spi.ShutdownAware;
 import org.apache.camel.util.AsyncProcessorHelper;
+import org.apache.camel.util.UnitOfWorkHelper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
  * A Consumer for the SEDA component.
+ * <p/>
+ * If the endpoint has been configured with a <tt>pollBatchSize</tt> greater than one, then each consumer thread
+ * will drain up till that number of exchanges from the queue on each wake-up, and process them back-to-back
+ * as a batch. Optionally the drained batch can be grouped into a single {@link Exchange}, in which case
+ * the result of the grouped exchange is copied back to each of the exchanges in the batch.
  *
  * @version $Revision$
  */
-public class SedaConsumer extends ServiceSupport implements Consumer, Runnable, ShutdownAware {
+public class SedaConsumer extends ServiceSupport implements BatchConsumer, Runnable, ShutdownAware {
     private static final transient Log LOG = LogFactory.getLog(SedaConsumer.class);
 
+    // the seda producer uses on completions to know when its done, so the callback can be a noop
+    private static final AsyncCallback NOOP_CALLBACK = new AsyncCallback() {
+        public void done(boolean doneSync) {
+            // noop
+        }
+    };
+
     private CountDownLatch latch;
     private volatile boolean shutdownPending;
     private SedaEndpoint endpoint;
     private AsyncProcessor processor;
     private ExecutorService executor;
     private ExceptionHandler exceptionHandler;
+    private int maxMessagesPerPoll;
+    // number of exchanges drained from the queue which has not yet been processed
+    private final AtomicInteger pendingBatchSize = new AtomicInteger();
 
     public SedaConsumer(SedaEndpoint endpoint, Processor processor) {
         this.endpoint = endpoint;
         this.processor = AsyncProcessorTypeConverter.convert(processor);
+        this.maxMessagesPerPoll = endpoint.getPollBatchSize();
     }
 
     @Override
@@ -89,8 +113,8 @@ public class SedaConsumer extends ServiceSupport implements Consumer, Runnable,
     }
 
     public int getPendingExchangesSize() {
-        // number of pending messages on the queue
-        return endpoint.getQueue().size();
+        // number of pending messages on the queue, and the messages drained from the queue which is not yet processed
+        return endpoint.getQueue().size() + pendingBatchSize.get();
     }
 
     public void prepareShutdown() {
@@ -109,24 +133,42 @@ public class SedaConsumer extends ServiceSupport implements Consumer, Runnable,
         }
     }
 
+    public void setMaxMessagesPerPoll(int maxMessagesPerPoll) {
+        this.maxMessagesPerPoll = maxMessagesPerPoll;
+    }
+
+    public int getMaxMessagesPerPoll() {
+        return maxMessagesPerPoll;
+    }
+
+    public boolean isBatchAllowed() {
+        // the exchanges has already been taken from the queue, so keep processing while we are running
+        return isRunAllowed();
+    }
+
     public void run() {
         BlockingQueue<Exchange> queue = endpoint.getQueue();
+        // reuse the same list for each batch to avoid creating a new list per poll
+        List<Exchange> batch = maxMessagesPerPoll > 1 ? new ArrayList<Exchange>(maxMessagesPerPoll) : null;
+
         // loop while we are allowed, or if we are stopping loop until the queue is empty
         while (queue != null && (isRunAllowed())) {
             Exchange exchange = null;
             try {
                 exchange = queue.poll(1000, TimeUnit.MILLISECONDS);
-                if (exchange != null) {
+                if (exchange != null && batch != null) {
+                    // drain what else is on the queue so we can process them back-to-back
+                    batch.add(exchange);
+                    exchange = null;
+                    queue.drainTo(batch, maxMessagesPerPoll - 1);
+                    pendingBatchSize.addAndGet(batch.size());
                     try {
-                        sendToConsumers(exchange);
-
-                        // log exception if an exception occurred and was not handled
-                        if (exchange.getException() != null) {
-                            getExceptionHandler().handleException("Error processing exchange", exchange, exchange.getException());
-                        }
-                    } catch (Exception e) {
-                        getExceptionHandler().handleException("Error processing exchange", exchange, e);
+                        doProcessBatch(batch);
+                    } finally {
+                        batch.clear();
                     }
+                } else if (exchange != null) {
+                    processExchange(exchange);
                 } else if (shutdownPending && queue.isEmpty()) {
                     if (LOG.isTraceEnabled()) {
                         LOG.trace("Shutdown is pending, so this consumer thread is breaking out because the task queue is empty.");
@@ -154,6 +196,132 @@ public class SedaConsumer extends ServiceSupport implements Consumer, Runnable,
         }
     }
 
+    @SuppressWarnings("unchecked")
+    public int processBatch(Queue<Object> exchanges) throws Exception {
+        List<Exchange> batch = new ArrayList<Exchange>(exchanges.size());
+        while (!exchanges.isEmpty()) {
+            batch.add((Exchange) exchanges.poll());
+        }
+        pendingBatchSize.addAndGet(batch.size());
+        return doProcessBatch(batch);
+    }
+
+    /**
+     * Processes the batch of exchanges which has been drained from the queue.
+     *
+     * @param exchanges the exchanges
+     * @return number of exchanges processed
+     */
+    protected int doProcessBatch(List<Exchange> exchanges) {
+        int total = exchanges.size();
+
+        if (endpoint.isGroupExchanges()) {
+            // the grouped exchange is now in flight
+            pendingBatchSize.addAndGet(-total);
+            processGroupedExchange(exchanges);
+            return total;
+        }
+
+        for (int index = 0; index < total; index++) {
+            Exchange exchange = exchanges.get(index);
+            if (!isBatchAllowed() && LOG.isDebugEnabled()) {
+                // the exchanges has already been taken from the queue, so we must process them to not lose them
+                LOG.debug("Processing exchange " + (index + 1) + " of " + total + " drained from the queue while stopping: " + exchange);
+            }
+            // the exchange is now in flight
+            pendingBatchSize.decrementAndGet();
+
+            // add current index and total as properties
+            exchange.setProperty(Exchange.BATCH_INDEX, index);
+            exchange.setProperty(Exchange.BATCH_SIZE, total);
+            exchange.setProperty(Exchange.BATCH_COMPLETE, index == total - 1);
+
+            processExchange(exchange);
+        }
+        return total;
+    }
+
+    /**
+     * Processes the batch as a single {@link Exchange} which has the exchanges in the batch stored as a
+     * property with the key {@link Exchange#GROUPED_EXCHANGE}, in the same way as the
+     * {@link org.apache.camel.processor.aggregate.GroupedExchangeAggregationStrategy}.
+     * <p/>
+     * When the grouped exchange is done, then its result or exception is copied back to each of the exchanges
+     * in the batch, and their on completions is invoked, which also signals any waiting producers.
+     *
+     * @param exchanges the exchanges
+     */
+    protected void processGroupedExchange(List<Exchange> exchanges) {
+        // copy the exchanges as the batch list is reused for the next poll, while the grouped exchange
+        // may still be routed asynchronously
+        final List<Exchange> group = new ArrayList<Exchange>(exchanges);
+        final Exchange grouped = new DefaultExchange(endpoint);
+        grouped.setProperty(Exchange.GROUPED_EXCHANGE, group);
+        grouped.setProperty(Exchange.BATCH_SIZE, group.size());
+        for (Exchange exchange : group) {
+            if (exchange.getPattern().isOutCapable()) {
+                // a producer is waiting for a reply so the grouped exchange must be able to reply
+                grouped.setPattern(ExchangePattern.InOut);
+                break;
+            }
+        }
+
+        try {
+            sendToConsumers(grouped, new AsyncCallback() {
+                public void done(boolean doneSync) {
+                    // log exception if an exception occurred and was not handled
+                    if (grouped.getException() != null) {
+                        getExceptionHandler().handleException("Error processing exchange", grouped, grouped.getException());
+                    }
+                    doneGroupedExchange(grouped, group);
+                }
+            });
+        } catch (Exception e) {
+            getExceptionHandler().handleException("Error processing exchange", grouped, e);
+            grouped.setException(e);
+            doneGroupedExchange(grouped, group);
+        }
+    }
+
+    /**
+     * Copies the result or exception of the grouped exchange back to each of the exchanges in the group,
+     * and invokes their on completions.
+     *
+     * @param grouped   the grouped exchange which is done
+     * @param exchanges the exchanges in the group
+     */
+    protected void doneGroupedExchange(Exchange grouped, List<Exchange> exchanges) {
+        Message result = grouped.hasOut() ? grouped.getOut() : grouped.getIn();
+        for (Exchange exchange : exchanges) {
+            if (grouped.getException() != null) {
+                if (exchange.getException() == null) {
+                    exchange.setException(grouped.getException());
+                }
+            } else if (exchange.getPattern().isOutCapable()) {
+                exchange.getOut().copyFrom(result);
+            }
+            UnitOfWorkHelper.doneSynchronizations(exchange, exchange.handoverCompletions(), LOG);
+        }
+    }
+
+    /**
+     * Processes the given exchange and handles any thrown exception using the {@link ExceptionHandler}
+     *
+     * @param exchange the exchange
+     */
+    protected void processExchange(Exchange exchange) {
+        try {
+            sendToConsumers(exchange);
+
+            // log exception if an exception occurred and was not handled
+            if (exchange.getException() != null) {
+                getExceptionHandler().handleException("Error processing exchange", exchange, exchange.getException());
+            }
+        } catch (Exception e) {
+            getExceptionHandler().handleException("Error processing exchange", exchange, e);
+        }
+    }
+
     /**
      * Send the given {@link Exchange} to the consumer(s).
      * <p/>
@@ -166,6 +334,18 @@ public class SedaConsumer extends ServiceSupport implements Consumer, Runnable,
      * @throws Exception can be thrown if processing of the exchange failed
      */
     protected void sendToConsumers(Exchange exchange) throws Exception {
+        sendToConsumers(exchange, NOOP_CALLBACK);
+    }
+
+    /**
+     * Send the given {@link Exchange} to the consumer(s), and invokes the callback when the exchange is done,
+     * which may be after this method has returned if the exchange is routed asynchronously.
+     *
+     * @param exchange the exchange
+     * @param callback the callback
+     * @throws Exception can be thrown if processing of the exchange failed
+     */
+    protected void sendToConsumers(Exchange exchange, AsyncCallback callback) throws Exception {
         int size = endpoint.getConsumers().size();
 
         // if there are multiple consumers then multicast to them
@@ -179,18 +359,10 @@ public class SedaConsumer extends ServiceSupport implements Consumer, Runnable,
             MulticastProcessor mp = endpoint.getConsumerMulticastProcessor();
 
             // and use the asynchronous routing engine to support it
-            AsyncProcessorHelper.process(mp, exchange, new AsyncCallback() {
-                public void done(boolean doneSync) {
-                    // noop
-                }
-            });
+            AsyncProcessorHelper.process(mp, exchange, callback);
         } else {
             // use the regular processor and use the asynchronous routing engine to support it
-            AsyncProcessorHelper.process(processor, exchange, new AsyncCallback() {
-                public void done(boolean doneSync) {
-                    // noop
-                }
-            });
+            AsyncProcessorHelper.process(processor, exchange, callback);
         }
     }
 
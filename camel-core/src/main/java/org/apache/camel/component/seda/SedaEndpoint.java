@@ -23,7 +23,6 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.camel.Component;
 import org.apache.camel.Consumer;
@@ -46,8 +45,11 @@ import org.apache.camel.util.ServiceHelper;
  */
 public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint, MultipleConsumersSupport {
     private volatile BlockingQueue<Exchange> queue;
+    private BlockingQueueFactory<Exchange> queueFactory;
     private int size;
     private int concurrentConsumers = 1;
+    private int pollBatchSize = 1;
+    private boolean groupExchanges;
     private volatile ExecutorService multicastExecutor;
     private boolean multipleConsumers;
     private WaitForTaskToComplete waitForTaskToComplete = WaitForTaskToComplete.IfReplyExpected;
@@ -92,10 +94,11 @@ public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint,
 
     public synchronized BlockingQueue<Exchange> getQueue() {
         if (queue == null) {
+            BlockingQueueFactory<Exchange> factory = getQueueFactory();
             if (size > 0) {
-                queue = new LinkedBlockingQueue<Exchange>(size);
+                queue = factory.create(size);
             } else {
-                queue = new LinkedBlockingQueue<Exchange>();
+                queue = factory.create();
             }
         }
         return queue;
@@ -145,6 +148,20 @@ public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint,
         this.size = queue.remainingCapacity();
     }
 
+    public BlockingQueueFactory<Exchange> getQueueFactory() {
+        if (queueFactory == null) {
+            queueFactory = new LinkedBlockingQueueFactory<Exchange>();
+        }
+        return queueFactory;
+    }
+
+    /**
+     * Sets the {@link BlockingQueueFactory} to use for creating the queue, if no queue has been set.
+     */
+    public void setQueueFactory(BlockingQueueFactory<Exchange> queueFactory) {
+        this.queueFactory = queueFactory;
+    }
+
     public int getSize() {
         return size;
     }
@@ -161,6 +178,34 @@ public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint,
         return concurrentConsumers;
     }
 
+    public int getPollBatchSize() {
+        return pollBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of exchanges each consumer thread will drain from the queue
+     * and process back-to-back on each wake-up.
+     * <p/>
+     * Is default 1 which processes the exchanges one by one.
+     */
+    public void setPollBatchSize(int pollBatchSize) {
+        this.pollBatchSize = pollBatchSize;
+    }
+
+    public boolean isGroupExchanges() {
+        return groupExchanges;
+    }
+
+    /**
+     * Whether the consumer should process each drained batch as a single grouped {@link Exchange}
+     * with the exchanges stored as a property with the key {@link Exchange#GROUPED_EXCHANGE}.
+     * <p/>
+     * This requires the <tt>pollBatchSize</tt> option to be greater than one.
+     */
+    public void setGroupExchanges(boolean groupExchanges) {
+        this.groupExchanges = groupExchanges;
+    }
+
     public WaitForTaskToComplete getWaitForTaskToComplete() {
         return waitForTaskToComplete;
     }
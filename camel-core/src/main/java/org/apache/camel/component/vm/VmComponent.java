@@ -19,10 +19,10 @@ package org.apache.camel.component.vm;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.camel.Exchange;
+import org.apache.camel.component.seda.BlockingQueueFactory;
 import org.apache.camel.component.seda.SedaComponent;
 
 /**
@@ -41,18 +41,16 @@ public class VmComponent extends SedaComponent {
     public synchronized BlockingQueue<Exchange> createQueue(String uri, Map<String, Object> parameters) {
         String key = getQueueKey(uri);
 
+        // always resolve the queue factory so its options is not left as unknown parameters
+        BlockingQueueFactory<Exchange> factory = resolveQueueFactory(parameters);
+
         if (QUEUES.containsKey(key)) {
             return QUEUES.get(key);
         }
 
         // create queue
-        BlockingQueue<Exchange> queue;
         Integer size = getAndRemoveParameter(parameters, "size", Integer.class);
-        if (size != null && size > 0) {
-            queue = new LinkedBlockingQueue<Exchange>(size);
-        } else {
-            queue = new LinkedBlockingQueue<Exchange>();
-        }
+        BlockingQueue<Exchange> queue = createQueue(factory, size);
 
         QUEUES.put(key, queue);
         return queue;
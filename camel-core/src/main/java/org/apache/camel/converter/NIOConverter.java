@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.apache.camel.Converter;
 import org.apache.camel.Exchange;
@@ -48,12 +49,18 @@ public final class NIOConverter {
 
     @Converter
     public static byte[] toByteArray(ByteBuffer buffer) {
-        return buffer.array();
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+        // a direct or memory mapped buffer has no array so copy its content
+        byte[] answer = new byte[buffer.remaining()];
+        buffer.duplicate().get(answer);
+        return answer;
     }
 
     @Converter
     public static String toString(ByteBuffer buffer, Exchange exchange) throws IOException {
-        return IOConverter.toString(buffer.array(), exchange);
+        return IOConverter.toString(toByteArray(buffer), exchange);
     }
 
     @Converter
@@ -80,6 +87,27 @@ public final class NIOConverter {
         }
     }
 
+    /**
+     * Memory maps the given file as a read only buffer.
+     * <p/>
+     * This is not used as a type converter, as the mapping is only released when the buffer is garbage collected,
+     * and until then the file cannot be deleted or renamed on some platforms. Callers must opt in explicitly.
+     *
+     * @param file the file
+     * @return the buffer
+     * @throws IOException is thrown if the file could not be mapped
+     */
+    public static ByteBuffer toMappedByteBuffer(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOHelper.close(in, "Failed to close file stream: " + file.getPath(), LOG);
+        }
+    }
+
     @Converter
     public static ByteBuffer toByteBuffer(String value, Exchange exchange) {
         ByteBuffer buf = ByteBuffer.allocate(value.length());
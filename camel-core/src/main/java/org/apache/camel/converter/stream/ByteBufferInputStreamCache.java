@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.camel.StreamCache;
+
+/**
+ * A {@link StreamCache} reading from a list of {@link ByteBuffer}s such as direct memory chunks
+ * or memory mapped regions of a file.
+ * <p/>
+ * The buffers are read through their own views, so the cache can be reset and read again without
+ * copying the content. When reading direct memory chunks the chunks are retained from the
+ * {@link DirectBufferOutputStream}, so they are never reused while this cache can still be read.
+ */
+public class ByteBufferInputStreamCache extends InputStream implements StreamCache {
+    private final List<ByteBuffer> buffers;
+    private int index;
+
+    public ByteBufferInputStreamCache(List<ByteBuffer> buffers) {
+        this.buffers = new ArrayList<ByteBuffer>(buffers.size());
+        for (ByteBuffer buffer : buffers) {
+            this.buffers.add(buffer.duplicate());
+        }
+    }
+
+    public ByteBufferInputStreamCache(DirectBufferOutputStream owner) {
+        this(owner.retainBuffers());
+    }
+
+    @Override
+    public void reset() {
+        for (ByteBuffer buffer : buffers) {
+            buffer.rewind();
+        }
+        index = 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public void writeTo(OutputStream os) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(os);
+        for (ByteBuffer buffer : buffers) {
+            ByteBuffer view = buffer.duplicate();
+            view.rewind();
+            while (view.hasRemaining()) {
+                channel.write(view);
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer buffer = current();
+        if (buffer == null) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = current();
+        if (buffer == null) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        ByteBuffer buffer;
+        while (skipped < n && (buffer = current()) != null) {
+            int step = (int) Math.min(n - skipped, buffer.remaining());
+            buffer.position(buffer.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        long answer = 0;
+        for (int i = index; i < buffers.size(); i++) {
+            answer += buffers.get(i).remaining();
+        }
+        return (int) Math.min(answer, Integer.MAX_VALUE);
+    }
+
+    private ByteBuffer current() {
+        while (index < buffers.size()) {
+            ByteBuffer buffer = buffers.get(index);
+            if (buffer.hasRemaining()) {
+                return buffer;
+            }
+            index++;
+        }
+        return null;
+    }
+
+}
@@ -20,15 +20,23 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.StreamCache;
 import org.apache.camel.impl.SynchronizationAdapter;
+import org.apache.camel.spi.StreamCacheManager;
 import org.apache.camel.util.FileUtil;
 import org.apache.camel.util.IOHelper;
 import org.apache.commons.logging.Log;
@@ -42,10 +50,20 @@ import org.apache.commons.logging.LogFactory;
  * You can get a cached input stream of this stream. The temp file which is created with this 
  * output stream will be deleted when you close this output stream or the all cached 
  * fileInputStream is closed after the exchange is completed.
+ * <p/>
+ * If the DIRECT property is set to <tt>true</tt> and the stream is closed on completion, the content is
+ * cached in pooled direct buffers outside the heap, as long as the memory budget of the {@link DirectBufferPool} shared by all
+ * streams is not exhausted, and the temp file is memory mapped when read. The cached content can
+ * then be read again without being copied.
+ * <p/>
+ * When the {@link StreamCacheManager} of the {@link org.apache.camel.CamelContext} has a budget, the memory and
+ * disk used is reported to it, and it may spool this stream to disk before the threshold is reached, as long as
+ * its content has not yet been handed out as a stream cache.
  */
 public class CachedOutputStream extends OutputStream {
     public static final String THRESHOLD = "CamelCachedOutputStreamThreshold";
     public static final String TEMP_DIR = "CamelCachedOutputStreamOutputDirectory";
+    public static final String DIRECT = "CamelCachedOutputStreamDirect";
     private static final transient Log LOG = LogFactory.getLog(CachedOutputStream.class);
     
     private OutputStream currentStream = new ByteArrayOutputStream(2048);
@@ -53,6 +71,17 @@ public class CachedOutputStream extends OutputStream {
     private int totalLength;
     private File tempFile;
     private FileInputStreamCache fileInputStreamCache;
+    private DirectBufferOutputStream directStream;
+    private List<ByteBuffer> mappedBuffers;
+    private final StreamCacheManager manager;
+    private final StreamCacheManager.SpoolableCache spoolable = new Spoolable();
+    private final long sequence;
+    private final boolean tracked;
+    // guards the stream as the manager may spool it from another thread
+    private final Lock lock = new ReentrantLock();
+    private volatile long memorySize;
+    private long diskSize;
+    private boolean handedOut;
 
     private long threshold = 64 * 1024;
     private File outputDir;
@@ -64,12 +93,28 @@ public class CachedOutputStream extends OutputStream {
     public CachedOutputStream(Exchange exchange, boolean closedOnCompletion) {
         String hold = exchange.getContext().getProperties().get(THRESHOLD);
         String dir = exchange.getContext().getProperties().get(TEMP_DIR);
+        String direct = exchange.getContext().getProperties().get(DIRECT);
         if (hold != null) {
             this.threshold = exchange.getContext().getTypeConverter().convertTo(Long.class, hold);
         }
         if (dir != null) {
             this.outputDir = exchange.getContext().getTypeConverter().convertTo(File.class, dir);
         }
+        // direct buffers are only used when the stream can spool to disk if the memory budget is exhausted,
+        // and is closed on completion, as the buffers would otherwise never be released back to the pool
+        if ("true".equalsIgnoreCase(direct) && threshold > 0 && closedOnCompletion) {
+            directStream = new DirectBufferOutputStream(DirectBufferPool.getDefault());
+            currentStream = directStream;
+        }
+
+        manager = exchange.getContext().getStreamCacheManager();
+        // only report to the manager when it has a budget to keep, to not slow down writing
+        tracked = manager.isTracking();
+        sequence = tracked ? manager.nextSequence() : 0;
+        if (tracked) {
+            // let the manager request to spool to disk if the memory budget is exceeded
+            manager.add(spoolable);
+        }
         
         if (closedOnCompletion) {
             // add on completion so we can cleanup after the exchange is done such as deleting temporary files
@@ -95,12 +140,40 @@ public class CachedOutputStream extends OutputStream {
     }
 
     public void flush() throws IOException {
-        currentStream.flush();       
+        lock.lock();
+        try {
+            currentStream.flush();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void close() throws IOException {
-        currentStream.close();
-        cleanUpTempFile();
+        lock.lock();
+        try {
+            currentStream.close();
+            if (directStream != null) {
+                // return the direct buffers to the pool
+                directStream.close();
+            }
+            mappedBuffers = null;
+            cleanUpTempFile();
+
+            // report the released memory and disk
+            if (tracked) {
+                manager.remove(spoolable);
+                if (memorySize > 0) {
+                    manager.memoryChanged(spoolable, -memorySize);
+                }
+                if (diskSize > 0) {
+                    manager.diskChanged(spoolable, -diskSize);
+                }
+            }
+            memorySize = 0;
+            diskSize = 0;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean equals(Object obj) {
@@ -116,47 +189,62 @@ public class CachedOutputStream extends OutputStream {
     }
 
     public void write(byte[] b, int off, int len) throws IOException {
-        this.totalLength += len;
-        if (threshold > 0 && inMemory && totalLength > threshold && currentStream instanceof ByteArrayOutputStream) {
-            pageToFileStream();
+        lock.lock();
+        try {
+            beforeWrite(len);
+            currentStream.write(b, off, len);
+        } finally {
+            lock.unlock();
         }
-        currentStream.write(b, off, len);
     }
 
     public void write(byte[] b) throws IOException {
-        this.totalLength += b.length;
-        if (threshold > 0 && inMemory && totalLength > threshold && currentStream instanceof ByteArrayOutputStream) {
-            pageToFileStream();
+        lock.lock();
+        try {
+            beforeWrite(b.length);
+            currentStream.write(b);
+        } finally {
+            lock.unlock();
         }
-        currentStream.write(b);
     }
 
     public void write(int b) throws IOException {
-        this.totalLength++;
-        if (threshold > 0 && inMemory && totalLength > threshold && currentStream instanceof ByteArrayOutputStream) {
-            pageToFileStream();
+        lock.lock();
+        try {
+            beforeWrite(1);
+            currentStream.write(b);
+        } finally {
+            lock.unlock();
         }
-        currentStream.write(b);
     }
 
     public InputStream getInputStream() throws IOException {
-        flush();
+        lock.lock();
+        try {
+            flush();
 
-        if (inMemory) {
-            if (currentStream instanceof ByteArrayOutputStream) {
-                return new ByteArrayInputStream(((ByteArrayOutputStream) currentStream).toByteArray());
+            if (isDirectStreamCache()) {
+                return getDirectStreamCache();
+            } else if (inMemory) {
+                if (currentStream instanceof ByteArrayOutputStream) {
+                    // the content is handed out so spooling would no longer release the memory
+                    handedOut = true;
+                    return new ByteArrayInputStream(((ByteArrayOutputStream) currentStream).toByteArray());
+                } else {
+                    throw new IllegalStateException("CurrentStream should be an instance of ByteArrayOutputStream but is: " + currentStream.getClass().getName());
+                }
             } else {
-                throw new IllegalStateException("CurrentStream should be an instance of ByteArrayOutputStream but is: " + currentStream.getClass().getName());
-            }
-        } else {
-            try {
-                if (fileInputStreamCache == null) {
-                    fileInputStreamCache = new FileInputStreamCache(tempFile);
+                try {
+                    if (fileInputStreamCache == null) {
+                        fileInputStreamCache = new FileInputStreamCache(tempFile);
+                    }
+                    return fileInputStreamCache;
+                } catch (FileNotFoundException e) {
+                    throw IOHelper.createIOException("Cached file " + tempFile + " not found", e);
                 }
-                return fileInputStreamCache;
-            } catch (FileNotFoundException e) {
-                throw IOHelper.createIOException("Cached file " + tempFile + " not found", e);
             }
+        } finally {
+            lock.unlock();
         }
     }    
     
@@ -167,26 +255,101 @@ public class CachedOutputStream extends OutputStream {
 
 
     public StreamCache getStreamCache() throws IOException {
-        flush();
+        lock.lock();
+        try {
+            flush();
 
-        if (inMemory) {
-            if (currentStream instanceof ByteArrayOutputStream) {
-                return new InputStreamCache(((ByteArrayOutputStream) currentStream).toByteArray());
+            if (isDirectStreamCache()) {
+                return getDirectStreamCache();
+            } else if (inMemory) {
+                if (currentStream instanceof ByteArrayOutputStream) {
+                    // the content is handed out so spooling would no longer release the memory
+                    handedOut = true;
+                    return new InputStreamCache(((ByteArrayOutputStream) currentStream).toByteArray());
+                } else {
+                    throw new IllegalStateException("CurrentStream should be an instance of ByteArrayOutputStream but is: " + currentStream.getClass().getName());
+                }
             } else {
-                throw new IllegalStateException("CurrentStream should be an instance of ByteArrayOutputStream but is: " + currentStream.getClass().getName());
+                try {
+                    if (fileInputStreamCache == null) {
+                        fileInputStreamCache = new FileInputStreamCache(tempFile);
+                    }
+                    return fileInputStreamCache;
+                } catch (FileNotFoundException e) {
+                    throw IOHelper.createIOException("Cached file " + tempFile + " not found", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void beforeWrite(int len) throws IOException {
+        this.totalLength += len;
+        if (isPageToFile(len)) {
+            pageToFileStream();
+        }
+
+        if (inMemory) {
+            memorySize += len;
+            if (tracked) {
+                manager.memoryChanged(spoolable, len);
             }
         } else {
-            try {
-                if (fileInputStreamCache == null) {
-                    fileInputStreamCache = new FileInputStreamCache(tempFile);
-                }
-                return fileInputStreamCache;
-            } catch (FileNotFoundException e) {
-                throw IOHelper.createIOException("Cached file " + tempFile + " not found", e);
+            diskSize += len;
+            if (tracked) {
+                manager.diskChanged(spoolable, len);
             }
         }
     }
 
+    private boolean isPageToFile(int len) {
+        if (threshold <= 0 || !inMemory) {
+            return false;
+        }
+        if (directStream != null) {
+            // spool when the stream is too large or the direct memory budget is exhausted
+            return totalLength > threshold || !directStream.ensureCapacity(len);
+        }
+        return totalLength > threshold && currentStream instanceof ByteArrayOutputStream;
+    }
+
+    private boolean isDirectStreamCache() {
+        // do not memory map on Windows as a mapped file cannot be deleted until the mapping is garbage collected
+        return directStream != null && (inMemory || !FileUtil.isWindows());
+    }
+
+    private ByteBufferInputStreamCache getDirectStreamCache() throws IOException {
+        if (inMemory) {
+            // the content is handed out so spooling would no longer release the memory
+            handedOut = true;
+            // retain the chunks so they are not reused by other streams while the cache can still be read,
+            // for example after the exchange is completed
+            return new ByteBufferInputStreamCache(directStream);
+        }
+        if (mappedBuffers == null) {
+            mappedBuffers = mapTempFile();
+        }
+        return new ByteBufferInputStreamCache(mappedBuffers);
+    }
+
+    private List<ByteBuffer> mapTempFile() throws IOException {
+        FileInputStream fis = new FileInputStream(tempFile);
+        try {
+            FileChannel channel = fis.getChannel();
+            long size = channel.size();
+            List<ByteBuffer> answer = new ArrayList<ByteBuffer>();
+            // a mapped region cannot be larger than 2gb so map large files in several regions
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                long length = Math.min(Integer.MAX_VALUE, size - position);
+                answer.add(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+            }
+            return answer;
+        } finally {
+            IOHelper.close(fis, "Failed to close cached file: " + tempFile, LOG);
+        }
+    }
+
     private void cleanUpTempFile() {
         // cleanup temporary file
         if (tempFile != null) {
@@ -198,7 +361,6 @@ public class CachedOutputStream extends OutputStream {
     private void pageToFileStream() throws IOException {
         flush();
 
-        ByteArrayOutputStream bout = (ByteArrayOutputStream)currentStream;
         if (outputDir == null) {
             tempFile = FileUtil.createTempFile("cos", ".tmp");
         } else {
@@ -210,14 +372,67 @@ public class CachedOutputStream extends OutputStream {
         }
 
         try {
-            currentStream = new BufferedOutputStream(new FileOutputStream(tempFile));
-            bout.writeTo(currentStream);
+            if (directStream != null) {
+                // write the direct buffers to the file without copying them into the heap
+                FileOutputStream fos = new FileOutputStream(tempFile);
+                directStream.writeTo(fos.getChannel());
+                directStream.close();
+                currentStream = new BufferedOutputStream(fos);
+            } else {
+                ByteArrayOutputStream bout = (ByteArrayOutputStream) currentStream;
+                currentStream = new BufferedOutputStream(new FileOutputStream(tempFile));
+                bout.writeTo(currentStream);
+            }
         } finally {
             // ensure flag is flipped to file based
             inMemory = false;
         }
+
+        // the memory is now on disk
+        if (tracked) {
+            manager.spooled(spoolable, memorySize);
+        }
+        diskSize += memorySize;
+        memorySize = 0;
     }
     
+    // The handle the StreamCacheManager uses to request this stream to spool
+    private final class Spoolable implements StreamCacheManager.SpoolableCache {
+
+        public long getMemorySize() {
+            return memorySize;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public boolean requestSpool() {
+            // do not wait for a stream which is being written or read by another thread
+            if (!lock.tryLock()) {
+                return false;
+            }
+            try {
+                // the memory of content which has been handed out is not released by spooling
+                if (!inMemory || threshold <= 0 || handedOut || memorySize <= 0) {
+                    return false;
+                }
+                pageToFileStream();
+                return true;
+            } catch (IOException e) {
+                LOG.warn("Error spooling stream cache to disk: " + CachedOutputStream.this, e);
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return CachedOutputStream.this.toString();
+        }
+    }
+
     // This class will close the CachedOutputStream when it is closed
     private class WrappedInputStream extends InputStream {
         private CachedOutputStream cachedOutputStream;
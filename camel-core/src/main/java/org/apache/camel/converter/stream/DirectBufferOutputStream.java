@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An output stream which writes into direct {@link ByteBuffer} chunks acquired from a {@link DirectBufferPool}.
+ * <p/>
+ * Callers must invoke {@link #ensureCapacity(int)} before writing, and spool elsewhere if it returns <tt>false</tt>.
+ * <p/>
+ * The content can be read by readers obtained from {@link #retainBuffers()}. The chunks are only given back to
+ * the pool for reuse if no reader has been handed out when this stream is closed, otherwise the chunks
+ * are discarded, as a {@link org.apache.camel.StreamCache} can be reset and read again at any time, also after
+ * it has been closed.
+ */
+public class DirectBufferOutputStream extends OutputStream {
+    private final DirectBufferPool pool;
+    private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+    private int index = -1;
+    private long size;
+    private boolean retained;
+    private boolean closed;
+
+    public DirectBufferOutputStream(DirectBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Ensures there is room to write the given number of bytes by acquiring chunks from the pool.
+     *
+     * @param len the number of bytes to be written
+     * @return <tt>true</tt> if there is room, <tt>false</tt> if the pool is exhausted
+     */
+    public boolean ensureCapacity(int len) {
+        int room = 0;
+        for (int i = Math.max(index, 0); i < chunks.size(); i++) {
+            room += chunks.get(i).remaining();
+        }
+        while (room < len) {
+            ByteBuffer chunk = pool.acquire();
+            if (chunk == null) {
+                return false;
+            }
+            chunks.add(chunk);
+            room += chunk.remaining();
+        }
+        return true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        nextChunk().put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ByteBuffer chunk = nextChunk();
+            int n = Math.min(len, chunk.remaining());
+            chunk.put(b, off, n);
+            off += n;
+            len -= n;
+            size += n;
+        }
+    }
+
+    /**
+     * Writes the content to the given channel, such as the file channel of a temporary file when spooling.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        for (ByteBuffer buffer : getBuffers()) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Gets read only views of the content for a reader, which can keep reading the content after this stream
+     * is closed, as the chunks are then no longer reused by the pool.
+     */
+    public synchronized List<ByteBuffer> retainBuffers() {
+        retained = true;
+        return getBuffers();
+    }
+
+    /**
+     * Gets read only views of the content, which can be read without copying the content.
+     * The views must no longer be used after this stream is closed, use {@link #retainBuffers()} for that.
+     */
+    public synchronized List<ByteBuffer> getBuffers() {
+        List<ByteBuffer> answer = new ArrayList<ByteBuffer>(chunks.size());
+        for (ByteBuffer chunk : chunks) {
+            if (chunk.position() == 0) {
+                break;
+            }
+            ByteBuffer view = chunk.asReadOnlyBuffer();
+            view.flip();
+            answer.add(view);
+        }
+        return answer;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Releases the chunks back to the pool, or discards them if they have been retained by a reader.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer chunk : chunks) {
+            if (retained) {
+                // the chunks may still be read so they must never be reused by other streams
+                pool.discard(chunk);
+            } else {
+                pool.release(chunk);
+            }
+        }
+        chunks.clear();
+        index = -1;
+    }
+
+    private ByteBuffer nextChunk() throws IOException {
+        if (index < 0 || !chunks.get(index).hasRemaining()) {
+            if (index + 1 >= chunks.size()) {
+                throw new IOException("No room in direct buffers, ensureCapacity must be invoked before writing");
+            }
+            index++;
+        }
+        return chunks.get(index);
+    }
+
+    @Override
+    public String toString() {
+        return "DirectBufferOutputStream[size: " + size + "]";
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of fixed size direct {@link ByteBuffer} chunks used by {@link CachedOutputStream} to cache
+ * streams outside the heap.
+ * <p/>
+ * The pool has a memory budget which is shared by all the streams using it, so when the budget is
+ * exhausted {@link #acquire()} returns <tt>null</tt> and the stream must spool to disk instead.
+ * Released chunks are kept for reuse as allocating direct memory is expensive.
+ */
+public class DirectBufferPool {
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+    public static final long DEFAULT_MAX_CAPACITY = 64 * 1024 * 1024;
+
+    private static final DirectBufferPool DEFAULT = new DirectBufferPool(DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CAPACITY);
+
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicLong used = new AtomicLong();
+    private final int chunkSize;
+    private volatile long maxCapacity;
+
+    public DirectBufferPool(int chunkSize, long maxCapacity) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("ChunkSize must be positive, was: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * Gets the pool shared by all the streams in this JVM.
+     */
+    public static DirectBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Acquires a cleared chunk from the pool.
+     *
+     * @return the chunk, or <tt>null</tt> if the memory budget has been exhausted
+     */
+    public ByteBuffer acquire() {
+        // reserve the memory first so concurrent callers cannot exceed the budget
+        long size = used.addAndGet(chunkSize);
+        if (size > maxCapacity) {
+            used.addAndGet(-chunkSize);
+            return null;
+        }
+
+        ByteBuffer chunk = free.poll();
+        if (chunk == null) {
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+        }
+        chunk.clear();
+        return chunk;
+    }
+
+    /**
+     * Releases the chunk back to the pool. The chunk must not be used afterwards.
+     *
+     * @param chunk the chunk acquired from this pool
+     */
+    public void release(ByteBuffer chunk) {
+        used.addAndGet(-chunkSize);
+        // only keep as many chunks as the budget allows, if the budget has been lowered
+        if ((free.size() + 1L) * chunkSize <= maxCapacity) {
+            free.offer(chunk);
+        }
+    }
+
+    /**
+     * Discards the chunk instead of releasing it back to the pool, which is used when the chunk may still
+     * be read by others. The memory budget of the chunk is released, but the chunk is not reused.
+     *
+     * @param chunk the chunk acquired from this pool
+     */
+    public void discard(ByteBuffer chunk) {
+        used.addAndGet(-chunkSize);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * Sets the memory budget in bytes shared by all the streams using this pool.
+     */
+    public void setMaxCapacity(long maxCapacity) {
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * Gets the number of bytes currently acquired from this pool.
+     */
+    public long getUsed() {
+        return used.get();
+    }
+
+    @Override
+    public String toString() {
+        return "DirectBufferPool[used: " + used.get() + ", max: " + maxCapacity + "]";
+    }
+}
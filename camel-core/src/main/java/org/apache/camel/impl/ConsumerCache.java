@@ -17,6 +17,7 @@
 package org.apache.camel.impl;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
@@ -53,8 +54,19 @@ public class ConsumerCache extends ServiceSupport {
         this.consumers = cache;
     }
 
-    public synchronized PollingConsumer getConsumer(Endpoint endpoint) {
+    public PollingConsumer getConsumer(Endpoint endpoint) {
         String key = endpoint.getEndpointUri();
+        if (consumers instanceof ConcurrentMap) {
+            // the cache is thread safe so we can lookup without locking
+            PollingConsumer answer = consumers.get(key);
+            if (answer != null) {
+                return answer;
+            }
+        }
+        return doGetOrCreateConsumer(endpoint, key);
+    }
+
+    private synchronized PollingConsumer doGetOrCreateConsumer(Endpoint endpoint, String key) {
         PollingConsumer answer = consumers.get(key);
         if (answer == null) {
             try {
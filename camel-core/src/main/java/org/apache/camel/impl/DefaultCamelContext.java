@@ -35,6 +35,7 @@ import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.naming.Context;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Unmarshaller;
@@ -110,12 +111,14 @@ import org.apache.camel.spi.RouteContext;
 import org.apache.camel.spi.RouteStartupOrder;
 import org.apache.camel.spi.ServicePool;
 import org.apache.camel.spi.ShutdownStrategy;
+import org.apache.camel.spi.StreamCacheManager;
 import org.apache.camel.spi.TypeConverterRegistry;
 import org.apache.camel.spi.UuidGenerator;
 import org.apache.camel.util.CamelContextHelper;
 import org.apache.camel.util.CastUtils;
 import org.apache.camel.util.EndpointHelper;
 import org.apache.camel.util.EventHelper;
+import org.apache.camel.util.LRUCache;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.ReflectionInjector;
 import org.apache.camel.util.ServiceHelper;
@@ -137,6 +140,10 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
     private String managementName;
     private ClassLoader applicationContextClassLoader;
     private final Map<EndpointKey, Endpoint> endpoints = new EndpointRegistry();
+    // cache of uris which has been normalized, as the uris for dynamic endpoints is resolved over and over again
+    private final Map<String, String> normalizedEndpointUris = new LRUCache<String, String>(1000, 1000, false);
+    private final AtomicLong endpointUriCacheHits = new AtomicLong();
+    private final AtomicLong endpointUriCacheMisses = new AtomicLong();
     private final AtomicInteger endpointKeyCounter = new AtomicInteger();
     private final List<EndpointStrategy> endpointStrategies = new ArrayList<EndpointStrategy>();
     private final Map<String, Component> components = new HashMap<String, Component>();
@@ -185,6 +192,7 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
     private ProcessorFactory processorFactory;
     private InterceptStrategy defaultTracer;
     private InflightRepository inflightRepository = new DefaultInflightRepository();
+    private StreamCacheManager streamCacheManager = new DefaultStreamCacheManager();
     private final List<RouteStartupOrder> routeStartupOrder = new ArrayList<RouteStartupOrder>();
     // start auto assigning route ids using numbering 1000 and upwards
     private int defaultRouteStartupOrder = 1000;
@@ -342,9 +350,8 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
     }
 
     public Endpoint hasEndpoint(String uri) {
-        synchronized (endpoints) {
-            return endpoints.get(getEndpointKey(uri));
-        }
+        // the endpoint registry is safe for concurrent reads
+        return endpoints.get(getEndpointKey(uri));
     }
 
     public Endpoint addEndpoint(String uri, Endpoint endpoint) throws Exception {
@@ -407,16 +414,32 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
         }
 
         // normalize uri so we can do endpoint hits with minor mistakes and parameters is not in the same order
-        uri = normalizeEndpointUri(uri);
+        String normalized = normalizedEndpointUris.get(uri);
+        if (normalized != null) {
+            endpointUriCacheHits.incrementAndGet();
+        } else {
+            endpointUriCacheMisses.incrementAndGet();
+            normalized = normalizeEndpointUri(uri);
+            normalizedEndpointUris.put(uri, normalized);
+        }
+        uri = normalized;
 
         if (log.isTraceEnabled()) {
             log.trace("Getting endpoint with normalized uri: " + uri);
         }
 
-        Endpoint answer;
+        // the uri is already normalized
+        EndpointKey key = new EndpointKey(uri, true);
+
+        // the endpoint registry is safe for concurrent reads so only lock when we must create the endpoint
+        Endpoint answer = endpoints.get(key);
+        if (answer != null) {
+            return answer;
+        }
+
         String scheme = null;
         synchronized (endpoints) {
-            answer = endpoints.get(getEndpointKey(uri));
+            answer = endpoints.get(key);
             if (answer == null) {
                 try {
                     // Use the URI prefix to find the component.
@@ -523,6 +546,35 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
         return uri;
     }
 
+    /**
+     * Gets the number of lookups of endpoints where the normalized uri was found in the cache
+     */
+    public long getEndpointUriCacheHits() {
+        return endpointUriCacheHits.get();
+    }
+
+    /**
+     * Gets the number of lookups of endpoints where the uri had to be normalized
+     */
+    public long getEndpointUriCacheMisses() {
+        return endpointUriCacheMisses.get();
+    }
+
+    /**
+     * Gets the number of normalized uris in the cache
+     */
+    public int getEndpointUriCacheSize() {
+        return normalizedEndpointUris.size();
+    }
+
+    /**
+     * Resets the hit and miss counters of the cache of normalized uris
+     */
+    public void resetEndpointUriCacheStatistics() {
+        endpointUriCacheHits.set(0);
+        endpointUriCacheMisses.set(0);
+    }
+
     /**
      * Gets the endpoint key to use for lookup or whe adding endpoints to the {@link EndpointRegistry}
      *
@@ -1404,6 +1456,7 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
         addService(executorServiceStrategy);
         addService(producerServicePool);
         addService(inflightRepository);
+        addService(streamCacheManager);
         addService(shutdownStrategy);
 
         startServices(components.values());
@@ -1448,6 +1501,7 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
 
         shutdownServices(endpoints.values());
         endpoints.clear();
+        normalizedEndpointUris.clear();
 
         shutdownServices(components.values());
         components.clear();
@@ -2128,6 +2182,14 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
         this.inflightRepository = repository;
     }
 
+    public StreamCacheManager getStreamCacheManager() {
+        return streamCacheManager;
+    }
+
+    public void setStreamCacheManager(StreamCacheManager streamCacheManager) {
+        this.streamCacheManager = streamCacheManager;
+    }
+
     public void setAutoStartup(Boolean autoStartup) {
         this.autoStartup = autoStartup;
     }
@@ -16,11 +16,16 @@
  */
 package org.apache.camel.impl;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StreamCorruptedException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.camel.Exchange;
+import org.apache.camel.util.CompactObjectCodec;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -42,11 +47,21 @@ import org.apache.commons.logging.LogFactory;
  * <li>exception</li>
  * </ul>
  * Any object that is not serializable will be skipped and Camel will log this at WARN level.
+ * <p/>
+ * Besides Java serialization the holder can be written in a compact binary format using
+ * {@link #writeTo(java.io.DataOutput)} and {@link #readFrom(java.io.DataInput, ClassLoader)}, which avoids
+ * writing class descriptors for the common types, see {@link CompactObjectCodec}.
  *
  * @version $Revision$
  */
 public class DefaultExchangeHolder implements Serializable {
 
+    /**
+     * The first byte of the binary format, which is never the first byte of a Java serialized stream.
+     */
+    public static final byte BINARY_FORMAT_MAGIC = (byte) 0xCA;
+    private static final byte BINARY_FORMAT_VERSION = 1;
+
     private static final long serialVersionUID = 2L;
     private static final transient Log LOG = LogFactory.getLog(DefaultExchangeHolder.class);
 
@@ -144,6 +159,57 @@ public class DefaultExchangeHolder implements Serializable {
         payload.properties.put(key, property);
     }
 
+    /**
+     * Writes the payload in the compact binary format.
+     *
+     * @param out the output to write to
+     * @throws IOException is thrown if the payload could not be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(BINARY_FORMAT_MAGIC);
+        out.writeByte(BINARY_FORMAT_VERSION);
+        CompactObjectCodec.writeObject(out, exchangeId);
+        CompactObjectCodec.writeObject(out, inBody);
+        CompactObjectCodec.writeObject(out, outBody);
+        out.writeBoolean(outFaultFlag != null && outFaultFlag);
+        CompactObjectCodec.writeObject(out, inHeaders);
+        CompactObjectCodec.writeObject(out, outHeaders);
+        CompactObjectCodec.writeObject(out, properties);
+        CompactObjectCodec.writeObject(out, exception);
+    }
+
+    /**
+     * Reads a payload written in the compact binary format by {@link #writeTo(java.io.DataOutput)}.
+     *
+     * @param in the input to read from
+     * @param classLoader optional class loader to use for loading the classes of serialized values
+     * @return the payload
+     * @throws IOException is thrown if the payload could not be read
+     * @throws ClassNotFoundException is thrown if the class of a serialized value could not be loaded
+     */
+    @SuppressWarnings("unchecked")
+    public static DefaultExchangeHolder readFrom(DataInput in, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+        byte magic = in.readByte();
+        if (magic != BINARY_FORMAT_MAGIC) {
+            throw new StreamCorruptedException("Not the binary format of DefaultExchangeHolder");
+        }
+        byte version = in.readByte();
+        if (version != BINARY_FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported version " + version + " of the binary format of DefaultExchangeHolder");
+        }
+
+        DefaultExchangeHolder payload = new DefaultExchangeHolder();
+        payload.exchangeId = (String) CompactObjectCodec.readObject(in, classLoader);
+        payload.inBody = CompactObjectCodec.readObject(in, classLoader);
+        payload.outBody = CompactObjectCodec.readObject(in, classLoader);
+        payload.outFaultFlag = in.readBoolean();
+        payload.inHeaders = (Map<String, Object>) CompactObjectCodec.readObject(in, classLoader);
+        payload.outHeaders = (Map<String, Object>) CompactObjectCodec.readObject(in, classLoader);
+        payload.properties = (Map<String, Object>) CompactObjectCodec.readObject(in, classLoader);
+        payload.exception = (Exception) CompactObjectCodec.readObject(in, classLoader);
+        return payload;
+    }
+
     public String toString() {
         StringBuilder sb = new StringBuilder("DefaultExchangeHolder[exchangeId=").append(exchangeId);
         sb.append("inBody=").append(inBody).append(", outBody=").append(outBody);
@@ -0,0 +1,321 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.spi.StreamCacheManager;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Default {@link StreamCacheManager} which keeps counters of the memory and disk used.
+ * <p/>
+ * When a <tt>maxMemory</tt> budget is set and exceeded, the largest (or oldest) caches are requested
+ * to spool to disk until enough memory has been released. Caches which have handed out their content
+ * cannot release their memory, and are skipped. When a <tt>maxDisk</tt> budget and a
+ * <tt>diskThrottleTimeout</tt> is set, consumers caching new streams wait for up to the timeout
+ * while the disk used exceeds the budget.
+ * <p/>
+ * The budgets are disabled by default, and the caches are only tracked when a budget is set.
+ * The caches are held by weak references, so the memory and disk of caches which are garbage collected
+ * without being closed is released from the totals.
+ *
+ * @version $Revision$
+ */
+public class DefaultStreamCacheManager extends ServiceSupport implements StreamCacheManager {
+
+    private static final transient Log LOG = LogFactory.getLog(DefaultStreamCacheManager.class);
+
+    private static final Comparator<SpoolableCache> LARGEST_FIRST = new Comparator<SpoolableCache>() {
+        public int compare(SpoolableCache o1, SpoolableCache o2) {
+            long s1 = o1.getMemorySize();
+            long s2 = o2.getMemorySize();
+            return s1 > s2 ? -1 : (s1 == s2 ? 0 : 1);
+        }
+    };
+
+    private static final Comparator<SpoolableCache> OLDEST_FIRST = new Comparator<SpoolableCache>() {
+        public int compare(SpoolableCache o1, SpoolableCache o2) {
+            long s1 = o1.getSequence();
+            long s2 = o2.getSequence();
+            return s1 < s2 ? -1 : (s1 == s2 ? 0 : 1);
+        }
+    };
+
+    // the caches by their sequence number
+    private final ConcurrentMap<Long, CacheReference> caches = new ConcurrentHashMap<Long, CacheReference>();
+    private final ReferenceQueue<SpoolableCache> collected = new ReferenceQueue<SpoolableCache>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong memoryUsed = new AtomicLong();
+    private final AtomicLong diskUsed = new AtomicLong();
+    private final AtomicLong spoolCounter = new AtomicLong();
+    private final AtomicLong throttledCounter = new AtomicLong();
+    private final AtomicBoolean selecting = new AtomicBoolean();
+    private final Object diskLock = new Object();
+    private volatile long maxMemory;
+    private volatile long maxDisk;
+    private volatile long diskThrottleTimeout;
+    private volatile boolean spoolLargestFirst = true;
+
+    public long nextSequence() {
+        return sequence.incrementAndGet();
+    }
+
+    public boolean isTracking() {
+        return maxMemory > 0 || maxDisk > 0;
+    }
+
+    public void add(SpoolableCache cache) {
+        purgeCollected();
+        caches.put(cache.getSequence(), new CacheReference(cache, collected));
+    }
+
+    public void remove(SpoolableCache cache) {
+        caches.remove(cache.getSequence());
+    }
+
+    public void memoryChanged(SpoolableCache cache, long delta) {
+        CacheReference ref = getReference(cache);
+        if (ref != null) {
+            ref.memory.addAndGet(delta);
+        }
+        long used = memoryUsed.addAndGet(delta);
+        long max = maxMemory;
+        if (delta > 0 && max > 0 && used > max) {
+            requestSpool(used - max);
+        }
+    }
+
+    public void spooled(SpoolableCache cache, long bytes) {
+        CacheReference ref = getReference(cache);
+        if (ref != null) {
+            ref.memory.addAndGet(-bytes);
+            ref.disk.addAndGet(bytes);
+        }
+        memoryUsed.addAndGet(-bytes);
+        diskUsed.addAndGet(bytes);
+        spoolCounter.incrementAndGet();
+    }
+
+    public void diskChanged(SpoolableCache cache, long delta) {
+        CacheReference ref = getReference(cache);
+        if (ref != null) {
+            ref.disk.addAndGet(delta);
+        }
+        long used = diskUsed.addAndGet(delta);
+        if (delta < 0 && maxDisk > 0 && used <= maxDisk) {
+            synchronized (diskLock) {
+                diskLock.notifyAll();
+            }
+        }
+    }
+
+    public boolean awaitDiskBudget() throws InterruptedException {
+        long max = maxDisk;
+        long timeout = diskThrottleTimeout;
+        if (max <= 0 || timeout <= 0 || diskUsed.get() <= max) {
+            return true;
+        }
+
+        throttledCounter.incrementAndGet();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Stream caches use " + diskUsed.get() + " bytes on disk which exceeds " + max + " bytes, waiting up to " + timeout + " millis");
+        }
+
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (diskLock) {
+            long remaining = timeout;
+            while (diskUsed.get() > max && remaining > 0) {
+                diskLock.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+        return diskUsed.get() <= max;
+    }
+
+    /**
+     * Requests caches to spool until the given number of bytes has been released from memory.
+     */
+    protected void requestSpool(long excess) {
+        // only one thread selects caches at any time, others continue as the excess is being taken care of
+        if (!selecting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            purgeCollected();
+            List<SpoolableCache> candidates = new ArrayList<SpoolableCache>(caches.size());
+            for (CacheReference ref : caches.values()) {
+                SpoolableCache cache = ref.get();
+                if (cache != null) {
+                    candidates.add(cache);
+                }
+            }
+            Collections.sort(candidates, spoolLargestFirst ? LARGEST_FIRST : OLDEST_FIRST);
+
+            long released = 0;
+            for (SpoolableCache cache : candidates) {
+                if (released >= excess) {
+                    break;
+                }
+                // only count the memory which the cache actually released by spooling
+                long size = cache.getMemorySize();
+                if (size > 0 && cache.requestSpool()) {
+                    released += size - cache.getMemorySize();
+                }
+            }
+
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Spooled stream caches with " + released + " bytes to disk to release " + excess + " bytes of memory");
+            }
+        } finally {
+            selecting.set(false);
+        }
+    }
+
+    private CacheReference getReference(SpoolableCache cache) {
+        return cache != null ? caches.get(cache.getSequence()) : null;
+    }
+
+    /**
+     * Removes the caches which have been garbage collected without being closed, and releases
+     * the memory and disk they used from the totals.
+     */
+    protected void purgeCollected() {
+        CacheReference ref;
+        while ((ref = (CacheReference) collected.poll()) != null) {
+            if (caches.remove(ref.sequence, ref)) {
+                memoryUsed.addAndGet(-ref.memory.get());
+                long disk = ref.disk.get();
+                if (disk != 0) {
+                    diskChanged(null, -disk);
+                }
+            }
+        }
+    }
+
+    public long getMemoryUsed() {
+        return memoryUsed.get();
+    }
+
+    public long getDiskUsed() {
+        return diskUsed.get();
+    }
+
+    public int getCacheCount() {
+        purgeCollected();
+        return caches.size();
+    }
+
+    public long getSpoolCounter() {
+        return spoolCounter.get();
+    }
+
+    public long getThrottledCounter() {
+        return throttledCounter.get();
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Sets the number of bytes the stream caches can hold in memory before they are spooled to disk.
+     * Use 0 or a negative value for no limit, which is the default.
+     */
+    public void setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    public long getMaxDisk() {
+        return maxDisk;
+    }
+
+    /**
+     * Sets the number of bytes the stream caches can hold on disk before consumers are throttled.
+     * Use 0 or a negative value for no limit, which is the default.
+     */
+    public void setMaxDisk(long maxDisk) {
+        this.maxDisk = maxDisk;
+    }
+
+    public long getDiskThrottleTimeout() {
+        return diskThrottleTimeout;
+    }
+
+    /**
+     * Sets the maximum number of millis a consumer waits while the disk used exceeds <tt>maxDisk</tt>.
+     * Use 0 to not throttle consumers, which is the default.
+     */
+    public void setDiskThrottleTimeout(long diskThrottleTimeout) {
+        this.diskThrottleTimeout = diskThrottleTimeout;
+    }
+
+    public boolean isSpoolLargestFirst() {
+        return spoolLargestFirst;
+    }
+
+    /**
+     * Whether to spool the largest caches first, or otherwise the oldest caches first.
+     */
+    public void setSpoolLargestFirst(boolean spoolLargestFirst) {
+        this.spoolLargestFirst = spoolLargestFirst;
+    }
+
+    public void resetStatistics() {
+        spoolCounter.set(0);
+        throttledCounter.set(0);
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        // wake up any throttled consumers
+        synchronized (diskLock) {
+            diskLock.notifyAll();
+        }
+    }
+
+    // weak reference to a cache with the memory and disk it has reported
+    private static final class CacheReference extends WeakReference<SpoolableCache> {
+        private final long sequence;
+        private final AtomicLong memory = new AtomicLong();
+        private final AtomicLong disk = new AtomicLong();
+
+        CacheReference(SpoolableCache cache, ReferenceQueue<SpoolableCache> queue) {
+            super(cache, queue);
+            this.sequence = cache.getSequence();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultStreamCacheManager[memory: " + memoryUsed.get() + ", disk: " + diskUsed.get() + "]";
+    }
+}
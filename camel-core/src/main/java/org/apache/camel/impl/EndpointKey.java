@@ -26,8 +26,18 @@ import org.apache.camel.util.ValueHolder;
 final class EndpointKey extends ValueHolder<String> {
 
     EndpointKey(String uri) {
+        this(uri, false);
+    }
+
+    /**
+     * Creates the key.
+     *
+     * @param uri        the endpoint uri
+     * @param normalized whether the uri is already normalized
+     */
+    EndpointKey(String uri, boolean normalized) {
         // must normalize key
-        super(DefaultCamelContext.normalizeEndpointUri(uri));
+        super(normalized ? uri : DefaultCamelContext.normalizeEndpointUri(uri));
         ObjectHelper.notEmpty(uri, "uri");
     }
 
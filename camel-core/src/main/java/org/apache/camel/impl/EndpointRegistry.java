@@ -22,6 +22,8 @@ import org.apache.camel.util.LRUCache;
 /**
  * Endpoint registry which is a based on a {@link org.apache.camel.util.LRUCache}
  * to keep the last 1000 in an internal cache.
+ * <p/>
+ * Evicted endpoints is not stopped as they may still be in use by routes.
  *
  * @version $Revision$
  */
@@ -17,6 +17,7 @@
 package org.apache.camel.impl;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.AsyncProcessor;
@@ -344,8 +345,19 @@ public class ProducerCache extends ServiceSupport {
         });
     }
 
-    protected synchronized Producer doGetProducer(Endpoint endpoint, boolean pooled) {
+    protected Producer doGetProducer(Endpoint endpoint, boolean pooled) {
         String key = endpoint.getEndpointUri();
+        if (producers instanceof ConcurrentMap) {
+            // the cache is thread safe so we can lookup without locking
+            Producer answer = producers.get(key);
+            if (answer != null) {
+                return answer;
+            }
+        }
+        return doGetOrCreateProducer(endpoint, key, pooled);
+    }
+
+    private synchronized Producer doGetOrCreateProducer(Endpoint endpoint, String key, boolean pooled) {
         Producer answer = producers.get(key);
         if (pooled && answer == null) {
             // try acquire from connection pool
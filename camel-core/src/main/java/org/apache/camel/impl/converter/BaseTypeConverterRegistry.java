@@ -17,14 +17,21 @@
 package org.apache.camel.impl.converter;
 
 import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.camel.CamelExecutionException;
 import org.apache.camel.Exchange;
@@ -48,18 +55,40 @@ import org.apache.commons.logging.LogFactory;
 /**
  * Base implementation of a type converter registry used for
  * <a href="http://camel.apache.org/type-converter.html">type converters</a> in Camel.
+ * <p/>
+ * The type converter resolved for a given pair of types, or the fact that the pair cannot be converted,
+ * is cached in tables keyed by the to type and then the from type. This allows converting without
+ * locking and without creating a key for each conversion.
  *
  * @version $Revision$
  */
 public abstract class BaseTypeConverterRegistry extends ServiceSupport implements TypeConverter, TypeConverterRegistry {
     protected final transient Log log = LogFactory.getLog(getClass());
-    protected final Map<TypeMapping, TypeConverter> typeMappings = new ConcurrentHashMap<TypeMapping, TypeConverter>();
-    protected final Map<TypeMapping, TypeMapping> misses = new ConcurrentHashMap<TypeMapping, TypeMapping>();
+    // marks a pair of types without a type converter, so only the fallback converters is used
+    private static final Object NO_CONVERTER = new Object();
+    // marks a pair of types which cannot be converted
+    private static final Object MISS = new Object();
+    protected final ConcurrentMap<TypeMapping, TypeConverter> typeMappings = new ConcurrentHashMap<TypeMapping, TypeConverter>();
+    /**
+     * @deprecated the pairs of types which cannot be converted is kept with the resolved type converters,
+     *             and this is a view of those pairs. Will be removed in a future release.
+     */
+    @Deprecated
+    protected final Map<TypeMapping, TypeMapping> misses = new MissesMap();
     protected final List<TypeConverterLoader> typeConverterLoaders = new ArrayList<TypeConverterLoader>();
-    protected final List<FallbackTypeConverter> fallbackConverters = new ArrayList<FallbackTypeConverter>();
+    protected final List<FallbackTypeConverter> fallbackConverters = new CopyOnWriteArrayList<FallbackTypeConverter>();
     protected Injector injector;
     protected final FactoryFinder factoryFinder;
     protected final PropertyEditorTypeConverter propertyEditorTypeConverter = new PropertyEditorTypeConverter();
+    // the resolved type converters by to type and from type, which is replaced when a type converter is added
+    private volatile ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> resolved = createResolved();
+    private volatile boolean statisticsEnabled;
+    private final AtomicLong attemptCounter = new AtomicLong();
+    private final AtomicLong hitCounter = new AtomicLong();
+    private final AtomicLong missCounter = new AtomicLong();
+    private final AtomicLong fallbackCounter = new AtomicLong();
+    private final AtomicLong failedCounter = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
 
     public BaseTypeConverterRegistry(PackageScanClassResolver resolver, Injector injector, FactoryFinder factoryFinder) {
         this.injector = injector;
@@ -166,26 +195,64 @@ public abstract class BaseTypeConverterRegistry extends ServiceSupport implement
             return type.cast(value);
         }
 
-        // check if we have tried it before and if its a miss
-        TypeMapping key = new TypeMapping(type, value.getClass());
-        if (misses.containsKey(key)) {
+        if (!statisticsEnabled) {
+            return doConvertToUsingConverters(type, exchange, value, false);
+        }
+
+        attemptCounter.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Object answer = doConvertToUsingConverters(type, exchange, value, true);
+            if (answer == Void.TYPE) {
+                failedCounter.incrementAndGet();
+            }
+            return answer;
+        } finally {
+            totalTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object doConvertToUsingConverters(final Class type, final Exchange exchange, final Object value, boolean statistics) {
+        Class<?> fromType = value.getClass();
+        ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> table = resolved;
+
+        // check if we have tried it before
+        Object converter = getResolved(table, type, fromType);
+        if (converter == MISS) {
             // we have tried before but we cannot convert this one
+            if (statistics) {
+                hitCounter.incrementAndGet();
+            }
             return Void.TYPE;
         }
 
-        // try to find a suitable type converter
-        TypeConverter converter = getOrFindTypeConverter(type, value);
-        if (converter != null) {
+        if (converter == null) {
+            if (statistics) {
+                missCounter.incrementAndGet();
+            }
+            // try to find a suitable type converter
+            TypeConverter found = getOrFindTypeConverter(type, value);
+            converter = found != null ? found : NO_CONVERTER;
+            putResolved(table, type, fromType, converter);
+        } else if (statistics) {
+            hitCounter.incrementAndGet();
+        }
+
+        if (converter != NO_CONVERTER) {
             if (log.isTraceEnabled()) {
-                log.trace("Using converter: " + converter + " to convert " + key);
+                log.trace("Using converter: " + converter + " to convert [" + fromType + "=>" + type + "]");
             }
-            Object rc = converter.convertTo(type, exchange, value);
+            Object rc = ((TypeConverter) converter).convertTo(type, exchange, value);
             if (rc != null) {
                 return rc;
             }
         }
 
         // fallback converters
+        if (statistics) {
+            fallbackCounter.incrementAndGet();
+        }
         for (FallbackTypeConverter fallback : fallbackConverters) {
             Object rc = fallback.getFallbackTypeConverter().convertTo(type, exchange, value);
 
@@ -225,9 +292,7 @@ public abstract class BaseTypeConverterRegistry extends ServiceSupport implement
         }
 
         // Could not find suitable conversion, so remember it
-        synchronized (misses) {
-            misses.put(key, key);
-        }
+        putResolved(table, type, fromType, MISS);
 
         // Could not find suitable conversion, so return Void to indicate not found
         return Void.TYPE;
@@ -238,16 +303,22 @@ public abstract class BaseTypeConverterRegistry extends ServiceSupport implement
             log.trace("Adding type converter: " + typeConverter);
         }
         TypeMapping key = new TypeMapping(toType, fromType);
-        synchronized (typeMappings) {
-            TypeConverter converter = typeMappings.get(key);
-            // only override it if its different
-            // as race conditions can lead to many threads trying to promote the same fallback converter
-            if (typeConverter != converter) {
+        TypeConverter converter = typeMappings.get(key);
+        // only override it if its different
+        // as race conditions can lead to many threads trying to promote the same fallback converter
+        while (typeConverter != converter) {
+            boolean added = converter == null
+                    ? typeMappings.putIfAbsent(key, typeConverter) == null : typeMappings.replace(key, converter, typeConverter);
+            if (added) {
                 if (converter != null) {
                     log.warn("Overriding type converter from: " + converter + " to: " + typeConverter);
                 }
-                typeMappings.put(key, typeConverter);
+                // the new type converter may change how other types is converted so resolve them again
+                resolved = createResolved();
+                return;
             }
+            // another thread changed the type converter in the meantime so try again
+            converter = typeMappings.get(key);
         }
     }
 
@@ -279,22 +350,18 @@ public abstract class BaseTypeConverterRegistry extends ServiceSupport implement
 
     public Set<Class<?>> getFromClassMappings() {
         Set<Class<?>> answer = new HashSet<Class<?>>();
-        synchronized (typeMappings) {
-            for (TypeMapping mapping : typeMappings.keySet()) {
-                answer.add(mapping.getFromType());
-            }
+        for (TypeMapping mapping : typeMappings.keySet()) {
+            answer.add(mapping.getFromType());
         }
         return answer;
     }
 
     public Map<Class<?>, TypeConverter> getToClassMappings(Class<?> fromClass) {
         Map<Class<?>, TypeConverter> answer = new HashMap<Class<?>, TypeConverter>();
-        synchronized (typeMappings) {
-            for (Map.Entry<TypeMapping, TypeConverter> entry : typeMappings.entrySet()) {
-                TypeMapping mapping = entry.getKey();
-                if (mapping.isApplicable(fromClass)) {
-                    answer.put(mapping.getToType(), entry.getValue());
-                }
+        for (Map.Entry<TypeMapping, TypeConverter> entry : typeMappings.entrySet()) {
+            TypeMapping mapping = entry.getKey();
+            if (mapping.isApplicable(fromClass)) {
+                answer.put(mapping.getToType(), entry.getValue());
             }
         }
         return answer;
@@ -310,13 +377,14 @@ public abstract class BaseTypeConverterRegistry extends ServiceSupport implement
             fromType = value.getClass();
         }
         TypeMapping key = new TypeMapping(toType, fromType);
-        TypeConverter converter;
-        synchronized (typeMappings) {
-            converter = typeMappings.get(key);
-            if (converter == null) {
-                converter = lookup(toType, fromType);
-                if (converter != null) {
-                    typeMappings.put(key, converter);
+        TypeConverter converter = typeMappings.get(key);
+        if (converter == null) {
+            converter = lookup(toType, fromType);
+            if (converter != null) {
+                // another thread may have added a converter in the meantime which then takes precedence
+                TypeConverter existing = typeMappings.putIfAbsent(key, converter);
+                if (existing != null) {
+                    converter = existing;
                 }
             }
         }
@@ -384,6 +452,95 @@ public abstract class BaseTypeConverterRegistry extends ServiceSupport implement
         return null;
     }
 
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Sets whether to gather statistics about the type conversions.
+     * <p/>
+     * Is by default disabled, as updating the statistics adds overhead to each conversion.
+     */
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    /**
+     * Number of conversions attempted, which did not already have the requested type
+     */
+    public long getAttemptCounter() {
+        return attemptCounter.get();
+    }
+
+    /**
+     * Number of conversions where the type converter (or that the types cannot be converted) was already resolved
+     */
+    public long getHitCounter() {
+        return hitCounter.get();
+    }
+
+    /**
+     * Number of conversions where the type converter had to be looked up
+     */
+    public long getMissCounter() {
+        return missCounter.get();
+    }
+
+    /**
+     * Number of conversions which tried the fallback type converters
+     */
+    public long getFallbackCounter() {
+        return fallbackCounter.get();
+    }
+
+    /**
+     * Number of conversions which could not convert the value
+     */
+    public long getFailedCounter() {
+        return failedCounter.get();
+    }
+
+    /**
+     * Total time spent converting in millis
+     */
+    public long getTotalConversionTime() {
+        return TimeUnit.NANOSECONDS.toMillis(totalTime.get());
+    }
+
+    /**
+     * Resets the statistics
+     */
+    public void resetStatistics() {
+        attemptCounter.set(0);
+        hitCounter.set(0);
+        missCounter.set(0);
+        fallbackCounter.set(0);
+        failedCounter.set(0);
+        totalTime.set(0);
+    }
+
+    private static ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> createResolved() {
+        return new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Object>>();
+    }
+
+    private static Object getResolved(ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> table, Class<?> toType, Class<?> fromType) {
+        ConcurrentMap<Class<?>, Object> converters = table.get(toType);
+        return converters != null ? converters.get(fromType) : null;
+    }
+
+    private static void putResolved(ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> table, Class<?> toType, Class<?> fromType, Object converter) {
+        // if a type converter has been added in the meantime the table has been replaced, and then this is ignored
+        ConcurrentMap<Class<?>, Object> converters = table.get(toType);
+        if (converters == null) {
+            converters = new ConcurrentHashMap<Class<?>, Object>();
+            ConcurrentMap<Class<?>, Object> existing = table.putIfAbsent(toType, converters);
+            if (existing != null) {
+                converters = existing;
+            }
+        }
+        converters.put(fromType, converter);
+    }
+
     /**
      * Checks if the registry is loaded and if not lazily load it
      */
@@ -424,11 +581,77 @@ public abstract class BaseTypeConverterRegistry extends ServiceSupport implement
     @Override
     protected void doStop() throws Exception {
         typeMappings.clear();
-        misses.clear();
+        resolved = createResolved();
         // let property editor type converter stop and cleanup resources
         ServiceHelper.stopService(propertyEditorTypeConverter);
     }
 
+    /**
+     * A view of the pairs of types in the resolved type converters which cannot be converted
+     */
+    private final class MissesMap extends AbstractMap<TypeMapping, TypeMapping> {
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public TypeMapping get(Object key) {
+            if (key instanceof TypeMapping) {
+                TypeMapping mapping = (TypeMapping) key;
+                if (getResolved(resolved, mapping.getToType(), mapping.getFromType()) == MISS) {
+                    return mapping;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public TypeMapping put(TypeMapping key, TypeMapping value) {
+            TypeMapping answer = get(key);
+            putResolved(resolved, key.getToType(), key.getFromType(), MISS);
+            return answer;
+        }
+
+        @Override
+        public TypeMapping remove(Object key) {
+            TypeMapping answer = get(key);
+            if (answer != null) {
+                ConcurrentMap<Class<?>, Object> converters = resolved.get(answer.getToType());
+                if (converters != null) {
+                    converters.remove(answer.getFromType(), MISS);
+                }
+            }
+            return answer;
+        }
+
+        @Override
+        public void clear() {
+            for (ConcurrentMap<Class<?>, Object> converters : resolved.values()) {
+                for (Iterator<Object> it = converters.values().iterator(); it.hasNext();) {
+                    if (it.next() == MISS) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Set<Map.Entry<TypeMapping, TypeMapping>> entrySet() {
+            Map<TypeMapping, TypeMapping> answer = new HashMap<TypeMapping, TypeMapping>();
+            for (Map.Entry<Class<?>, ConcurrentMap<Class<?>, Object>> table : resolved.entrySet()) {
+                for (Map.Entry<Class<?>, Object> entry : table.getValue().entrySet()) {
+                    if (entry.getValue() == MISS) {
+                        TypeMapping mapping = new TypeMapping(table.getKey(), entry.getKey());
+                        answer.put(mapping, mapping);
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(answer).entrySet();
+        }
+    }
+
     /**
      * Represents a mapping from one type (which can be null) to another
      */
@@ -19,8 +19,10 @@ package org.apache.camel.language.simple;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.Expression;
@@ -31,6 +33,7 @@ import org.apache.camel.builder.PredicateBuilder;
 import org.apache.camel.builder.ValueBuilder;
 import org.apache.camel.spi.Language;
 import org.apache.camel.util.KeyValueHolder;
+import org.apache.camel.util.LRUCache;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,6 +41,11 @@ import static org.apache.camel.language.simple.SimpleLanguageOperator.*;
 
 /**
  * Abstract base class for Simple languages.
+ * <p/>
+ * The expressions is parsed and compiled once into a tree of expressions and predicates, where the parts which
+ * do not depend on the exchange (such as a constant regular expression) is prepared up front. The compiled
+ * expressions and predicates is kept in a bounded cache keyed by their text, as expressions is often created
+ * from the same text at runtime, such as when using {@link org.apache.camel.builder.SimpleBuilder}.
  */
 public abstract class SimpleLanguageSupport implements Language, IsSingleton {
 
@@ -55,15 +63,17 @@ public abstract class SimpleLanguageSupport implements Language, IsSingleton {
     // this is special for the range operator where you define the range as from..to (where from and to are numbers)
     protected static final Pattern RANGE_PATTERN = Pattern.compile("^(\\d+)(\\.\\.)(\\d+)$");
     protected final Log log = LogFactory.getLog(getClass());
+    private volatile LRUCache<String, Expression> expressionCache = new LRUCache<String, Expression>(1000);
+    private volatile LRUCache<String, Predicate> predicateCache = new LRUCache<String, Predicate>(1000);
 
     /**
      * A holder class to hold an operator and the expression.
      * <p/>
      * This is used for expression with multiple expressions grouped using and/or operators
      */
-    private final class ExpressionGroup extends KeyValueHolder<SimpleLanguageOperator, Expression> {
+    private final class ExpressionGroup extends KeyValueHolder<SimpleLanguageOperator, OperatorExpression> {
 
-        public ExpressionGroup(SimpleLanguageOperator key, Expression value) {
+        public ExpressionGroup(SimpleLanguageOperator key, OperatorExpression value) {
             super(key, value);
         }
 
@@ -74,10 +84,55 @@ public abstract class SimpleLanguageSupport implements Language, IsSingleton {
     }
 
     public Predicate createPredicate(String expression) {
-        return PredicateBuilder.toPredicate(createExpression(expression));
+        Map<String, Predicate> cache = predicateCache;
+        Predicate answer = cache != null ? cache.get(expression) : null;
+        if (answer == null) {
+            Expression exp = createExpression(expression);
+            // operator expressions is already predicates
+            answer = exp instanceof Predicate ? (Predicate) exp : PredicateBuilder.toPredicate(exp);
+            if (cache != null) {
+                cache.put(expression, answer);
+            }
+        }
+        return answer;
     }
 
     public Expression createExpression(String expression) {
+        Map<String, Expression> cache = expressionCache;
+        Expression answer = cache != null ? cache.get(expression) : null;
+        if (answer == null) {
+            answer = doCreateExpression(expression);
+            if (cache != null && answer != null) {
+                cache.put(expression, answer);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Gets the maximum number of compiled expressions and predicates to cache
+     */
+    public int getCacheSize() {
+        LRUCache<String, Expression> cache = expressionCache;
+        return cache != null ? cache.getMaxCacheSize() : 0;
+    }
+
+    /**
+     * Sets the maximum number of compiled expressions, and predicates, to cache.
+     * <p/>
+     * Is by default 1000. Use 0 to disable the cache.
+     */
+    public void setCacheSize(int cacheSize) {
+        if (cacheSize > 0) {
+            expressionCache = new LRUCache<String, Expression>(cacheSize);
+            predicateCache = new LRUCache<String, Predicate>(cacheSize);
+        } else {
+            expressionCache = null;
+            predicateCache = null;
+        }
+    }
+
+    protected Expression doCreateExpression(String expression) {
         Matcher matcher = OPERATOR_PATTERN.matcher(expression);
         Matcher startMatcher = START_ANDOR_PATTERN.matcher(expression);
         if (matcher.matches() || startMatcher.matches()) {
@@ -99,7 +154,7 @@ public abstract class SimpleLanguageSupport implements Language, IsSingleton {
     }
 
     private Expression createOperatorExpression(Matcher matcher, Matcher startMatcher, String expression) {
-        Expression answer = null;
+        OperatorExpression answer = null;
 
         if (startMatcher.matches()) {
             answer = doCreateOperatorExpression(expression, startMatcher.group(1), startMatcher.group(2), startMatcher.group(3));
@@ -108,12 +163,10 @@ public abstract class SimpleLanguageSupport implements Language, IsSingleton {
         }
 
         // append any additional operators
-        answer = appendAdditionalOperatorExpressions(answer, expression);
-
-        return answer;
+        return appendAdditionalOperatorExpressions(answer, expression);
     }
 
-    private Expression appendAdditionalOperatorExpressions(final Expression answer, final String expression) {
+    private Expression appendAdditionalOperatorExpressions(final OperatorExpression answer, final String expression) {
         Matcher matcher = ANDOR_PATTERN.matcher(expression);
 
         // now go through the and/or and append those sub expressions
@@ -127,39 +180,16 @@ public abstract class SimpleLanguageSupport implements Language, IsSingleton {
                 throw new IllegalArgumentException("Syntax error in expression: " + expression
                     + ". Expected operator as either and/or but was: " + operator);
             }
-            final Expression exp = doCreateOperatorExpression(expression, matcher.group(2), matcher.group(3), matcher.group(4));
+            final OperatorExpression exp = doCreateOperatorExpression(expression, matcher.group(2), matcher.group(3), matcher.group(4));
 
             // add this group
             expressions.add(new ExpressionGroup(operator, exp));
         }
 
-        // return the expression that evaluates the entire expression with multiple groups
-        return new Expression() {
-            public <T> T evaluate(Exchange exchange, Class<T> type) {
-                boolean matches = PredicateBuilder.toPredicate(answer).matches(exchange);
-                for (ExpressionGroup group : expressions) {
-                    boolean result = PredicateBuilder.toPredicate(group.getValue()).matches(exchange);
-                    if (group.getKey() == AND) {
-                        matches &= result;
-                    } else {
-                        matches |= result;
-                    }
-                }
-                return exchange.getContext().getTypeConverter().convertTo(type, matches);
-            }
-
-            @Override
-            public String toString() {
-                StringBuilder msg = new StringBuilder(answer.toString());
-                for (ExpressionGroup group : expressions) {
-                    msg.append(" ");
-                    msg.append(group.getKey());
-                    msg.append(" ");
-                    msg.append(group.getValue());
-                }
-                return msg.toString();
-            }
-        };
+        if (expressions.isEmpty()) {
+            return answer;
+        }
+        return new GroupedOperatorExpression(answer, expressions);
     }
 
     private void dumpMatcher(Matcher matcher) {
@@ -175,8 +205,8 @@ public abstract class SimpleLanguageSupport implements Language, IsSingleton {
         }
     }
 
-    private Expression doCreateOperatorExpression(final String expression, final String leftText,
-                                                  final String operatorText, final String rightText) {
+    private OperatorExpression doCreateOperatorExpression(final String expression, final String leftText,
+                                                          final String operatorText, final String rightText) {
         // left value is always a simple expression
         final Expression left = createSimpleExpression(leftText, true);
         final SimpleLanguageOperator operator = asOperator(operatorText);
@@ -184,108 +214,37 @@ public abstract class SimpleLanguageSupport implements Language, IsSingleton {
         // the right hand side expression can either be a constant expression with or without enclosing ' '
         // or another simple expression using ${ } placeholders
         final Expression right;
-        final Boolean isNull;
+        final boolean isNull;
+        final String constant;
         // special null handling
         if ("null".equals(rightText) || "'null'".equals(rightText)) {
-            isNull = Boolean.TRUE;
+            isNull = true;
             right = createSimpleOrConstantExpression(null);
+            constant = null;
         } else {
-            isNull = Boolean.FALSE;
+            isNull = false;
             right = createSimpleOrConstantExpression(rightText);
+            constant = asConstantText(rightText);
         }
 
-        return new Expression() {
-            public <T> T evaluate(Exchange exchange, Class<T> type) {
-                Predicate predicate = null;
-
-                if (operator == EQ && isNull) {
-                    // special for EQ null
-                    predicate = PredicateBuilder.isNull(left);
-                } else if (operator == NOT && isNull) {
-                    // special for not EQ null
-                    predicate = PredicateBuilder.isNotNull(left);
-                } else if (operator == EQ) {
-                    predicate = PredicateBuilder.isEqualTo(left, right);
-                } else if (operator == GT) {
-                    predicate = PredicateBuilder.isGreaterThan(left, right);
-                } else if (operator == GTE) {
-                    predicate = PredicateBuilder.isGreaterThanOrEqualTo(left, right);
-                } else if (operator == LT) {
-                    predicate = PredicateBuilder.isLessThan(left, right);
-                } else if (operator == LTE) {
-                    predicate = PredicateBuilder.isLessThanOrEqualTo(left, right);
-                } else if (operator == NOT) {
-                    predicate = PredicateBuilder.isNotEqualTo(left, right);
-                } else if (operator == CONTAINS || operator == NOT_CONTAINS) {
-                    predicate = PredicateBuilder.contains(left, right);
-                    if (operator == NOT_CONTAINS) {
-                        predicate = PredicateBuilder.not(predicate);
-                    }
-                } else if (operator == REGEX || operator == NOT_REGEX) {
-                    // reg ex should use String pattern, so we evaluate the right hand side as a String
-                    predicate = PredicateBuilder.regex(left, right.evaluate(exchange, String.class));
-                    if (operator == NOT_REGEX) {
-                        predicate = PredicateBuilder.not(predicate);
-                    }
-                } else if (operator == IN || operator == NOT_IN) {
-                    // okay the in operator is a bit more complex as we need to build a list of values
-                    // from the right handside expression.
-                    // each element on the right handside must be separated by comma (default for create iterator)
-                    Iterator<Object> it = ObjectHelper.createIterator(right.evaluate(exchange, Object.class));
-                    List<Object> values = new ArrayList<Object>();
-                    while (it.hasNext()) {
-                        values.add(it.next());
-                    }
-                    // then reuse value builder to create the in predicate with the list of values
-                    ValueBuilder vb = new ValueBuilder(left);
-                    predicate = vb.in(values.toArray());
-                    if (operator == NOT_IN) {
-                        predicate = PredicateBuilder.not(predicate);
-                    }
-                } else if (operator == IS || operator == NOT_IS) {
-                    String name = right.evaluate(exchange, String.class);
-                    Class<?> rightType = exchange.getContext().getClassResolver().resolveClass(name);
-                    if (rightType == null) {
-                        throw new IllegalArgumentException("Syntax error in " + operatorText + " operator: " + expression
-                                + " cannot find class with name: " + name);
-                    }
-                    predicate = PredicateBuilder.isInstanceOf(left, rightType);
-                    if (operator == NOT_IS) {
-                        predicate = PredicateBuilder.not(predicate);
-                    }
-                } else if (operator == RANGE || operator == NOT_RANGE) {
-                    String range = right.evaluate(exchange, String.class);
-                    Matcher matcher = RANGE_PATTERN.matcher(range);
-                    if (matcher.matches()) {
-                        // wrap as constant expression for the from and to values
-                        Expression from = ExpressionBuilder.constantExpression(matcher.group(1));
-                        Expression to = ExpressionBuilder.constantExpression(matcher.group(3));
-
-                        // build a compound predicate for the range
-                        predicate = PredicateBuilder.isGreaterThanOrEqualTo(left, from);
-                        predicate = PredicateBuilder.and(predicate, PredicateBuilder.isLessThanOrEqualTo(left, to));
-                    } else {
-                        throw new IllegalArgumentException("Syntax error in " + operatorText + " operator: " + expression
-                                + " is not valid. Valid syntax:from..to(where from and to are numbers).");
-                    }
-                    if (operator == NOT_RANGE) {
-                        predicate = PredicateBuilder.not(predicate);
-                    }
-                }
-
-                if (predicate == null) {
-                    throw new IllegalArgumentException("Unsupported operator: " + operatorText + " for expression: " + expression);
-                }
-
-                boolean matches = predicate.matches(exchange);
-                return exchange.getContext().getTypeConverter().convertTo(type, matches);
-            }
+        OperatorExpression answer = new OperatorExpression(expression, left, operator, operatorText, right, isNull, constant);
+        if (log.isTraceEnabled()) {
+            log.trace("Operator expression: " + answer + " is compiled: " + (answer.predicate != null));
+        }
+        return answer;
+    }
 
-            @Override
-            public String toString() {
-                return left + " " + operator + " " + right;
-            }
-        };
+    /**
+     * Gets the constant value of the right hand side of an operator
+     *
+     * @return the constant, or <tt>null</tt> if the right hand side is a simple expression
+     */
+    private static String asConstantText(String text) {
+        if (ObjectHelper.between(text, "${", "}") != null || ObjectHelper.between(text, "$simple{", "}") != null) {
+            return null;
+        }
+        String quoted = ObjectHelper.between(text, "'", "'");
+        return quoted != null ? quoted : text;
     }
 
     protected Expression createComplexConcatExpression(String expression) {
@@ -378,4 +337,213 @@ public abstract class SimpleLanguageSupport implements Language, IsSingleton {
         }
         return null;
     }
+
+    /**
+     * An expression with a binary operator, which is also a predicate.
+     * <p/>
+     * The predicate for the operator is created up front, unless it depends on the right hand side
+     * being evaluated, such as a regular expression given as a simple expression.
+     */
+    private static final class OperatorExpression implements Expression, Predicate {
+        private final String expression;
+        private final Expression left;
+        private final SimpleLanguageOperator operator;
+        private final String operatorText;
+        private final Expression right;
+        private final boolean isNull;
+        private final String constant;
+        private final Predicate predicate;
+
+        private OperatorExpression(String expression, Expression left, SimpleLanguageOperator operator, String operatorText,
+                                   Expression right, boolean isNull, String constant) {
+            this.expression = expression;
+            this.left = left;
+            this.operator = operator;
+            this.operatorText = operatorText;
+            this.right = right;
+            this.isNull = isNull;
+            this.constant = constant;
+            this.predicate = createPredicate(null);
+        }
+
+        public <T> T evaluate(Exchange exchange, Class<T> type) {
+            boolean matches = matches(exchange);
+            return exchange.getContext().getTypeConverter().convertTo(type, matches);
+        }
+
+        public boolean matches(Exchange exchange) {
+            Predicate answer = predicate;
+            if (answer == null) {
+                answer = createPredicate(exchange);
+            }
+            if (answer == null) {
+                throw new IllegalArgumentException("Unsupported operator: " + operatorText + " for expression: " + expression);
+            }
+            return answer.matches(exchange);
+        }
+
+        /**
+         * Creates the predicate for the operator
+         *
+         * @param exchange the exchange, or <tt>null</tt> when compiling
+         * @return the predicate, or <tt>null</tt> if the exchange is needed to create the predicate
+         */
+        private Predicate createPredicate(Exchange exchange) {
+            Predicate predicate = null;
+
+            if (operator == EQ && isNull) {
+                // special for EQ null
+                predicate = PredicateBuilder.isNull(left);
+            } else if (operator == NOT && isNull) {
+                // special for not EQ null
+                predicate = PredicateBuilder.isNotNull(left);
+            } else if (operator == EQ) {
+                predicate = PredicateBuilder.isEqualTo(left, right);
+            } else if (operator == GT) {
+                predicate = PredicateBuilder.isGreaterThan(left, right);
+            } else if (operator == GTE) {
+                predicate = PredicateBuilder.isGreaterThanOrEqualTo(left, right);
+            } else if (operator == LT) {
+                predicate = PredicateBuilder.isLessThan(left, right);
+            } else if (operator == LTE) {
+                predicate = PredicateBuilder.isLessThanOrEqualTo(left, right);
+            } else if (operator == NOT) {
+                predicate = PredicateBuilder.isNotEqualTo(left, right);
+            } else if (operator == CONTAINS || operator == NOT_CONTAINS) {
+                predicate = PredicateBuilder.contains(left, right);
+                if (operator == NOT_CONTAINS) {
+                    predicate = PredicateBuilder.not(predicate);
+                }
+            } else if (operator == REGEX || operator == NOT_REGEX) {
+                // reg ex should use String pattern, so we evaluate the right hand side as a String
+                if (exchange == null) {
+                    if (constant == null) {
+                        return null;
+                    }
+                    try {
+                        predicate = PredicateBuilder.regex(left, Pattern.compile(constant));
+                    } catch (PatternSyntaxException e) {
+                        // let it fail when evaluated
+                        return null;
+                    }
+                } else {
+                    predicate = PredicateBuilder.regex(left, right.evaluate(exchange, String.class));
+                }
+                if (operator == NOT_REGEX) {
+                    predicate = PredicateBuilder.not(predicate);
+                }
+            } else if (operator == IN || operator == NOT_IN) {
+                if (exchange == null && constant == null) {
+                    return null;
+                }
+                // okay the in operator is a bit more complex as we need to build a list of values
+                // from the right handside expression.
+                // each element on the right handside must be separated by comma (default for create iterator)
+                Object value = exchange == null ? constant : right.evaluate(exchange, Object.class);
+                Iterator<Object> it = ObjectHelper.createIterator(value);
+                List<Object> values = new ArrayList<Object>();
+                while (it.hasNext()) {
+                    values.add(it.next());
+                }
+                // then reuse value builder to create the in predicate with the list of values
+                ValueBuilder vb = new ValueBuilder(left);
+                predicate = vb.in(values.toArray());
+                if (operator == NOT_IN) {
+                    predicate = PredicateBuilder.not(predicate);
+                }
+            } else if (operator == IS || operator == NOT_IS) {
+                if (exchange == null) {
+                    // the class must be resolved using the class resolver from the exchange
+                    return null;
+                }
+                String name = right.evaluate(exchange, String.class);
+                Class<?> rightType = exchange.getContext().getClassResolver().resolveClass(name);
+                if (rightType == null) {
+                    throw new IllegalArgumentException("Syntax error in " + operatorText + " operator: " + expression
+                            + " cannot find class with name: " + name);
+                }
+                predicate = PredicateBuilder.isInstanceOf(left, rightType);
+                if (operator == NOT_IS) {
+                    predicate = PredicateBuilder.not(predicate);
+                }
+            } else if (operator == RANGE || operator == NOT_RANGE) {
+                if (exchange == null && constant == null) {
+                    return null;
+                }
+                String range = exchange == null ? constant : right.evaluate(exchange, String.class);
+                Matcher matcher = RANGE_PATTERN.matcher(range);
+                if (matcher.matches()) {
+                    // wrap as constant expression for the from and to values
+                    Expression from = ExpressionBuilder.constantExpression(matcher.group(1));
+                    Expression to = ExpressionBuilder.constantExpression(matcher.group(3));
+
+                    // build a compound predicate for the range
+                    predicate = PredicateBuilder.isGreaterThanOrEqualTo(left, from);
+                    predicate = PredicateBuilder.and(predicate, PredicateBuilder.isLessThanOrEqualTo(left, to));
+                } else if (exchange == null) {
+                    // let it fail when evaluated
+                    return null;
+                } else {
+                    throw new IllegalArgumentException("Syntax error in " + operatorText + " operator: " + expression
+                            + " is not valid. Valid syntax:from..to(where from and to are numbers).");
+                }
+                if (operator == NOT_RANGE) {
+                    predicate = PredicateBuilder.not(predicate);
+                }
+            }
+
+            return predicate;
+        }
+
+        @Override
+        public String toString() {
+            return left + " " + operator + " " + right;
+        }
+    }
+
+    /**
+     * Operator expressions grouped using and/or operators, which is evaluated from left to right
+     * and stops as soon as the result is known.
+     */
+    private static final class GroupedOperatorExpression implements Expression, Predicate {
+        private final OperatorExpression first;
+        private final ExpressionGroup[] groups;
+
+        private GroupedOperatorExpression(OperatorExpression first, List<ExpressionGroup> groups) {
+            this.first = first;
+            this.groups = groups.toArray(new ExpressionGroup[groups.size()]);
+        }
+
+        public <T> T evaluate(Exchange exchange, Class<T> type) {
+            boolean matches = matches(exchange);
+            return exchange.getContext().getTypeConverter().convertTo(type, matches);
+        }
+
+        public boolean matches(Exchange exchange) {
+            boolean matches = first.matches(exchange);
+            for (ExpressionGroup group : groups) {
+                // skip the group if it cannot change the result
+                if (group.getKey() == AND) {
+                    if (matches) {
+                        matches = group.getValue().matches(exchange);
+                    }
+                } else if (!matches) {
+                    matches = group.getValue().matches(exchange);
+                }
+            }
+            return matches;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder msg = new StringBuilder(first.toString());
+            for (ExpressionGroup group : groups) {
+                msg.append(" ");
+                msg.append(group.getKey());
+                msg.append(" ");
+                msg.append(group.getValue());
+            }
+            return msg.toString();
+        }
+    }
 }
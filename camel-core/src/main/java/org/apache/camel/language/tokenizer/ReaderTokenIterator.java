@@ -0,0 +1,250 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.language.tokenizer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.component.file.GenericFile;
+import org.apache.camel.util.IOHelper;
+
+/**
+ * Base class for iterators which tokenize a {@link Reader} in a streaming fashion.
+ * <p/>
+ * The content is read into a char buffer which is reused for all the tokens, and only grows if a single
+ * token is larger than the buffer. The reader is closed when there are no more tokens, or when
+ * {@link #close()} is invoked, such as by the {@link org.apache.camel.processor.Splitter}.
+ *
+ * @version $Revision$
+ */
+public abstract class ReaderTokenIterator implements Iterator<Object>, Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean closed;
+    private Object next;
+
+    public ReaderTokenIterator(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Creates a reader for the given value, such as a {@link File}, {@link InputStream} or {@link String}.
+     * <p/>
+     * The charset is taken from the {@link Exchange#CHARSET_NAME} property, otherwise the default charset is used.
+     *
+     * @param exchange the exchange
+     * @param value    the value to read
+     * @return the reader
+     */
+    public static Reader createReader(Exchange exchange, Object value) {
+        if (value instanceof GenericFile) {
+            // generic file is just a wrapper for the real file so call again with the real file
+            return createReader(exchange, ((GenericFile<?>) value).getFile());
+        }
+
+        String name = exchange.getProperty(Exchange.CHARSET_NAME, String.class);
+        Charset charset = name != null ? Charset.forName(name) : Charset.defaultCharset();
+
+        try {
+            if (value instanceof Reader) {
+                return (Reader) value;
+            } else if (value instanceof InputStream) {
+                return new InputStreamReader((InputStream) value, charset);
+            } else if (value instanceof File) {
+                return new InputStreamReader(new FileInputStream((File) value), charset);
+            } else if (value instanceof String) {
+                return new StringReader((String) value);
+            } else if (value instanceof ReadableByteChannel) {
+                return Channels.newReader((ReadableByteChannel) value, charset.newDecoder(), -1);
+            }
+        } catch (IOException e) {
+            throw new RuntimeCamelException(e);
+        }
+
+        // value is not a suitable type, try to convert value to a string
+        String text = value != null ? exchange.getContext().getTypeConverter().convertTo(String.class, exchange, value) : null;
+        return new StringReader(text != null ? text : "");
+    }
+
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                next = nextValue();
+            } catch (IOException e) {
+                throw new RuntimeCamelException("Error reading next token", e);
+            }
+            if (next == null) {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object answer = next;
+        next = null;
+        return answer;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Remove is not supported by this iterator");
+    }
+
+    public void close() {
+        if (!closed) {
+            closed = true;
+            IOHelper.close(reader);
+        }
+    }
+
+    /**
+     * Reads the next value.
+     *
+     * @return the value, or <tt>null</tt> if there are no more values
+     */
+    protected Object nextValue() throws IOException {
+        return nextToken();
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the token, or <tt>null</tt> if there are no more tokens
+     */
+    protected abstract String nextToken() throws IOException;
+
+    /**
+     * Whether there is any unconsumed content, reading more if needed.
+     */
+    protected boolean hasRemaining() throws IOException {
+        while (pos == limit && !eof) {
+            fill();
+        }
+        return pos < limit;
+    }
+
+    /**
+     * Number of unconsumed chars currently in the buffer.
+     */
+    protected int remaining() {
+        return limit - pos;
+    }
+
+    /**
+     * Finds the given string in the unconsumed content, reading more as needed.
+     *
+     * @param s    the string to find
+     * @param from offset from the unconsumed content to start searching from
+     * @return the offset from the unconsumed content, or <tt>-1</tt> if not found before the end of the content
+     */
+    protected int indexOf(String s, int from) throws IOException {
+        int len = s.length();
+        char first = s.charAt(0);
+        while (true) {
+            int last = limit - len;
+            for (int i = pos + from; i <= last; i++) {
+                if (buffer[i] != first) {
+                    continue;
+                }
+                int j = 1;
+                while (j < len && buffer[i + j] == s.charAt(j)) {
+                    j++;
+                }
+                if (j == len) {
+                    return i - pos;
+                }
+            }
+            if (eof) {
+                return -1;
+            }
+            // continue after what has been searched, which may contain the start of a match
+            from = Math.max(from, limit - pos - len + 1);
+            fill();
+        }
+    }
+
+    /**
+     * Gets the char at the given offset from the unconsumed content, reading more as needed.
+     *
+     * @return the char, or <tt>-1</tt> if the offset is after the end of the content
+     */
+    protected int charAt(int offset) throws IOException {
+        while (pos + offset >= limit && !eof) {
+            fill();
+        }
+        return pos + offset < limit ? buffer[pos + offset] : -1;
+    }
+
+    /**
+     * Consumes the given number of chars as a token and skips the chars after it.
+     */
+    protected String consume(int length, int skip) {
+        String answer = new String(buffer, pos, length);
+        pos += length + skip;
+        return answer;
+    }
+
+    /**
+     * Skips the given number of chars.
+     */
+    protected void skip(int length) {
+        pos += length;
+    }
+
+    private void fill() throws IOException {
+        if (pos > 0) {
+            // move the unconsumed content to the start of the buffer
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buffer.length) {
+            // a single token is larger than the buffer
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int n = reader.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+    }
+
+}
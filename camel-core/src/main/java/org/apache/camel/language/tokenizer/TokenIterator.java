@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.language.tokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * Tokenizes the content of a {@link Reader} using a literal token, without using regular expressions.
+ * <p/>
+ * Empty tokens between two tokens are returned, but not an empty token before the first or after the last
+ * token, the same as {@link java.util.Scanner} does. Optionally <tt>group</tt> tokens are combined (separated by the token)
+ * into a single value, to reduce the number of values to process.
+ *
+ * @version $Revision$
+ */
+public class TokenIterator extends ReaderTokenIterator {
+    private static final String REGEX_CHARS = "\\.[]{}()*+?^$|";
+    private final String token;
+    private final int group;
+    private boolean first = true;
+
+    public TokenIterator(Reader reader, String token) {
+        this(reader, token, 1);
+    }
+
+    public TokenIterator(Reader reader, String token, int group) {
+        super(reader);
+        ObjectHelper.notEmpty(token, "token");
+        this.token = token;
+        this.group = group;
+    }
+
+    /**
+     * Whether the token has no regular expression characters, so matching it literally gives the same
+     * tokens as using it as a regular expression delimiter.
+     *
+     * @param token the token
+     * @return <tt>true</tt> if the token is a literal
+     */
+    public static boolean isLiteral(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (REGEX_CHARS.indexOf(token.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected Object nextValue() throws IOException {
+        String s = nextToken();
+        if (group <= 1 || s == null) {
+            return s;
+        }
+
+        StringBuilder sb = new StringBuilder(s);
+        for (int i = 1; i < group; i++) {
+            s = nextToken();
+            if (s == null) {
+                break;
+            }
+            sb.append(token).append(s);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    protected String nextToken() throws IOException {
+        if (first) {
+            first = false;
+            // skip a token at the start
+            if (startsWithToken()) {
+                skip(token.length());
+            }
+        }
+        if (!hasRemaining()) {
+            return null;
+        }
+        int index = indexOf(token, 0);
+        if (index < 0) {
+            // the last token
+            return consume(remaining(), 0);
+        }
+        return consume(index, token.length());
+    }
+
+    private boolean startsWithToken() throws IOException {
+        for (int i = 0; i < token.length(); i++) {
+            if (charAt(i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenIterator[" + token + (group > 1 ? ", group: " + group : "") + "]";
+    }
+}
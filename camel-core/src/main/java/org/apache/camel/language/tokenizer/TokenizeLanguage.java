@@ -32,6 +32,8 @@ public class TokenizeLanguage implements Language, IsSingleton {
     private String token;
     private String headerName;
     private boolean regex;
+    private boolean xml;
+    private int group;
 
     public static Expression tokenize(String token) {
         return tokenize(token, false);
@@ -56,6 +58,13 @@ public class TokenizeLanguage implements Language, IsSingleton {
         return langugage.createExpression(null);
     }
 
+    public static Expression tokenizeXML(String tagName) {
+        TokenizeLanguage langugage = new TokenizeLanguage();
+        langugage.setToken(tagName);
+        langugage.setXml(true);
+        return langugage.createExpression(null);
+    }
+
     public Predicate createPredicate(String expression) {
         return PredicateBuilder.toPredicate(createExpression(expression));
     }
@@ -66,10 +75,13 @@ public class TokenizeLanguage implements Language, IsSingleton {
     public Expression createExpression() {
         ObjectHelper.notNull(token, "token");
         Expression exp = headerName == null ? ExpressionBuilder.bodyExpression() : ExpressionBuilder.headerExpression(headerName);
-        if (regex) {
+        if (xml) {
+            // the token is the tag name of the elements
+            return ExpressionBuilder.tokenizeXMLExpression(exp, token);
+        } else if (regex) {
             return ExpressionBuilder.regexTokenizeExpression(exp, token);
         } else {
-            return ExpressionBuilder.tokenizeExpression(exp, token);
+            return ExpressionBuilder.tokenizeExpression(exp, token, group);
         }
     }
 
@@ -104,6 +116,22 @@ public class TokenizeLanguage implements Language, IsSingleton {
         this.regex = regex;
     }
 
+    public boolean isXml() {
+        return xml;
+    }
+
+    public void setXml(boolean xml) {
+        this.xml = xml;
+    }
+
+    public int getGroup() {
+        return group;
+    }
+
+    public void setGroup(int group) {
+        this.group = group;
+    }
+
     public boolean isSingleton() {
         return false;
     }
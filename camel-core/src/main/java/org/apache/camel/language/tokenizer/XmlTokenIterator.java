@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.language.tokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * Tokenizes the content of a {@link Reader} into the XML elements with a given tag name, such as the
+ * repeating <tt>&lt;order&gt;</tt> elements of a large document, without parsing the document.
+ * <p/>
+ * The tag name must be given as it appears in the document, including any namespace prefix.
+ * Elements with the same tag name nested inside each other are not supported, and any namespace
+ * declarations of the enclosing elements are not included.
+ *
+ * @version $Revision$
+ */
+public class XmlTokenIterator extends ReaderTokenIterator {
+    private final String tagName;
+    private final String startTag;
+    private final String endTag;
+
+    public XmlTokenIterator(Reader reader, String tagName) {
+        super(reader);
+        ObjectHelper.notEmpty(tagName, "tagName");
+        this.tagName = tagName;
+        this.startTag = "<" + tagName;
+        this.endTag = "</" + tagName + ">";
+    }
+
+    @Override
+    protected String nextToken() throws IOException {
+        while (true) {
+            int start = indexOf(startTag, 0);
+            if (start < 0) {
+                return null;
+            }
+            // discard the content before the element
+            skip(start);
+
+            // the tag name must end here, as otherwise it is another element starting with the same name
+            int c = charAt(startTag.length());
+            if (c == '>' || c == '/' || Character.isWhitespace(c)) {
+                break;
+            }
+            skip(startTag.length());
+        }
+
+        int end = indexOf(">", startTag.length());
+        if (end < 0) {
+            return null;
+        }
+        if (charAt(end - 1) == '/') {
+            // an empty element
+            return consume(end + 1, 0);
+        }
+
+        end = indexOf(endTag, end + 1);
+        if (end < 0) {
+            return null;
+        }
+        return consume(end + endTag.length(), 0);
+    }
+
+    @Override
+    public String toString() {
+        return "XmlTokenIterator[" + tagName + "]";
+    }
+}
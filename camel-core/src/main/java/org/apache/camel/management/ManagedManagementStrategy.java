@@ -36,8 +36,6 @@ import org.apache.camel.model.ProcessorDefinition;
 import org.apache.camel.spi.ManagementAgent;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.fusesource.commons.management.Statistic;
-import org.fusesource.commons.management.basic.StatisticImpl;
 
 /**
  * A JMX capable {@link org.apache.camel.spi.ManagementStrategy} that Camel by default uses if possible.
@@ -156,10 +154,6 @@ public class ManagedManagementStrategy extends DefaultManagementStrategy {
         return true;
     }
 
-    @Override
-    public Statistic createStatistic(String name, Object owner, Statistic.UpdateMode updateMode) {
-        return new StatisticImpl(updateMode);
-    }
 
     private ObjectName getObjectName(Object managedObject, Object preferedName) throws Exception {
         ObjectName objectName;
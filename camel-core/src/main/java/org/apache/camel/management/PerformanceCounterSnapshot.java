@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * An immutable snapshot of the values of a {@link PerformanceCounter}.
+ * <p/>
+ * The processing times is in millis.
+ *
+ * @version $Revision$
+ * @see org.apache.camel.management.mbean.ManagedPerformanceCounter#createSnapshot()
+ */
+public final class PerformanceCounterSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long timestamp;
+    private final long exchangesTotal;
+    private final long exchangesCompleted;
+    private final long exchangesFailed;
+    private final long minProcessingTime;
+    private final long meanProcessingTime;
+    private final long maxProcessingTime;
+    private final long totalProcessingTime;
+    private final long lastProcessingTime;
+    private final long p50ProcessingTime;
+    private final long p90ProcessingTime;
+    private final long p99ProcessingTime;
+    private final long p999ProcessingTime;
+    private final Date firstExchangeCompletedTimestamp;
+    private final Date lastExchangeCompletedTimestamp;
+    private final Date firstExchangeFailureTimestamp;
+    private final Date lastExchangeFailureTimestamp;
+
+    public PerformanceCounterSnapshot(long timestamp, long exchangesTotal, long exchangesCompleted, long exchangesFailed,
+                                      long minProcessingTime, long meanProcessingTime, long maxProcessingTime,
+                                      long totalProcessingTime, long lastProcessingTime,
+                                      long p50ProcessingTime, long p90ProcessingTime, long p99ProcessingTime, long p999ProcessingTime,
+                                      Date firstExchangeCompletedTimestamp, Date lastExchangeCompletedTimestamp,
+                                      Date firstExchangeFailureTimestamp, Date lastExchangeFailureTimestamp) {
+        this.timestamp = timestamp;
+        this.exchangesTotal = exchangesTotal;
+        this.exchangesCompleted = exchangesCompleted;
+        this.exchangesFailed = exchangesFailed;
+        this.minProcessingTime = minProcessingTime;
+        this.meanProcessingTime = meanProcessingTime;
+        this.maxProcessingTime = maxProcessingTime;
+        this.totalProcessingTime = totalProcessingTime;
+        this.lastProcessingTime = lastProcessingTime;
+        this.p50ProcessingTime = p50ProcessingTime;
+        this.p90ProcessingTime = p90ProcessingTime;
+        this.p99ProcessingTime = p99ProcessingTime;
+        this.p999ProcessingTime = p999ProcessingTime;
+        this.firstExchangeCompletedTimestamp = firstExchangeCompletedTimestamp;
+        this.lastExchangeCompletedTimestamp = lastExchangeCompletedTimestamp;
+        this.firstExchangeFailureTimestamp = firstExchangeFailureTimestamp;
+        this.lastExchangeFailureTimestamp = lastExchangeFailureTimestamp;
+    }
+
+    /**
+     * Gets the time in millis when the snapshot was taken
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getExchangesTotal() {
+        return exchangesTotal;
+    }
+
+    public long getExchangesCompleted() {
+        return exchangesCompleted;
+    }
+
+    public long getExchangesFailed() {
+        return exchangesFailed;
+    }
+
+    public long getMinProcessingTime() {
+        return minProcessingTime;
+    }
+
+    public long getMeanProcessingTime() {
+        return meanProcessingTime;
+    }
+
+    public long getMaxProcessingTime() {
+        return maxProcessingTime;
+    }
+
+    public long getTotalProcessingTime() {
+        return totalProcessingTime;
+    }
+
+    public long getLastProcessingTime() {
+        return lastProcessingTime;
+    }
+
+    public long getP50ProcessingTime() {
+        return p50ProcessingTime;
+    }
+
+    public long getP90ProcessingTime() {
+        return p90ProcessingTime;
+    }
+
+    public long getP99ProcessingTime() {
+        return p99ProcessingTime;
+    }
+
+    public long getP999ProcessingTime() {
+        return p999ProcessingTime;
+    }
+
+    public Date getFirstExchangeCompletedTimestamp() {
+        return copy(firstExchangeCompletedTimestamp);
+    }
+
+    public Date getLastExchangeCompletedTimestamp() {
+        return copy(lastExchangeCompletedTimestamp);
+    }
+
+    public Date getFirstExchangeFailureTimestamp() {
+        return copy(firstExchangeFailureTimestamp);
+    }
+
+    public Date getLastExchangeFailureTimestamp() {
+        return copy(lastExchangeFailureTimestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "PerformanceCounterSnapshot[total=" + exchangesTotal + ", completed=" + exchangesCompleted
+                + ", failed=" + exchangesFailed + ", min=" + minProcessingTime + ", mean=" + meanProcessingTime
+                + ", max=" + maxProcessingTime + ", p50=" + p50ProcessingTime + ", p90=" + p90ProcessingTime
+                + ", p99=" + p99ProcessingTime + ", p999=" + p999ProcessingTime + "]";
+    }
+
+    private static Date copy(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+}
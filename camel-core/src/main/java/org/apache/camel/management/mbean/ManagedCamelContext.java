@@ -22,6 +22,7 @@ import java.util.concurrent.TimeUnit;
 import org.apache.camel.CamelContext;
 import org.apache.camel.ProducerTemplate;
 import org.apache.camel.ServiceStatus;
+import org.apache.camel.impl.DefaultCamelContext;
 import org.apache.camel.spi.ManagementStrategy;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
@@ -95,6 +96,48 @@ public class ManagedCamelContext {
         return context.getInflightRepository().size();
     }
 
+    @ManagedAttribute(description = "Number of endpoint lookups where the normalized uri was cached")
+    public Long getEndpointUriCacheHits() {
+        if (context instanceof DefaultCamelContext) {
+            return ((DefaultCamelContext) context).getEndpointUriCacheHits();
+        }
+        return null;
+    }
+
+    @ManagedAttribute(description = "Number of endpoint lookups where the uri had to be normalized")
+    public Long getEndpointUriCacheMisses() {
+        if (context instanceof DefaultCamelContext) {
+            return ((DefaultCamelContext) context).getEndpointUriCacheMisses();
+        }
+        return null;
+    }
+
+    @ManagedAttribute(description = "Ratio of endpoint lookups where the normalized uri was cached")
+    public Double getEndpointUriCacheHitRatio() {
+        if (context instanceof DefaultCamelContext) {
+            DefaultCamelContext dcc = (DefaultCamelContext) context;
+            long hits = dcc.getEndpointUriCacheHits();
+            long total = hits + dcc.getEndpointUriCacheMisses();
+            return total > 0 ? (double) hits / total : 0d;
+        }
+        return null;
+    }
+
+    @ManagedAttribute(description = "Number of normalized uris in the cache")
+    public Integer getEndpointUriCacheSize() {
+        if (context instanceof DefaultCamelContext) {
+            return ((DefaultCamelContext) context).getEndpointUriCacheSize();
+        }
+        return null;
+    }
+
+    @ManagedOperation(description = "Reset the endpoint uri cache statistics")
+    public void resetEndpointUriCacheStatistics() {
+        if (context instanceof DefaultCamelContext) {
+            ((DefaultCamelContext) context).resetEndpointUriCacheStatistics();
+        }
+    }
+
     @ManagedAttribute(description = "Shutdown timeout")
     public void setTimeout(long timeout) {
         context.getShutdownStrategy().setTimeout(timeout);
@@ -17,6 +17,7 @@
 package org.apache.camel.management.mbean;
 
 import org.apache.camel.spi.ManagementStrategy;
+import org.apache.camel.util.concurrent.StripedCounter;
 import org.fusesource.commons.management.Statistic;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
@@ -24,23 +25,42 @@ import org.springframework.jmx.export.annotation.ManagedResource;
 
 @ManagedResource(description = "Managed Counter")
 public abstract class ManagedCounter {
-    protected Statistic exchangesTotal;
+    protected final StripedCounter exchangesTotal = new StripedCounter();
+    private Statistic exchangesTotalStatistic;
 
     public void init(ManagementStrategy strategy) {
-        this.exchangesTotal = strategy.createStatistic("org.apache.camel.exchangesTotal", this, Statistic.UpdateMode.COUNTER);
+        this.exchangesTotalStatistic = createStatistic(strategy, "org.apache.camel.exchangesTotal", Statistic.UpdateMode.COUNTER);
+    }
+
+    /**
+     * Creates the statistic with the given name, which is updated together with the counter.
+     * <p/>
+     * The counters is kept by this counter without locking, so the statistic is only needed when the
+     * {@link ManagementStrategy} wants to be updated, and by default the strategy returns <tt>null</tt>.
+     *
+     * @return the statistic, or <tt>null</tt> to not create any statistic
+     */
+    protected Statistic createStatistic(ManagementStrategy strategy, String name, Statistic.UpdateMode updateMode) {
+        return strategy.createStatistic(name, this, updateMode);
     }
 
     @ManagedOperation(description = "Reset counters")
     public synchronized void reset() {
         exchangesTotal.reset();
+        if (exchangesTotalStatistic != null) {
+            exchangesTotalStatistic.reset();
+        }
     }
 
     @ManagedAttribute(description = "Total number of exchanges")
     public long getExchangesTotal() throws Exception {
-        return exchangesTotal.getValue();
+        return exchangesTotal.get();
     }
 
-    public synchronized void increment() {
+    public void increment() {
         exchangesTotal.increment();
+        if (exchangesTotalStatistic != null) {
+            exchangesTotalStatistic.increment();
+        }
     }
 }
@@ -107,6 +107,36 @@ public class ManagedErrorHandler {
         return redelivery.getDeadLetterUri();
     }
 
+    @ManagedAttribute(description = "Number of delayed redelivery attempts currently scheduled")
+    public Integer getPendingRedeliveryCount() {
+        if (!isSupportRedelivery()) {
+            return null;
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        return redelivery.getPendingRedeliveryCount();
+    }
+
+    @ManagedAttribute(description = "RedeliveryPolicy for asynchronous delayed redelivery")
+    public Boolean getAsyncDelayedRedelivery() {
+        if (!isSupportRedelivery()) {
+            return null;
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        return redelivery.getRedeliveryPolicy().isAsyncDelayedRedelivery();
+    }
+
+    @ManagedAttribute(description = "RedeliveryPolicy for asynchronous delayed redelivery")
+    public void setAsyncDelayedRedelivery(Boolean async) {
+        if (!isSupportRedelivery()) {
+            throw new IllegalArgumentException("This error handler does not support redelivery");
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        redelivery.getRedeliveryPolicy().setAsyncDelayedRedelivery(async);
+    }
+
     @ManagedAttribute(description = "RedeliveryPolicy for maximum redeliveries")
     public Integer getMaximumRedeliveries() {
         if (!isSupportRedelivery()) {
@@ -17,43 +17,70 @@
 package org.apache.camel.management.mbean;
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.camel.management.PerformanceCounter;
+import org.apache.camel.management.PerformanceCounterSnapshot;
 import org.apache.camel.spi.ManagementStrategy;
+import org.apache.camel.util.concurrent.ConcurrentHistogram;
+import org.apache.camel.util.concurrent.StripedCounter;
 import org.fusesource.commons.management.Statistic;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
 
+/**
+ * Performance counter which can be updated concurrently without locking.
+ * <p/>
+ * The counters is striped and the processing times is recorded in a {@link ConcurrentHistogram}
+ * so the percentiles of the processing time can be reported.
+ *
+ * @version $Revision$
+ */
 @ManagedResource(description = "PerformanceCounter")
 public abstract class ManagedPerformanceCounter extends ManagedCounter implements PerformanceCounter {
-    private Statistic exchangesCompleted;
-    private Statistic exchangesFailed;
-    private Statistic minProcessingTime;
-    private Statistic maxProcessingTime;
-    private Statistic totalProcessingTime;
-    private Statistic lastProcessingTime;
-    private Statistic meanProcessingTime;
-    private Statistic firstExchangeCompletedTimestamp;
-    private Statistic firstExchangeFailureTimestamp;
-    private Statistic lastExchangeCompletedTimestamp;
-    private Statistic lastExchangeFailureTimestamp;
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private final StripedCounter exchangesCompleted = new StripedCounter();
+    private final StripedCounter exchangesFailed = new StripedCounter();
+    private final StripedCounter totalProcessingTime = new StripedCounter();
+    private final AtomicLong minProcessingTime = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxProcessingTime = new AtomicLong();
+    private final ConcurrentHistogram processingTimes = new ConcurrentHistogram();
+    private volatile long lastProcessingTime;
+    private final AtomicLong firstExchangeCompletedTimestamp = new AtomicLong();
+    private final AtomicLong firstExchangeFailureTimestamp = new AtomicLong();
+    private volatile long lastExchangeCompletedTimestamp;
+    private volatile long lastExchangeFailureTimestamp;
     private boolean statisticsEnabled = true;
+    // the statistics of the management strategy, which is null unless the strategy creates them
+    private Statistic exchangesCompletedStatistic;
+    private Statistic exchangesFailedStatistic;
+    private Statistic minProcessingTimeStatistic;
+    private Statistic maxProcessingTimeStatistic;
+    private Statistic totalProcessingTimeStatistic;
+    private Statistic lastProcessingTimeStatistic;
+    private Statistic meanProcessingTimeStatistic;
+    private Statistic firstExchangeCompletedTimestampStatistic;
+    private Statistic firstExchangeFailureTimestampStatistic;
+    private Statistic lastExchangeCompletedTimestampStatistic;
+    private Statistic lastExchangeFailureTimestampStatistic;
 
+    @Override
     public void init(ManagementStrategy strategy) {
         super.init(strategy);
-        this.exchangesCompleted = strategy.createStatistic("org.apache.camel.exchangesCompleted", this, Statistic.UpdateMode.COUNTER);
-        this.exchangesFailed = strategy.createStatistic("org.apache.camel.exchangesFailed", this, Statistic.UpdateMode.COUNTER);
-        this.minProcessingTime = strategy.createStatistic("org.apache.camel.minimumProcessingTime", this, Statistic.UpdateMode.MINIMUM);
-        this.maxProcessingTime = strategy.createStatistic("org.apache.camel.maximumProcessingTime", this, Statistic.UpdateMode.MAXIMUM);
-        this.totalProcessingTime = strategy.createStatistic("org.apache.camel.totalProcessingTime", this, Statistic.UpdateMode.COUNTER);
-        this.lastProcessingTime = strategy.createStatistic("org.apache.camel.lastProcessingTime", this, Statistic.UpdateMode.VALUE);
-        this.meanProcessingTime = strategy.createStatistic("org.apache.camel.meanProcessingTime", this, Statistic.UpdateMode.VALUE);
+        this.exchangesCompletedStatistic = createStatistic(strategy, "org.apache.camel.exchangesCompleted", Statistic.UpdateMode.COUNTER);
+        this.exchangesFailedStatistic = createStatistic(strategy, "org.apache.camel.exchangesFailed", Statistic.UpdateMode.COUNTER);
+        this.minProcessingTimeStatistic = createStatistic(strategy, "org.apache.camel.minimumProcessingTime", Statistic.UpdateMode.MINIMUM);
+        this.maxProcessingTimeStatistic = createStatistic(strategy, "org.apache.camel.maximumProcessingTime", Statistic.UpdateMode.MAXIMUM);
+        this.totalProcessingTimeStatistic = createStatistic(strategy, "org.apache.camel.totalProcessingTime", Statistic.UpdateMode.COUNTER);
+        this.lastProcessingTimeStatistic = createStatistic(strategy, "org.apache.camel.lastProcessingTime", Statistic.UpdateMode.VALUE);
+        this.meanProcessingTimeStatistic = createStatistic(strategy, "org.apache.camel.meanProcessingTime", Statistic.UpdateMode.VALUE);
 
-        this.firstExchangeCompletedTimestamp = strategy.createStatistic("org.apache.camel.firstExchangeCompletedTimestamp", this, Statistic.UpdateMode.VALUE);
-        this.firstExchangeFailureTimestamp = strategy.createStatistic("org.apache.camel.firstExchangeFailureTimestamp", this, Statistic.UpdateMode.VALUE);
-        this.lastExchangeCompletedTimestamp = strategy.createStatistic("org.apache.camel.lastExchangeCompletedTimestamp", this, Statistic.UpdateMode.VALUE);
-        this.lastExchangeFailureTimestamp = strategy.createStatistic("org.apache.camel.lastExchangeFailureTimestamp", this, Statistic.UpdateMode.VALUE);
+        this.firstExchangeCompletedTimestampStatistic = createStatistic(strategy, "org.apache.camel.firstExchangeCompletedTimestamp", Statistic.UpdateMode.VALUE);
+        this.firstExchangeFailureTimestampStatistic = createStatistic(strategy, "org.apache.camel.firstExchangeFailureTimestamp", Statistic.UpdateMode.VALUE);
+        this.lastExchangeCompletedTimestampStatistic = createStatistic(strategy, "org.apache.camel.lastExchangeCompletedTimestamp", Statistic.UpdateMode.VALUE);
+        this.lastExchangeFailureTimestampStatistic = createStatistic(strategy, "org.apache.camel.lastExchangeFailureTimestamp", Statistic.UpdateMode.VALUE);
     }
 
     @Override
@@ -62,74 +89,112 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
         super.reset();
         exchangesCompleted.reset();
         exchangesFailed.reset();
-        minProcessingTime.reset();
-        maxProcessingTime.reset();
         totalProcessingTime.reset();
-        lastProcessingTime.reset();
-        meanProcessingTime.reset();
-        firstExchangeCompletedTimestamp.reset();
-        firstExchangeFailureTimestamp.reset();
-        lastExchangeCompletedTimestamp.reset();
-        lastExchangeFailureTimestamp.reset();
+        minProcessingTime.set(Long.MAX_VALUE);
+        maxProcessingTime.set(0);
+        processingTimes.reset();
+        lastProcessingTime = 0;
+        firstExchangeCompletedTimestamp.set(0);
+        firstExchangeFailureTimestamp.set(0);
+        lastExchangeCompletedTimestamp = 0;
+        lastExchangeFailureTimestamp = 0;
+
+        reset(exchangesCompletedStatistic);
+        reset(exchangesFailedStatistic);
+        reset(minProcessingTimeStatistic);
+        reset(maxProcessingTimeStatistic);
+        reset(totalProcessingTimeStatistic);
+        reset(lastProcessingTimeStatistic);
+        reset(meanProcessingTimeStatistic);
+        reset(firstExchangeCompletedTimestampStatistic);
+        reset(firstExchangeFailureTimestampStatistic);
+        reset(lastExchangeCompletedTimestampStatistic);
+        reset(lastExchangeFailureTimestampStatistic);
     }
 
     @ManagedAttribute(description = "Number of completed exchanges")
     public long getExchangesCompleted() throws Exception {
-        return exchangesCompleted.getValue();
+        return exchangesCompleted.get();
     }
 
     @ManagedAttribute(description = "Number of failed exchanges")
     public long getExchangesFailed() throws Exception {
-        return exchangesFailed.getValue();
+        return exchangesFailed.get();
     }
 
     @ManagedAttribute(description = "Min Processing Time [milliseconds]")
     public long getMinProcessingTime() throws Exception {
-        return minProcessingTime.getValue();
+        long value = minProcessingTime.get();
+        return value == Long.MAX_VALUE ? 0 : value;
     }
 
     @ManagedAttribute(description = "Mean Processing Time [milliseconds]")
     public long getMeanProcessingTime() throws Exception {
-        return meanProcessingTime.getValue();
+        long count = exchangesCompleted.get();
+        long mean = count > 0 ? totalProcessingTime.get() / count : 0;
+        // the counters is read one at a time so keep the mean within min and max
+        return Math.min(Math.max(mean, getMinProcessingTime()), getMaxProcessingTime());
     }
 
     @ManagedAttribute(description = "Max Processing Time [milliseconds]")
     public long getMaxProcessingTime() throws Exception {
-        return maxProcessingTime.getValue();
+        return maxProcessingTime.get();
     }
 
     @ManagedAttribute(description = "Total Processing Time [milliseconds]")
     public long getTotalProcessingTime() throws Exception {
-        return totalProcessingTime.getValue();
+        return totalProcessingTime.get();
     }
 
     @ManagedAttribute(description = "Last Processing Time [milliseconds]")
     public long getLastProcessingTime() throws Exception {
-        return lastProcessingTime.getValue();
+        return lastProcessingTime;
+    }
+
+    @ManagedAttribute(description = "50th Percentile Processing Time [milliseconds]")
+    public long getP50ProcessingTime() throws Exception {
+        return getProcessingTimeAtPercentile(50.0);
+    }
+
+    @ManagedAttribute(description = "90th Percentile Processing Time [milliseconds]")
+    public long getP90ProcessingTime() throws Exception {
+        return getProcessingTimeAtPercentile(90.0);
+    }
+
+    @ManagedAttribute(description = "99th Percentile Processing Time [milliseconds]")
+    public long getP99ProcessingTime() throws Exception {
+        return getProcessingTimeAtPercentile(99.0);
+    }
+
+    @ManagedAttribute(description = "99.9th Percentile Processing Time [milliseconds]")
+    public long getP999ProcessingTime() throws Exception {
+        return getProcessingTimeAtPercentile(99.9);
+    }
+
+    @ManagedOperation(description = "Processing Time at the given percentile [milliseconds]")
+    public long getProcessingTimeAtPercentile(double percentile) throws Exception {
+        // the histogram reports the upper bound of the bucket so do not report above the max
+        return Math.min(processingTimes.getValueAtPercentile(percentile), getMaxProcessingTime());
     }
 
     @ManagedAttribute(description = "Last Exchange Completed Timestamp")
     public Date getLastExchangeCompletedTimestamp() {
-        long value = lastExchangeCompletedTimestamp.getValue();
-        return value > 0 ? new Date(value) : null;
+        return toDate(lastExchangeCompletedTimestamp);
     }
 
     @ManagedAttribute(description = "First Exchange Completed Timestamp")
     public Date getFirstExchangeCompletedTimestamp() {
-        long value = firstExchangeCompletedTimestamp.getValue();
-        return value > 0 ? new Date(value) : null;
+        return toDate(firstExchangeCompletedTimestamp.get());
     }
 
     @ManagedAttribute(description = "Last Exchange Failed Timestamp")
     public Date getLastExchangeFailureTimestamp() {
-        long value = lastExchangeFailureTimestamp.getValue();
-        return value > 0 ? new Date(value) : null;
+        return toDate(lastExchangeFailureTimestamp);
     }
 
     @ManagedAttribute(description = "First Exchange Failed Timestamp")
     public Date getFirstExchangeFailureTimestamp() {
-        long value = firstExchangeFailureTimestamp.getValue();
-        return value > 0 ? new Date(value) : null;
+        return toDate(firstExchangeFailureTimestamp.get());
     }
 
     @ManagedAttribute(description = "Statistics enabled")
@@ -142,46 +207,103 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
         this.statisticsEnabled = statisticsEnabled;
     }
 
+    /**
+     * Creates a snapshot of the counters which can be used to compare the counters over time.
+     * <p/>
+     * The counters is updated concurrently so the snapshot is not an atomic view of the counters.
+     *
+     * @return the snapshot
+     */
+    public PerformanceCounterSnapshot createSnapshot() throws Exception {
+        long max = getMaxProcessingTime();
+        long[] percentiles = processingTimes.getValuesAtPercentiles(PERCENTILES);
+        for (int i = 0; i < percentiles.length; i++) {
+            percentiles[i] = Math.min(percentiles[i], max);
+        }
+
+        return new PerformanceCounterSnapshot(System.currentTimeMillis(), getExchangesTotal(), getExchangesCompleted(),
+                getExchangesFailed(), getMinProcessingTime(), getMeanProcessingTime(), max, getTotalProcessingTime(),
+                getLastProcessingTime(), percentiles[0], percentiles[1], percentiles[2], percentiles[3],
+                getFirstExchangeCompletedTimestamp(), getLastExchangeCompletedTimestamp(),
+                getFirstExchangeFailureTimestamp(), getLastExchangeFailureTimestamp());
+    }
+
     /**
      * This method is called when an exchange has been processed successfully.
      * 
      * @param time in milliseconds it spent on processing the exchange
      */
-    public synchronized void completedExchange(long time) {
+    public void completedExchange(long time) {
         increment();
         exchangesCompleted.increment();
+        totalProcessingTime.add(time);
+        processingTimes.record(time);
+        lastProcessingTime = time;
 
-        minProcessingTime.updateValue(time);
-        maxProcessingTime.updateValue(time);
-        totalProcessingTime.updateValue(time);
-        lastProcessingTime.updateValue(time);
-
-        long now = new Date().getTime();
-        if (firstExchangeCompletedTimestamp.getUpdateCount() == 0) {
-            firstExchangeCompletedTimestamp.updateValue(now);
+        long min = minProcessingTime.get();
+        while (time < min && !minProcessingTime.compareAndSet(min, time)) {
+            min = minProcessingTime.get();
+        }
+        long max = maxProcessingTime.get();
+        while (time > max && !maxProcessingTime.compareAndSet(max, time)) {
+            max = maxProcessingTime.get();
         }
 
-        lastExchangeCompletedTimestamp.updateValue(now);
+        long now = System.currentTimeMillis();
+        boolean first = firstExchangeCompletedTimestamp.compareAndSet(0, now);
+        lastExchangeCompletedTimestamp = now;
 
-        // update mean
-        long count = exchangesCompleted.getValue();
-        long mean = count > 0 ? totalProcessingTime.getValue() / count : 0;
-        meanProcessingTime.updateValue(mean);
+        if (exchangesCompletedStatistic != null) {
+            exchangesCompletedStatistic.increment();
+        }
+        update(minProcessingTimeStatistic, time);
+        update(maxProcessingTimeStatistic, time);
+        update(totalProcessingTimeStatistic, time);
+        update(lastProcessingTimeStatistic, time);
+        if (meanProcessingTimeStatistic != null) {
+            long count = exchangesCompleted.get();
+            meanProcessingTimeStatistic.updateValue(count > 0 ? totalProcessingTime.get() / count : 0);
+        }
+        if (first) {
+            update(firstExchangeCompletedTimestampStatistic, now);
+        }
+        update(lastExchangeCompletedTimestampStatistic, now);
     }
 
     /**
      * This method is called when an exchange has been processed and failed.
      */
-    public synchronized void failedExchange() {
+    public void failedExchange() {
         increment();
         exchangesFailed.increment();
 
-        long now = new Date().getTime();
-        if (firstExchangeFailureTimestamp.getUpdateCount() == 0) {
-            firstExchangeFailureTimestamp.updateValue(now);
+        long now = System.currentTimeMillis();
+        boolean first = firstExchangeFailureTimestamp.compareAndSet(0, now);
+        lastExchangeFailureTimestamp = now;
+
+        if (exchangesFailedStatistic != null) {
+            exchangesFailedStatistic.increment();
+        }
+        if (first) {
+            update(firstExchangeFailureTimestampStatistic, now);
+        }
+        update(lastExchangeFailureTimestampStatistic, now);
+    }
+
+    private static Date toDate(long value) {
+        return value > 0 ? new Date(value) : null;
+    }
+
+    private static void update(Statistic statistic, long value) {
+        if (statistic != null) {
+            statistic.updateValue(value);
         }
+    }
 
-        lastExchangeFailureTimestamp.updateValue(now);
+    private static void reset(Statistic statistic) {
+        if (statistic != null) {
+            statistic.reset();
+        }
     }
 
 }
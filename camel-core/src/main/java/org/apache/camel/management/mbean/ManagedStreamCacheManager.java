@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management.mbean;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.DefaultStreamCacheManager;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * @version $Revision$
+ */
+@ManagedResource(description = "Managed StreamCacheManager")
+public class ManagedStreamCacheManager extends ManagedService {
+    private final DefaultStreamCacheManager manager;
+
+    public ManagedStreamCacheManager(CamelContext context, DefaultStreamCacheManager manager) {
+        super(context, manager);
+        this.manager = manager;
+    }
+
+    public DefaultStreamCacheManager getManager() {
+        return manager;
+    }
+
+    @ManagedAttribute(description = "Number of bytes cached in memory")
+    public long getMemoryUsed() {
+        return manager.getMemoryUsed();
+    }
+
+    @ManagedAttribute(description = "Number of bytes cached on disk")
+    public long getDiskUsed() {
+        return manager.getDiskUsed();
+    }
+
+    @ManagedAttribute(description = "Number of stream caches which can spool to disk")
+    public int getCacheCount() {
+        return manager.getCacheCount();
+    }
+
+    @ManagedAttribute(description = "Number of stream caches spooled to disk")
+    public long getSpoolCounter() {
+        return manager.getSpoolCounter();
+    }
+
+    @ManagedAttribute(description = "Number of times consumers were throttled as the disk budget was exceeded")
+    public long getThrottledCounter() {
+        return manager.getThrottledCounter();
+    }
+
+    @ManagedAttribute(description = "Maximum bytes cached in memory before spooling (0 for no limit)")
+    public long getMaxMemory() {
+        return manager.getMaxMemory();
+    }
+
+    @ManagedAttribute(description = "Maximum bytes cached in memory before spooling (0 for no limit)")
+    public void setMaxMemory(long maxMemory) {
+        manager.setMaxMemory(maxMemory);
+    }
+
+    @ManagedAttribute(description = "Maximum bytes cached on disk before throttling consumers (0 for no limit)")
+    public long getMaxDisk() {
+        return manager.getMaxDisk();
+    }
+
+    @ManagedAttribute(description = "Maximum bytes cached on disk before throttling consumers (0 for no limit)")
+    public void setMaxDisk(long maxDisk) {
+        manager.setMaxDisk(maxDisk);
+    }
+
+    @ManagedAttribute(description = "Maximum millis to throttle a consumer (0 to not throttle)")
+    public long getDiskThrottleTimeout() {
+        return manager.getDiskThrottleTimeout();
+    }
+
+    @ManagedAttribute(description = "Maximum millis to throttle a consumer (0 to not throttle)")
+    public void setDiskThrottleTimeout(long timeout) {
+        manager.setDiskThrottleTimeout(timeout);
+    }
+
+    @ManagedAttribute(description = "Whether to spool the largest caches first, otherwise the oldest")
+    public boolean isSpoolLargestFirst() {
+        return manager.isSpoolLargestFirst();
+    }
+
+    @ManagedAttribute(description = "Whether to spool the largest caches first, otherwise the oldest")
+    public void setSpoolLargestFirst(boolean spoolLargestFirst) {
+        manager.setSpoolLargestFirst(spoolLargestFirst);
+    }
+
+    @ManagedOperation(description = "Reset the spool and throttled counters")
+    public void resetStatistics() {
+        manager.resetStatistics();
+    }
+
+}
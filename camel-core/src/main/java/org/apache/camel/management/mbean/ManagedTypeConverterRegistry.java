@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management.mbean;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.converter.BaseTypeConverterRegistry;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * @version $Revision$
+ */
+@ManagedResource(description = "Managed TypeConverterRegistry")
+public class ManagedTypeConverterRegistry extends ManagedService {
+    private final BaseTypeConverterRegistry registry;
+
+    public ManagedTypeConverterRegistry(CamelContext context, BaseTypeConverterRegistry registry) {
+        super(context, registry);
+        this.registry = registry;
+    }
+
+    public BaseTypeConverterRegistry getRegistry() {
+        return registry;
+    }
+
+    @ManagedAttribute(description = "Number of type converters in the registry")
+    public Integer getNumberOfTypeConverters() {
+        return registry.getTypeMappings().size();
+    }
+
+    @ManagedAttribute(description = "Statistics enabled")
+    public boolean isStatisticsEnabled() {
+        return registry.isStatisticsEnabled();
+    }
+
+    @ManagedAttribute(description = "Statistics enabled")
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        registry.setStatisticsEnabled(statisticsEnabled);
+    }
+
+    @ManagedAttribute(description = "Number of type conversion attempts")
+    public long getAttemptCounter() {
+        return registry.getAttemptCounter();
+    }
+
+    @ManagedAttribute(description = "Number of type conversions where the type converter was already resolved")
+    public long getHitCounter() {
+        return registry.getHitCounter();
+    }
+
+    @ManagedAttribute(description = "Number of type conversions where the type converter had to be looked up")
+    public long getMissCounter() {
+        return registry.getMissCounter();
+    }
+
+    @ManagedAttribute(description = "Number of type conversions which tried the fallback type converters")
+    public long getFallbackCounter() {
+        return registry.getFallbackCounter();
+    }
+
+    @ManagedAttribute(description = "Number of failed type conversions")
+    public long getFailedCounter() {
+        return registry.getFailedCounter();
+    }
+
+    @ManagedAttribute(description = "Total time spent converting [ms]")
+    public long getTotalConversionTime() {
+        return registry.getTotalConversionTime();
+    }
+
+    @ManagedOperation(description = "Reset the type conversion statistics")
+    public void resetStatistics() {
+        registry.resetStatistics();
+    }
+
+}
@@ -92,6 +92,10 @@ public class AggregateDefinition extends ProcessorDefinition<AggregateDefinition
     private Integer closeCorrelationKeyOnCompletion;
     @XmlAttribute
     private Boolean discardOnCompletionTimeout;
+    @XmlAttribute
+    private Integer lockStripes;
+    @XmlAttribute
+    private Boolean useTimingWheel;
 
     public AggregateDefinition() {
     }
@@ -208,6 +212,12 @@ public class AggregateDefinition extends ProcessorDefinition<AggregateDefinition
         if (isDiscardOnCompletionTimeout() != null) {
             answer.setDiscardOnCompletionTimeout(isDiscardOnCompletionTimeout());
         }
+        if (getLockStripes() != null) {
+            answer.setLockStripes(getLockStripes());
+        }
+        if (isUseTimingWheel() != null) {
+            answer.setUseTimingWheel(isUseTimingWheel());
+        }
 
         return answer;
     }
@@ -403,6 +413,22 @@ public class AggregateDefinition extends ProcessorDefinition<AggregateDefinition
         this.discardOnCompletionTimeout = discardOnCompletionTimeout;
     }
 
+    public Integer getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(Integer lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public Boolean isUseTimingWheel() {
+        return useTimingWheel;
+    }
+
+    public void setUseTimingWheel(Boolean useTimingWheel) {
+        this.useTimingWheel = useTimingWheel;
+    }
+
     // Fluent API
     //-------------------------------------------------------------------------
 
@@ -454,6 +480,31 @@ public class AggregateDefinition extends ProcessorDefinition<AggregateDefinition
         return this;
     }
 
+    /**
+     * Aggregates different correlation keys in parallel by using a number of locks striped by the correlation key,
+     * instead of a single shared lock. This can improve throughput when the {@link AggregationRepository} is IO bound.
+     * <p/>
+     * Exchanges with the same correlation key is still aggregated one at a time.
+     *
+     * @param stripes the number of lock stripes, which is rounded up to a power of two
+     * @return builder
+     */
+    public AggregateDefinition lockStripes(int stripes) {
+        setLockStripes(stripes);
+        return this;
+    }
+
+    /**
+     * Uses a timing wheel to keep track of the completion timeouts, which scales better when there is
+     * a lot of correlation keys in progress at the same time.
+     *
+     * @return builder
+     */
+    public AggregateDefinition useTimingWheel() {
+        setUseTimingWheel(true);
+        return this;
+    }
+
     /**
      * Enables the batch completion mode where we aggregate from a {@link org.apache.camel.BatchConsumer}
      * and aggregate the total number of exchanges the {@link org.apache.camel.BatchConsumer} has reported
@@ -372,7 +372,7 @@ public class OnExceptionDefinition extends ProcessorDefinition<OnExceptionDefini
     }
 
     /**
-     * Allow synchronous delayed redelivery.
+     * Allow asynchronous delayed redelivery.
      *
      * @see org.apache.camel.processor.RedeliveryPolicy#setAsyncDelayedRedelivery(boolean)
      * @return the builder
@@ -382,6 +382,17 @@ public class OnExceptionDefinition extends ProcessorDefinition<OnExceptionDefini
         return this;
     }
 
+    /**
+     * Disallow asynchronous delayed redelivery, which blocks the current thread while waiting.
+     *
+     * @see org.apache.camel.processor.RedeliveryPolicy#setAsyncDelayedRedelivery(boolean)
+     * @return the builder
+     */
+    public OnExceptionDefinition syncDelayedRedelivery() {
+        getOrCreateRedeliveryPolicy().setAsyncDelayedRedelivery(false);
+        return this;
+    }
+
     /**
      * Sets the logging level to use when retries has exhausted
      *
@@ -691,9 +702,9 @@ public class OnExceptionDefinition extends ProcessorDefinition<OnExceptionDefini
 
     public boolean isAsyncDelayedRedelivery() {
         if (getRedeliveryPolicy() != null) {
-            return getRedeliveryPolicy().getAsyncDelayedRedelivery() != null && getRedeliveryPolicy().getAsyncDelayedRedelivery();
+            return getRedeliveryPolicy().getAsyncDelayedRedelivery() == null || getRedeliveryPolicy().getAsyncDelayedRedelivery();
         }
-        return false;
+        return true;
     }
 
     // Implementation methods
@@ -93,8 +93,8 @@ public class RedeliveryPolicyDefinition {
         if (redeliveryDelay != null) {
             answer.setRedeliveryDelay(redeliveryDelay);
         }
-        if (asyncDelayedRedelivery != null && asyncDelayedRedelivery) {
-            answer.asyncDelayedRedelivery();
+        if (asyncDelayedRedelivery != null) {
+            answer.setAsyncDelayedRedelivery(asyncDelayedRedelivery);
         }
         if (retriesExhaustedLogLevel != null) {
             answer.setRetriesExhaustedLogLevel(retriesExhaustedLogLevel);
@@ -39,6 +39,10 @@ public class TokenizerExpression extends ExpressionDefinition {
     private String headerName;
     @XmlAttribute(required = false)
     private Boolean regex;
+    @XmlAttribute(required = false)
+    private Boolean xml;
+    @XmlAttribute(required = false)
+    private Integer group;
 
     public TokenizerExpression() {
     }
@@ -72,6 +76,22 @@ public class TokenizerExpression extends ExpressionDefinition {
         return regex;
     }
 
+    public void setXml(boolean xml) {
+        this.xml = xml;
+    }
+
+    public Boolean getXml() {
+        return xml;
+    }
+
+    public void setGroup(int group) {
+        this.group = group;
+    }
+
+    public Integer getGroup() {
+        return group;
+    }
+
     @Override
     public Expression createExpression(CamelContext camelContext) {
         TokenizeLanguage language = new TokenizeLanguage();
@@ -80,6 +100,12 @@ public class TokenizerExpression extends ExpressionDefinition {
         if (regex != null) {
             language.setRegex(regex);
         }
+        if (xml != null) {
+            language.setXml(xml);
+        }
+        if (group != null) {
+            language.setGroup(group);
+        }
         return language.createExpression();
     }
 
@@ -20,6 +20,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.AsyncProcessor;
@@ -49,7 +50,14 @@ import org.apache.camel.util.ServiceHelper;
  */
 public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport implements AsyncProcessor {
 
-    private static ScheduledExecutorService executorService;
+    /**
+     * Id of the thread pool profile, or reference in the registry, for the scheduler which executes redelivery tasks.
+     */
+    public static final String REDELIVERY_THREAD_POOL = "ErrorHandlerRedeliveryTask";
+
+    private static ScheduledExecutorService defaultExecutorService;
+    private ScheduledExecutorService executorService;
+    protected final AtomicInteger pendingRedeliveryCount = new AtomicInteger();
     protected final CamelContext camelContext;
     protected final Processor deadLetter;
     protected final String deadLetterUri;
@@ -101,6 +109,8 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
         }
 
         public Boolean call() throws Exception {
+            pendingRedeliveryCount.decrementAndGet();
+
             // prepare for redelivery
             prepareExchangeForRedelivery(exchange);
 
@@ -265,7 +275,7 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
                         if (log.isTraceEnabled()) {
                             log.trace("Scheduling redelivery task to run in " + data.redeliveryDelay + " millis for exchangeId: " + exchange.getExchangeId());
                         }
-                        executorService.schedule(task, data.redeliveryDelay, TimeUnit.MILLISECONDS);
+                        scheduleRedeliveryTask(task, data.redeliveryDelay);
 
                         return false;
                     } else {
@@ -379,16 +389,28 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
 
             // calculate the redelivery delay
             data.redeliveryDelay = data.currentRedeliveryPolicy.calculateRedeliveryDelay(data.redeliveryDelay, data.redeliveryCounter);
-            if (data.redeliveryDelay > 0) {
-                // schedule the redelivery task
-                if (log.isTraceEnabled()) {
-                    log.trace("Scheduling redelivery task to run in " + data.redeliveryDelay + " millis for exchangeId: " + exchange.getExchangeId());
-                }
-                executorService.schedule(task, data.redeliveryDelay, TimeUnit.MILLISECONDS);
+            if (data.redeliveryDelay > 0 && log.isTraceEnabled()) {
+                log.trace("Scheduling redelivery task to run in " + data.redeliveryDelay + " millis for exchangeId: " + exchange.getExchangeId());
+            }
+            // schedule the redelivery task, or execute it immediately if there is no delay
+            scheduleRedeliveryTask(task, data.redeliveryDelay);
+        }
+    }
+
+    /**
+     * Schedules the redelivery task to be executed after the given delay, or immediately if there is no delay.
+     */
+    private void scheduleRedeliveryTask(AsyncRedeliveryTask task, long delay) {
+        pendingRedeliveryCount.incrementAndGet();
+        try {
+            if (delay > 0) {
+                executorService.schedule(task, delay, TimeUnit.MILLISECONDS);
             } else {
-                // execute the task immediately
                 executorService.submit(task);
             }
+        } catch (RejectedExecutionException e) {
+            pendingRedeliveryCount.decrementAndGet();
+            throw e;
         }
     }
 
@@ -468,6 +490,13 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
         return redeliveryPolicy;
     }
 
+    /**
+     * Gets the number of redelivery attempts which are currently scheduled and waiting to be executed.
+     */
+    public int getPendingRedeliveryCount() {
+        return pendingRedeliveryCount.get();
+    }
+
     public Logger getLogger() {
         return logger;
     }
@@ -845,11 +874,22 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
     @Override
     protected void doStart() throws Exception {
         ServiceHelper.startServices(output, outputAsync, deadLetter);
-        // use a shared scheduler
         if (executorService == null || executorService.isShutdown()) {
             // camel context will shutdown the executor when it shutdown so no need to shut it down when stopping
-            executorService = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(this, "ErrorHandlerRedeliveryTask");
+            // allow end users to provide a scheduler, or a thread pool profile to size it, using the redelivery thread pool id
+            executorService = camelContext.getExecutorServiceStrategy().lookupScheduled(this, REDELIVERY_THREAD_POOL, REDELIVERY_THREAD_POOL);
+            if (executorService == null) {
+                // use a shared scheduler sized from the default thread pool profile
+                executorService = getDefaultExecutorService(camelContext, this);
+            }
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getDefaultExecutorService(CamelContext camelContext, Object source) {
+        if (defaultExecutorService == null || defaultExecutorService.isShutdown()) {
+            defaultExecutorService = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(source, REDELIVERY_THREAD_POOL);
         }
+        return defaultExecutorService;
     }
 
     @Override
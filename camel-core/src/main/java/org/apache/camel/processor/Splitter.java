@@ -32,6 +32,8 @@ import org.apache.camel.Exchange;
 import org.apache.camel.Expression;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
+import org.apache.camel.impl.SynchronizationAdapter;
+import org.apache.camel.language.tokenizer.ReaderTokenIterator;
 import org.apache.camel.processor.aggregate.AggregationStrategy;
 import org.apache.camel.processor.aggregate.UseOriginalAggregationStrategy;
 import org.apache.camel.spi.RouteContext;
@@ -96,7 +98,22 @@ public class Splitter extends MulticastProcessor implements AsyncProcessor, Trac
 
     @Override
     protected Iterable<ProcessorExchangePair> createProcessorExchangePairs(Exchange exchange) {
-        Object value = expression.evaluate(exchange, Object.class);
+        final Object value = expression.evaluate(exchange, Object.class);
+
+        if (value instanceof ReaderTokenIterator) {
+            // ensure the tokenizer closes its reader even if splitting is stopped before all tokens are read
+            exchange.addOnCompletion(new SynchronizationAdapter() {
+                @Override
+                public void onDone(Exchange exchange) {
+                    ((ReaderTokenIterator) value).close();
+                }
+
+                @Override
+                public String toString() {
+                    return "OnCompletion[Splitter]";
+                }
+            });
+        }
 
         if (isStreaming()) {
             return createProcessorExchangePairsIterable(exchange, value);
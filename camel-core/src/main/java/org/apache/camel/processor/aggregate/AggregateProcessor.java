@@ -17,7 +17,7 @@
 package org.apache.camel.processor.aggregate;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -46,11 +46,13 @@ import org.apache.camel.impl.ServiceSupport;
 import org.apache.camel.processor.SendProcessor;
 import org.apache.camel.processor.Traceable;
 import org.apache.camel.spi.AggregationRepository;
+import org.apache.camel.spi.AppendableAggregationRepository;
 import org.apache.camel.spi.ExceptionHandler;
 import org.apache.camel.spi.RecoverableAggregationRepository;
 import org.apache.camel.spi.Synchronization;
 import org.apache.camel.util.DefaultTimeoutMap;
 import org.apache.camel.util.ExchangeHelper;
+import org.apache.camel.util.HashedWheelTimeoutMap;
 import org.apache.camel.util.LRUCache;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.ServiceHelper;
@@ -80,6 +82,8 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
     private static final Log LOG = LogFactory.getLog(AggregateProcessor.class);
 
     private final Lock lock = new ReentrantLock();
+    // optional locks striped by correlation key, which is used instead of the shared lock
+    private Lock[] stripedLocks;
     private final CamelContext camelContext;
     private final Processor processor;
     private final AggregationStrategy aggregationStrategy;
@@ -90,9 +94,11 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
     private TimeoutMap<String, String> timeoutMap;
     private ExceptionHandler exceptionHandler = new LoggingExceptionHandler(getClass());
     private AggregationRepository aggregationRepository = new MemoryAggregationRepository();
+    // the repository if it stores each incoming exchange as a part instead of the aggregated exchange
+    private AppendableAggregationRepository appendableRepository;
     private Map<Object, Object> closedCorrelationKeys;
     private Set<String> batchConsumerCorrelationKeys = new LinkedHashSet<String>();
-    private final Set<String> inProgressCompleteExchanges = new HashSet<String>();
+    private final Set<String> inProgressCompleteExchanges = Collections.synchronizedSet(new HashSet<String>());
     private final Map<String, RedeliveryData> redeliveryState = new ConcurrentHashMap<String, RedeliveryData>();
     // optional dead letter channel for exhausted recovered exchanges
     private Processor deadLetterProcessor;
@@ -107,6 +113,8 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
     private boolean ignoreInvalidCorrelationKeys;
     private Integer closeCorrelationKeyOnCompletion;
     private boolean parallelProcessing;
+    private int lockStripes;
+    private boolean useTimingWheel;
 
     // different ways to have completion triggered
     private boolean eagerCheckCompletion;
@@ -184,19 +192,42 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
         // when memory based then its fast using synchronized, but if the aggregation repository is IO
         // bound such as JPA etc then concurrent aggregation per correlation key could
         // improve performance as we can run aggregation repository get/add in parallel
-        lock.lock();
+        // and therefore lock striping by correlation key can be enabled
+        Lock keyLock = getLock(key);
+        keyLock.lock();
         try {
             doAggregation(key, copy);
         } finally {
-            lock.unlock();
+            keyLock.unlock();
         }
     }
 
+    /**
+     * Gets the lock to use for aggregating the given correlation key.
+     * <p/>
+     * This is the shared lock, unless lock striping is in use, where the lock is selected by the
+     * hash code of the correlation key.
+     *
+     * @param key the correlation key
+     * @return the lock
+     */
+    protected Lock getLock(String key) {
+        Lock[] stripes = stripedLocks;
+        if (stripes == null) {
+            return lock;
+        }
+        // spread the hash code so keys with similar hash codes do not use the same stripe
+        int hash = key.hashCode();
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
     /**
      * Aggregates the exchange with the given correlation key
      * <p/>
      * This method <b>must</b> be run synchronized as we cannot aggregate the same correlation key
-     * in parallel.
+     * in parallel. The lock to use is given by {@link #getLock(String)}.
      *
      * @param key      the correlation key
      * @param exchange the exchange
@@ -228,6 +259,9 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
             newExchange.removeProperty(Exchange.AGGREGATED_SIZE);
         }
 
+        // keep a copy of the incoming exchange as the aggregation strategy may change it
+        Exchange part = appendableRepository != null ? newExchange.copy() : null;
+
         // prepare the exchanges for aggregation and aggregate it
         ExchangeHelper.prepareAggregation(oldExchange, newExchange);
         answer = onAggregation(oldExchange, exchange);
@@ -248,7 +282,11 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
             if (LOG.isTraceEnabled()) {
                 LOG.trace("In progress aggregated exchange: " + answer + " with correlation key:" + key);
             }
-            aggregationRepository.add(exchange.getContext(), key, answer);
+            if (appendableRepository != null) {
+                appendableRepository.append(exchange.getContext(), key, part, answer);
+            } else {
+                aggregationRepository.add(exchange.getContext(), key, answer);
+            }
         } else {
             // if batch consumer completion is enabled then we need to complete the group
             if ("consumer".equals(complete)) {
@@ -517,6 +555,35 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
         this.parallelProcessing = parallelProcessing;
     }
 
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    /**
+     * Sets the number of locks to stripe the correlation keys over, which allows different correlation
+     * keys to be aggregated in parallel. The number is rounded up to a power of two.
+     * <p/>
+     * By default a single shared lock is used. Lock striping cannot be used together with
+     * <tt>completionFromBatchConsumer</tt>, as its completion spans all the correlation keys.
+     *
+     * @param lockStripes number of lock stripes, use <tt>0</tt> or <tt>1</tt> for a single shared lock
+     */
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public boolean isUseTimingWheel() {
+        return useTimingWheel;
+    }
+
+    /**
+     * Whether to use a {@link HashedWheelTimeoutMap} to keep track of the completion timeouts, which
+     * scales better than the default {@link DefaultTimeoutMap} when there is a lot of correlation keys in progress.
+     */
+    public void setUseTimingWheel(boolean useTimingWheel) {
+        this.useTimingWheel = useTimingWheel;
+    }
+
     public AggregationRepository getAggregationRepository() {
         return aggregationRepository;
     }
@@ -576,6 +643,57 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
         }
     }
 
+    /**
+     * Callback from the timeout map when a correlation key has timed out.
+     *
+     * @return <tt>true</tt> to remove the key from the timeout map, <tt>false</tt> to keep it
+     */
+    private boolean onTimeout(TimeoutMap<String, String> map, String key, String exchangeId) {
+        if (stripedLocks == null) {
+            // the purge is running with the shared lock
+            return doTimeout(key, exchangeId);
+        }
+
+        Lock keyLock = getLock(key);
+        keyLock.lock();
+        try {
+            // the correlation key may have been updated or completed since the purge found it expired
+            String current = map.get(key);
+            if (current == null || !current.equals(exchangeId)) {
+                return false;
+            }
+            doTimeout(key, exchangeId);
+            // remove it while holding the lock, so we do not remove a newer timeout for the same key
+            map.remove(key);
+            return false;
+        } finally {
+            keyLock.unlock();
+        }
+    }
+
+    private boolean doTimeout(String key, String exchangeId) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Completion timeout triggered for correlation key: " + key);
+        }
+
+        boolean inProgress = inProgressCompleteExchanges.contains(exchangeId);
+        if (inProgress) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Aggregated exchange with id: " + exchangeId + " is already in progress.");
+            }
+            return true;
+        }
+
+        // get the aggregated exchange
+        Exchange answer = aggregationRepository.get(camelContext, key);
+        if (answer != null) {
+            // indicate it was completed by timeout
+            answer.setProperty(Exchange.AGGREGATED_COMPLETED_BY, "timeout");
+            onCompletion(key, answer, true);
+        }
+        return true;
+    }
+
     /**
      * Background task that looks for aggregated exchanges which is triggered by completion timeouts.
      */
@@ -588,6 +706,12 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
 
         @Override
         public void purge() {
+            if (stripedLocks != null) {
+                // only the stripe of the evicted correlation key is locked during eviction
+                super.purge();
+                return;
+            }
+
             // must acquire the shared aggregation lock to be able to purge
             lock.lock();
             try {
@@ -599,26 +723,40 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
 
         @Override
         public boolean onEviction(String key, String exchangeId) {
-            if (log.isDebugEnabled()) {
-                log.debug("Completion timeout triggered for correlation key: " + key);
-            }
+            return onTimeout(this, key, exchangeId);
+        }
+    }
 
-            boolean inProgress = inProgressCompleteExchanges.contains(exchangeId);
-            if (inProgress) {
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("Aggregated exchange with id: " + exchangeId + " is already in progress.");
-                }
-                return true;
+    /**
+     * Background task that looks for aggregated exchanges which is triggered by completion timeouts,
+     * using a timing wheel which is better suited when there is many correlation keys in progress.
+     */
+    private final class AggregationTimeoutWheel extends HashedWheelTimeoutMap<String, String> {
+
+        private AggregationTimeoutWheel(ScheduledExecutorService executor, long requestMapPollTimeMillis) {
+            super(executor, requestMapPollTimeMillis);
+        }
+
+        @Override
+        public void purge() {
+            if (stripedLocks != null) {
+                // only the stripe of the evicted correlation key is locked during eviction
+                super.purge();
+                return;
             }
 
-            // get the aggregated exchange
-            Exchange answer = aggregationRepository.get(camelContext, key);
-            if (answer != null) {
-                // indicate it was completed by timeout
-                answer.setProperty(Exchange.AGGREGATED_COMPLETED_BY, "timeout");
-                onCompletion(key, answer, true);
+            // must acquire the shared aggregation lock to be able to purge
+            lock.lock();
+            try {
+                super.purge();
+            } finally {
+                lock.unlock();
             }
-            return true;
+        }
+
+        @Override
+        public boolean onEviction(String key, String exchangeId) {
+            return onTimeout(this, key, exchangeId);
         }
     }
 
@@ -642,27 +780,44 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
             Set<String> keys = aggregationRepository.getKeys();
 
             if (keys != null && !keys.isEmpty()) {
-                // must acquire the shared aggregation lock to be able to trigger interval completion
-                lock.lock();
-                try {
+                if (stripedLocks == null) {
+                    // must acquire the shared aggregation lock to be able to trigger interval completion
+                    lock.lock();
+                    try {
+                        for (String key : keys) {
+                            doIntervalCompletion(key);
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                } else {
+                    // only acquire the stripe for the correlation key so aggregation of other keys can continue
                     for (String key : keys) {
-                        Exchange exchange = aggregationRepository.get(camelContext, key);
-                        if (exchange != null) {
-                            if (LOG.isTraceEnabled()) {
-                                LOG.trace("Completion interval triggered for correlation key: " + key);
-                            }
-                            // indicate it was completed by interval
-                            exchange.setProperty(Exchange.AGGREGATED_COMPLETED_BY, "interval");
-                            onCompletion(key, exchange, false);
+                        Lock keyLock = getLock(key);
+                        keyLock.lock();
+                        try {
+                            doIntervalCompletion(key);
+                        } finally {
+                            keyLock.unlock();
                         }
                     }
-                } finally {
-                    lock.unlock();
                 }
             }
 
             LOG.trace("Completion interval task complete");
         }
+
+        private void doIntervalCompletion(String key) {
+            Exchange exchange = aggregationRepository.get(camelContext, key);
+            if (exchange != null) {
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Completion interval triggered for correlation key: " + key);
+                }
+                // indicate it was completed by interval
+                exchange.setProperty(Exchange.AGGREGATED_COMPLETED_BY, "interval");
+                onCompletion(key, exchange, false);
+            }
+        }
     }
 
     /**
@@ -781,7 +936,34 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
                 closedCorrelationKeys = new LRUCache<Object, Object>(getCloseCorrelationKeyOnCompletion());
             } else {
                 LOG.info("Using ClosedCorrelationKeys with unbounded capacity");
-                closedCorrelationKeys = new HashMap<Object, Object>();
+                closedCorrelationKeys = new ConcurrentHashMap<Object, Object>();
+            }
+        }
+
+        if (getLockStripes() > 1) {
+            if (isCompletionFromBatchConsumer()) {
+                LOG.info("Cannot use lock striping with completionFromBatchConsumer, will use a single shared lock instead.");
+            } else {
+                int size = 1;
+                while (size < getLockStripes()) {
+                    size <<= 1;
+                }
+                LOG.info("Using " + size + " lock stripes to aggregate correlation keys in parallel.");
+                Lock[] stripes = new Lock[size];
+                for (int i = 0; i < size; i++) {
+                    stripes[i] = new ReentrantLock();
+                }
+                stripedLocks = stripes;
+            }
+        }
+
+        if (aggregationRepository instanceof AppendableAggregationRepository) {
+            AppendableAggregationRepository appendable = (AppendableAggregationRepository) aggregationRepository;
+            if (appendable.isAppendMode()) {
+                LOG.info("Using AppendableAggregationRepository in append mode which stores each incoming exchange as a part.");
+                // the repository needs the strategy to fold the parts into the aggregated exchange
+                appendable.setAggregationStrategy(aggregationStrategy);
+                appendableRepository = appendable;
             }
         }
 
@@ -837,7 +1019,11 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
             LOG.info("Using CompletionTimeout to trigger after " + getCompletionTimeout() + " millis of inactivity.");
             ScheduledExecutorService scheduler = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(this, "AggregateTimeoutChecker", 1);
             // check for timed out aggregated messages once every second
-            timeoutMap = new AggregationTimeoutMap(scheduler, 1000L);
+            if (isUseTimingWheel()) {
+                timeoutMap = new AggregationTimeoutWheel(scheduler, 1000L);
+            } else {
+                timeoutMap = new AggregationTimeoutMap(scheduler, 1000L);
+            }
             ServiceHelper.startService(timeoutMap);
         }
     }
@@ -856,6 +1042,8 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
         }
         batchConsumerCorrelationKeys.clear();
         redeliveryState.clear();
+        stripedLocks = null;
+        appendableRepository = null;
     }
 
     @Override
@@ -0,0 +1,390 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.idempotent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.spi.IdempotentRepository;
+import org.apache.camel.util.FileUtil;
+import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.ScalableBloomFilter;
+import org.apache.camel.util.ServiceHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * An {@link org.apache.camel.spi.IdempotentRepository} which decorates another repository with a
+ * {@link ScalableBloomFilter} of the keys, so looking up a key which is definitely not in the repository
+ * does not hit the backing repository at all.
+ * <p/>
+ * This is useful when the backing repository is expensive to query, such as a database or a large file store,
+ * and most of the keys looked up is new keys, such as the file consumer checking each file it polls.
+ * Only {@link #contains(String)} benefits from the filter, as adding a key must still go to the
+ * backing repository.
+ * <p/>
+ * The filter is only complete if it knows all the keys in the backing repository. When starting the filter
+ * is loaded from the file store, if configured and the file was saved when this repository was stopped.
+ * Otherwise the filter is rebuilt from the keys in the backing repository, which is supported for the
+ * {@link MemoryIdempotentRepository}, {@link FileIdempotentRepository} and
+ * {@link SegmentedFileIdempotentRepository}. Override {@link #rebuildFilter(ScalableBloomFilter)} to support
+ * other repositories. If the filter cannot be rebuilt, all lookups goes to the backing repository.
+ * <p/>
+ * <b>Important:</b> the keys must only be added to the backing repository using this repository, otherwise the
+ * filter does not know about the keys and duplicates is not detected.
+ *
+ * @version $Revision$
+ */
+@ManagedResource("BloomFilterIdempotentRepository")
+public class BloomFilterIdempotentRepository extends ServiceSupport implements IdempotentRepository<String> {
+    private static final transient Log LOG = LogFactory.getLog(BloomFilterIdempotentRepository.class);
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong filteredLookups = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private IdempotentRepository<String> repository;
+    private int expectedInsertions = 100000;
+    private double falsePositiveProbability = 0.01;
+    private File fileStore;
+    private volatile ScalableBloomFilter filter;
+    private volatile boolean filterComplete;
+
+    public BloomFilterIdempotentRepository() {
+    }
+
+    public BloomFilterIdempotentRepository(IdempotentRepository<String> repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Creates a new repository which decorates the given repository with a bloom filter.
+     *
+     * @param repository  the backing repository
+     */
+    public static IdempotentRepository<String> bloomFilterIdempotentRepository(IdempotentRepository<String> repository) {
+        return new BloomFilterIdempotentRepository(repository);
+    }
+
+    /**
+     * Creates a new repository which decorates the given repository with a bloom filter
+     * which is saved to the file store when the repository is stopped.
+     *
+     * @param repository  the backing repository
+     * @param fileStore   the file store for the bloom filter
+     */
+    public static IdempotentRepository<String> bloomFilterIdempotentRepository(IdempotentRepository<String> repository, File fileStore) {
+        BloomFilterIdempotentRepository answer = new BloomFilterIdempotentRepository(repository);
+        answer.setFileStore(fileStore);
+        return answer;
+    }
+
+    @ManagedOperation(description = "Adds the key to the store")
+    public boolean add(String key) {
+        ScalableBloomFilter current = filter;
+        if (current != null) {
+            // add to the filter before the repository so a concurrent lookup never misses the key
+            current.put(key);
+        }
+        return repository.add(key);
+    }
+
+    @ManagedOperation(description = "Does the store contain the given key")
+    public boolean contains(String key) {
+        lookups.incrementAndGet();
+        ScalableBloomFilter current = filter;
+        if (current == null || !filterComplete) {
+            return repository.contains(key);
+        }
+
+        if (!current.mightContain(key)) {
+            // definitely a new key so skip the repository
+            filteredLookups.incrementAndGet();
+            return false;
+        }
+
+        boolean answer = repository.contains(key);
+        if (!answer) {
+            falsePositives.incrementAndGet();
+        }
+        return answer;
+    }
+
+    @ManagedOperation(description = "Remove the key from the store")
+    public boolean remove(String key) {
+        // the key cannot be removed from the filter, so it will only cause the next lookup to go to the repository
+        return repository.remove(key);
+    }
+
+    public boolean confirm(String key) {
+        return repository.confirm(key);
+    }
+
+    /**
+     * Rebuilds the bloom filter from the keys in the backing repository
+     *
+     * @return <tt>true</tt> if the filter could be rebuilt
+     */
+    @ManagedOperation(description = "Rebuilds the bloom filter from the backing repository")
+    public synchronized boolean rebuild() {
+        ScalableBloomFilter answer = new ScalableBloomFilter(expectedInsertions, falsePositiveProbability);
+        // do not use the filter for lookups until its rebuilt, but keys added while rebuilding is added to it
+        filterComplete = false;
+        filter = answer;
+        filterComplete = rebuildFilter(answer);
+        if (filterComplete) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Rebuilt bloom filter with " + answer.getCount() + " keys from idempotent repository: " + repository);
+            }
+        } else {
+            LOG.info("Cannot rebuild bloom filter from idempotent repository: " + repository
+                + ". All lookups will use the repository.");
+        }
+        return filterComplete;
+    }
+
+    @ManagedOperation(description = "Reset the lookup statistics")
+    public void resetStatistics() {
+        lookups.set(0);
+        filteredLookups.set(0);
+        falsePositives.set(0);
+    }
+
+    public IdempotentRepository<String> getRepository() {
+        return repository;
+    }
+
+    public void setRepository(IdempotentRepository<String> repository) {
+        this.repository = repository;
+    }
+
+    @ManagedAttribute(description = "The expected number of keys")
+    public int getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * Sets the expected number of keys which the bloom filter is initially sized for.
+     * The filter will grow if more keys is added.
+     * <p/>
+     * Is by default 100000.
+     */
+    public void setExpectedInsertions(int expectedInsertions) {
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    @ManagedAttribute(description = "The configured false positive probability")
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    /**
+     * Sets the probability that the bloom filter reports a new key as a possible duplicate,
+     * which means the lookup goes to the backing repository.
+     * <p/>
+     * Is by default 0.01 (1%).
+     */
+    public void setFalsePositiveProbability(double falsePositiveProbability) {
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    public File getFileStore() {
+        return fileStore;
+    }
+
+    /**
+     * Sets the file to save the bloom filter in when this repository is stopped, so the filter
+     * does not have to be rebuilt when starting.
+     */
+    public void setFileStore(File fileStore) {
+        this.fileStore = fileStore;
+    }
+
+    @ManagedAttribute(description = "The file store for the bloom filter")
+    public String getFilePath() {
+        return fileStore != null ? fileStore.getPath() : null;
+    }
+
+    @ManagedAttribute(description = "Whether the bloom filter knows all the keys and is used for lookups")
+    public boolean isFilterComplete() {
+        return filterComplete;
+    }
+
+    @ManagedAttribute(description = "The approximate number of keys in the bloom filter")
+    public long getFilterSize() {
+        ScalableBloomFilter current = filter;
+        return current != null ? current.getCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of bits in the bloom filter")
+    public long getFilterBitCount() {
+        ScalableBloomFilter current = filter;
+        return current != null ? current.getBitCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of layers in the bloom filter")
+    public int getFilterLayerCount() {
+        ScalableBloomFilter current = filter;
+        return current != null ? current.getLayerCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The estimated false positive probability of the bloom filter")
+    public double getEstimatedFalsePositiveProbability() {
+        ScalableBloomFilter current = filter;
+        return current != null ? current.getEstimatedFalsePositiveProbability() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of lookups")
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    @ManagedAttribute(description = "The number of lookups answered by the bloom filter without using the repository")
+    public long getFilteredLookups() {
+        return filteredLookups.get();
+    }
+
+    @ManagedAttribute(description = "The number of lookups where the bloom filter wrongly reported a possible duplicate")
+    public long getFalsePositives() {
+        return falsePositives.get();
+    }
+
+    /**
+     * Gets the observed false positive rate, which is the ratio of lookups of new keys
+     * that the bloom filter did not filter.
+     */
+    @ManagedAttribute(description = "The observed false positive rate of the bloom filter")
+    public double getFalsePositiveRate() {
+        long fp = falsePositives.get();
+        long negatives = fp + filteredLookups.get();
+        return negatives > 0 ? (double) fp / negatives : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "BloomFilterIdempotentRepository[" + repository + "]";
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        ObjectHelper.notNull(repository, "repository", this);
+        ServiceHelper.startService(repository);
+
+        if (fileStore != null && fileStore.exists()) {
+            if (loadFilter()) {
+                return;
+            }
+        }
+        rebuild();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (fileStore != null && filterComplete) {
+            saveFilter();
+        }
+        filter = null;
+        filterComplete = false;
+        ServiceHelper.stopService(repository);
+    }
+
+    /**
+     * Adds all the keys in the backing repository to the filter.
+     *
+     * @param filter the filter
+     * @return <tt>true</tt> if all the keys was added, <tt>false</tt> if the keys cannot be read from the repository
+     */
+    protected boolean rebuildFilter(final ScalableBloomFilter filter) {
+        Map<String, Object> keys = null;
+        if (repository instanceof SegmentedFileIdempotentRepository) {
+            ((SegmentedFileIdempotentRepository) repository).visitKeys(new SegmentedFileIdempotentRepository.KeyVisitor() {
+                public void visitKey(String key) {
+                    filter.put(key);
+                }
+            });
+            return true;
+        } else if (repository instanceof MemoryIdempotentRepository) {
+            keys = ((MemoryIdempotentRepository) repository).getCache();
+        } else if (repository instanceof FileIdempotentRepository) {
+            keys = ((FileIdempotentRepository) repository).getCache();
+        }
+
+        if (keys == null) {
+            return false;
+        }
+        for (String key : keys.keySet()) {
+            filter.put(key);
+        }
+        return true;
+    }
+
+    /**
+     * Loads the filter from the file store, and deletes the file so the filter is rebuilt if we crash
+     */
+    private boolean loadFilter() {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileStore)));
+            filter = ScalableBloomFilter.readFrom(in);
+            filterComplete = true;
+        } catch (IOException e) {
+            LOG.warn("Cannot load bloom filter from file store: " + fileStore + ". The filter will be rebuilt.", e);
+            return false;
+        } finally {
+            IOHelper.close(in, "Loading bloom filter", LOG);
+            FileUtil.deleteFile(fileStore);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Loaded bloom filter with " + filter.getCount() + " keys from file store: " + fileStore);
+        }
+        return true;
+    }
+
+    private void saveFilter() throws IOException {
+        if (fileStore.getParentFile() != null) {
+            fileStore.getParentFile().mkdirs();
+        }
+        // write to a temporary file first so we never load a partially written filter
+        File tmp = new File(fileStore.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            filter.writeTo(out);
+            out.flush();
+        } finally {
+            IOHelper.close(out, "Saving bloom filter", LOG);
+        }
+        FileUtil.deleteFile(fileStore);
+        if (!FileUtil.renameFile(tmp, fileStore)) {
+            throw new IOException("Cannot rename " + tmp + " to " + fileStore);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Saved bloom filter with " + filter.getCount() + " keys to file store: " + fileStore);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.camel.impl.ServiceSupport;
@@ -40,6 +41,9 @@ import org.springframework.jmx.export.annotation.ManagedResource;
  * <p/>
  * Care should be taken to use a suitable underlying {@link java.util.Map} to avoid this class being a
  * memory leak.
+ * <p/>
+ * This repository only remembers the keys in its 1st level cache. Use {@link SegmentedFileIdempotentRepository}
+ * for a large number of keys.
  *
  * @version $Revision$
  */
@@ -133,6 +137,10 @@ public class FileIdempotentRepository extends ServiceSupport implements Idempote
 
     @ManagedOperation(description = "Does the store contain the given key")
     public boolean contains(String key) {
+        if (cache instanceof ConcurrentMap) {
+            // the cache is thread safe so no need to lock
+            return cache.containsKey(key);
+        }
         synchronized (cache) {
             return cache.containsKey(key);
         }
@@ -0,0 +1,32 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.idempotent;
+
+/**
+ * Represents when a file based store is synced to disk.
+ * <ul>
+ *   <li>None - the store is only synced when its stopped, and otherwise left to the operating system</li>
+ *   <li>Always - the store is synced after every write</li>
+ *   <li>GroupCommit - the store is synced before a write returns, but concurrent writes share the same sync</li>
+ * </ul>
+ *
+ * @version $Revision$
+ */
+public enum FileStoreSyncMode {
+
+    None, Always, GroupCommit
+}
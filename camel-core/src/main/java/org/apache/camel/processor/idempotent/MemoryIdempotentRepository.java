@@ -17,6 +17,7 @@
 package org.apache.camel.processor.idempotent;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.camel.impl.ServiceSupport;
 import org.apache.camel.spi.IdempotentRepository;
@@ -78,6 +79,10 @@ public class MemoryIdempotentRepository extends ServiceSupport implements Idempo
 
     @ManagedOperation(description = "Adds the key to the store")
     public boolean add(String key) {
+        if (cache instanceof ConcurrentMap) {
+            // the cache is thread safe so no need to lock
+            return ((ConcurrentMap<String, Object>) cache).putIfAbsent(key, key) == null;
+        }
         synchronized (cache) {
             if (cache.containsKey(key)) {
                 return false;
@@ -90,6 +95,9 @@ public class MemoryIdempotentRepository extends ServiceSupport implements Idempo
 
     @ManagedOperation(description = "Does the store contain the given key")
     public boolean contains(String key) {
+        if (cache instanceof ConcurrentMap) {
+            return cache.containsKey(key);
+        }
         synchronized (cache) {
             return cache.containsKey(key);
         }
@@ -97,6 +105,9 @@ public class MemoryIdempotentRepository extends ServiceSupport implements Idempo
 
     @ManagedOperation(description = "Remove the key from the store")
     public boolean remove(String key) {
+        if (cache instanceof ConcurrentMap) {
+            return cache.remove(key) != null;
+        }
         synchronized (cache) {
             return cache.remove(key) != null;
         }
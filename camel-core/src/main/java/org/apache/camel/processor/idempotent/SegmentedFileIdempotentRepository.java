@@ -0,0 +1,1102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.idempotent;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.spi.IdempotentRepository;
+import org.apache.camel.util.FileUtil;
+import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.LRUCache;
+import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.concurrent.ExecutorServiceHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * A file based implementation of {@link org.apache.camel.spi.IdempotentRepository} which can hold
+ * millions of keys, as opposed to {@link FileIdempotentRepository} which only remembers the keys in
+ * its 1st level cache.
+ * <p/>
+ * The keys is appended to log files, called segments, in the given directory, and a removed key is
+ * appended as a tombstone, so the files is never rewritten while adding and removing keys. When the
+ * current segment reaches the max segment size a new segment is started.
+ * <p/>
+ * A hash index in a memory mapped file keeps track of where each key is stored, so keys which is not
+ * in the 1st level cache can be looked up without reading the segments. The index is rebuilt from
+ * the segments if the repository was not stopped properly.
+ * <p/>
+ * A background task compacts the segments where the ratio of removed keys has reached the compaction
+ * threshold, by moving the keys still in use to the current segment and then deleting the old segment.
+ * <p/>
+ * How often the files is synced to disk is configured using {@link FileStoreSyncMode}.
+ * <p/>
+ * Keys cannot contain line breaks.
+ *
+ * @version $Revision$
+ */
+@ManagedResource("SegmentedFileIdempotentRepository")
+public class SegmentedFileIdempotentRepository extends ServiceSupport implements IdempotentRepository<String> {
+    private static final transient Log LOG = LogFactory.getLog(SegmentedFileIdempotentRepository.class);
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_FILE = "index.dat";
+    private static final String SEGMENTS_FILE = "segments.properties";
+    private static final String ENCODING = "UTF-8";
+    private static final byte ADD = '+';
+    private static final byte REMOVE = '-';
+    private static final byte DELIMITER = '\n';
+    // index header is magic, version, capacity, used, live and the clean flag
+    private static final int INDEX_MAGIC = 0x43494458;
+    private static final int INDEX_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CLEAN_POSITION = 20;
+    // each slot in the index is the hash of the key, the segment id and the offset in the segment
+    private static final int SLOT_SIZE = 16;
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int COMPACTION_CHUNK = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock compactionLock = new ReentrantLock();
+    private final Object syncMonitor = new Object();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+    private final AtomicLong compactions = new AtomicLong();
+    private File directory;
+    private Map<String, Object> cache;
+    private long maxSegmentSize = 8 * 1024 * 1024L;
+    private int initialIndexCapacity = 64 * 1024;
+    private double compactionThreshold = 0.5;
+    private long compactionInterval = 60000L;
+    private FileStoreSyncMode syncMode = FileStoreSyncMode.None;
+    private ScheduledExecutorService compactionService;
+    // the segment we append to (guarded by lock)
+    private Segment active;
+    // the hash index (guarded by lock)
+    private RandomAccessFile indexFile;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int used;
+    private int live;
+    // group commit state
+    private long writeSequence;
+    private long syncedSequence;
+    private boolean syncing;
+
+    public SegmentedFileIdempotentRepository() {
+        // default use a 1st level cache
+        this.cache = new LRUCache<String, Object>(1000);
+    }
+
+    public SegmentedFileIdempotentRepository(File directory) {
+        this();
+        this.directory = directory;
+    }
+
+    public SegmentedFileIdempotentRepository(File directory, Map<String, Object> cache) {
+        this.directory = directory;
+        this.cache = cache;
+    }
+
+    /**
+     * Creates a new segmented file based repository using a {@link org.apache.camel.util.LRUCache}
+     * as 1st level cache with a default of 1000 entries in the cache.
+     *
+     * @param directory  the directory to store the segments and index
+     */
+    public static IdempotentRepository<String> segmentedFileIdempotentRepository(File directory) {
+        return new SegmentedFileIdempotentRepository(directory);
+    }
+
+    /**
+     * Creates a new segmented file based repository using a {@link org.apache.camel.util.LRUCache}
+     * as 1st level cache.
+     *
+     * @param directory       the directory to store the segments and index
+     * @param cacheSize       the cache size
+     * @param maxSegmentSize  the max size in bytes of a segment
+     */
+    public static IdempotentRepository<String> segmentedFileIdempotentRepository(File directory, int cacheSize, long maxSegmentSize) {
+        SegmentedFileIdempotentRepository repository = new SegmentedFileIdempotentRepository(directory, new LRUCache<String, Object>(cacheSize));
+        repository.setMaxSegmentSize(maxSegmentSize);
+        return repository;
+    }
+
+    @ManagedOperation(description = "Adds the key to the store")
+    public boolean add(String key) {
+        byte[] record = encode(ADD, key);
+        long sequence;
+
+        lock.writeLock().lock();
+        try {
+            if (findSlot(key, record) >= 0) {
+                cache.put(key, key);
+                return false;
+            }
+            long offset = append(record);
+            insertSlot(hash(key), active.id, offset);
+            active.records++;
+            live++;
+            cache.put(key, key);
+            sequence = afterWrite();
+        } catch (IOException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        groupCommit(sequence);
+        return true;
+    }
+
+    @ManagedOperation(description = "Does the store contain the given key")
+    public boolean contains(String key) {
+        if (cache.containsKey(key)) {
+            return true;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (findSlot(key, encode(ADD, key)) >= 0) {
+                // only cache while holding the lock so we do not cache a key being removed concurrently
+                cache.put(key, key);
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @ManagedOperation(description = "Remove the key from the store")
+    public boolean remove(String key) {
+        long sequence;
+
+        lock.writeLock().lock();
+        try {
+            cache.remove(key);
+            int slot = findSlot(key, encode(ADD, key));
+            if (slot < 0) {
+                return false;
+            }
+
+            // the removed key is stored as a tombstone which is garbage from the start
+            append(encode(REMOVE, key));
+            active.records++;
+            active.dead++;
+
+            int position = slotPosition(slot);
+            Segment old = segments.get(index.getInt(position + 4));
+            if (old != null) {
+                old.dead++;
+            }
+            index.putInt(position + 4, DELETED);
+            live--;
+            sequence = afterWrite();
+        } catch (IOException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        groupCommit(sequence);
+        return true;
+    }
+
+    public boolean confirm(String key) {
+        // noop
+        return true;
+    }
+
+    /**
+     * Compacts the segments where the ratio of removed keys has reached the compaction threshold.
+     *
+     * @return the number of compacted segments
+     */
+    @ManagedOperation(description = "Compacts the segments with many removed keys")
+    public int compact() {
+        compactionLock.lock();
+        try {
+            List<Segment> candidates = new ArrayList<Segment>();
+            lock.readLock().lock();
+            try {
+                for (Segment segment : segments.values()) {
+                    if (segment != active && (segment.records == 0 || (double) segment.dead / segment.records >= compactionThreshold)) {
+                        candidates.add(segment);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            int answer = 0;
+            for (Segment segment : candidates) {
+                if (!isRunAllowed()) {
+                    break;
+                }
+                compactSegment(segment);
+                answer++;
+            }
+            return answer;
+        } catch (IOException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    @ManagedAttribute(description = "The directory for the store")
+    public String getDirectoryPath() {
+        return directory.getPath();
+    }
+
+    public Map<String, Object> getCache() {
+        return cache;
+    }
+
+    public void setCache(Map<String, Object> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the cache size
+     */
+    public void setCacheSize(int size) {
+        if (cache != null) {
+            cache.clear();
+        }
+        cache = new LRUCache<String, Object>(size);
+    }
+
+    @ManagedAttribute(description = "The current cache size")
+    public int getCacheSize() {
+        if (cache != null) {
+            return cache.size();
+        }
+        return 0;
+    }
+
+    @ManagedAttribute(description = "The maximum size of a segment in bytes")
+    public long getMaxSegmentSize() {
+        return maxSegmentSize;
+    }
+
+    /**
+     * Sets the maximum size of a segment in bytes, before a new segment is started.
+     * <p/>
+     * The default is 8mb.
+     */
+    public void setMaxSegmentSize(long maxSegmentSize) {
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    public int getInitialIndexCapacity() {
+        return initialIndexCapacity;
+    }
+
+    /**
+     * Sets the initial number of slots in the index, which is rounded up to a power of two.
+     * The index grows when its half full.
+     */
+    public void setInitialIndexCapacity(int initialIndexCapacity) {
+        this.initialIndexCapacity = initialIndexCapacity;
+    }
+
+    @ManagedAttribute(description = "The ratio of removed keys in a segment before its compacted")
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Sets the ratio of removed keys in a segment, before the segment is compacted.
+     * <p/>
+     * The default is 0.5
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @ManagedAttribute(description = "How often to check for segments to compact in millis")
+    public long getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    /**
+     * Sets how often in millis to check for segments to compact. Use 0 to disable background compaction.
+     * <p/>
+     * The default is 60000 millis.
+     */
+    public void setCompactionInterval(long compactionInterval) {
+        this.compactionInterval = compactionInterval;
+    }
+
+    public FileStoreSyncMode getSyncMode() {
+        return syncMode;
+    }
+
+    /**
+     * Sets when the store is synced to disk.
+     * <p/>
+     * The default is {@link FileStoreSyncMode#None}
+     */
+    public void setSyncMode(FileStoreSyncMode syncMode) {
+        this.syncMode = syncMode;
+    }
+
+    @ManagedAttribute(description = "When the store is synced to disk")
+    public String getSyncModeName() {
+        return syncMode.name();
+    }
+
+    @ManagedAttribute(description = "The number of keys in the store")
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "The number of segments")
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "The number of compacted segments")
+    public long getCompactions() {
+        return compactions.get();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        ObjectHelper.notNull(directory, "directory", this);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory: " + directory);
+        }
+
+        lock.writeLock().lock();
+        try {
+            openSegments();
+            if (!loadIndex()) {
+                rebuildIndex();
+            }
+            // mark the index as in use, so its rebuilt if we crash
+            index.putInt(CLEAN_POSITION, 0);
+            index.force();
+
+            if (segments.isEmpty() || segments.get(segments.lastKey()).size >= maxSegmentSize) {
+                active = createSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+            } else {
+                active = segments.get(segments.lastKey());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Loaded " + live + " keys in " + segments.size() + " segments from idempotent store: " + directory);
+        }
+
+        if (compactionInterval > 0) {
+            compactionService = ExecutorServiceHelper.newScheduledThreadPool(1, null, "SegmentedFileIdempotentRepository", true);
+            compactionService.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        int compacted = compact();
+                        if (compacted > 0 && LOG.isDebugEnabled()) {
+                            LOG.debug("Compacted " + compacted + " segments in idempotent store: " + directory);
+                        }
+                    } catch (Throwable e) {
+                        LOG.warn("Error compacting idempotent store: " + directory + ". This exception will be ignored.", e);
+                    }
+                }
+            }, compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (compactionService != null) {
+            // do not interrupt a running compaction
+            compactionService.shutdown();
+            compactionService = null;
+        }
+
+        // wait for any running compaction to complete
+        compactionLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                if (index == null) {
+                    // not started
+                    return;
+                }
+                if (active != null) {
+                    active.sync();
+                }
+                saveSegments();
+                // mark the index as clean as the last thing
+                index.putInt(12, used);
+                index.putInt(16, live);
+                index.putInt(CLEAN_POSITION, 1);
+                index.force();
+                closeIndex();
+                for (Segment segment : segments.values()) {
+                    IOHelper.close(segment.file, "Closing segment", LOG);
+                }
+                segments.clear();
+                active = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+
+        cache.clear();
+    }
+
+    /**
+     * Visits all the keys in the store, for example to build another structure from the keys.
+     * <p/>
+     * Writes to the store is blocked while visiting the keys.
+     *
+     * @param visitor the visitor
+     */
+    void visitKeys(final KeyVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (final Segment segment : segments.values()) {
+                readSegment(segment, new RecordHandler() {
+                    public void onRecord(long offset, byte[] record) throws IOException {
+                        if (record.length < 2 || record[0] != ADD) {
+                            return;
+                        }
+                        // only visit the record the index points to, as older records of the key is garbage
+                        String key = decodeKey(record);
+                        int slot = findSlot(key, record);
+                        if (slot >= 0) {
+                            int position = slotPosition(slot);
+                            if (index.getInt(position + 4) == segment.id && index.getLong(position + 8) == offset) {
+                                visitor.visitKey(key);
+                            }
+                        }
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Implementation methods
+    // -------------------------------------------------------------------------
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static byte[] encode(byte op, String key) {
+        if (key.indexOf(DELIMITER) > -1 || key.indexOf('\r') > -1) {
+            throw new IllegalArgumentException("Key cannot contain line breaks: " + key);
+        }
+        try {
+            byte[] bytes = key.getBytes(ENCODING);
+            byte[] answer = new byte[bytes.length + 2];
+            answer[0] = op;
+            System.arraycopy(bytes, 0, answer, 1, bytes.length);
+            answer[answer.length - 1] = DELIMITER;
+            return answer;
+        } catch (UnsupportedEncodingException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        }
+    }
+
+    private static String decodeKey(byte[] record) throws UnsupportedEncodingException {
+        // skip the op and the delimiter
+        return new String(record, 1, record.length - 2, ENCODING);
+    }
+
+    private static int slotPosition(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Finds the slot in the index for the given key
+     *
+     * @return the slot, or <tt>-1</tt> if the key is not in the index
+     */
+    private int findSlot(String key, byte[] record) throws IOException {
+        int hash = hash(key);
+        int mask = capacity - 1;
+        for (int i = hash & mask, n = 0; n < capacity; i = (i + 1) & mask, n++) {
+            int position = slotPosition(i);
+            int segmentId = index.getInt(position + 4);
+            if (segmentId == EMPTY) {
+                return -1;
+            }
+            if (segmentId != DELETED && index.getInt(position) == hash
+                    && matches(segmentId, index.getLong(position + 8), record)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int segmentId, long offset, byte[] record) throws IOException {
+        Segment segment = segments.get(segmentId);
+        if (segment == null || offset + record.length > segment.size) {
+            return false;
+        }
+        byte[] data = new byte[record.length];
+        segment.read(offset, data);
+        return Arrays.equals(data, record);
+    }
+
+    private void insertSlot(int hash, int segmentId, long offset) throws IOException {
+        // keep the index at most half full
+        if ((used + 1) * 2 > capacity) {
+            resizeIndex();
+        }
+        int mask = capacity - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            int position = slotPosition(i);
+            int existing = index.getInt(position + 4);
+            if (existing == EMPTY || existing == DELETED) {
+                if (existing == EMPTY) {
+                    used++;
+                }
+                index.putInt(position, hash);
+                index.putInt(position + 4, segmentId);
+                index.putLong(position + 8, offset);
+                return;
+            }
+        }
+    }
+
+    private void openIndex(File file, int slots) throws IOException {
+        indexFile = new RandomAccessFile(file, "rw");
+        indexFile.setLength(HEADER_SIZE + (long) slots * SLOT_SIZE);
+        index = indexFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, indexFile.length());
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, INDEX_VERSION);
+        index.putInt(8, slots);
+        capacity = slots;
+        used = 0;
+    }
+
+    private void closeIndex() {
+        if (indexFile != null) {
+            IOHelper.close(indexFile, "Closing index", LOG);
+            indexFile = null;
+            index = null;
+        }
+    }
+
+    /**
+     * Creates a new index with room for the keys and removes the deleted slots
+     */
+    private void resizeIndex() throws IOException {
+        int slots = 1;
+        while (slots < Math.max(initialIndexCapacity, live * 4)) {
+            slots <<= 1;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Resizing index from " + capacity + " to " + slots + " slots in idempotent store: " + directory);
+        }
+
+        MappedByteBuffer old = index;
+        int oldCapacity = capacity;
+        RandomAccessFile oldFile = indexFile;
+
+        File file = new File(directory, INDEX_FILE);
+        File tmp = new File(directory, INDEX_FILE + ".tmp");
+        FileUtil.deleteFile(tmp);
+        openIndex(tmp, slots);
+
+        int mask = slots - 1;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int position = slotPosition(slot);
+            int segmentId = old.getInt(position + 4);
+            if (segmentId != EMPTY && segmentId != DELETED) {
+                int hash = old.getInt(position);
+                for (int i = hash & mask;; i = (i + 1) & mask) {
+                    int newPosition = slotPosition(i);
+                    if (index.getInt(newPosition + 4) == EMPTY) {
+                        index.putInt(newPosition, hash);
+                        index.putInt(newPosition + 4, segmentId);
+                        index.putLong(newPosition + 8, old.getLong(position + 8));
+                        used++;
+                        break;
+                    }
+                }
+            }
+        }
+
+        IOHelper.close(oldFile, "Closing index", LOG);
+        FileUtil.deleteFile(file);
+        if (!FileUtil.renameFile(tmp, file)) {
+            // the index will be rebuilt on next start
+            LOG.warn("Cannot rename index file " + tmp + " to " + file);
+        }
+    }
+
+    /**
+     * Loads the index if the repository was stopped properly
+     *
+     * @return <tt>true</tt> if loaded, <tt>false</tt> if the index must be rebuilt
+     */
+    private boolean loadIndex() throws IOException {
+        File file = new File(directory, INDEX_FILE);
+        File stats = new File(directory, SEGMENTS_FILE);
+        if (!file.exists() || !stats.exists()) {
+            return false;
+        }
+
+        Properties properties = new Properties();
+        InputStream is = new FileInputStream(stats);
+        try {
+            properties.load(is);
+        } finally {
+            IOHelper.close(is, "Loading segments", LOG);
+        }
+        for (Segment segment : segments.values()) {
+            String value = properties.getProperty("" + segment.id);
+            if (value == null || value.indexOf(',') < 0) {
+                return false;
+            }
+            segment.records = Long.parseLong(ObjectHelper.before(value, ","));
+            segment.dead = Long.parseLong(ObjectHelper.after(value, ","));
+        }
+
+        indexFile = new RandomAccessFile(file, "rw");
+        if (indexFile.length() < HEADER_SIZE) {
+            closeIndex();
+            return false;
+        }
+        index = indexFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, indexFile.length());
+        capacity = index.getInt(8);
+        if (index.getInt(0) != INDEX_MAGIC || index.getInt(4) != INDEX_VERSION || index.getInt(CLEAN_POSITION) != 1
+                || Integer.bitCount(capacity) != 1 || indexFile.length() != HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+            closeIndex();
+            return false;
+        }
+        used = index.getInt(12);
+        live = index.getInt(16);
+        return true;
+    }
+
+    private void saveSegments() throws IOException {
+        Properties properties = new Properties();
+        for (Segment segment : segments.values()) {
+            properties.setProperty("" + segment.id, segment.records + "," + segment.dead);
+        }
+        FileOutputStream fos = new FileOutputStream(new File(directory, SEGMENTS_FILE));
+        try {
+            properties.store(fos, "Segments of idempotent store: records,removed");
+            fos.getFD().sync();
+        } finally {
+            IOHelper.close(fos, "Saving segments", LOG);
+        }
+    }
+
+    /**
+     * Rebuilds the index by replaying all the segments
+     */
+    private void rebuildIndex() throws IOException {
+        LOG.info("Rebuilding index of idempotent store: " + directory);
+
+        closeIndex();
+        FileUtil.deleteFile(new File(directory, SEGMENTS_FILE));
+        int slots = 1;
+        while (slots < initialIndexCapacity) {
+            slots <<= 1;
+        }
+        File file = new File(directory, INDEX_FILE);
+        FileUtil.deleteFile(file);
+        openIndex(file, slots);
+        live = 0;
+
+        for (final Segment segment : segments.values()) {
+            segment.records = 0;
+            segment.dead = 0;
+            long valid = readSegment(segment, new RecordHandler() {
+                public void onRecord(long offset, byte[] record) throws IOException {
+                    replay(segment, offset, record);
+                }
+            });
+            if (valid < segment.size) {
+                // the last record was not completely written so discard it
+                LOG.warn("Discarding incomplete record at the end of segment: " + segment.path);
+                segment.file.setLength(valid);
+                segment.size = valid;
+            }
+        }
+    }
+
+    private void replay(Segment segment, long offset, byte[] record) throws IOException {
+        segment.records++;
+        if (record.length < 2 || (record[0] != ADD && record[0] != REMOVE)) {
+            LOG.warn("Skipping invalid record at offset " + offset + " in segment: " + segment.path);
+            segment.dead++;
+            return;
+        }
+
+        String key = decodeKey(record);
+        int slot = findSlot(key, encode(ADD, key));
+        if (slot >= 0) {
+            // the key is either added again or removed, so the previous record is garbage
+            int position = slotPosition(slot);
+            Segment old = segments.get(index.getInt(position + 4));
+            if (old != null) {
+                old.dead++;
+            }
+            if (record[0] == ADD) {
+                index.putInt(position + 4, segment.id);
+                index.putLong(position + 8, offset);
+            } else {
+                index.putInt(position + 4, DELETED);
+                live--;
+                segment.dead++;
+            }
+        } else if (record[0] == ADD) {
+            insertSlot(hash(key), segment.id, offset);
+            live++;
+        } else {
+            segment.dead++;
+        }
+    }
+
+    /**
+     * Reads the records in the segment
+     *
+     * @return the offset after the last complete record
+     */
+    private long readSegment(Segment segment, RecordHandler handler) throws IOException {
+        InputStream is = new BufferedInputStream(new FileInputStream(segment.path));
+        try {
+            long offset = 0;
+            long start = 0;
+            byte[] buffer = new byte[256];
+            int length = 0;
+            int b;
+            while ((b = is.read()) != -1) {
+                offset++;
+                if (length == buffer.length) {
+                    byte[] larger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, larger, 0, length);
+                    buffer = larger;
+                }
+                buffer[length++] = (byte) b;
+                if (b == DELIMITER) {
+                    byte[] record = new byte[length];
+                    System.arraycopy(buffer, 0, record, 0, length);
+                    handler.onRecord(start, record);
+                    start = offset;
+                    length = 0;
+                }
+            }
+            return start;
+        } finally {
+            IOHelper.close(is, "Reading segment", LOG);
+        }
+    }
+
+    /**
+     * Moves the keys still in use from the segment to the active segment, and deletes the segment
+     */
+    private void compactSegment(final Segment segment) throws IOException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Compacting segment " + segment.path + " with " + segment.dead + " of " + segment.records + " records removed");
+        }
+
+        final List<Long> offsets = new ArrayList<Long>(COMPACTION_CHUNK);
+        final List<byte[]> records = new ArrayList<byte[]>(COMPACTION_CHUNK);
+        // the segment is no longer appended to so it can be read without locking
+        readSegment(segment, new RecordHandler() {
+            public void onRecord(long offset, byte[] record) throws IOException {
+                offsets.add(offset);
+                records.add(record);
+                if (records.size() >= COMPACTION_CHUNK) {
+                    // only lock a chunk at a time so we do not block adding keys for too long
+                    compactRecords(segment, offsets, records);
+                    offsets.clear();
+                    records.clear();
+                }
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            if (!segments.containsKey(segment.id) || active == null) {
+                // we have been stopped
+                return;
+            }
+            compactRecords(segment, offsets, records);
+            // the moved keys must be on disk before we delete the segment
+            active.sync();
+            segments.remove(segment.id);
+            IOHelper.close(segment.file, "Closing segment", LOG);
+            FileUtil.deleteFile(segment.path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactions.incrementAndGet();
+    }
+
+    private void compactRecords(Segment segment, List<Long> offsets, List<byte[]> records) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!segments.containsKey(segment.id) || active == null) {
+                // we have been stopped
+                return;
+            }
+            // tombstones is no longer needed when there is no older segments with the removed key
+            boolean oldest = segments.firstKey() == segment.id;
+            for (int i = 0; i < records.size(); i++) {
+                byte[] record = records.get(i);
+                if (record.length < 2) {
+                    continue;
+                }
+                String key = decodeKey(record);
+                int slot = findSlot(key, encode(ADD, key));
+                if (record[0] == ADD && slot >= 0) {
+                    int position = slotPosition(slot);
+                    // only move the record if its the current record of the key
+                    if (index.getInt(position + 4) == segment.id && index.getLong(position + 8) == offsets.get(i)) {
+                        long offset = append(record);
+                        active.records++;
+                        index.putInt(position + 4, active.id);
+                        index.putLong(position + 8, offset);
+                        rollSegment();
+                    }
+                } else if (record[0] == REMOVE && slot < 0 && !oldest) {
+                    append(record);
+                    active.records++;
+                    active.dead++;
+                    rollSegment();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long append(byte[] record) throws IOException {
+        long offset = active.size;
+        active.write(offset, record);
+        active.size += record.length;
+        return offset;
+    }
+
+    /**
+     * Syncs if needed and starts a new segment if the active segment is full.
+     *
+     * @return the sequence number of the write
+     */
+    private long afterWrite() throws IOException {
+        long sequence = ++writeSequence;
+        if (syncMode == FileStoreSyncMode.Always) {
+            active.sync();
+        }
+        rollSegment();
+        return sequence;
+    }
+
+    private void rollSegment() throws IOException {
+        if (active.size >= maxSegmentSize) {
+            if (syncMode != FileStoreSyncMode.None) {
+                // the writes to the old segment must be synced as the group commit only syncs the active segment
+                active.sync();
+            }
+            active = createSegment(active.id + 1);
+        }
+    }
+
+    /**
+     * Waits until the write with the given sequence number has been synced. The first thread to wait
+     * syncs on behalf of all the threads which has written until then.
+     */
+    private void groupCommit(long sequence) {
+        if (syncMode != FileStoreSyncMode.GroupCommit) {
+            return;
+        }
+
+        synchronized (syncMonitor) {
+            while (syncing && syncedSequence < sequence) {
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw ObjectHelper.wrapRuntimeCamelException(e);
+                }
+            }
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            syncing = true;
+        }
+
+        long target = 0;
+        try {
+            Segment segment;
+            lock.readLock().lock();
+            try {
+                target = writeSequence;
+                segment = active;
+            } finally {
+                lock.readLock().unlock();
+            }
+            segment.sync();
+        } catch (IOException e) {
+            // nothing was synced
+            target = 0;
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        } finally {
+            synchronized (syncMonitor) {
+                syncedSequence = Math.max(syncedSequence, target);
+                syncing = false;
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void openSegments() throws IOException {
+        segments.clear();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    String id = name.substring(0, name.length() - SEGMENT_SUFFIX.length());
+                    try {
+                        int segmentId = Integer.parseInt(id);
+                        segments.put(segmentId, new Segment(segmentId, file));
+                    } catch (NumberFormatException e) {
+                        LOG.warn("Ignoring unknown file in idempotent store: " + file);
+                    }
+                }
+            }
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Segment segment = new Segment(id, new File(directory, String.format("%010d", id) + SEGMENT_SUFFIX));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * Callback for each key in the store
+     */
+    interface KeyVisitor {
+        void visitKey(String key);
+    }
+
+    /**
+     * Callback for each record read from a segment
+     */
+    private interface RecordHandler {
+        void onRecord(long offset, byte[] record) throws IOException;
+    }
+
+    /**
+     * A log file with records.
+     * <p/>
+     * The file is accessed using {@link RandomAccessFile} and not a {@link FileChannel}, as a channel is closed
+     * if a thread using it is interrupted.
+     */
+    private static final class Segment {
+        private final int id;
+        private final File path;
+        private final RandomAccessFile file;
+        private long size;
+        private long records;
+        private long dead;
+
+        private Segment(int id, File path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.file = new RandomAccessFile(path, "rw");
+            this.size = file.length();
+        }
+
+        private void read(long offset, byte[] data) throws IOException {
+            // there can be concurrent readers
+            synchronized (file) {
+                file.seek(offset);
+                file.readFully(data);
+            }
+        }
+
+        private void write(long offset, byte[] data) throws IOException {
+            synchronized (file) {
+                file.seek(offset);
+                file.write(data);
+            }
+        }
+
+        private void sync() throws IOException {
+            file.getFD().sync();
+        }
+    }
+}
@@ -22,12 +22,15 @@ import org.apache.camel.Processor;
 import org.apache.camel.StreamCache;
 import org.apache.camel.processor.DelegateAsyncProcessor;
 import org.apache.camel.util.MessageHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 /**
  * An interceptor that converts streams messages into a re-readable format
  * by wrapping the stream into a {@link StreamCache}.
  */
 public class StreamCachingInterceptor extends DelegateAsyncProcessor {
+    private static final transient Log LOG = LogFactory.getLog(StreamCachingInterceptor.class);
 
     public StreamCachingInterceptor() {
         super();
@@ -44,6 +47,8 @@ public class StreamCachingInterceptor extends DelegateAsyncProcessor {
 
     @Override
     public boolean process(Exchange exchange, AsyncCallback callback) {
+        throttle(exchange);
+
         StreamCache newBody = exchange.getIn().getBody(StreamCache.class);
         if (newBody != null) {
             exchange.getIn().setBody(newBody);
@@ -53,4 +58,26 @@ public class StreamCachingInterceptor extends DelegateAsyncProcessor {
         return getProcessor().process(exchange, callback);
     }
 
+    /**
+     * Throttles the consumer while the stream caches use too much disk.
+     * <p/>
+     * This is only done once when the exchange enters the route and before its body is cached, as this interceptor
+     * wraps every processor in the route, and exchanges which already hold stream caches must be able to continue
+     * routing so they can release the disk the throttled exchanges are waiting for.
+     */
+    private void throttle(Exchange exchange) {
+        if (exchange.getProperty(Exchange.STREAM_CACHE_THROTTLED) != null || exchange.getIn().getBody() instanceof StreamCache) {
+            return;
+        }
+        exchange.setProperty(Exchange.STREAM_CACHE_THROTTLED, Boolean.TRUE);
+
+        try {
+            if (!exchange.getContext().getStreamCacheManager().awaitDiskBudget() && LOG.isDebugEnabled()) {
+                LOG.debug("Stream caches still exceed the disk budget, continue caching exchange: " + exchange);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
 }
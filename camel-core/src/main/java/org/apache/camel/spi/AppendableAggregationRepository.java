@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.spi;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+
+/**
+ * A specialized {@link org.apache.camel.spi.AggregationRepository} which can store each incoming
+ * {@link Exchange} as a separate part, instead of storing the entire aggregated {@link Exchange}
+ * on every aggregation.
+ * <p/>
+ * This makes the IO of a persistent repository linear to the number of aggregated exchanges.
+ * The aggregated {@link Exchange} is materialized by folding the parts with the {@link AggregationStrategy},
+ * for example when recovering the aggregated exchanges after a restart.
+ *
+ * @version $Revision$
+ */
+public interface AppendableAggregationRepository extends AggregationRepository {
+
+    /**
+     * Whether append mode is enabled, if not the repository is used as a regular
+     * {@link org.apache.camel.spi.AggregationRepository}.
+     *
+     * @return <tt>true</tt> if append mode is enabled
+     */
+    boolean isAppendMode();
+
+    /**
+     * Sets the {@link AggregationStrategy} to use for folding the parts into the aggregated exchange.
+     *
+     * @param aggregationStrategy the aggregation strategy
+     */
+    void setAggregationStrategy(AggregationStrategy aggregationStrategy);
+
+    /**
+     * Appends the incoming {@link Exchange} as a part of the aggregated {@link Exchange} with the correlation key.
+     *
+     * @param camelContext   the current CamelContext
+     * @param key            the correlation key
+     * @param part           the incoming exchange, as it was before it was aggregated
+     * @param aggregated     the aggregated exchange which includes the part
+     */
+    void append(CamelContext camelContext, String key, Exchange part, Exchange aggregated);
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.spi;
+
+import org.apache.camel.Service;
+
+/**
+ * Tracks the memory and disk used by the stream caches of a {@link org.apache.camel.CamelContext}
+ * so the total can be kept within a budget, by spooling in memory caches to disk.
+ *
+ * @version $Revision$
+ */
+public interface StreamCacheManager extends Service {
+
+    /**
+     * A stream cache which can be spooled from memory to disk.
+     */
+    interface SpoolableCache {
+
+        /**
+         * Number of bytes the cache currently holds in memory.
+         */
+        long getMemorySize();
+
+        /**
+         * Sequence number of the cache, where lower numbers are older caches.
+         */
+        long getSequence();
+
+        /**
+         * Requests the cache to spool its content to disk right away.
+         *
+         * @return <tt>true</tt> if the cache has spooled and released its memory, <tt>false</tt> if it cannot,
+         *         such as when its content has already been handed out or it is in use by another thread
+         */
+        boolean requestSpool();
+    }
+
+    /**
+     * Whether caches should be added and report the memory and disk they use, which is only needed
+     * when a budget is set. Caches which are not tracked do not report anything.
+     */
+    boolean isTracking();
+
+    /**
+     * Gets the sequence number to use for a new cache.
+     */
+    long nextSequence();
+
+    /**
+     * Adds a cache which can be spooled to disk when the memory budget is exceeded.
+     * <p/>
+     * The cache should be held by a weak reference, so caches which are never closed do not leak.
+     *
+     * @param cache the cache
+     */
+    void add(SpoolableCache cache);
+
+    /**
+     * Removes the cache when its content has been released.
+     *
+     * @param cache the cache
+     */
+    void remove(SpoolableCache cache);
+
+    /**
+     * Records a change in the memory used by the given cache, which may cause caches to be requested to spool.
+     *
+     * @param cache the cache, or <tt>null</tt> if the memory is not held by a spoolable cache
+     * @param delta number of bytes, negative when memory is released
+     */
+    void memoryChanged(SpoolableCache cache, long delta);
+
+    /**
+     * Records that the cache has spooled the given number of bytes from memory to disk.
+     *
+     * @param cache the cache
+     * @param bytes number of bytes moved from memory to disk
+     */
+    void spooled(SpoolableCache cache, long bytes);
+
+    /**
+     * Records a change in the disk used by stream caches.
+     *
+     * @param cache the cache, or <tt>null</tt> if the disk is not used by a spoolable cache
+     * @param delta number of bytes, negative when temporary files are deleted
+     */
+    void diskChanged(SpoolableCache cache, long delta);
+
+    /**
+     * Waits until the disk used by stream caches is within the budget, to throttle the consumers
+     * caching new streams.
+     *
+     * @return <tt>true</tt> if the disk used is within the budget, <tt>false</tt> if the wait timed out
+     * @throws InterruptedException is thrown if interrupted while waiting
+     */
+    boolean awaitDiskBudget() throws InterruptedException;
+
+    /**
+     * Number of bytes currently cached in memory.
+     */
+    long getMemoryUsed();
+
+    /**
+     * Number of bytes currently cached on disk.
+     */
+    long getDiskUsed();
+
+}
@@ -0,0 +1,303 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary codec for the values typically stored in a message, such as headers and bodies.
+ * <p/>
+ * Each value is written with a type tag followed by the value, where the common types such as
+ * strings, numbers, booleans, dates, <tt>byte[]</tt>, maps and lists is written without any class descriptors.
+ * Integers and longs is written as variable length. Any other type is written using Java serialization
+ * and must therefore be {@link java.io.Serializable}.
+ * <p/>
+ * Maps is read as {@link LinkedHashMap} and lists as {@link ArrayList}, so only those and {@link HashMap}
+ * is written as maps and lists, any other map and list implementation is serialized to retain its type.
+ *
+ * @version $Revision$
+ */
+public final class CompactObjectCodec {
+
+    private static final String UTF8 = "UTF-8";
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BYTES = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte BYTE = 4;
+    private static final byte SHORT = 5;
+    private static final byte CHARACTER = 6;
+    private static final byte INTEGER = 7;
+    private static final byte LONG = 8;
+    private static final byte FLOAT = 9;
+    private static final byte DOUBLE = 10;
+    private static final byte DATE = 11;
+    private static final byte MAP = 12;
+    private static final byte LIST = 13;
+    private static final byte SERIALIZED = 14;
+
+    private CompactObjectCodec() {
+        // Utility Class
+    }
+
+    /**
+     * Writes the value
+     *
+     * @param out   the output to write to
+     * @param value the value, can be <tt>null</tt>
+     * @throws IOException is thrown if the value could not be written, for example if it's not serializable
+     */
+    @SuppressWarnings("unchecked")
+    public static void writeObject(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            writeVarLong(out, (Integer) value);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            writeVarLong(out, (Long) value);
+        } else if (type == Boolean.class) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (type == byte[].class) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (type == Short.class) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) value);
+        } else if (type == LinkedHashMap.class || type == HashMap.class) {
+            Map<Object, Object> map = (Map<Object, Object>) value;
+            out.writeByte(MAP);
+            writeVarInt(out, map.size());
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                writeObject(out, entry.getKey());
+                writeObject(out, entry.getValue());
+            }
+        } else if (type == ArrayList.class) {
+            List<Object> list = (List<Object>) value;
+            out.writeByte(LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeObject(out, element);
+            }
+        } else {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(value);
+            oos.close();
+            byte[] bytes = bos.toByteArray();
+            out.writeByte(SERIALIZED);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #writeObject(java.io.DataOutput, Object)}
+     *
+     * @param in          the input to read from
+     * @param classLoader optional class loader to use for loading the classes of serialized values
+     * @return the value, can be <tt>null</tt>
+     * @throws IOException is thrown if the value could not be read
+     * @throws ClassNotFoundException is thrown if the class of a serialized value could not be loaded
+     */
+    public static Object readObject(DataInput in, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+        byte tag = in.readByte();
+        switch (tag) {
+        case NULL:
+            return null;
+        case STRING:
+            return readString(in);
+        case INTEGER:
+            return (int) readVarLong(in);
+        case LONG:
+            return readVarLong(in);
+        case BOOLEAN:
+            return in.readBoolean();
+        case BYTES:
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            return bytes;
+        case DATE:
+            return new Date(in.readLong());
+        case DOUBLE:
+            return in.readDouble();
+        case FLOAT:
+            return in.readFloat();
+        case SHORT:
+            return in.readShort();
+        case BYTE:
+            return in.readByte();
+        case CHARACTER:
+            return in.readChar();
+        case MAP:
+            int size = readVarInt(in);
+            Map<Object, Object> map = new LinkedHashMap<Object, Object>(Math.max(16, size * 4 / 3 + 1));
+            for (int i = 0; i < size; i++) {
+                Object key = readObject(in, classLoader);
+                map.put(key, readObject(in, classLoader));
+            }
+            return map;
+        case LIST:
+            int length = readVarInt(in);
+            List<Object> list = new ArrayList<Object>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(readObject(in, classLoader));
+            }
+            return list;
+        case SERIALIZED:
+            byte[] data = new byte[readVarInt(in)];
+            in.readFully(data);
+            ObjectInputStream ois = new ClassLoaderObjectInputStream(new ByteArrayInputStream(data), classLoader);
+            try {
+                return ois.readObject();
+            } finally {
+                ois.close();
+            }
+        default:
+            throw new StreamCorruptedException("Unknown type tag: " + tag);
+        }
+    }
+
+    /**
+     * Writes the string as UTF-8 prefixed with its length
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(java.io.DataOutput, String)}
+     */
+    public static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new StreamCorruptedException("Negative length: " + value);
+                }
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length int");
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        // zig zag encode so small negative values is also written in few bytes
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length long");
+    }
+
+    /**
+     * Object input stream which loads the classes using the given class loader, and then the default
+     */
+    private static final class ClassLoaderObjectInputStream extends ObjectInputStream {
+        private final ClassLoader classLoader;
+
+        private ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader != null ? classLoader : Thread.currentThread().getContextClassLoader();
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    // ignore and fallback to the default
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link TimeoutMap} which uses a hashed timing wheel to keep track of when the entries expire.
+ * <p/>
+ * The wheel is an array of buckets where each bucket holds the entries which expires within the same tick,
+ * and a tick is the purge poll time. Adding and removing entries is <tt>O(1)</tt> and do not lock, and
+ * the purge task only visits the buckets for the ticks which has passed since it last run, instead of
+ * scanning all the entries as {@link DefaultTimeoutMap} does. This makes it a better choice when there
+ * is a large number of entries in the map.
+ * <p/>
+ * Entries with a timeout longer than a full turn of the wheel is kept in their bucket until the wheel
+ * has turned enough times. Like {@link DefaultTimeoutMap} getting an entry will reset its expire time,
+ * and such entries is moved to their new bucket the next time the purge task visits them.
+ *
+ * @version $Revision$
+ */
+public class HashedWheelTimeoutMap<K, V> extends ServiceSupport implements TimeoutMap<K, V>, Runnable {
+
+    protected final transient Log log = LogFactory.getLog(getClass());
+
+    private final ConcurrentMap<K, WheelEntry<K, V>> map = new ConcurrentHashMap<K, WheelEntry<K, V>>();
+    // new and removed entries is handed over to the purge task which is the only one updating the wheel
+    private final Queue<WheelEntry<K, V>> added = new ConcurrentLinkedQueue<WheelEntry<K, V>>();
+    private final Queue<WheelEntry<K, V>> removed = new ConcurrentLinkedQueue<WheelEntry<K, V>>();
+    private final ScheduledExecutorService executor;
+    private final long purgePollTime;
+    private final WheelEntry<K, V>[] wheel;
+    private final int mask;
+    private final Lock lock = new ReentrantLock();
+    // the last tick the purge task has processed (guarded by lock)
+    private long tick;
+
+    public HashedWheelTimeoutMap(ScheduledExecutorService executor) {
+        this(executor, 1000);
+    }
+
+    public HashedWheelTimeoutMap(ScheduledExecutorService executor, long requestMapPollTimeMillis) {
+        this(executor, requestMapPollTimeMillis, 512);
+    }
+
+    /**
+     * Creates the timeout map
+     *
+     * @param executor                 the executor to run the purge task
+     * @param requestMapPollTimeMillis the purge poll time, which is also the duration of a tick on the wheel
+     * @param wheelSize                the number of buckets on the wheel, which is rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimeoutMap(ScheduledExecutorService executor, long requestMapPollTimeMillis, int wheelSize) {
+        ObjectHelper.notNull(executor, "ScheduledExecutorService");
+        if (requestMapPollTimeMillis <= 0) {
+            throw new IllegalArgumentException("RequestMapPollTimeMillis must be a positive number, was: " + requestMapPollTimeMillis);
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("WheelSize must be a positive number, was: " + wheelSize);
+        }
+        this.executor = executor;
+        this.purgePollTime = requestMapPollTimeMillis;
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new WheelEntry[size];
+        for (int i = 0; i < size; i++) {
+            // each bucket is a circular list with a head which is not an entry
+            wheel[i] = new WheelEntry<K, V>(null, null, 0);
+        }
+        this.mask = size - 1;
+        this.tick = currentTime() / purgePollTime;
+        schedulePoll();
+    }
+
+    public V get(K key) {
+        WheelEntry<K, V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        // the entry is moved lazily by the purge task
+        updateExpireTime(entry);
+        return entry.getValue();
+    }
+
+    public void put(K key, V value, long timeoutMillis) {
+        WheelEntry<K, V> entry = new WheelEntry<K, V>(key, value, timeoutMillis);
+        updateExpireTime(entry);
+        WheelEntry<K, V> old = map.put(key, entry);
+        if (old != null) {
+            removed.offer(old);
+        }
+        added.offer(entry);
+    }
+
+    public V remove(K key) {
+        WheelEntry<K, V> entry = map.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        removed.offer(entry);
+        return entry.getValue();
+    }
+
+    public Object[] getKeys() {
+        Set<K> keySet = map.keySet();
+        Object[] keys = new Object[keySet.size()];
+        return keySet.toArray(keys);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * The timer task which purges old requests and schedules another poll
+     */
+    public void run() {
+        // only run if allowed
+        if (!isRunAllowed()) {
+            log.trace("Purge task not allowed to run");
+            return;
+        }
+
+        log.trace("Running purge task to see if any entries has been timed out");
+        try {
+            purge();
+        } catch (Throwable t) {
+            // must catch and log exception otherwise the executor will now schedule next run
+            log.warn("Exception occurred during purge task. This exception will be ignored.", t);
+        }
+    }
+
+    public void purge() {
+        if (log.isTraceEnabled()) {
+            log.trace("There are " + map.size() + " in the timeout map");
+        }
+
+        List<WheelEntry<K, V>> expired = new ArrayList<WheelEntry<K, V>>();
+
+        lock.lock();
+        try {
+            long now = currentTime();
+            long currentTick = now / purgePollTime;
+
+            // unlink the removed entries first so we do not visit them again
+            WheelEntry<K, V> entry;
+            while ((entry = removed.poll()) != null) {
+                unlink(entry);
+            }
+            while ((entry = added.poll()) != null) {
+                if (isCurrent(entry)) {
+                    schedule(entry);
+                }
+            }
+
+            // only visit the buckets which has passed, but at most a full turn of the wheel
+            long last = tick;
+            long ticks = Math.min(currentTick - last, wheel.length);
+            if (currentTick > last) {
+                tick = currentTick;
+            }
+            for (long i = 1; i <= ticks; i++) {
+                WheelEntry<K, V> head = wheel[(int) ((last + i) & mask)];
+                entry = head.next;
+                while (entry != head) {
+                    WheelEntry<K, V> next = entry.next;
+                    if (!isCurrent(entry)) {
+                        unlink(entry);
+                    } else if (entry.getExpireTime() <= now) {
+                        if (isValidForEviction(entry)) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Evicting inactive entry ID: " + entry);
+                            }
+                            expired.add(entry);
+                        } else {
+                            // check it again on next tick
+                            schedule(entry);
+                        }
+                    } else {
+                        // not expired yet, as its for a later turn of the wheel or its expire time was updated
+                        schedule(entry);
+                    }
+                    entry = next;
+                }
+            }
+
+            if (!expired.isEmpty()) {
+                // sort according to the expired time so we got the first expired first
+                Collections.sort(expired, new Comparator<WheelEntry<K, V>>() {
+                    public int compare(WheelEntry<K, V> a, WheelEntry<K, V> b) {
+                        long diff = a.getExpireTime() - b.getExpireTime();
+                        if (diff == 0) {
+                            return 0;
+                        }
+                        return diff > 0 ? 1 : -1;
+                    }
+                });
+
+                for (WheelEntry<K, V> e : expired) {
+                    // it may have been removed or replaced by an earlier eviction
+                    if (!isCurrent(e)) {
+                        unlink(e);
+                        continue;
+                    }
+                    boolean evict = onEviction(e.getKey(), e.getValue());
+                    if (evict) {
+                        // okay this entry should be evicted
+                        map.remove(e.getKey(), e);
+                        unlink(e);
+                    } else if (isCurrent(e)) {
+                        // keep the entry which will then be checked again on next tick
+                        schedule(e);
+                    } else {
+                        unlink(e);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Properties
+    // -------------------------------------------------------------------------
+
+    public long getPurgePollTime() {
+        return purgePollTime;
+    }
+
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    public int getWheelSize() {
+        return wheel.length;
+    }
+
+    // Implementation methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * lets schedule each time to allow folks to change the time at runtime
+     */
+    protected void schedulePoll() {
+        executor.scheduleWithFixedDelay(this, 0, purgePollTime, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A hook to allow derivations to avoid evicting the current entry
+     */
+    protected boolean isValidForEviction(TimeoutMapEntry<K, V> entry) {
+        return true;
+    }
+
+    public boolean onEviction(K key, V value) {
+        return true;
+    }
+
+    protected void updateExpireTime(TimeoutMapEntry entry) {
+        long now = currentTime();
+        entry.setExpireTime(entry.getTimeout() + now);
+    }
+
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private boolean isCurrent(WheelEntry<K, V> entry) {
+        return map.get(entry.getKey()) == entry;
+    }
+
+    /**
+     * Links the entry into the bucket for the first tick at or after its expire time
+     */
+    private void schedule(WheelEntry<K, V> entry) {
+        long expireTick = (entry.getExpireTime() + purgePollTime - 1) / purgePollTime;
+        if (expireTick <= tick) {
+            // the tick has already been processed so use the next tick
+            expireTick = tick + 1;
+        }
+        WheelEntry<K, V> head = wheel[(int) (expireTick & mask)];
+        if (entry.head == head) {
+            // already in the right bucket
+            return;
+        }
+        unlink(entry);
+        entry.head = head;
+        entry.prev = head.prev;
+        entry.next = head;
+        head.prev.next = entry;
+        head.prev = entry;
+    }
+
+    private void unlink(WheelEntry<K, V> entry) {
+        if (entry.head != null) {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            entry.head = null;
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("The ScheduledExecutorService is shutdown");
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        // clear map if we stop
+        map.clear();
+        lock.lock();
+        try {
+            added.clear();
+            removed.clear();
+            for (WheelEntry<K, V> head : wheel) {
+                head.prev = head;
+                head.next = head;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * An entry in a bucket on the wheel
+     */
+    private static final class WheelEntry<K, V> extends TimeoutMapEntry<K, V> {
+        // the expire time can be updated by other threads than the purge task
+        private volatile long expireTime;
+        // the bucket this entry is linked into (guarded by lock)
+        private WheelEntry<K, V> head;
+        private WheelEntry<K, V> prev;
+        private WheelEntry<K, V> next;
+
+        private WheelEntry(K key, V value, long timeout) {
+            super(key, value, timeout);
+            // a head points to itself when the bucket is empty
+            if (key == null) {
+                prev = this;
+                next = this;
+            }
+        }
+
+        @Override
+        public long getExpireTime() {
+            return expireTime;
+        }
+
+        @Override
+        public void setExpireTime(long expireTime) {
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -16,22 +16,86 @@
  */
 package org.apache.camel.util;
 
-import java.util.LinkedHashMap;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.camel.Service;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 /**
- * A Least Recently Used Cache
+ * A Least Recently Used Cache which is thread safe and can be accessed concurrently without
+ * any external synchronization.
+ * <p/>
+ * The cache uses the CLOCK algorithm to approximate LRU. Reading an entry only marks the entry as
+ * referenced, so lookups do not take any locks. When the cache grows beyond its maximum size, the
+ * entries is scanned in the order they were added, and referenced entries are given a second chance
+ * while the first unreferenced entry is evicted. Only eviction is guarded by a lock.
+ * <p/>
+ * If <tt>stopOnEviction</tt> is enabled then evicted values which is a {@link Service} will be stopped.
+ * This is disabled by default, as an evicted value may still be in use by other threads, and should only
+ * be enabled when the values is known to not be in use when evicted.
+ * <p/>
+ * This cache no longer extends {@link java.util.LinkedHashMap}, so subclasses should override
+ * {@link #onEviction(Object, Object)} instead of <tt>removeEldestEntry</tt>.
  *
  * @version $Revision$
  */
-public class LRUCache<K, V> extends LinkedHashMap<K, V> implements Service {
-    private static final long serialVersionUID = -342098639681884413L;
-    private int maxCacheSize = 10000;
+public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>, Service, Serializable {
+    private static final long serialVersionUID = -342098639681884414L;
+    private static final transient Log LOG = LogFactory.getLog(LRUCache.class);
+
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<Node<K, V>>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger clockSize = new AtomicInteger();
+    private final AtomicLong evicted = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int maxCacheSize;
+    private final boolean accessOrder;
+    private final boolean stopOnEviction;
+    private transient Set<Map.Entry<K, V>> entrySet;
 
     public LRUCache(int maximumCacheSize) {
-        this(maximumCacheSize, maximumCacheSize, 0.75f, true);
+        this(maximumCacheSize, maximumCacheSize);
+    }
+
+    /**
+     * Constructs an empty <tt>LRUCache</tt> instance with the
+     * specified initial capacity and maximumCacheSize.
+     *
+     * @param initialCapacity  the initial capacity.
+     * @param maximumCacheSize the max capacity.
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LRUCache(int initialCapacity, int maximumCacheSize) {
+        this(initialCapacity, maximumCacheSize, false);
+    }
+
+    /**
+     * Constructs an empty <tt>LRUCache</tt> instance with the
+     * specified initial capacity, maximumCacheSize and whether to stop evicted services.
+     *
+     * @param initialCapacity  the initial capacity.
+     * @param maximumCacheSize the max capacity.
+     * @param stopOnEviction   whether to stop evicted values which is a {@link Service}.
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LRUCache(int initialCapacity, int maximumCacheSize, boolean stopOnEviction) {
+        this(initialCapacity, maximumCacheSize, 0.75f, true, stopOnEviction);
     }
 
     /**
@@ -47,8 +111,14 @@ public class LRUCache<K, V> extends LinkedHashMap<K, V> implements Service {
      *                                  or the load factor is non positive.
      */
     public LRUCache(int initialCapacity, int maximumCacheSize, float loadFactor, boolean accessOrder) {
-        super(initialCapacity, loadFactor, accessOrder);
+        this(initialCapacity, maximumCacheSize, loadFactor, accessOrder, false);
+    }
+
+    private LRUCache(int initialCapacity, int maximumCacheSize, float loadFactor, boolean accessOrder, boolean stopOnEviction) {
+        this.map = new ConcurrentHashMap<K, Node<K, V>>(initialCapacity, loadFactor);
         this.maxCacheSize = maximumCacheSize;
+        this.accessOrder = accessOrder;
+        this.stopOnEviction = stopOnEviction;
     }
 
     /**
@@ -58,8 +128,130 @@ public class LRUCache<K, V> extends LinkedHashMap<K, V> implements Service {
         return maxCacheSize;
     }
 
-    protected boolean removeEldestEntry(Map.Entry<K, V> entry) {
-        return size() > maxCacheSize;
+    /**
+     * Whether evicted values which is a {@link Service} is stopped.
+     */
+    public boolean isStopOnEviction() {
+        return stopOnEviction;
+    }
+
+    /**
+     * Gets the number of evicted entries.
+     */
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        // only write when needed to avoid contention on the same entry
+        if (accessOrder && !node.referenced) {
+            node.referenced = true;
+        }
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Node<K, V> node = new Node<K, V>(key, value);
+        Node<K, V> old = map.put(key, node);
+        if (old != null) {
+            old.live = false;
+        } else {
+            size.incrementAndGet();
+        }
+        added(node);
+        return old != null ? old.value : null;
+    }
+
+    public V putIfAbsent(K key, V value) {
+        Node<K, V> node = new Node<K, V>(key, value);
+        Node<K, V> old = map.putIfAbsent(key, node);
+        if (old != null) {
+            return old.value;
+        }
+        size.incrementAndGet();
+        added(node);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        removed(node);
+        return node.value;
+    }
+
+    public boolean remove(Object key, Object value) {
+        Node<K, V> node = map.get(key);
+        if (node != null && ObjectHelper.equal(node.value, value) && map.remove(key, node)) {
+            removed(node);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        Node<K, V> node = map.get(key);
+        if (node == null || !ObjectHelper.equal(node.value, oldValue)) {
+            return false;
+        }
+        Node<K, V> replacement = new Node<K, V>(key, newValue);
+        if (map.replace(key, node, replacement)) {
+            node.live = false;
+            added(replacement);
+            return true;
+        }
+        return false;
+    }
+
+    public V replace(K key, V value) {
+        Node<K, V> replacement = new Node<K, V>(key, value);
+        Node<K, V> old = map.replace(key, replacement);
+        if (old == null) {
+            return null;
+        }
+        old.live = false;
+        added(replacement);
+        return old.value;
+    }
+
+    @Override
+    public int size() {
+        int answer = size.get();
+        return answer < 0 ? 0 : answer;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        for (K key : map.keySet()) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
     }
 
     public void start() throws Exception {
@@ -73,4 +265,199 @@ public class LRUCache<K, V> extends LinkedHashMap<K, V> implements Service {
             clear();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Callback when an entry has been evicted from the cache.
+     * <p/>
+     * Is invoked after the entry has been evicted, and before the value is stopped if <tt>stopOnEviction</tt>
+     * is enabled, which is done regardless of whether this callback is overridden.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    protected void onEviction(K key, V value) {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Evicted " + key + " -> " + value);
+        }
+    }
+
+    private void added(Node<K, V> node) {
+        clock.offer(node);
+        int entries = clockSize.incrementAndGet();
+        if (size.get() > maxCacheSize) {
+            // invoke the callbacks and stop the evicted values outside the lock, as stopping may be slow
+            for (Node<K, V> evictedNode : evict()) {
+                onEviction(evictedNode.key, evictedNode.value);
+                if (stopOnEviction) {
+                    stopEvicted(evictedNode.value);
+                }
+            }
+        } else if (entries > 2 * maxCacheSize + 16) {
+            // replaced and removed entries is still in the clock so purge them once in a while
+            purge();
+        }
+    }
+
+    private void stopEvicted(V value) {
+        try {
+            // stop service as its evicted from cache
+            ServiceHelper.stopService(value);
+        } catch (Exception e) {
+            LOG.warn("Error stopping service: " + value + ". This exception will be ignored.", e);
+        }
+    }
+
+    private void removed(Node<K, V> node) {
+        node.live = false;
+        size.decrementAndGet();
+    }
+
+    private List<Node<K, V>> evict() {
+        List<Node<K, V>> answer = new ArrayList<Node<K, V>>(1);
+        evictionLock.lock();
+        try {
+            while (size.get() > maxCacheSize) {
+                Node<K, V> node = clock.poll();
+                if (node == null) {
+                    break;
+                }
+                clockSize.decrementAndGet();
+                if (!node.live) {
+                    continue;
+                }
+                if (node.referenced) {
+                    // give it a second chance
+                    node.referenced = false;
+                    clock.offer(node);
+                    clockSize.incrementAndGet();
+                } else if (map.remove(node.key, node)) {
+                    removed(node);
+                    evicted.incrementAndGet();
+                    answer.add(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        return answer;
+    }
+
+    private void purge() {
+        // only one thread needs to purge
+        if (evictionLock.tryLock()) {
+            try {
+                for (Iterator<Node<K, V>> it = clock.iterator(); it.hasNext();) {
+                    if (!it.next().live) {
+                        it.remove();
+                        clockSize.decrementAndGet();
+                    }
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * An entry in the cache
+     */
+    private static final class Node<K, V> implements Map.Entry<K, V>, Serializable {
+        private static final long serialVersionUID = 1L;
+        private final K key;
+        private volatile V value;
+        private volatile boolean referenced;
+        private volatile boolean live = true;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public V setValue(V value) {
+            // the entry is stored in the cache so the value is changed in the cache as well
+            V answer = this.value;
+            this.value = value;
+            return answer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return ObjectHelper.equal(key, e.getKey()) && ObjectHelper.equal(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * A view of the entries in insertion order, which is weakly consistent like {@link ConcurrentHashMap}.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            // iterate the clock so the entries is returned in the order they was added
+            final Iterator<Node<K, V>> it = clock.iterator();
+            return new Iterator<Map.Entry<K, V>>() {
+                private Node<K, V> next;
+                private Node<K, V> current;
+
+                public boolean hasNext() {
+                    while (next == null && it.hasNext()) {
+                        Node<K, V> node = it.next();
+                        if (node.live) {
+                            next = node;
+                        }
+                    }
+                    return next != null;
+                }
+
+                public Map.Entry<K, V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    current = next;
+                    next = null;
+                    return current;
+                }
+
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException();
+                    }
+                    LRUCache.this.remove(current.key, current.value);
+                    current = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return LRUCache.this.size();
+        }
+
+        @Override
+        public void clear() {
+            LRUCache.this.clear();
+        }
+    }
+}
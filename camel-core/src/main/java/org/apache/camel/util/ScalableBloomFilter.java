@@ -0,0 +1,331 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A scalable <a href="http://en.wikipedia.org/wiki/Bloom_filter">Bloom filter</a> of string keys.
+ * <p/>
+ * A Bloom filter can tell if a key has <b>definitely not</b> been added, or if it <b>might</b> have been
+ * added, using a few bits per key. The filter starts with a single layer sized for the initial capacity,
+ * and when a layer is full a new layer with twice the capacity and half the false positive probability
+ * is added. This keeps the total false positive probability below the configured probability no matter
+ * how many keys is added.
+ * <p/>
+ * Keys cannot be removed from the filter. The bits is updated using compare and set so the filter is
+ * thread safe without locking, except when a new layer is added. The keys is hashed using their
+ * characters, so a filter written using {@link #writeTo(DataOutput)} can be read by another JVM.
+ *
+ * @version $Revision$
+ */
+public class ScalableBloomFilter {
+
+    private static final int MAGIC = 0x43424C46;
+    private static final int VERSION = 1;
+    private static final double LN2 = Math.log(2);
+
+    private final int initialCapacity;
+    private final double falsePositiveProbability;
+    private volatile Layer[] layers;
+
+    /**
+     * Creates the filter
+     *
+     * @param initialCapacity          the number of keys the first layer can hold
+     * @param falsePositiveProbability the probability that {@link #mightContain(String)} returns <tt>true</tt>
+     *                                 for a key which has not been added, for example <tt>0.01</tt>
+     */
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveProbability) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("InitialCapacity must be positive, was: " + initialCapacity);
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("FalsePositiveProbability must be between 0 and 1, was: " + falsePositiveProbability);
+        }
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.layers = new Layer[]{new Layer(initialCapacity, falsePositiveProbability / 2)};
+    }
+
+    private ScalableBloomFilter(int initialCapacity, double falsePositiveProbability, Layer[] layers) {
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.layers = layers;
+    }
+
+    /**
+     * Whether the key might have been added
+     *
+     * @param key the key
+     * @return <tt>false</tt> if the key has definitely not been added, <tt>true</tt> if it might have been added
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        for (Layer layer : layers) {
+            if (layer.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the key to the filter
+     *
+     * @param key the key
+     * @return <tt>true</tt> if the key has definitely not been added before, <tt>false</tt> if it might have been added
+     */
+    public boolean put(String key) {
+        long hash = hash(key);
+        Layer[] current = layers;
+        for (Layer layer : current) {
+            if (layer.mightContain(hash)) {
+                return false;
+            }
+        }
+
+        Layer last = current[current.length - 1];
+        last.put(hash);
+        if (last.count.get() >= last.capacity) {
+            grow(last);
+        }
+        return true;
+    }
+
+    /**
+     * Removes all the keys, and the layers added when the filter has grown
+     */
+    public synchronized void clear() {
+        layers = new Layer[]{new Layer(initialCapacity, falsePositiveProbability / 2)};
+    }
+
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    /**
+     * Gets the number of layers
+     */
+    public int getLayerCount() {
+        return layers.length;
+    }
+
+    /**
+     * Gets the approximate number of keys added
+     */
+    public long getCount() {
+        long answer = 0;
+        for (Layer layer : layers) {
+            answer += layer.count.get();
+        }
+        return answer;
+    }
+
+    /**
+     * Gets the total number of bits in the filter
+     */
+    public long getBitCount() {
+        long answer = 0;
+        for (Layer layer : layers) {
+            answer += layer.numBits;
+        }
+        return answer;
+    }
+
+    /**
+     * Estimates the current false positive probability from the number of bits set in the layers
+     */
+    public double getEstimatedFalsePositiveProbability() {
+        double none = 1.0;
+        for (Layer layer : layers) {
+            none *= 1.0 - Math.pow(layer.fillRatio(), layer.numHashes);
+        }
+        return 1.0 - none;
+    }
+
+    /**
+     * Writes the filter
+     *
+     * @param out the output to write to
+     * @throws IOException is thrown if error writing
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        Layer[] current = layers;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(initialCapacity);
+        out.writeDouble(falsePositiveProbability);
+        out.writeInt(current.length);
+        for (Layer layer : current) {
+            out.writeInt(layer.capacity);
+            out.writeInt(layer.numHashes);
+            out.writeInt(layer.numBits);
+            out.writeInt(layer.count.get());
+            for (int i = 0; i < layer.bits.length(); i++) {
+                out.writeLong(layer.bits.get(i));
+            }
+        }
+    }
+
+    /**
+     * Reads a filter written using {@link #writeTo(DataOutput)}
+     *
+     * @param in the input to read from
+     * @return the filter
+     * @throws IOException is thrown if error reading, or the input is not a filter
+     */
+    public static ScalableBloomFilter readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Input is not a bloom filter");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported bloom filter version: " + version);
+        }
+        int initialCapacity = in.readInt();
+        double falsePositiveProbability = in.readDouble();
+        Layer[] layers = new Layer[in.readInt()];
+        for (int i = 0; i < layers.length; i++) {
+            int capacity = in.readInt();
+            int numHashes = in.readInt();
+            int numBits = in.readInt();
+            int count = in.readInt();
+            long[] bits = new long[numBits >>> 6];
+            for (int j = 0; j < bits.length; j++) {
+                bits[j] = in.readLong();
+            }
+            layers[i] = new Layer(capacity, numHashes, bits, count);
+        }
+        return new ScalableBloomFilter(initialCapacity, falsePositiveProbability, layers);
+    }
+
+    @Override
+    public String toString() {
+        return "ScalableBloomFilter[layers=" + getLayerCount() + ", count=" + getCount() + ", bits=" + getBitCount() + "]";
+    }
+
+    private synchronized void grow(Layer full) {
+        Layer[] current = layers;
+        if (current[current.length - 1] != full) {
+            // another thread has already added a new layer
+            return;
+        }
+        // each layer has twice the capacity and half the probability, so the total probability stays below the configured
+        int capacity = full.capacity > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : full.capacity * 2;
+        double probability = falsePositiveProbability / Math.pow(2, current.length + 1);
+        Layer[] answer = new Layer[current.length + 1];
+        System.arraycopy(current, 0, answer, 0, current.length);
+        answer[current.length] = new Layer(capacity, probability);
+        layers = answer;
+    }
+
+    /**
+     * Hashes the characters of the key using 64 bit FNV-1a followed by the MurmurHash3 finalizer,
+     * and the two halves of the hash is used as the two hashes for double hashing.
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * A classic Bloom filter
+     */
+    private static final class Layer {
+        private final int capacity;
+        private final int numHashes;
+        private final int numBits;
+        private final AtomicLongArray bits;
+        private final AtomicInteger count;
+
+        private Layer(int capacity, double probability) {
+            this.capacity = capacity;
+            // the optimal number of bits and hashes for the capacity and probability
+            long m = (long) Math.ceil(-capacity * Math.log(probability) / (LN2 * LN2));
+            // round up to whole longs, and keep the number of bits as a positive int
+            m = Math.min((m + 63) & ~63L, Integer.MAX_VALUE & ~63L);
+            this.numBits = (int) m;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * LN2));
+            this.bits = new AtomicLongArray(numBits >>> 6);
+            this.count = new AtomicInteger();
+        }
+
+        private Layer(int capacity, int numHashes, long[] bits, int count) {
+            this.capacity = capacity;
+            this.numHashes = numHashes;
+            this.numBits = bits.length << 6;
+            this.bits = new AtomicLongArray(bits);
+            this.count = new AtomicInteger(count);
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < numHashes; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < numHashes; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+                int index = bit >>> 6;
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = bits.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(index, word, word | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        private double fillRatio() {
+            long set = 0;
+            for (int i = 0; i < bits.length(); i++) {
+                set += Long.bitCount(bits.get(i));
+            }
+            return (double) set / numBits;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non negative values which can be updated concurrently without locking.
+ * <p/>
+ * The buckets is laid out as in a <a href="http://hdrhistogram.github.io/HdrHistogram/">HdrHistogram</a>:
+ * values below 64 has their own bucket, and above that each power of two range is split in 32 buckets,
+ * so the value reported for a percentile is within about 3% of the recorded value. Values above
+ * {@link #getHighestTrackableValue()} is counted in the last bucket.
+ * <p/>
+ * The buckets is striped as in {@link StripedCounter}, so threads recording values at the same time
+ * most likely update different stripes. Reading the histogram sums the stripes, and a read
+ * concurrent with updates may not include all the updates.
+ *
+ * @version $Revision$
+ */
+public class ConcurrentHistogram {
+
+    private static final int SUB_BUCKETS = 64;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAX_SHIFT = 25;
+    private static final int BUCKETS = SUB_BUCKETS + MAX_SHIFT * HALF_SUB_BUCKETS;
+    // each stripe holds all the buckets, so keep the number of stripes lower than for a counter
+    private static final int MAX_STRIPES = 16;
+
+    private final AtomicLongArray[] stripes;
+    private final int mask;
+
+    public ConcurrentHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ConcurrentHistogram(int stripes) {
+        int size = StripedCounter.stripesFor(stripes, MAX_STRIPES);
+        this.stripes = new AtomicLongArray[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Records the value, negative values is recorded as 0
+     */
+    public void record(long value) {
+        stripes[StripedCounter.stripe(mask)].incrementAndGet(indexOf(value));
+    }
+
+    /**
+     * Gets the number of recorded values
+     */
+    public long getCount() {
+        long sum = 0;
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                sum += counts.get(i);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the value at the percentile
+     *
+     * @param percentile the percentile, for example <tt>99.9</tt>
+     * @return the highest value which is equivalent to the value at the percentile, or <tt>0</tt> if no values is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        return getValuesAtPercentiles(percentile)[0];
+    }
+
+    /**
+     * Gets the values at the percentiles using the same view of the histogram
+     *
+     * @param percentiles the percentiles in ascending order
+     * @return the highest values which is equivalent to the values at the percentiles
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = counts.get(i);
+                copy[i] += count;
+                total += count;
+            }
+        }
+
+        long[] answer = new long[percentiles.length];
+        if (total == 0) {
+            return answer;
+        }
+
+        int index = 0;
+        long running = copy[0];
+        for (int i = 0; i < percentiles.length; i++) {
+            double percentile = Math.min(Math.max(percentiles[i], 0.0), 100.0);
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+            while (running < target && index < BUCKETS - 1) {
+                running += copy[++index];
+            }
+            answer[i] = highestValueOf(index);
+        }
+        return answer;
+    }
+
+    public void reset() {
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Gets the highest value which is tracked precisely
+     */
+    public static long getHighestTrackableValue() {
+        return highestValueOf(BUCKETS - 1);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        // shift the value so it fits in the upper half of the sub buckets
+        int shift = 58 - Long.numberOfLeadingZeros(value);
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) ((value >>> shift) - HALF_SUB_BUCKETS);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long sub = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
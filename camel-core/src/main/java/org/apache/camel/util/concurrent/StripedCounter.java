@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which is striped over a number of cells, so threads updating the counter at the same time
+ * most likely update different cells and do not contend with each other.
+ * <p/>
+ * Updating the counter is cheap, but reading it has to sum all the cells, so this counter is intended for
+ * statistics which is updated often and read seldom. A read concurrent with updates may not include all the updates.
+ *
+ * @version $Revision$
+ */
+public class StripedCounter {
+
+    // each cell is padded to its own cache line so threads updating different cells do not share cache lines
+    private static final int PADDING = 8;
+    private static final int MAX_STRIPES = 64;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedCounter(int stripes) {
+        int size = stripesFor(stripes, MAX_STRIPES);
+        this.cells = new AtomicLongArray(size * PADDING);
+        this.mask = size - 1;
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long value) {
+        cells.addAndGet(index(), value);
+    }
+
+    /**
+     * Gets the sum of the cells
+     */
+    public long get() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+
+    private int index() {
+        return stripe(mask) * PADDING;
+    }
+
+    /**
+     * Gets the power of two number of stripes to use, which is at least the given stripes up till the max
+     */
+    static int stripesFor(int stripes, int max) {
+        int size = 1;
+        while (size < stripes && size < max) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the stripe of the current thread, which is the hash of its id masked by the given mask
+     */
+    static int stripe(int mask) {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.camel.builder.xml;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.net.URL;
@@ -327,4 +328,48 @@ public class XsltBuilderTest extends ContextTestSupport {
         assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><goodbye/>", exchange.getOut().getBody(String.class));
     }
 
+    public void testXsltInputStreamBody() throws Exception {
+        URL styleSheet = getClass().getResource("example.xsl");
+
+        XsltBuilder builder = XsltBuilder.xslt(styleSheet);
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(new ByteArrayInputStream("<hello>world!</hello>".getBytes()));
+
+        builder.process(exchange);
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><goodbye>world!</goodbye>", exchange.getOut().getBody());
+    }
+
+    public void testXsltTransformerReused() throws Exception {
+        URL styleSheet = getClass().getResource("example.xsl");
+
+        XsltBuilder builder = XsltBuilder.xslt(styleSheet).transformerCacheSize(1);
+
+        for (String name : new String[]{"world!", "Camel", "Bye"}) {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("<hello>" + name + "</hello>");
+
+            builder.process(exchange);
+
+            assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><goodbye>" + name + "</goodbye>", exchange.getOut().getBody());
+        }
+    }
+
+    public void testXsltTransformerNotReused() throws Exception {
+        URL styleSheet = getClass().getResource("example.xsl");
+
+        XsltBuilder builder = XsltBuilder.xslt(styleSheet).transformerCacheSize(0);
+        assertEquals(0, builder.getTransformerCacheSize());
+
+        for (String name : new String[]{"world!", "Camel"}) {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("<hello>" + name + "</hello>");
+
+            builder.process(exchange);
+
+            assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><goodbye>" + name + "</goodbye>", exchange.getOut().getBody());
+        }
+    }
+
 }
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.bean;
+
+import org.apache.camel.Body;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Header;
+import org.apache.camel.impl.DefaultExchange;
+
+/**
+ * Invokes beans many times using the common binding styles, and checks the cached method choices
+ * and bindings keep returning the same results.
+ *
+ * @version $Revision$
+ */
+public class BeanBindingPerformanceTest extends ContextTestSupport {
+
+    private int invocations = 100000;
+
+    public void testBodyAnnotation() throws Exception {
+        run("@Body", "bodyAnnotation", "Hello World", "Hello World");
+    }
+
+    public void testHeaderAnnotation() throws Exception {
+        run("@Header", "headerAnnotation", "Hello World", "Hello World 123");
+    }
+
+    public void testTypeConversion() throws Exception {
+        run("type conversion", "typeConversion", "123", 124);
+    }
+
+    public void testChosenMethod() throws Exception {
+        run("chosen method", new MyOtherBean(), null, 123, 124);
+    }
+
+    public void testChosenMethodByBodyType() throws Exception {
+        // the chosen method is cached by the body type so alternating the body type must alternate the method
+        BeanProcessor processor = new BeanProcessor(new MyOtherBean(), context);
+        for (int i = 0; i < invocations; i++) {
+            assertEquals("chosen method", 124, process(processor, 123));
+            assertEquals("chosen method", "Hello World", process(processor, "World"));
+        }
+    }
+
+    private void run(String name, String method, Object body, Object expected) throws Exception {
+        run(name, new MyBean(), method, body, expected);
+    }
+
+    private void run(String name, Object bean, String method, Object body, Object expected) throws Exception {
+        BeanProcessor processor = new BeanProcessor(bean, context);
+        processor.setMethod(method);
+
+        for (int i = 0; i < invocations; i++) {
+            assertEquals(name, expected, process(processor, body));
+        }
+    }
+
+    private Object process(BeanProcessor processor, Object body) throws Exception {
+        Exchange exchange = new DefaultExchange(context, ExchangePattern.InOut);
+        exchange.getIn().setBody(body);
+        exchange.getIn().setHeader("foo", 123);
+        processor.process(exchange);
+        return exchange.getOut().getBody();
+    }
+
+    public static class MyBean {
+
+        public String bodyAnnotation(@Body String body) {
+            return body;
+        }
+
+        public String headerAnnotation(@Body String body, @Header("foo") int foo) {
+            return body + " " + foo;
+        }
+
+        public int typeConversion(int number) {
+            return number + 1;
+        }
+    }
+
+    public static class MyOtherBean {
+
+        public String hello(String body) {
+            return "Hello " + body;
+        }
+
+        public Integer increment(Integer number) {
+            return number + 1;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.bean;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * Tests that the methods chosen by the bean binding are cached per message body type.
+ *
+ * @version $Revision$
+ */
+public class BeanChosenMethodCacheTest extends ContextTestSupport {
+
+    public void testChosenMethodPerBodyType() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("String World", template.requestBody("direct:start", "World"));
+            assertEquals("Integer 123", template.requestBody("direct:start", 123));
+        }
+    }
+
+    public void testChosenMethodWithConvertedBody() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            // the body must be converted to choose the method so it should not be cached
+            assertEquals("String Camel", template.requestBody("direct:start", "Camel".getBytes()));
+            assertEquals("Integer 456", template.requestBody("direct:start", 456));
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start").bean(new MyBean());
+            }
+        };
+    }
+
+    public static class MyBean {
+
+        public String hello(String name) {
+            return "String " + name;
+        }
+
+        public String hello(Integer number) {
+            return "Integer " + number;
+        }
+    }
+}
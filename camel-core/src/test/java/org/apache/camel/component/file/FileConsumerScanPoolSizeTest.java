@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.file;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * Unit test for scanning the directories in parallel
+ */
+public class FileConsumerScanPoolSizeTest extends ContextTestSupport {
+
+    private static final int DIRECTORIES = 5;
+    private static final int FILES = 10;
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/scan");
+        super.setUp();
+        for (int i = 0; i < DIRECTORIES; i++) {
+            for (int j = 0; j < FILES; j++) {
+                template.sendBodyAndHeader("file://target/scan", "Hello " + i + "-" + j, Exchange.FILE_NAME, "dir" + i + "/sub/hello" + j + ".txt");
+            }
+        }
+    }
+
+    @Override
+    public boolean isUseRouteBuilder() {
+        return false;
+    }
+
+    public void testScanPoolSize() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            public void configure() throws Exception {
+                from("file://target/scan?initialDelay=0&delay=5000&recursive=true&scanPoolSize=4")
+                    .convertBodyTo(String.class).to("mock:result");
+            }
+        });
+        context.start();
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(DIRECTORIES * FILES);
+        // the last file should complete the batch with the total number of files
+        mock.message(DIRECTORIES * FILES - 1).property(Exchange.BATCH_COMPLETE).isEqualTo(true);
+        mock.message(DIRECTORIES * FILES - 1).property(Exchange.BATCH_SIZE).isEqualTo(DIRECTORIES * FILES);
+        mock.message(DIRECTORIES * FILES - 1).property(Exchange.BATCH_INDEX).isEqualTo(DIRECTORIES * FILES - 1);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testScanPoolSizeSorted() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            public void configure() throws Exception {
+                from("file://target/scan?initialDelay=0&delay=5000&recursive=true&scanPoolSize=4&sortBy=file:name")
+                    .convertBodyTo(String.class).to("mock:result");
+            }
+        });
+        context.start();
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(DIRECTORIES * FILES);
+        mock.message(0).body().isEqualTo("Hello 0-0");
+        mock.message(0).property(Exchange.BATCH_SIZE).isEqualTo(DIRECTORIES * FILES);
+        mock.message(DIRECTORIES * FILES - 1).body().isEqualTo("Hello 4-9");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testScanPoolSizeMaxMessagesPerPoll() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            public void configure() throws Exception {
+                from("file://target/scan?initialDelay=0&delay=5000&recursive=true&scanPoolSize=4&maxMessagesPerPoll=7")
+                    .convertBodyTo(String.class).to("mock:result");
+            }
+        });
+        context.start();
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(7);
+        mock.message(6).property(Exchange.BATCH_COMPLETE).isEqualTo(true);
+        mock.message(6).property(Exchange.BATCH_SIZE).isEqualTo(7);
+
+        assertMockEndpointsSatisfied();
+
+        // the next poll should continue with the next files
+        mock.reset();
+        mock.expectedMessageCount(7);
+        mock.setResultWaitTime(7000);
+
+        assertMockEndpointsSatisfied();
+    }
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.file;
+
+import java.io.File;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * Unit test for skipping directories which has not changed
+ */
+public class FileConsumerSkipUnchangedDirectoriesTest extends ContextTestSupport {
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/unchanged");
+        super.setUp();
+        template.sendBodyAndHeader("file://target/unchanged", "Hello World", Exchange.FILE_NAME, "dir0/sub/hello.txt");
+        template.sendBodyAndHeader("file://target/unchanged", "Bye World", Exchange.FILE_NAME, "dir1/bye.txt");
+        // the directories has not been modified recently
+        long old = System.currentTimeMillis() - 60000;
+        for (String name : new String[]{"target/unchanged", "target/unchanged/dir0", "target/unchanged/dir0/sub", "target/unchanged/dir1"}) {
+            assertTrue(new File(name).setLastModified(old));
+        }
+    }
+
+    @Override
+    public boolean isUseRouteBuilder() {
+        return false;
+    }
+
+    public void testSkipUnchangedDirectories() throws Exception {
+        doTestSkipUnchangedDirectories("");
+    }
+
+    public void testSkipUnchangedDirectoriesScanPoolSize() throws Exception {
+        doTestSkipUnchangedDirectories("&scanPoolSize=2");
+    }
+
+    private void doTestSkipUnchangedDirectories(final String options) throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            public void configure() throws Exception {
+                from("file://target/unchanged?delay=100&recursive=true&noop=true&skipUnchangedDirectories=true" + options)
+                    .convertBodyTo(String.class).to("mock:result");
+            }
+        });
+        context.start();
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceivedInAnyOrder("Hello World", "Bye World");
+        assertMockEndpointsSatisfied();
+
+        // let the consumer poll the unchanged directories a few times
+        Thread.sleep(500);
+
+        // a new file in a sub directory of unchanged directories should be picked up
+        mock.reset();
+        mock.expectedBodiesReceived("Hi World");
+        template.sendBodyAndHeader("file://target/unchanged", "Hi World", Exchange.FILE_NAME, "dir0/sub/hi.txt");
+        assertMockEndpointsSatisfied();
+
+        // and a new file in a new sub directory as well
+        mock.reset();
+        mock.expectedBodiesReceived("Hey World");
+        template.sendBodyAndHeader("file://target/unchanged", "Hey World", Exchange.FILE_NAME, "dir1/new/hey.txt");
+        assertMockEndpointsSatisfied();
+    }
+
+}
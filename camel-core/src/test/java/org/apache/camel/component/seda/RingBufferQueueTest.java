@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class RingBufferQueueTest extends TestCase {
+
+    public void testCapacityRoundedToPowerOfTwo() {
+        RingBufferQueue<String> queue = new RingBufferQueue<String>(100);
+        assertEquals(128, queue.getCapacity());
+        assertEquals(128, queue.remainingCapacity());
+    }
+
+    public void testOfferAndPoll() {
+        RingBufferQueue<String> queue = new RingBufferQueue<String>(4);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        assertTrue(queue.offer("A"));
+        assertTrue(queue.offer("B"));
+        assertEquals(2, queue.size());
+        assertEquals("A", queue.peek());
+
+        assertEquals("A", queue.poll());
+        assertEquals("B", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testFull() {
+        RingBufferQueue<String> queue = new RingBufferQueue<String>(2);
+        assertTrue(queue.offer("A"));
+        assertTrue(queue.offer("B"));
+        assertFalse(queue.offer("C"));
+        assertEquals(0, queue.remainingCapacity());
+
+        try {
+            queue.add("C");
+            fail("Should have thrown an exception");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // wrap around the ring
+        assertEquals("A", queue.poll());
+        assertTrue(queue.offer("C"));
+        assertEquals("B", queue.poll());
+        assertEquals("C", queue.poll());
+    }
+
+    public void testTimeout() throws Exception {
+        RingBufferQueue<String> queue = new RingBufferQueue<String>(1);
+        assertEquals(2, queue.getCapacity());
+        assertNull(queue.poll(50, TimeUnit.MILLISECONDS));
+        queue.put("A");
+        queue.put("B");
+        assertFalse(queue.offer("C", 50, TimeUnit.MILLISECONDS));
+        assertEquals("A", queue.take());
+        assertEquals("B", queue.take());
+    }
+
+    public void testDrainToAndIterator() {
+        RingBufferQueue<String> queue = new RingBufferQueue<String>(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer("Message " + i);
+        }
+
+        List<String> snapshot = new ArrayList<String>(queue);
+        assertEquals(5, snapshot.size());
+        assertEquals("Message 0", snapshot.get(0));
+        assertEquals(5, queue.size());
+
+        List<String> drained = new ArrayList<String>();
+        assertEquals(3, queue.drainTo(drained, 3));
+        assertEquals("Message 2", drained.get(2));
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals(5, drained.size());
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testBlockMultiProducer() throws Exception {
+        doTestConcurrent(RingBufferProducerType.Multi, RingBufferWaitStrategy.Block, 4);
+    }
+
+    public void testSpinThenParkMultiProducer() throws Exception {
+        doTestConcurrent(RingBufferProducerType.Multi, RingBufferWaitStrategy.SpinThenPark, 4);
+    }
+
+    public void testYieldMultiProducer() throws Exception {
+        doTestConcurrent(RingBufferProducerType.Multi, RingBufferWaitStrategy.Yield, 4);
+    }
+
+    public void testBlockSingleProducer() throws Exception {
+        doTestConcurrent(RingBufferProducerType.Single, RingBufferWaitStrategy.Block, 1);
+    }
+
+    private void doTestConcurrent(RingBufferProducerType producerType, RingBufferWaitStrategy waitStrategy,
+                                  final int producers) throws Exception {
+        final int messages = 20000;
+        final int consumers = 3;
+        // use a small queue so producers must wait for the consumers
+        final RingBufferQueue<Integer> queue = new RingBufferQueue<Integer>(16, producerType, waitStrategy);
+        final Map<Integer, Integer> seen = new ConcurrentHashMap<Integer, Integer>();
+        final CountDownLatch latch = new CountDownLatch(producers * messages);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        for (int i = 0; i < consumers; i++) {
+            executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    while (latch.getCount() > 0) {
+                        Integer n = queue.poll(100, TimeUnit.MILLISECONDS);
+                        if (n != null) {
+                            seen.put(n, n);
+                            latch.countDown();
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        for (int i = 0; i < producers; i++) {
+            final int offset = i * messages;
+            executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    for (int j = 0; j < messages; j++) {
+                        queue.put(offset + j);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        assertTrue("Should receive all messages", latch.await(30, TimeUnit.SECONDS));
+        executor.shutdownNow();
+
+        assertEquals(producers * messages, seen.size());
+        assertTrue(queue.isEmpty());
+    }
+}
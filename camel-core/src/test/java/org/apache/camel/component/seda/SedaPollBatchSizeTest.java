@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.processor.async.MyAsyncComponent;
+
+/**
+ * @version $Revision$
+ */
+public class SedaPollBatchSizeTest extends ContextTestSupport {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    public void testPollBatchSize() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            template.sendBody("seda:foo", "Message " + i);
+        }
+
+        MockEndpoint mock = getMockEndpoint("mock:foo");
+        mock.expectedMessageCount(10);
+        mock.message(0).property(Exchange.BATCH_INDEX).isEqualTo(0);
+        mock.message(0).property(Exchange.BATCH_SIZE).isEqualTo(5);
+        mock.message(4).property(Exchange.BATCH_COMPLETE).isEqualTo(true);
+        mock.message(5).property(Exchange.BATCH_INDEX).isEqualTo(0);
+
+        // start the route which will drain the queue in batches of 5
+        context.startRoute("foo");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testGroupExchanges() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            template.sendBody("seda:bar", "Message " + i);
+        }
+
+        MockEndpoint mock = getMockEndpoint("mock:bar");
+        mock.expectedMessageCount(2);
+
+        context.startRoute("bar");
+
+        assertMockEndpointsSatisfied();
+
+        List<?> grouped = mock.getReceivedExchanges().get(0).getProperty(Exchange.GROUPED_EXCHANGE, List.class);
+        assertEquals(5, grouped.size());
+        assertEquals("Message 0", ((Exchange) grouped.get(0)).getIn().getBody());
+        grouped = mock.getReceivedExchanges().get(1).getProperty(Exchange.GROUPED_EXCHANGE, List.class);
+        assertEquals(5, grouped.size());
+        assertEquals("Message 9", ((Exchange) grouped.get(4)).getIn().getBody());
+    }
+
+    public void testGroupExchangesInOut() throws Exception {
+        context.startRoute("bar");
+
+        getMockEndpoint("mock:bar").expectedMessageCount(1);
+
+        // the on completions should still be invoked so we do not wait for the timeout
+        // and the reply is the result of the grouped exchange
+        String out = template.requestBody("seda:bar", "Hello World", String.class);
+        assertEquals("Bye World", out);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testGroupExchangesInOutAsync() throws Exception {
+        context.startRoute("async");
+
+        getMockEndpoint("mock:async").expectedMessageCount(1);
+
+        // the reply must be the result of the grouped exchange when it has been routed asynchronously
+        String out = template.requestBody("seda:async", "Hello Camel", String.class);
+        assertEquals("Bye Camel", out);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testPendingExchangesIncludesBatch() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            template.sendBody("seda:baz", "Message " + i);
+        }
+
+        MockEndpoint mock = getMockEndpoint("mock:baz");
+        mock.expectedMessageCount(5);
+
+        context.startRoute("baz");
+
+        // the first exchange is blocked in the route, and the remainder of the batch is drained from the queue
+        SedaConsumer consumer = (SedaConsumer) context.getRoute("baz").getConsumer();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (consumer.getPendingExchangesSize() != 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, context.getEndpoint("seda:baz", SedaEndpoint.class).getQueue().size());
+        assertEquals(4, consumer.getPendingExchangesSize());
+
+        latch.countDown();
+        assertMockEndpointsSatisfied();
+        assertEquals(0, consumer.getPendingExchangesSize());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                context.addComponent("async", new MyAsyncComponent());
+
+                from("seda:foo?pollBatchSize=5").routeId("foo").noAutoStartup().to("mock:foo");
+
+                from("seda:bar?pollBatchSize=5&groupExchanges=true").routeId("bar").noAutoStartup()
+                    .to("mock:bar").transform(constant("Bye World"));
+
+                from("seda:async?pollBatchSize=5&groupExchanges=true").routeId("async").noAutoStartup()
+                    .to("async:Bye Camel").to("mock:async");
+
+                from("seda:baz?pollBatchSize=5").routeId("baz").noAutoStartup()
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            latch.await(10, TimeUnit.SECONDS);
+                        }
+                    })
+                    .to("mock:baz");
+            }
+        };
+    }
+}
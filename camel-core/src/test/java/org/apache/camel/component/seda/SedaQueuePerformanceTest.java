@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import junit.framework.TestCase;
+
+/**
+ * Transfers many messages with concurrent producers and consumers over the queues the SEDA component can use,
+ * and checks each message is received exactly once.
+ *
+ * @version $Revision$
+ */
+public class SedaQueuePerformanceTest extends TestCase {
+
+    private int messages = 200000;
+    private int producers = 4;
+    private int consumers = 4;
+
+    public void testLinkedBlockingQueue() throws Exception {
+        run("LinkedBlockingQueue", new LinkedBlockingQueueFactory<Object>().create(1024));
+    }
+
+    public void testRingBufferBlock() throws Exception {
+        run("RingBuffer(Block)", new RingBufferQueue<Object>(1024, RingBufferProducerType.Multi, RingBufferWaitStrategy.Block));
+    }
+
+    public void testRingBufferSpinThenPark() throws Exception {
+        run("RingBuffer(SpinThenPark)", new RingBufferQueue<Object>(1024, RingBufferProducerType.Multi, RingBufferWaitStrategy.SpinThenPark));
+    }
+
+    public void testRingBufferYield() throws Exception {
+        run("RingBuffer(Yield)", new RingBufferQueue<Object>(1024, RingBufferProducerType.Multi, RingBufferWaitStrategy.Yield));
+    }
+
+    private void run(String name, final BlockingQueue<Object> queue) throws Exception {
+        final int perProducer = messages / producers;
+        final CountDownLatch latch = new CountDownLatch(perProducer * producers);
+        final AtomicIntegerArray received = new AtomicIntegerArray(perProducer * producers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        for (int i = 0; i < consumers; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        while (latch.getCount() > 0) {
+                            // same poll as the seda consumer does
+                            Object message = queue.poll(1000, TimeUnit.MILLISECONDS);
+                            if (message != null) {
+                                received.incrementAndGet((Integer) message);
+                                latch.countDown();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < producers; i++) {
+            final int offset = i * perProducer;
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < perProducer; j++) {
+                            queue.put(offset + j);
+                        }
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+            });
+        }
+
+        assertTrue(name + " should complete", latch.await(60, TimeUnit.SECONDS));
+        executor.shutdownNow();
+
+        // each message must be received exactly once
+        assertTrue(name + " should be empty", queue.isEmpty());
+        for (int i = 0; i < received.length(); i++) {
+            assertEquals(name + " received message " + i, 1, received.get(i));
+        }
+    }
+}
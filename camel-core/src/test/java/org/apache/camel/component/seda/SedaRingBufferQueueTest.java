@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import javax.naming.Context;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * @version $Revision$
+ */
+public class SedaRingBufferQueueTest extends ContextTestSupport {
+
+    @Override
+    protected Context createJndiContext() throws Exception {
+        Context context = super.createJndiContext();
+        RingBufferQueueFactory<Exchange> factory = new RingBufferQueueFactory<Exchange>();
+        factory.setWaitStrategy(RingBufferWaitStrategy.Yield);
+        context.bind("myFactory", factory);
+        return context;
+    }
+
+    public void testQueueType() throws Exception {
+        SedaEndpoint seda = context.getEndpoint("seda:foo", SedaEndpoint.class);
+        RingBufferQueue<Exchange> queue = assertIsInstanceOf(RingBufferQueue.class, seda.getQueue());
+        assertEquals(RingBufferWaitStrategy.SpinThenPark, queue.getWaitStrategy());
+        assertEquals(RingBufferProducerType.Multi, queue.getProducerType());
+        assertEquals(1024, seda.getSize());
+
+        MockEndpoint mock = getMockEndpoint("mock:foo");
+        mock.expectedMessageCount(200);
+
+        for (int i = 0; i < 200; i++) {
+            template.sendBody("seda:foo", "Message " + i);
+        }
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testQueueFactory() throws Exception {
+        SedaEndpoint seda = context.getEndpoint("seda:bar", SedaEndpoint.class);
+        RingBufferQueue<Exchange> queue = assertIsInstanceOf(RingBufferQueue.class, seda.getQueue());
+        assertEquals(RingBufferWaitStrategy.Yield, queue.getWaitStrategy());
+        assertEquals(1024, queue.getCapacity());
+
+        getMockEndpoint("mock:bar").expectedBodiesReceived("Hello World");
+
+        String out = template.requestBody("seda:bar", "Hello", String.class);
+        assertEquals("Hello World", out);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testDefaultIsLinkedBlockingQueue() throws Exception {
+        SedaEndpoint seda = context.getEndpoint("seda:baz", SedaEndpoint.class);
+        assertIsInstanceOf(java.util.concurrent.LinkedBlockingQueue.class, seda.getQueue());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("seda:foo?queueType=RingBuffer&waitStrategy=SpinThenPark&concurrentConsumers=3").to("mock:foo");
+
+                from("seda:bar?queueFactory=#myFactory").transform(body().append(" World")).to("mock:bar");
+            }
+        };
+    }
+}
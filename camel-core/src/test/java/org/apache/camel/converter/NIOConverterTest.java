@@ -57,10 +57,36 @@ public class NIOConverterTest extends ContextTestSupport {
 
         ByteBuffer bb = NIOConverter.toByteBuffer(new File("target/nio/hello.txt"));
         assertNotNull(bb);
+        // the file should be read into the heap and not memory mapped
+        assertTrue(bb.hasArray());
 
         assertEquals("Hello World", NIOConverter.toString(bb, null));
     }
 
+    public void testToMappedByteBuffer() throws Exception {
+        template.sendBodyAndHeader("file://target/nio", "Hello World", Exchange.FILE_NAME, "hello.txt");
+
+        ByteBuffer bb = NIOConverter.toMappedByteBuffer(new File("target/nio/hello.txt"));
+        assertNotNull(bb);
+        assertFalse(bb.hasArray());
+        assertEquals(11, bb.remaining());
+
+        assertEquals("Hello World", NIOConverter.toString(bb, null));
+        assertEquals("Hello World", IOConverter.toString(NIOConverter.toInputStream(bb), null));
+        // converting should not change the buffer
+        assertEquals(11, bb.remaining());
+    }
+
+    public void testToByteArrayDirect() {
+        ByteBuffer bb = ByteBuffer.allocateDirect(5);
+        bb.put("Hello".getBytes());
+        bb.flip();
+
+        byte[] out = NIOConverter.toByteArray(bb);
+        assertEquals("Hello", new String(out));
+        assertEquals(5, bb.remaining());
+    }
+
     public void testToByteBufferShort() {
         ByteBuffer bb = NIOConverter.toByteBuffer(Short.valueOf("2"));
         assertNotNull(bb);
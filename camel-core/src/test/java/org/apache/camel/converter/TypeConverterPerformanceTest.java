@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.TypeConverter;
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * Converts from many threads at the same time, and checks the conversions return the same
+ * results as when converting from a single thread.
+ *
+ * @version $Revision$
+ */
+public class TypeConverterPerformanceTest extends ContextTestSupport {
+
+    private int conversions = 1000000;
+    private int threads = 8;
+
+    public void testConvertConcurrently() throws Exception {
+        final TypeConverter converter = context.getTypeConverter();
+        final int perThread = conversions / threads;
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < perThread; j++) {
+                        // a hit, a fallback conversion and a miss
+                        if (!ObjectHelper.equal(Integer.valueOf(123), converter.convertTo(Integer.class, "123"))
+                                || !ObjectHelper.equal(Integer.toString(j), converter.convertTo(String.class, Integer.valueOf(j)))
+                                || converter.convertTo(TypeConverterPerformanceTest.class, "456") != null) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue("Should complete", latch.await(60, TimeUnit.SECONDS));
+        executor.shutdownNow();
+
+        assertEquals("Conversions with unexpected results", 0, failures.get());
+        assertEquals(Integer.valueOf(123), converter.convertTo(Integer.class, "123"));
+        assertEquals("456", converter.convertTo(String.class, Integer.valueOf(456)));
+        assertNull(converter.convertTo(TypeConverterPerformanceTest.class, "456"));
+    }
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter;
+
+import java.util.Date;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.TypeConverter;
+import org.apache.camel.impl.DefaultClassResolver;
+import org.apache.camel.impl.DefaultFactoryFinderResolver;
+import org.apache.camel.impl.DefaultPackageScanClassResolver;
+import org.apache.camel.impl.converter.BaseTypeConverterRegistry;
+import org.apache.camel.impl.converter.DefaultTypeConverter;
+import org.apache.camel.util.ReflectionInjector;
+import org.apache.camel.util.ServiceHelper;
+
+/**
+ * @version $Revision$
+ */
+public class TypeConverterStatisticsTest extends ContextTestSupport {
+
+    public void testStatistics() throws Exception {
+        BaseTypeConverterRegistry registry = (BaseTypeConverterRegistry) context.getTypeConverterRegistry();
+        registry.setStatisticsEnabled(true);
+        registry.resetStatistics();
+
+        assertEquals(Integer.valueOf(123), context.getTypeConverter().convertTo(Integer.class, "123"));
+        assertEquals(1, registry.getAttemptCounter());
+        assertEquals(1, registry.getMissCounter());
+        assertEquals(0, registry.getHitCounter());
+
+        assertEquals(Integer.valueOf(456), context.getTypeConverter().convertTo(Integer.class, "456"));
+        assertEquals(2, registry.getAttemptCounter());
+        assertEquals(1, registry.getMissCounter());
+        assertEquals(1, registry.getHitCounter());
+
+        // same type is not a conversion
+        assertEquals("789", context.getTypeConverter().convertTo(String.class, "789"));
+        assertEquals(2, registry.getAttemptCounter());
+
+        // cannot be converted so the fallback converters is tried
+        assertNull(context.getTypeConverter().convertTo(MyOrder.class, new Date()));
+        assertEquals(3, registry.getAttemptCounter());
+        assertEquals(1, registry.getFallbackCounter());
+        assertEquals(1, registry.getFailedCounter());
+
+        // and the miss is remembered
+        assertNull(context.getTypeConverter().convertTo(MyOrder.class, new Date()));
+        assertEquals(4, registry.getAttemptCounter());
+        assertEquals(2, registry.getHitCounter());
+        assertEquals(1, registry.getFallbackCounter());
+        assertEquals(2, registry.getFailedCounter());
+        assertTrue(registry.getTotalConversionTime() >= 0);
+
+        registry.resetStatistics();
+        assertEquals(0, registry.getAttemptCounter());
+        assertEquals(0, registry.getHitCounter());
+    }
+
+    public void testStatisticsDisabled() throws Exception {
+        BaseTypeConverterRegistry registry = (BaseTypeConverterRegistry) context.getTypeConverterRegistry();
+        assertFalse(registry.isStatisticsEnabled());
+
+        assertEquals(Integer.valueOf(123), context.getTypeConverter().convertTo(Integer.class, "123"));
+        assertEquals(0, registry.getAttemptCounter());
+        assertEquals(0, registry.getMissCounter());
+    }
+
+    public void testAddTypeConverterAfterMiss() throws Exception {
+        Date date = new Date();
+        assertNull(context.getTypeConverter().convertTo(MyOrder.class, date));
+
+        // the miss must be forgotten when a type converter is added
+        context.getTypeConverterRegistry().addTypeConverter(MyOrder.class, Date.class, new MyOrderTypeConverter());
+
+        MyOrder order = context.getTypeConverter().convertTo(MyOrder.class, date);
+        assertNotNull(order);
+        assertEquals(date, order.getDate());
+    }
+
+    public void testDeprecatedMisses() throws Exception {
+        MyTypeConverterRegistry registry = new MyTypeConverterRegistry();
+        ServiceHelper.startService(registry);
+        try {
+            assertNull(registry.convertTo(MyOrder.class, new Date()));
+            assertEquals(Integer.valueOf(123), registry.convertTo(Integer.class, "123"));
+
+            // the misses is a view of the pairs of types which cannot be converted
+            assertTrue(registry.isMiss(MyOrder.class, Date.class));
+            assertFalse(registry.isMiss(Integer.class, String.class));
+            assertEquals(1, registry.getMissesSize());
+
+            registry.clearMisses();
+            assertFalse(registry.isMiss(MyOrder.class, Date.class));
+            assertEquals(0, registry.getMissesSize());
+        } finally {
+            ServiceHelper.stopService(registry);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static class MyTypeConverterRegistry extends DefaultTypeConverter {
+
+        MyTypeConverterRegistry() {
+            super(new DefaultPackageScanClassResolver(), new ReflectionInjector(),
+                    new DefaultFactoryFinderResolver().resolveDefaultFactoryFinder(new DefaultClassResolver()));
+        }
+
+        boolean isMiss(Class<?> toType, Class<?> fromType) {
+            return misses.containsKey(new TypeMapping(toType, fromType));
+        }
+
+        int getMissesSize() {
+            return misses.size();
+        }
+
+        void clearMisses() {
+            misses.clear();
+        }
+    }
+
+    private static class MyOrder {
+        private final Date date;
+
+        MyOrder(Date date) {
+            this.date = date;
+        }
+
+        public Date getDate() {
+            return date;
+        }
+    }
+
+    private static class MyOrderTypeConverter implements TypeConverter {
+
+        @SuppressWarnings("unchecked")
+        public <T> T convertTo(Class<T> type, Object value) {
+            return (T) new MyOrder((Date) value);
+        }
+
+        public <T> T convertTo(Class<T> type, Exchange exchange, Object value) {
+            return convertTo(type, value);
+        }
+
+        public <T> T mandatoryConvertTo(Class<T> type, Object value) {
+            return convertTo(type, value);
+        }
+
+        public <T> T mandatoryConvertTo(Class<T> type, Exchange exchange, Object value) {
+            return convertTo(type, value);
+        }
+    }
+}
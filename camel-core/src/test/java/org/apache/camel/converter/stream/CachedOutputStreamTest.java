@@ -151,4 +151,123 @@ public class CachedOutputStreamTest extends ContextTestSupport {
 
         exchange.getUnitOfWork().done(exchange);
     }
+
+    public void testCacheStreamToDirectMemory() throws IOException {
+        context.getProperties().put(CachedOutputStream.THRESHOLD, "1024");
+        context.getProperties().put(CachedOutputStream.DIRECT, "true");
+        long used = DirectBufferPool.getDefault().getUsed();
+
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        cos.write(TEST_STRING.getBytes("UTF-8"));
+        assertTrue("Should use direct buffers", DirectBufferPool.getDefault().getUsed() > used);
+
+        File file = new File("./target/cachedir");
+        String[] files = file.list();
+        assertEquals("we should have no temp file", files.length, 0);
+
+        StreamCache cache = cos.getStreamCache();
+        assertTrue("Should get the ByteBufferInputStreamCache", cache instanceof ByteBufferInputStreamCache);
+        String temp = IOConverter.toString((InputStream)cache, null);
+        assertEquals("Cached a wrong file", temp, TEST_STRING);
+        cache.reset();
+        temp = IOConverter.toString((InputStream)cache, null);
+        assertEquals("Cached a wrong file", temp, TEST_STRING);
+
+        exchange.getUnitOfWork().done(exchange);
+        assertEquals("Should release the direct buffers", used, DirectBufferPool.getDefault().getUsed());
+    }
+
+    public void testCacheStreamToDirectMemoryAndMappedFile() throws IOException {
+        context.getProperties().put(CachedOutputStream.DIRECT, "true");
+        long used = DirectBufferPool.getDefault().getUsed();
+
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        cos.write(TEST_STRING.getBytes("UTF-8"));
+        assertEquals("Should release the direct buffers when spooling", used, DirectBufferPool.getDefault().getUsed());
+
+        File file = new File("./target/cachedir");
+        String[] files = file.list();
+        assertEquals("we should have a temp file", files.length, 1);
+
+        StreamCache cache = cos.getStreamCache();
+        String temp = toString((InputStream)cache);
+        assertEquals("Cached a wrong file", temp, TEST_STRING);
+        cache.reset();
+        temp = toString((InputStream)cache);
+        assertEquals("Cached a wrong file", temp, TEST_STRING);
+
+        exchange.getUnitOfWork().done(exchange);
+        files = file.list();
+        assertEquals("we should have no temp file", files.length, 0);
+    }
+
+    public void testDirectStreamCacheReadAfterExchangeDone() throws IOException {
+        context.getProperties().put(CachedOutputStream.THRESHOLD, "1024");
+        context.getProperties().put(CachedOutputStream.DIRECT, "true");
+        long used = DirectBufferPool.getDefault().getUsed();
+
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        cos.write(TEST_STRING.getBytes("UTF-8"));
+        StreamCache cache = cos.getStreamCache();
+
+        // the body outlives the exchange, such as when it is aggregated or returned to a producer template
+        exchange.getUnitOfWork().done(exchange);
+        assertEquals("Should release the direct memory budget", used, DirectBufferPool.getDefault().getUsed());
+
+        // another stream must not reuse the chunks still read by the cache
+        Exchange other = new DefaultExchange(context);
+        other.setUnitOfWork(new DefaultUnitOfWork(other));
+        CachedOutputStream otherCos = new CachedOutputStream(other);
+        otherCos.write("Bye World Bye World Bye World Bye World Bye World Bye World Bye World Bye World".getBytes("UTF-8"));
+
+        String temp = IOConverter.toString((InputStream)cache, null);
+        assertEquals("Cached a wrong file", TEST_STRING, temp);
+        ((InputStream)cache).close();
+
+        other.getUnitOfWork().done(other);
+        assertEquals("Should release the direct buffers", used, DirectBufferPool.getDefault().getUsed());
+    }
+
+    public void testDirectStreamCacheReadAgainAfterClose() throws IOException {
+        context.getProperties().put(CachedOutputStream.THRESHOLD, "1024");
+        context.getProperties().put(CachedOutputStream.DIRECT, "true");
+        long used = DirectBufferPool.getDefault().getUsed();
+
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        cos.write(TEST_STRING.getBytes("UTF-8"));
+        StreamCache cache = cos.getStreamCache();
+
+        // the type converters close the stream after reading it
+        String temp = IOConverter.toString((InputStream)cache, null);
+        assertEquals("Cached a wrong file", TEST_STRING, temp);
+        ((InputStream)cache).close();
+        exchange.getUnitOfWork().done(exchange);
+
+        // another stream must not reuse the chunks as the closed cache can still be reset and read again
+        Exchange other = new DefaultExchange(context);
+        other.setUnitOfWork(new DefaultUnitOfWork(other));
+        CachedOutputStream otherCos = new CachedOutputStream(other);
+        otherCos.write("Bye World Bye World Bye World Bye World Bye World Bye World Bye World Bye World".getBytes("UTF-8"));
+
+        cache.reset();
+        temp = IOConverter.toString((InputStream)cache, null);
+        assertEquals("Cached a wrong file", TEST_STRING, temp);
+
+        other.getUnitOfWork().done(other);
+        assertEquals("Should release the direct memory budget", used, DirectBufferPool.getDefault().getUsed());
+    }
+
+    public void testNoDirectStreamCacheWhenNotClosedOnCompletion() throws IOException {
+        context.getProperties().put(CachedOutputStream.THRESHOLD, "1024");
+        context.getProperties().put(CachedOutputStream.DIRECT, "true");
+        long used = DirectBufferPool.getDefault().getUsed();
+
+        CachedOutputStream cos = new CachedOutputStream(exchange, false);
+        cos.write(TEST_STRING.getBytes("UTF-8"));
+        assertEquals("Should not use direct buffers", used, DirectBufferPool.getDefault().getUsed());
+
+        StreamCache cache = cos.getStreamCache();
+        assertTrue("Should get the InputStreamCache", cache instanceof InputStreamCache);
+        cos.close();
+    }
 }
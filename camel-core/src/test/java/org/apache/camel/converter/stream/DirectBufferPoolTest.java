@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class DirectBufferPoolTest extends TestCase {
+
+    public void testAcquireWithinBudget() {
+        DirectBufferPool pool = new DirectBufferPool(1024, 2048);
+
+        ByteBuffer a = pool.acquire();
+        ByteBuffer b = pool.acquire();
+        assertNotNull(a);
+        assertNotNull(b);
+        assertTrue(a.isDirect());
+        assertEquals(1024, a.remaining());
+        assertEquals(2048, pool.getUsed());
+
+        // the budget is exhausted
+        assertNull(pool.acquire());
+
+        pool.release(a);
+        assertEquals(1024, pool.getUsed());
+
+        // the released chunk is reused
+        ByteBuffer c = pool.acquire();
+        assertSame(a, c);
+        assertEquals(1024, c.remaining());
+    }
+
+    public void testOutputStreamSpansChunks() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool(4, 64);
+        DirectBufferOutputStream dos = new DirectBufferOutputStream(pool);
+
+        byte[] data = "Hello World".getBytes();
+        assertTrue(dos.ensureCapacity(data.length));
+        dos.write(data);
+        assertEquals(11, dos.size());
+        assertEquals(3, dos.getBuffers().size());
+
+        ByteBufferInputStreamCache cache = new ByteBufferInputStreamCache(dos.getBuffers());
+        byte[] out = new byte[11];
+        int len = 0;
+        while (len < out.length) {
+            len += cache.read(out, len, out.length - len);
+        }
+        assertEquals(-1, cache.read());
+        assertEquals("Hello World", new String(out));
+
+        // can read again without copying
+        cache.reset();
+        assertEquals('H', cache.read());
+        assertEquals(10, cache.available());
+
+        dos.close();
+        assertEquals(0, pool.getUsed());
+    }
+
+    public void testOutputStreamBudgetExhausted() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool(4, 8);
+        DirectBufferOutputStream dos = new DirectBufferOutputStream(pool);
+
+        assertFalse(dos.ensureCapacity(11));
+        dos.close();
+        assertEquals(0, pool.getUsed());
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.StreamCache;
+import org.apache.camel.converter.IOConverter;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.impl.DefaultStreamCacheManager;
+import org.apache.camel.impl.DefaultUnitOfWork;
+
+/**
+ * @version $Revision$
+ */
+public class StreamCacheManagerTest extends ContextTestSupport {
+
+    private DefaultStreamCacheManager manager;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        context.getProperties().put(CachedOutputStream.TEMP_DIR, "./target/cachedir");
+        context.getProperties().put(CachedOutputStream.THRESHOLD, "1024");
+        deleteDirectory("./target/cachedir");
+        createDirectory("./target/cachedir");
+
+        manager = (DefaultStreamCacheManager) context.getStreamCacheManager();
+    }
+
+    private Exchange createExchange() {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.setUnitOfWork(new DefaultUnitOfWork(exchange));
+        return exchange;
+    }
+
+    public void testNotTrackedWithoutBudget() throws Exception {
+        assertFalse(manager.isTracking());
+
+        Exchange exchange = createExchange();
+        CachedOutputStream cos = new CachedOutputStream(exchange, false);
+        cos.write(new byte[100]);
+        assertEquals(0, manager.getMemoryUsed());
+        assertEquals(0, manager.getCacheCount());
+
+        cos.close();
+        assertEquals(0, manager.getMemoryUsed());
+    }
+
+    public void testTrackMemoryAndDisk() throws Exception {
+        // the caches are only tracked when a budget is set
+        manager.setMaxMemory(100000);
+        assertTrue(manager.isTracking());
+
+        Exchange exchange = createExchange();
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        cos.write(new byte[100]);
+        assertEquals(100, manager.getMemoryUsed());
+        assertEquals(0, manager.getDiskUsed());
+        assertEquals(1, manager.getCacheCount());
+
+        // exceed the threshold
+        cos.write(new byte[1000]);
+        assertEquals(0, manager.getMemoryUsed());
+        assertEquals(1100, manager.getDiskUsed());
+        assertEquals(1, manager.getSpoolCounter());
+
+        exchange.getUnitOfWork().done(exchange);
+        assertEquals(0, manager.getMemoryUsed());
+        assertEquals(0, manager.getDiskUsed());
+        assertEquals(0, manager.getCacheCount());
+    }
+
+    public void testSpoolLargestFirst() throws Exception {
+        manager.setMaxMemory(500);
+
+        Exchange exchange = createExchange();
+        CachedOutputStream small = new CachedOutputStream(exchange);
+        small.write(new byte[100]);
+        CachedOutputStream large = new CachedOutputStream(exchange);
+        large.write(new byte[300]);
+        assertEquals(400, manager.getMemoryUsed());
+
+        // exceeding the budget spools the largest cache right away
+        CachedOutputStream other = new CachedOutputStream(exchange);
+        other.write(new byte[200]);
+        assertEquals(1, manager.getSpoolCounter());
+        assertEquals(300, manager.getMemoryUsed());
+
+        StreamCache cache = large.getStreamCache();
+        assertTrue("Should be spooled", cache instanceof FileInputStreamCache);
+        assertEquals(300, manager.getDiskUsed());
+        assertEquals(1, new File("./target/cachedir").list().length);
+
+        // the small cache is still in memory
+        assertTrue(small.getStreamCache() instanceof InputStreamCache);
+
+        exchange.getUnitOfWork().done(exchange);
+        assertEquals(0, manager.getMemoryUsed());
+        assertEquals(0, manager.getDiskUsed());
+    }
+
+    public void testSpoolOldestFirst() throws Exception {
+        manager.setMaxMemory(500);
+        manager.setSpoolLargestFirst(false);
+
+        Exchange exchange = createExchange();
+        CachedOutputStream oldest = new CachedOutputStream(exchange);
+        oldest.write("Hello World".getBytes());
+        CachedOutputStream large = new CachedOutputStream(exchange);
+        large.write(new byte[300]);
+
+        // exceed the budget by less than the oldest cache holds, which spools the oldest cache
+        large.write(new byte[195]);
+        assertEquals(1, manager.getSpoolCounter());
+        assertEquals(495, manager.getMemoryUsed());
+
+        // and the next write goes to disk
+        oldest.write(" Bye".getBytes());
+        assertEquals(495, manager.getMemoryUsed());
+
+        StreamCache cache = oldest.getStreamCache();
+        assertEquals("Hello World Bye", IOConverter.toString((InputStream) cache, null));
+        ((InputStream) cache).close();
+
+        exchange.getUnitOfWork().done(exchange);
+        assertEquals(0, manager.getMemoryUsed());
+        assertEquals(0, manager.getDiskUsed());
+    }
+
+    public void testNotSpoolHandedOutCache() throws Exception {
+        manager.setMaxMemory(500);
+
+        Exchange exchange = createExchange();
+        CachedOutputStream large = new CachedOutputStream(exchange);
+        large.write(new byte[300]);
+        // the content is handed out so spooling the large cache would not release its memory
+        assertTrue(large.getStreamCache() instanceof InputStreamCache);
+        CachedOutputStream small = new CachedOutputStream(exchange);
+        small.write(new byte[100]);
+
+        // exceeding the budget spools the largest cache which can release its memory
+        CachedOutputStream other = new CachedOutputStream(exchange);
+        other.write(new byte[200]);
+        assertEquals(1, manager.getSpoolCounter());
+        assertEquals(400, manager.getMemoryUsed());
+        assertEquals(200, manager.getDiskUsed());
+        assertTrue("Should be spooled", other.getStreamCache() instanceof FileInputStreamCache);
+
+        exchange.getUnitOfWork().done(exchange);
+        assertEquals(0, manager.getMemoryUsed());
+        assertEquals(0, manager.getDiskUsed());
+    }
+
+    public void testThrottleOnDiskBudget() throws Exception {
+        manager.setMaxDisk(100);
+        manager.setDiskThrottleTimeout(100);
+        assertTrue(manager.awaitDiskBudget());
+
+        Exchange exchange = createExchange();
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        cos.write(new byte[2000]);
+        assertEquals(2000, manager.getDiskUsed());
+
+        // times out as the disk budget is exceeded
+        assertFalse(manager.awaitDiskBudget());
+        assertEquals(1, manager.getThrottledCounter());
+
+        exchange.getUnitOfWork().done(exchange);
+        assertTrue(manager.awaitDiskBudget());
+    }
+}
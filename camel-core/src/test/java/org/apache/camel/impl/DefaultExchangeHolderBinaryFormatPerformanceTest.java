@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * Compares the binary format of {@link DefaultExchangeHolder} with Java serialization, which must restore
+ * the same exchange using fewer bytes, also when the same holder is written and read many times.
+ *
+ * @version $Revision$
+ */
+public class DefaultExchangeHolderBinaryFormatPerformanceTest extends ContextTestSupport {
+
+    private static final int SIZE = 5000;
+
+    public void testSmallTextMessage() throws Exception {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("Hello World");
+        exchange.getIn().setHeader("foo", "bar");
+        exchange.getIn().setHeader("counter", 123);
+        exchange.getIn().setHeader("JMSMessageID", "ID:localhost-54321-1283612345678-2:1:1:1:1");
+        exchange.getIn().setHeader("JMSRedelivered", false);
+        exchange.getIn().setHeader("JMSTimestamp", System.currentTimeMillis());
+
+        compare("small text", exchange);
+    }
+
+    public void testAggregatedMessage() throws Exception {
+        StringBuilder sb = new StringBuilder("<orders>");
+        for (int i = 0; i < 50; i++) {
+            sb.append("<order id=\"").append(i).append("\"><amount>").append(i * 10).append("</amount></order>");
+        }
+        sb.append("</orders>");
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(sb.toString());
+        for (int i = 0; i < 10; i++) {
+            exchange.getIn().setHeader("header" + i, "value" + i);
+        }
+        exchange.getIn().setHeader("date", new Date());
+        exchange.getIn().setHeader("amount", 1234.5);
+        exchange.setProperty(Exchange.AGGREGATED_SIZE, 50);
+        exchange.setProperty(Exchange.AGGREGATED_CORRELATION_KEY, "orders");
+
+        compare("aggregated xml", exchange);
+    }
+
+    public void testBinaryMessage() throws Exception {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(new byte[10 * 1024]);
+        exchange.getIn().setHeader("CamelFileName", "data/inbox/file.bin");
+        exchange.getIn().setHeader("CamelFileLength", 10240L);
+
+        compare("10kb binary", exchange);
+    }
+
+    private void compare(String name, Exchange exchange) throws Exception {
+        DefaultExchangeHolder holder = DefaultExchangeHolder.marshal(exchange);
+
+        byte[] serialized = serialize(holder);
+        byte[] binary = writeBinary(holder);
+        assertTrue(name + " binary format should be smaller", binary.length < serialized.length);
+
+        Exchange expected = new DefaultExchange(context);
+        DefaultExchangeHolder.unmarshal(expected, deserialize(serialized));
+
+        // the binary format must be stable and restore the same exchange as Java serialization
+        for (int i = 0; i < SIZE; i++) {
+            byte[] data = writeBinary(holder);
+            assertEquals(name, binary.length, data.length);
+
+            Exchange copy = new DefaultExchange(context);
+            DefaultExchangeHolder.unmarshal(copy, readBinary(data));
+            assertTrue(name + " body", ObjectHelper.equal(expected.getIn().getBody(), copy.getIn().getBody()));
+            assertEquals(name + " headers", expected.getIn().getHeaders(), copy.getIn().getHeaders());
+            assertEquals(name + " properties", expected.getProperties(), copy.getProperties());
+        }
+        assertEquals(exchange.getIn().getHeaders(), expected.getIn().getHeaders());
+    }
+
+    private static byte[] serialize(DefaultExchangeHolder holder) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(holder);
+        out.close();
+        return bos.toByteArray();
+    }
+
+    private static DefaultExchangeHolder deserialize(byte[] data) throws Exception {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+        return (DefaultExchangeHolder) in.readObject();
+    }
+
+    private static byte[] writeBinary(DefaultExchangeHolder holder) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        holder.writeTo(out);
+        out.close();
+        return bos.toByteArray();
+    }
+
+    private static DefaultExchangeHolder readBinary(byte[] data) throws Exception {
+        return DefaultExchangeHolder.readFrom(new DataInputStream(new ByteArrayInputStream(data)), null);
+    }
+
+}
@@ -16,6 +16,13 @@
  */
 package org.apache.camel.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+
 import org.apache.camel.ContextTestSupport;
 import org.apache.camel.Exchange;
 
@@ -44,6 +51,42 @@ public class DefaultExchangeHolderTest extends ContextTestSupport {
         assertEquals(id, exchange.getExchangeId());
     }
 
+    public void testBinaryFormat() throws Exception {
+        id = null;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        createHolder().writeTo(out);
+        out.close();
+
+        byte[] data = bos.toByteArray();
+        assertEquals(DefaultExchangeHolder.BINARY_FORMAT_MAGIC, data[0]);
+
+        DefaultExchangeHolder holder = DefaultExchangeHolder.readFrom(new DataInputStream(new ByteArrayInputStream(data)), null);
+        Exchange exchange = new DefaultExchange(context);
+        DefaultExchangeHolder.unmarshal(exchange, holder);
+        assertEquals("Hello World", exchange.getIn().getBody());
+        assertEquals("Bye World", exchange.getOut().getBody());
+        assertEquals(123, exchange.getIn().getHeader("foo"));
+        assertEquals(444, exchange.getProperty("bar"));
+        assertEquals(id, exchange.getExchangeId());
+    }
+
+    public void testBinaryFormatNotJavaSerialization() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(createHolder());
+        out.close();
+
+        byte[] data = bos.toByteArray();
+        assertTrue(data[0] != DefaultExchangeHolder.BINARY_FORMAT_MAGIC);
+        try {
+            DefaultExchangeHolder.readFrom(new DataInputStream(new ByteArrayInputStream(data)), null);
+            fail("Should have thrown an exception");
+        } catch (StreamCorruptedException e) {
+            // expected
+        }
+    }
+
     private DefaultExchangeHolder createHolder() {
         Exchange exchange = new DefaultExchange(context);
         id = exchange.getExchangeId();
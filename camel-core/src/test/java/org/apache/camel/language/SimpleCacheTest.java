@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.language;
+
+import org.apache.camel.Expression;
+import org.apache.camel.LanguageTestSupport;
+import org.apache.camel.Predicate;
+import org.apache.camel.language.simple.SimpleLanguage;
+
+/**
+ * @version $Revision$
+ */
+public class SimpleCacheTest extends LanguageTestSupport {
+
+    public void testExpressionCached() throws Exception {
+        SimpleLanguage simple = new SimpleLanguage();
+        Expression exp = simple.createExpression("Hello ${in.header.foo}");
+        assertSame(exp, simple.createExpression("Hello ${in.header.foo}"));
+        assertNotSame(exp, simple.createExpression("Bye ${in.header.foo}"));
+        assertEquals("Hello abc", exp.evaluate(exchange, String.class));
+
+        Predicate pre = simple.createPredicate("${in.header.foo} == 'abc'");
+        assertSame(pre, simple.createPredicate("${in.header.foo} == 'abc'"));
+        assertTrue(pre.matches(exchange));
+    }
+
+    public void testCacheDisabled() throws Exception {
+        SimpleLanguage simple = new SimpleLanguage();
+        assertEquals(1000, simple.getCacheSize());
+        simple.setCacheSize(0);
+        assertEquals(0, simple.getCacheSize());
+
+        Expression exp = simple.createExpression("Hello ${in.header.foo}");
+        assertNotSame(exp, simple.createExpression("Hello ${in.header.foo}"));
+        assertEquals("Hello abc", exp.evaluate(exchange, String.class));
+    }
+
+    public void testCompiledOperatorsEvaluatedAgain() throws Exception {
+        // the compiled predicates must evaluate the left hand side on each evaluation
+        assertPredicate("${in.header.foo} regex '^a.c$'", true);
+        assertPredicate("${in.header.bar} in '100,123,200'", true);
+        assertPredicate("${in.header.bar} range '100..200'", true);
+        exchange.getIn().setHeader("foo", "xyz");
+        exchange.getIn().setHeader("bar", 300);
+        assertPredicate("${in.header.foo} regex '^a.c$'", false);
+        assertPredicate("${in.header.bar} in '100,123,200'", false);
+        assertPredicate("${in.header.bar} range '100..200'", false);
+    }
+
+    public void testDynamicRightHandSide() throws Exception {
+        exchange.getIn().setHeader("pattern", "^a.c$");
+        exchange.getIn().setHeader("range", "100..200");
+        assertPredicate("${in.header.foo} regex ${in.header.pattern}", true);
+        assertPredicate("${in.header.bar} range ${in.header.range}", true);
+        exchange.getIn().setHeader("pattern", "^x.z$");
+        exchange.getIn().setHeader("range", "200..300");
+        assertPredicate("${in.header.foo} regex ${in.header.pattern}", false);
+        assertPredicate("${in.header.bar} range ${in.header.range}", false);
+    }
+
+    public void testAndOrStopsWhenResultIsKnown() throws Exception {
+        // the body has no getFoo method so evaluating the last group would fail
+        assertPredicate("${in.header.foo} == 'abc' or ${body.foo} == 'bar'", true);
+        assertPredicate("${in.header.foo} == 'xyz' and ${body.foo} == 'bar'", false);
+    }
+
+    protected String getLanguageName() {
+        return "simple";
+    }
+}
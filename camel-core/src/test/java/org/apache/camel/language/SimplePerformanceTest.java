@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.language;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.SimpleBuilder;
+import org.apache.camel.impl.DefaultExchange;
+
+/**
+ * Evaluates the simple language many times from the Java DSL where the expression is created from the text
+ * on each evaluation, and checks the expressions evaluated from the cache keep returning the same results.
+ *
+ * @version $Revision$
+ */
+public class SimplePerformanceTest extends ContextTestSupport {
+
+    private int evaluations = 100000;
+
+    public void testHeader() throws Exception {
+        run("header", SimpleBuilder.simple("Hello ${in.header.foo}"), "Hello abc");
+    }
+
+    public void testBodyOgnl() throws Exception {
+        run("body OGNL", SimpleBuilder.simple("${body.friend.name}"), "Donald");
+    }
+
+    public void testAndOrPredicate() throws Exception {
+        SimpleBuilder predicate = SimpleBuilder.simple("${in.header.foo} == 'abc' and ${in.header.bar} > 100 or ${in.header.bar} in '1,2,3'");
+        Exchange exchange = createExchange();
+        Exchange inList = createExchange();
+        inList.getIn().setHeader("foo", "xyz");
+        inList.getIn().setHeader("bar", 2);
+        Exchange other = createExchange();
+        other.getIn().setHeader("bar", 50);
+
+        for (int i = 0; i < evaluations; i++) {
+            assertTrue(predicate.matches(exchange));
+            assertTrue(predicate.matches(inList));
+            assertFalse(predicate.matches(other));
+        }
+    }
+
+    private void run(String name, SimpleBuilder expression, String expected) {
+        Exchange exchange = createExchange();
+
+        for (int i = 0; i < evaluations; i++) {
+            assertEquals(name, expected, expression.evaluate(exchange, String.class));
+        }
+    }
+
+    private Exchange createExchange() {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setHeader("foo", "abc");
+        exchange.getIn().setHeader("bar", 123);
+        exchange.getIn().setBody(new Person("Mickey", new Person("Donald", null)));
+        return exchange;
+    }
+
+    public static final class Person {
+        private final String name;
+        private final Person friend;
+
+        public Person(String name, Person friend) {
+            this.name = name;
+            this.friend = friend;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Person getFriend() {
+            return friend;
+        }
+    }
+}
@@ -54,6 +54,28 @@ public class TokenizerTest extends ExchangeTestSupport {
         assertEquals("Charles", names.get(1));
     }
 
+    public void testTokenizeBodyRegExToken() throws Exception {
+        // the token of a tokenize expression has always been a regular expression delimiter
+        Expression exp = TokenizeLanguage.tokenize("\r?\n");
+
+        exchange.getIn().setBody("Hadrian\r\nCharles\nClaus");
+
+        List names = exp.evaluate(exchange, List.class);
+        assertEquals(3, names.size());
+
+        assertEquals("Hadrian", names.get(0));
+        assertEquals("Charles", names.get(1));
+        assertEquals("Claus", names.get(2));
+
+        exp = TokenizeLanguage.tokenize("\\|");
+        exchange.getIn().setBody("Hadrian|Charles");
+
+        names = exp.evaluate(exchange, List.class);
+        assertEquals(2, names.size());
+        assertEquals("Hadrian", names.get(0));
+        assertEquals("Charles", names.get(1));
+    }
+
     public void testTokenizeBodyRegEx() throws Exception {
         Expression exp = TokenizeLanguage.tokenize("(\\W+)\\s*", true);
 
@@ -99,4 +121,32 @@ public class TokenizerTest extends ExchangeTestSupport {
         assertEquals(false, lan.isSingleton());
     }
 
-}
\ No newline at end of file
+    public void testTokenizeGroup() throws Exception {
+        TokenizeLanguage lan = new TokenizeLanguage();
+        lan.setToken("\n");
+        lan.setGroup(2);
+        Expression exp = lan.createExpression();
+
+        exchange.getIn().setBody("A\nB\nC\nD\nE\n");
+
+        List names = exp.evaluate(exchange, List.class);
+        assertEquals(3, names.size());
+
+        assertEquals("A\nB", names.get(0));
+        assertEquals("C\nD", names.get(1));
+        assertEquals("E", names.get(2));
+    }
+
+    public void testTokenizeXML() throws Exception {
+        Expression exp = TokenizeLanguage.tokenizeXML("order");
+
+        exchange.getIn().setBody("<orders><order id=\"1\">Camel</order><orderLine/><order id=\"2\"/></orders>");
+
+        List orders = exp.evaluate(exchange, List.class);
+        assertEquals(2, orders.size());
+
+        assertEquals("<order id=\"1\">Camel</order>", orders.get(0));
+        assertEquals("<order id=\"2\"/>", orders.get(1));
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.language.tokenizer;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class TokenIteratorTest extends TestCase {
+
+    private static List<Object> tokens(Iterator<Object> it) {
+        List<Object> answer = new ArrayList<Object>();
+        while (it.hasNext()) {
+            answer.add(it.next());
+        }
+        return answer;
+    }
+
+    public void testTokenize() {
+        List<Object> tokens = tokens(new TokenIterator(new StringReader("a,b,,c,"), ","));
+        assertEquals(4, tokens.size());
+        assertEquals("a", tokens.get(0));
+        assertEquals("b", tokens.get(1));
+        assertEquals("", tokens.get(2));
+        assertEquals("c", tokens.get(3));
+    }
+
+    public void testTokenizeEmpty() {
+        assertEquals(0, tokens(new TokenIterator(new StringReader(""), ",")).size());
+    }
+
+    public void testTokenizeMultiCharToken() {
+        List<Object> tokens = tokens(new TokenIterator(new StringReader("a\r\nb\r\nc"), "\r\n"));
+        assertEquals(3, tokens.size());
+        assertEquals("c", tokens.get(2));
+    }
+
+    public void testTokenizeBeyondBuffer() {
+        // tokens spanning several reads and larger than the buffer
+        StringBuilder sb = new StringBuilder();
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            big.append('x');
+        }
+        for (int i = 0; i < 5000; i++) {
+            sb.append("line-").append(i).append("##");
+        }
+        sb.append(big);
+
+        List<Object> tokens = tokens(new TokenIterator(new StringReader(sb.toString()), "##"));
+        assertEquals(5001, tokens.size());
+        assertEquals("line-4096", tokens.get(4096));
+        assertEquals(big.toString(), tokens.get(5000));
+    }
+
+    public void testTokenizeGroup() {
+        List<Object> tokens = tokens(new TokenIterator(new StringReader("1,2,3,4,5"), ",", 2));
+        assertEquals(3, tokens.size());
+        assertEquals("1,2", tokens.get(0));
+        assertEquals("3,4", tokens.get(1));
+        assertEquals("5", tokens.get(2));
+    }
+
+    public void testTokenizeXml() {
+        String xml = "<?xml version=\"1.0\"?>\n<orders>\n  <order id=\"1\"><item>Camel</item></order>\n"
+            + "  <orderLine/>\n  <order\n id=\"2\"/>\n  <order>Donkey</order>\n</orders>";
+
+        List<Object> tokens = tokens(new XmlTokenIterator(new StringReader(xml), "order"));
+        assertEquals(3, tokens.size());
+        assertEquals("<order id=\"1\"><item>Camel</item></order>", tokens.get(0));
+        assertEquals("<order\n id=\"2\"/>", tokens.get(1));
+        assertEquals("<order>Donkey</order>", tokens.get(2));
+    }
+
+    public void testClose() {
+        TokenIterator it = new TokenIterator(new StringReader("a,b"), ",");
+        assertEquals("a", it.next());
+        it.close();
+        assertFalse(it.hasNext());
+    }
+
+    public void testIsLiteral() {
+        assertTrue(TokenIterator.isLiteral(","));
+        assertTrue(TokenIterator.isLiteral("\n"));
+        assertTrue(TokenIterator.isLiteral("--"));
+        assertFalse(TokenIterator.isLiteral("\r?\n"));
+        assertFalse(TokenIterator.isLiteral("|"));
+        assertFalse(TokenIterator.isLiteral("\\s+"));
+        assertFalse(TokenIterator.isLiteral("\\."));
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.Endpoint;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedCamelContextEndpointUriCacheTest extends ManagementTestSupport {
+
+    public void testManagedEndpointUriCache() throws Exception {
+        MBeanServer mbeanServer = getMBeanServer();
+
+        ObjectName on = ObjectName.getInstance("org.apache.camel:context=localhost/camel-1,type=context,name=\"camel-1\"");
+        mbeanServer.invoke(on, "resetEndpointUriCacheStatistics", null, null);
+
+        Endpoint foo = context.getEndpoint("seda:foo?size=100&concurrentConsumers=2");
+        assertSame(foo, context.getEndpoint("seda:foo?size=100&concurrentConsumers=2"));
+        assertSame(foo, context.getEndpoint("seda:foo?size=100&concurrentConsumers=2"));
+        // the parameters in another order is also the same endpoint
+        assertSame(foo, context.getEndpoint("seda:foo?concurrentConsumers=2&size=100"));
+
+        Long hits = (Long) mbeanServer.getAttribute(on, "EndpointUriCacheHits");
+        assertEquals(2, hits.longValue());
+
+        Long misses = (Long) mbeanServer.getAttribute(on, "EndpointUriCacheMisses");
+        assertEquals(2, misses.longValue());
+
+        Double ratio = (Double) mbeanServer.getAttribute(on, "EndpointUriCacheHitRatio");
+        assertEquals(0.5d, ratio.doubleValue(), 0.01d);
+
+        Integer size = (Integer) mbeanServer.getAttribute(on, "EndpointUriCacheSize");
+        assertTrue("Should have cached uris", size.intValue() >= 2);
+
+        mbeanServer.invoke(on, "resetEndpointUriCacheStatistics", null, null);
+        hits = (Long) mbeanServer.getAttribute(on, "EndpointUriCacheHits");
+        assertEquals(0, hits.longValue());
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import org.apache.camel.management.mbean.ManagedPerformanceCounter;
+import org.fusesource.commons.management.Statistic;
+import org.fusesource.commons.management.basic.StatisticImpl;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedPerformanceCounterTest extends TestCase {
+
+    private static final int THREADS = 8;
+    private static final int SIZE = 100000;
+
+    private ManagedPerformanceCounter counter = new ManagedPerformanceCounter() {
+    };
+
+    public void testEmpty() throws Exception {
+        PerformanceCounterSnapshot snapshot = counter.createSnapshot();
+        assertEquals(0, snapshot.getExchangesTotal());
+        assertEquals(0, snapshot.getMinProcessingTime());
+        assertEquals(0, snapshot.getMeanProcessingTime());
+        assertEquals(0, snapshot.getMaxProcessingTime());
+        assertEquals(0, snapshot.getP50ProcessingTime());
+        assertEquals(0, snapshot.getP999ProcessingTime());
+        assertNull(snapshot.getFirstExchangeCompletedTimestamp());
+        assertNull(snapshot.getLastExchangeFailureTimestamp());
+    }
+
+    public void testSnapshot() throws Exception {
+        for (int i = 1; i <= 1000; i++) {
+            counter.completedExchange(i);
+        }
+        counter.failedExchange();
+
+        PerformanceCounterSnapshot snapshot = counter.createSnapshot();
+        assertEquals(1001, snapshot.getExchangesTotal());
+        assertEquals(1000, snapshot.getExchangesCompleted());
+        assertEquals(1, snapshot.getExchangesFailed());
+        assertEquals(1, snapshot.getMinProcessingTime());
+        assertEquals(500, snapshot.getMeanProcessingTime());
+        assertEquals(1000, snapshot.getMaxProcessingTime());
+        assertEquals(500500, snapshot.getTotalProcessingTime());
+        assertEquals(1000, snapshot.getLastProcessingTime());
+        assertNotNull(snapshot.getFirstExchangeCompletedTimestamp());
+        assertNotNull(snapshot.getLastExchangeCompletedTimestamp());
+        assertNotNull(snapshot.getFirstExchangeFailureTimestamp());
+        assertNotNull(snapshot.getLastExchangeFailureTimestamp());
+
+        // the percentiles is within 1/32 of the recorded values
+        assertEquals(500, snapshot.getP50ProcessingTime(), 500 / 32);
+        assertEquals(900, snapshot.getP90ProcessingTime(), 900 / 32);
+        assertEquals(990, snapshot.getP99ProcessingTime(), 990 / 32);
+        assertEquals(1000, snapshot.getP999ProcessingTime());
+
+        // the snapshot should not change when the counter is reset
+        counter.reset();
+        assertEquals(1001, snapshot.getExchangesTotal());
+        assertEquals(0, counter.createSnapshot().getExchangesTotal());
+        assertNull(counter.getFirstExchangeCompletedTimestamp());
+    }
+
+    public void testConcurrentUpdates() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < SIZE; i++) {
+                        if (i % 100 == 0) {
+                            counter.failedExchange();
+                        } else {
+                            counter.completedExchange(i % 10);
+                        }
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        executor.shutdownNow();
+
+        PerformanceCounterSnapshot snapshot = counter.createSnapshot();
+        assertEquals(THREADS * SIZE, snapshot.getExchangesTotal());
+        assertEquals(THREADS * SIZE / 100, snapshot.getExchangesFailed());
+        assertEquals(THREADS * SIZE * 99 / 100, snapshot.getExchangesCompleted());
+        assertEquals(0, snapshot.getMinProcessingTime());
+        assertEquals(9, snapshot.getMaxProcessingTime());
+        assertEquals(9, snapshot.getP999ProcessingTime());
+    }
+
+    public void testStatisticsOfManagementStrategy() throws Exception {
+        final Map<String, Statistic> statistics = new HashMap<String, Statistic>();
+        counter.init(new DefaultManagementStrategy() {
+            @Override
+            public Statistic createStatistic(String name, Object owner, Statistic.UpdateMode updateMode) {
+                Statistic answer = new StatisticImpl(updateMode);
+                statistics.put(name, answer);
+                return answer;
+            }
+        });
+        assertEquals(12, statistics.size());
+
+        counter.completedExchange(10);
+        counter.completedExchange(20);
+        counter.failedExchange();
+
+        // the statistics is updated together with the counters
+        assertEquals(3, statistics.get("org.apache.camel.exchangesTotal").getValue());
+        assertEquals(2, statistics.get("org.apache.camel.exchangesCompleted").getValue());
+        assertEquals(1, statistics.get("org.apache.camel.exchangesFailed").getValue());
+        assertEquals(10, statistics.get("org.apache.camel.minimumProcessingTime").getValue());
+        assertEquals(20, statistics.get("org.apache.camel.maximumProcessingTime").getValue());
+        assertEquals(30, statistics.get("org.apache.camel.totalProcessingTime").getValue());
+        assertEquals(15, statistics.get("org.apache.camel.meanProcessingTime").getValue());
+        assertEquals(counter.getFirstExchangeCompletedTimestamp().getTime(),
+                statistics.get("org.apache.camel.firstExchangeCompletedTimestamp").getValue());
+        assertEquals(3, counter.getExchangesTotal());
+
+        counter.reset();
+        assertEquals(0, statistics.get("org.apache.camel.exchangesTotal").getValue());
+        assertEquals(0, statistics.get("org.apache.camel.exchangesCompleted").getValue());
+    }
+
+}
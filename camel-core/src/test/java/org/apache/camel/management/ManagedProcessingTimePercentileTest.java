@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedProcessingTimePercentileTest extends ManagementTestSupport {
+
+    public void testProcessingTimePercentiles() throws Exception {
+        getMockEndpoint("mock:result").expectedMessageCount(10);
+
+        for (int i = 0; i < 9; i++) {
+            template.sendBodyAndHeader("direct:start", "Hello World", "delay", 0);
+        }
+        template.sendBodyAndHeader("direct:start", "Bye World", "delay", 500);
+
+        assertMockEndpointsSatisfied();
+
+        MBeanServer mbeanServer = getMBeanServer();
+        ObjectName routeName = ObjectName.getInstance("org.apache.camel:context=localhost/camel-1,type=routes,name=\"route1\"");
+        ObjectName processorName = ObjectName.getInstance("org.apache.camel:context=localhost/camel-1,type=processors,name=\"myprocessor\"");
+
+        for (ObjectName on : new ObjectName[]{routeName, processorName}) {
+            Long max = (Long) mbeanServer.getAttribute(on, "MaxProcessingTime");
+            Long p50 = (Long) mbeanServer.getAttribute(on, "P50ProcessingTime");
+            Long p90 = (Long) mbeanServer.getAttribute(on, "P90ProcessingTime");
+            Long p99 = (Long) mbeanServer.getAttribute(on, "P99ProcessingTime");
+            Long p999 = (Long) mbeanServer.getAttribute(on, "P999ProcessingTime");
+
+            assertTrue("Should take around 0.5 sec: was " + max, max > 450);
+            assertTrue("Should be fast: was " + p50, p50 < 400);
+            assertTrue("Should be fast: was " + p90, p90 < 400);
+            assertTrue(p50 <= p90);
+            assertTrue("Should be the slow one: was " + p99, p99 > 450);
+            assertEquals(max, p999);
+
+            Long p95 = (Long) mbeanServer.invoke(on, "getProcessingTimeAtPercentile", new Object[]{95.0}, new String[]{"double"});
+            assertEquals(p99, p95);
+        }
+
+        // and reset the counters
+        mbeanServer.invoke(routeName, "reset", null, null);
+        assertEquals(0L, mbeanServer.getAttribute(routeName, "P999ProcessingTime"));
+        assertEquals(0L, mbeanServer.getAttribute(routeName, "MinProcessingTime"));
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            Thread.sleep(exchange.getIn().getHeader("delay", Long.class));
+                        }
+                    }).id("myprocessor")
+                    .to("mock:result");
+            }
+        };
+    }
+
+}
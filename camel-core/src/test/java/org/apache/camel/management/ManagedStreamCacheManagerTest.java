@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.io.ByteArrayInputStream;
+import java.util.Set;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.converter.stream.CachedOutputStream;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedStreamCacheManagerTest extends ManagementTestSupport {
+
+    public void testStreamCacheManager() throws Exception {
+        MBeanServer mbeanServer = getMBeanServer();
+        ObjectName on = null;
+        Set<ObjectName> set = mbeanServer.queryNames(new ObjectName("*:type=services,*"), null);
+        for (ObjectName name : set) {
+            if (name.getCanonicalName().contains("StreamCacheManager")) {
+                on = name;
+                break;
+            }
+        }
+        assertNotNull("Should have found StreamCacheManager", on);
+
+        mbeanServer.setAttribute(on, new Attribute("MaxMemory", 1000L));
+        assertEquals(Long.valueOf(1000), mbeanServer.getAttribute(on, "MaxMemory"));
+        assertEquals(Long.valueOf(0), mbeanServer.getAttribute(on, "MemoryUsed"));
+
+        getMockEndpoint("mock:result").expectedMessageCount(1);
+        template.sendBody("direct:start", new ByteArrayInputStream(new byte[200]));
+        assertMockEndpointsSatisfied();
+
+        Long spooled = (Long) mbeanServer.getAttribute(on, "SpoolCounter");
+        assertEquals(Long.valueOf(1), spooled);
+        // the exchange is done so the cache has been released
+        assertEquals(Long.valueOf(0), mbeanServer.getAttribute(on, "DiskUsed"));
+        assertNotNull(mbeanServer.getAttribute(on, "ThrottledCounter"));
+
+        mbeanServer.invoke(on, "resetStatistics", null, null);
+        assertEquals(Long.valueOf(0), mbeanServer.getAttribute(on, "SpoolCounter"));
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                context.getProperties().put(CachedOutputStream.THRESHOLD, "100");
+                context.setStreamCaching(true);
+
+                from("direct:start").to("mock:result");
+            }
+        };
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.Set;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedTypeConverterRegistryTest extends ManagementTestSupport {
+
+    public void testTypeConverterRegistry() throws Exception {
+        MBeanServer mbeanServer = getMBeanServer();
+        ObjectName on = null;
+        Set<ObjectName> set = mbeanServer.queryNames(new ObjectName("*:type=services,*"), null);
+        for (ObjectName name : set) {
+            if (name.getCanonicalName().contains("TypeConverter")) {
+                on = name;
+                break;
+            }
+        }
+        assertNotNull("Should have found TypeConverter", on);
+
+        Integer converters = (Integer) mbeanServer.getAttribute(on, "NumberOfTypeConverters");
+        assertTrue("Should have type converters", converters > 0);
+
+        mbeanServer.setAttribute(on, new Attribute("StatisticsEnabled", Boolean.TRUE));
+        assertEquals(Boolean.TRUE, mbeanServer.getAttribute(on, "StatisticsEnabled"));
+
+        getMockEndpoint("mock:result").expectedBodiesReceived(123);
+        template.sendBody("direct:start", "123");
+        assertMockEndpointsSatisfied();
+
+        Long attempts = (Long) mbeanServer.getAttribute(on, "AttemptCounter");
+        assertTrue("Should have converted", attempts > 0);
+        Long hits = (Long) mbeanServer.getAttribute(on, "HitCounter");
+        Long misses = (Long) mbeanServer.getAttribute(on, "MissCounter");
+        assertTrue(hits + misses <= attempts);
+        assertNotNull(mbeanServer.getAttribute(on, "FallbackCounter"));
+        assertNotNull(mbeanServer.getAttribute(on, "FailedCounter"));
+        assertNotNull(mbeanServer.getAttribute(on, "TotalConversionTime"));
+
+        mbeanServer.invoke(on, "resetStatistics", null, null);
+        assertEquals(Long.valueOf(0), mbeanServer.getAttribute(on, "AttemptCounter"));
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start").convertBodyTo(Integer.class).to("mock:result");
+            }
+        };
+    }
+
+}
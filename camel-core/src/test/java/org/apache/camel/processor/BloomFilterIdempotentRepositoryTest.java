@@ -0,0 +1,201 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.processor.idempotent.BloomFilterIdempotentRepository;
+import org.apache.camel.processor.idempotent.MemoryIdempotentRepository;
+import org.apache.camel.processor.idempotent.SegmentedFileIdempotentRepository;
+import org.apache.camel.spi.IdempotentRepository;
+
+/**
+ * @version $Revision$
+ */
+public class BloomFilterIdempotentRepositoryTest extends ContextTestSupport {
+
+    private File directory = new File("target/idempotentbloom");
+    private CountingRepository counting = new CountingRepository();
+    private BloomFilterIdempotentRepository repo;
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory(directory);
+        repo = new BloomFilterIdempotentRepository(counting);
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        repo.stop();
+    }
+
+    public void testIdempotentConsumer() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("Foo", "Bar", "Camel rocks");
+
+        template.sendBodyAndHeader("direct:start", "Foo", "messageId", "A");
+        template.sendBodyAndHeader("direct:start", "Camel rocks", "messageId", "A");
+        template.sendBodyAndHeader("direct:start", "Bar", "messageId", "B");
+        repo.remove("A");
+        template.sendBodyAndHeader("direct:start", "Camel rocks", "messageId", "A");
+        template.sendBodyAndHeader("direct:start", "Bar", "messageId", "B");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testNewKeysSkipRepository() throws Exception {
+        BloomFilterIdempotentRepository store = new BloomFilterIdempotentRepository(new MemoryIdempotentRepository());
+        store.setExpectedInsertions(100);
+        store.start();
+        assertTrue(store.isFilterComplete());
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(store.add("key" + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue("Should contain key" + i, store.contains("key" + i));
+        }
+        for (int i = 1000; i < 11000; i++) {
+            assertFalse(store.contains("key" + i));
+        }
+        assertTrue("Filter should have grown", store.getFilterLayerCount() > 1);
+
+        assertEquals(11000, store.getLookups());
+        // almost all the new keys should be answered by the filter
+        assertTrue("Should filter new keys", store.getFilteredLookups() > 9500);
+        assertEquals(10000, store.getFilteredLookups() + store.getFalsePositives());
+        assertTrue("False positive rate should be low", store.getFalsePositiveRate() < 0.05);
+        store.stop();
+    }
+
+    public void testFilterSavedAndLoaded() throws Exception {
+        File file = new File(directory, "filter.dat");
+        BloomFilterIdempotentRepository store = new BloomFilterIdempotentRepository(new MemoryIdempotentRepository());
+        store.setFileStore(file);
+        store.start();
+        store.add("A");
+        store.add("B");
+        store.stop();
+        assertTrue("Filter should be saved", file.exists());
+
+        // the counting repository cannot rebuild the filter, so it must be loaded from the file
+        counting.keys.put("A", "A");
+        counting.keys.put("B", "B");
+        store = new BloomFilterIdempotentRepository(counting);
+        store.setFileStore(file);
+        store.start();
+        assertTrue(store.isFilterComplete());
+        assertFalse("File should be deleted while in use", file.exists());
+
+        int before = counting.lookups;
+        assertTrue(store.contains("A"));
+        assertTrue(store.contains("B"));
+        assertFalse(store.contains("C"));
+        assertEquals(before + 2, counting.lookups);
+        store.stop();
+    }
+
+    public void testFilterNotCompleteWithoutFile() throws Exception {
+        // without the saved filter all lookups must use the repository
+        counting.keys.put("A", "A");
+        BloomFilterIdempotentRepository store = new BloomFilterIdempotentRepository(counting);
+        store.setFileStore(new File(directory, "filter.dat"));
+        store.start();
+        assertFalse(store.isFilterComplete());
+
+        int before = counting.lookups;
+        assertTrue(store.contains("A"));
+        assertFalse(store.contains("C"));
+        assertEquals(before + 2, counting.lookups);
+        assertEquals(0, store.getFilteredLookups());
+        store.stop();
+
+        // and an incomplete filter must not be saved
+        assertFalse(new File(directory, "filter.dat").exists());
+    }
+
+    public void testRebuildFromSegmentedFileRepository() throws Exception {
+        SegmentedFileIdempotentRepository segmented = new SegmentedFileIdempotentRepository(new File(directory, "store"));
+        segmented.setMaxSegmentSize(200);
+        segmented.start();
+        for (int i = 0; i < 100; i++) {
+            segmented.add("key" + i);
+        }
+        segmented.add("key0");
+        segmented.remove("key50");
+        segmented.stop();
+
+        BloomFilterIdempotentRepository store = new BloomFilterIdempotentRepository(segmented);
+        store.start();
+        assertTrue(store.isFilterComplete());
+        assertEquals(99, store.getFilterSize());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("key" + i, i != 50, store.contains("key" + i));
+        }
+        store.stop();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .idempotentConsumer(header("messageId"), repo)
+                    .to("mock:result");
+            }
+        };
+    }
+
+    private static class CountingRepository extends ServiceSupport implements IdempotentRepository<String> {
+        private final Map<String, Object> keys = new HashMap<String, Object>();
+        private int lookups;
+
+        public synchronized boolean add(String key) {
+            return keys.put(key, key) == null;
+        }
+
+        public synchronized boolean contains(String key) {
+            lookups++;
+            return keys.containsKey(key);
+        }
+
+        public synchronized boolean remove(String key) {
+            return keys.remove(key) != null;
+        }
+
+        public boolean confirm(String key) {
+            return true;
+        }
+
+        @Override
+        protected void doStart() throws Exception {
+        }
+
+        @Override
+        protected void doStop() throws Exception {
+        }
+    }
+}
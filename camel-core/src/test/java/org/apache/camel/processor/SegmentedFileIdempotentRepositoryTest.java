@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.processor.idempotent.FileStoreSyncMode;
+import org.apache.camel.processor.idempotent.SegmentedFileIdempotentRepository;
+import org.apache.camel.util.LRUCache;
+
+/**
+ * @version $Revision$
+ */
+public class SegmentedFileIdempotentRepositoryTest extends ContextTestSupport {
+
+    private File directory = new File("target/idempotentsegments");
+    private SegmentedFileIdempotentRepository repo;
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory(directory);
+        repo = new SegmentedFileIdempotentRepository(directory);
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        repo.stop();
+    }
+
+    public void testIdempotentConsumer() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("Foo", "Bar", "Camel rocks");
+
+        template.sendBodyAndHeader("direct:start", "Foo", "messageId", "A");
+        template.sendBodyAndHeader("direct:start", "Camel rocks", "messageId", "A");
+        template.sendBodyAndHeader("direct:start", "Bar", "messageId", "B");
+        repo.remove("A");
+        template.sendBodyAndHeader("direct:start", "Camel rocks", "messageId", "A");
+        template.sendBodyAndHeader("direct:start", "Bar", "messageId", "B");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testMoreKeysThanCache() throws Exception {
+        SegmentedFileIdempotentRepository store = new SegmentedFileIdempotentRepository(directory, new LRUCache<String, Object>(10));
+        store.setInitialIndexCapacity(16);
+        store.setMaxSegmentSize(1000);
+        store.start();
+
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(store.add("key" + i));
+        }
+        assertFalse(store.add("key123"));
+        for (int i = 0; i < 5000; i++) {
+            assertTrue("Should contain key" + i, store.contains("key" + i));
+        }
+        assertFalse(store.contains("key5000"));
+        assertEquals(5000, store.getSize());
+        assertTrue("Should have many segments", store.getSegmentCount() > 10);
+        store.stop();
+
+        // and the keys should be loaded again
+        store.start();
+        assertEquals(5000, store.getSize());
+        assertTrue(store.contains("key0"));
+        assertTrue(store.contains("key4999"));
+        assertFalse(store.contains("key5000"));
+        store.stop();
+    }
+
+    public void testRemoveSurvivesRestart() throws Exception {
+        SegmentedFileIdempotentRepository store = new SegmentedFileIdempotentRepository(directory);
+        store.start();
+        assertTrue(store.add("A"));
+        assertTrue(store.add("B"));
+        assertTrue(store.add("C"));
+        assertTrue(store.remove("B"));
+        assertFalse(store.remove("B"));
+        assertFalse(store.contains("B"));
+        store.stop();
+
+        store = new SegmentedFileIdempotentRepository(directory);
+        store.start();
+        assertTrue(store.contains("A"));
+        assertFalse(store.contains("B"));
+        assertTrue(store.contains("C"));
+        assertTrue(store.add("B"));
+        assertEquals(3, store.getSize());
+        store.stop();
+    }
+
+    public void testRebuildIndexAfterCrash() throws Exception {
+        SegmentedFileIdempotentRepository store = new SegmentedFileIdempotentRepository(directory);
+        store.setMaxSegmentSize(100);
+        store.start();
+        for (int i = 0; i < 100; i++) {
+            store.add("key" + i);
+        }
+        store.remove("key50");
+        // simulate a crash by not stopping, and a partial write at the end of the last segment
+        File[] files = directory.listFiles();
+        File last = null;
+        for (File file : files) {
+            if (file.getName().endsWith(".log") && (last == null || file.getName().compareTo(last.getName()) > 0)) {
+                last = file;
+            }
+        }
+        RandomAccessFile raf = new RandomAccessFile(last, "rw");
+        raf.seek(raf.length());
+        raf.write("+partial".getBytes());
+        raf.close();
+
+        SegmentedFileIdempotentRepository other = new SegmentedFileIdempotentRepository(directory);
+        other.start();
+        assertEquals(99, other.getSize());
+        assertTrue(other.contains("key0"));
+        assertTrue(other.contains("key99"));
+        assertFalse(other.contains("key50"));
+        assertFalse(other.contains("partial"));
+        assertTrue(other.add("partial"));
+        other.stop();
+    }
+
+    public void testCompaction() throws Exception {
+        SegmentedFileIdempotentRepository store = new SegmentedFileIdempotentRepository(directory);
+        store.setMaxSegmentSize(200);
+        store.setCompactionInterval(0);
+        store.start();
+        for (int i = 0; i < 200; i++) {
+            store.add("key" + i);
+        }
+        // remove most of the keys
+        for (int i = 0; i < 200; i++) {
+            if (i % 10 != 0) {
+                store.remove("key" + i);
+            }
+        }
+        int before = store.getSegmentCount();
+        int compacted = store.compact();
+        assertTrue("Should compact segments", compacted > 0);
+        assertTrue("Should have fewer segments", store.getSegmentCount() < before);
+        assertEquals(compacted, store.getCompactions());
+
+        assertEquals(20, store.getSize());
+        for (int i = 0; i < 200; i++) {
+            assertEquals("key" + i, i % 10 == 0, store.contains("key" + i));
+        }
+        store.stop();
+
+        // the removed keys must not come back when the index is rebuilt from the segments
+        new File(directory, "index.dat").delete();
+        store.start();
+        assertEquals(20, store.getSize());
+        for (int i = 0; i < 200; i++) {
+            assertEquals("key" + i, i % 10 == 0, store.contains("key" + i));
+        }
+        store.stop();
+    }
+
+    public void testGroupCommit() throws Exception {
+        final SegmentedFileIdempotentRepository store = new SegmentedFileIdempotentRepository(directory);
+        store.setSyncMode(FileStoreSyncMode.GroupCommit);
+        store.setMaxSegmentSize(4000);
+        store.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for (int i = 0; i < 1000; i++) {
+            final String key = "key" + i;
+            tasks.add(new Callable<Object>() {
+                public Object call() throws Exception {
+                    assertTrue(store.add(key));
+                    assertTrue(store.contains(key));
+                    return null;
+                }
+            });
+        }
+        executor.invokeAll(tasks);
+        executor.shutdownNow();
+
+        assertEquals(1000, store.getSize());
+        store.stop();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .idempotentConsumer(header("messageId"), repo)
+                    .to("mock:result");
+            }
+        };
+    }
+}
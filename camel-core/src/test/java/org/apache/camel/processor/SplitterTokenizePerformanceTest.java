@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Scanner;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.language.tokenizer.ReaderTokenIterator;
+import org.apache.camel.language.tokenizer.TokenIterator;
+import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * Tokenizes a big file using the streaming tokenizer and checks it returns the same tokens as
+ * the {@link Scanner} which was used before, and splits the file in groups in a route.
+ *
+ * @version $Revision$
+ */
+public class SplitterTokenizePerformanceTest extends ContextTestSupport {
+
+    private int lines = 200000;
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/split");
+        createDirectory("target/split");
+        createBigFile();
+        super.setUp();
+    }
+
+    private void createBigFile() throws Exception {
+        File file = new File("target/split/bigfile.txt");
+        FileOutputStream fos = new FileOutputStream(file);
+        for (int i = 0; i < lines; i++) {
+            fos.write((line(i) + "\n").getBytes());
+        }
+        IOHelper.close(fos);
+    }
+
+    private static String line(int i) {
+        return "line-" + i + ",some,more,columns,to,make,the,line,longer";
+    }
+
+    public void testTokenizeSameAsScanner() throws Exception {
+        File file = new File("target/split/bigfile.txt");
+        Exchange exchange = new DefaultExchange(context);
+
+        Scanner scanner = ObjectHelper.getScanner(exchange, file);
+        scanner.useDelimiter("\n");
+        TokenIterator tokenizer = new TokenIterator(ReaderTokenIterator.createReader(exchange, file), "\n");
+        try {
+            int count = 0;
+            while (scanner.hasNext()) {
+                assertTrue("Should have token " + count, tokenizer.hasNext());
+                assertEquals(scanner.next(), tokenizer.next());
+                count++;
+            }
+            assertFalse(tokenizer.hasNext());
+            assertEquals(lines, count);
+        } finally {
+            scanner.close();
+            tokenizer.close();
+        }
+    }
+
+    public void testSplitStreaming() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:split");
+        mock.expectedMessageCount(lines / 100);
+        mock.message(0).body().isEqualTo(group(0));
+        mock.message(lines / 100 - 1).body().isEqualTo(group(lines - 100));
+
+        template.sendBody("direct:start", new File("target/split/bigfile.txt"));
+        assertMockEndpointsSatisfied();
+    }
+
+    private static String group(int from) {
+        StringBuilder sb = new StringBuilder(line(from));
+        for (int i = from + 1; i < from + 100; i++) {
+            sb.append("\n").append(line(i));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .split(body().tokenize("\n", 100)).streaming()
+                        .to("mock:split");
+            }
+        };
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.processor.BodyInAggregatingStrategy;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.processor.aggregate.MemoryAggregationRepository;
+import org.apache.camel.spi.AppendableAggregationRepository;
+
+/**
+ * @version $Revision$
+ */
+public class AggregateAppendableRepositoryTest extends ContextTestSupport {
+
+    private MyAppendableRepository repo = new MyAppendableRepository();
+
+    public void testAppendMode() throws Exception {
+        getMockEndpoint("mock:result").expectedBodiesReceived("A+B+C", "D+E+F");
+        getMockEndpoint("mock:result").expectedPropertyReceived(Exchange.AGGREGATED_SIZE, 3);
+
+        template.sendBodyAndHeader("direct:start", "A", "id", 123);
+        template.sendBodyAndHeader("direct:start", "B", "id", 123);
+        template.sendBodyAndHeader("direct:start", "C", "id", 123);
+        template.sendBodyAndHeader("direct:start", "D", "id", 123);
+        template.sendBodyAndHeader("direct:start", "E", "id", 123);
+        template.sendBodyAndHeader("direct:start", "F", "id", 123);
+
+        assertMockEndpointsSatisfied();
+
+        assertNotNull("Should set the aggregation strategy", repo.strategy);
+        // the last part of each group is not appended as the group is complete
+        assertEquals("[A, B, D, E]", repo.appended.toString());
+        assertEquals(0, repo.add);
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .aggregate(header("id"), new BodyInAggregatingStrategy()).completionSize(3)
+                        .aggregationRepository(repo)
+                        .to("mock:result");
+            }
+        };
+    }
+
+    /**
+     * Stores the parts and folds them on every get to simulate the aggregated exchange
+     * being materialized from the parts.
+     */
+    private static class MyAppendableRepository extends MemoryAggregationRepository implements AppendableAggregationRepository {
+        private final Map<String, List<Exchange>> parts = new ConcurrentHashMap<String, List<Exchange>>();
+        private final List<Object> appended = new ArrayList<Object>();
+        private AggregationStrategy strategy;
+        private int add;
+
+        public boolean isAppendMode() {
+            return true;
+        }
+
+        public void setAggregationStrategy(AggregationStrategy aggregationStrategy) {
+            this.strategy = aggregationStrategy;
+        }
+
+        public void append(CamelContext camelContext, String key, Exchange part, Exchange aggregated) {
+            List<Exchange> list = parts.get(key);
+            if (list == null) {
+                list = new ArrayList<Exchange>();
+                parts.put(key, list);
+            }
+            list.add(part);
+            appended.add(part.getIn().getBody());
+            assertEquals(list.size(), aggregated.getProperty(Exchange.AGGREGATED_SIZE));
+        }
+
+        @Override
+        public Exchange add(CamelContext camelContext, String key, Exchange exchange) {
+            add++;
+            return super.add(camelContext, key, exchange);
+        }
+
+        @Override
+        public Exchange get(CamelContext camelContext, String key) {
+            List<Exchange> list = parts.get(key);
+            if (list == null) {
+                return null;
+            }
+            Exchange answer = null;
+            for (Exchange part : list) {
+                answer = strategy.aggregate(answer, part.copy());
+            }
+            answer.setProperty(Exchange.AGGREGATED_SIZE, list.size());
+            return answer;
+        }
+
+        @Override
+        public void remove(CamelContext camelContext, String key, Exchange exchange) {
+            parts.remove(key);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.processor.BodyInAggregatingStrategy;
+import org.apache.camel.processor.aggregate.AggregateProcessor;
+import org.apache.camel.processor.aggregate.MemoryAggregationRepository;
+
+/**
+ * Aggregates many correlation keys concurrently using a single shared lock and using lock striping,
+ * and checks each key completes exactly once with all its messages.
+ * <p/>
+ * The {@link MemoryAggregationRepository} is slowed down a bit to mimic an IO bound repository,
+ * so concurrent updates of the same key is more likely to interleave.
+ *
+ * @version $Revision$
+ */
+public class AggregateLockStripesPerformanceTest extends ContextTestSupport {
+
+    private int messages = 2000;
+    private int keys = 100;
+    private int threads = 20;
+    private ExecutorService executorService;
+
+    @Override
+    public boolean isUseRouteBuilder() {
+        return false;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        executorService = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executorService.shutdownNow();
+        super.tearDown();
+    }
+
+    public void testSharedLock() throws Exception {
+        run("Shared lock", 0);
+    }
+
+    public void testLockStripes() throws Exception {
+        run("16 lock stripes", 16);
+    }
+
+    private void run(String name, int stripes) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(keys);
+        final ConcurrentMap<Integer, String> completed = new ConcurrentHashMap<Integer, String>();
+        final List<Integer> duplicates = new CopyOnWriteArrayList<Integer>();
+        Processor done = new Processor() {
+            public void process(Exchange exchange) throws Exception {
+                Integer id = exchange.getIn().getHeader("id", Integer.class);
+                if (completed.putIfAbsent(id, exchange.getIn().getBody(String.class)) != null) {
+                    duplicates.add(id);
+                }
+                latch.countDown();
+            }
+        };
+
+        final AggregateProcessor ap = new AggregateProcessor(context, done, header("id"), new BodyInAggregatingStrategy(), executorService);
+        ap.setAggregationRepository(new SlowMemoryAggregationRepository());
+        ap.setCompletionSize(messages / keys);
+        ap.setLockStripes(stripes);
+        ap.start();
+
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(messages);
+        for (int i = 0; i < messages; i++) {
+            final Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("A");
+            exchange.getIn().setHeader("id", i % keys);
+            tasks.add(new Callable<Object>() {
+                public Object call() throws Exception {
+                    ap.process(exchange);
+                    return null;
+                }
+            });
+        }
+
+        executorService.invokeAll(tasks);
+        assertTrue(name + " should complete", latch.await(60, TimeUnit.SECONDS));
+
+        ap.stop();
+
+        // each key must complete exactly once with all its messages aggregated
+        StringBuilder expected = new StringBuilder("A");
+        for (int i = 1; i < messages / keys; i++) {
+            expected.append("+A");
+        }
+        assertEquals(name + " completed keys more than once: " + duplicates, 0, duplicates.size());
+        assertEquals(keys, completed.size());
+        for (int i = 0; i < keys; i++) {
+            assertEquals(name + " aggregated key " + i, expected.toString(), completed.get(i));
+        }
+    }
+
+    private static class SlowMemoryAggregationRepository extends MemoryAggregationRepository {
+
+        @Override
+        public Exchange add(CamelContext camelContext, String key, Exchange exchange) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            return super.add(camelContext, key, exchange);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.processor.BodyInAggregatingStrategy;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+
+/**
+ * @version $Revision$
+ */
+public class AggregateLockStripesTest extends ContextTestSupport {
+
+    private final int keys = 50;
+    private final int size = 100;
+
+    public void testAggregateLockStripesConcurrent() throws Exception {
+        ExecutorService service = Executors.newFixedThreadPool(20);
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for (int i = 0; i < keys * size; i++) {
+            final int id = i % keys;
+            tasks.add(new Callable<Object>() {
+                public Object call() throws Exception {
+                    template.sendBodyAndHeader("direct:start", 1, "id", id);
+                    return null;
+                }
+            });
+        }
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(keys);
+        // no updates must be lost so each group must have the complete sum
+        mock.allMessages().body().isEqualTo(size);
+        mock.allMessages().property(Exchange.AGGREGATED_SIZE).isEqualTo(size);
+
+        // submit all tasks
+        service.invokeAll(tasks);
+
+        assertMockEndpointsSatisfied();
+        service.shutdownNow();
+    }
+
+    public void testAggregateLockStripesTimeout() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:timeout");
+        mock.expectedBodiesReceivedInAnyOrder("A+B", "C+D", "E");
+        mock.allMessages().property(Exchange.AGGREGATED_COMPLETED_BY).isEqualTo("timeout");
+
+        template.sendBodyAndHeader("direct:timeout", "A", "id", 1);
+        template.sendBodyAndHeader("direct:timeout", "B", "id", 1);
+        template.sendBodyAndHeader("direct:timeout", "C", "id", 2);
+        template.sendBodyAndHeader("direct:timeout", "D", "id", 2);
+        template.sendBodyAndHeader("direct:timeout", "E", "id", 3);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testAggregateLockStripesInterval() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:interval");
+        mock.expectedBodiesReceivedInAnyOrder("A+B", "C");
+        mock.allMessages().property(Exchange.AGGREGATED_COMPLETED_BY).isEqualTo("interval");
+
+        template.sendBodyAndHeader("direct:interval", "A", "id", 1);
+        template.sendBodyAndHeader("direct:interval", "B", "id", 1);
+        template.sendBodyAndHeader("direct:interval", "C", "id", 2);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .aggregate(header("id"), new SumAggregationStrategy()).lockStripes(16).completionSize(size)
+                        .to("mock:result");
+
+                from("direct:timeout")
+                    .aggregate(header("id"), new BodyInAggregatingStrategy()).lockStripes(16).completionTimeout(500)
+                        .to("mock:timeout");
+
+                from("direct:interval")
+                    .aggregate(header("id"), new BodyInAggregatingStrategy()).lockStripes(16).completionInterval(500)
+                        .to("mock:interval");
+            }
+        };
+    }
+
+    private static class SumAggregationStrategy implements AggregationStrategy {
+
+        public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+            if (oldExchange == null) {
+                return newExchange;
+            }
+            int sum = oldExchange.getIn().getBody(Integer.class) + newExchange.getIn().getBody(Integer.class);
+            oldExchange.getIn().setBody(sum);
+            return oldExchange;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.converter.jaxp.BytesSource;
 import org.apache.camel.converter.jaxp.StringSource;
 import org.apache.camel.converter.jaxp.XmlConverter;
+import org.apache.camel.impl.DefaultStreamCacheManager;
 
 public class StreamCachingInterceptorTest extends ContextTestSupport {
 
@@ -38,6 +39,7 @@ public class StreamCachingInterceptorTest extends ContextTestSupport {
     
     private MockEndpoint a;
     private MockEndpoint b;
+    private MockEndpoint c;
     private final XmlConverter converter = new XmlConverter();
 
     public void testConvertStreamSourceWithRouteBuilderStreamCaching() throws Exception {
@@ -99,6 +101,26 @@ public class StreamCachingInterceptorTest extends ContextTestSupport {
         assertTrue(a.assertExchangeReceived(0).getIn().getBody() instanceof String);
     }
 
+    public void testThrottleOnceWhenEnteringRoute() throws Exception {
+        DefaultStreamCacheManager manager = (DefaultStreamCacheManager) context.getStreamCacheManager();
+        manager.setMaxDisk(100);
+        manager.setDiskThrottleTimeout(50);
+        // pretend the stream caches of other exchanges exceed the disk budget
+        manager.diskChanged(null, 200);
+        try {
+            c.expectedMessageCount(1);
+
+            InputStream message = new ByteArrayInputStream(MESSAGE.getBytes());
+            template.sendBody("direct:c", message);
+
+            assertMockEndpointsSatisfied();
+            // the exchange is only throttled once even though it passes several processors
+            assertEquals(1, manager.getThrottledCounter());
+        } finally {
+            manager.diskChanged(null, -200);
+        }
+    }
+
     public void testStreamCachingInterceptorToString() {
         StreamCachingInterceptor cache = new StreamCachingInterceptor();
         assertNotNull(cache.toString());
@@ -112,6 +134,7 @@ public class StreamCachingInterceptorTest extends ContextTestSupport {
         super.setUp();
         a = getMockEndpoint("mock:a");
         b = getMockEndpoint("mock:b");
+        c = getMockEndpoint("mock:c");
     }
 
     protected RouteBuilder createRouteBuilder() {
@@ -123,6 +146,8 @@ public class StreamCachingInterceptorTest extends ContextTestSupport {
                 from("direct:a").streamCaching().to("mock:a");
                 //END SNIPPET: route
 
+                from("direct:c").streamCaching().to("log:c").to("log:c").to("mock:c");
+
                 //... or for all the following routes in this builder
                 //START SNIPPET: routebuilder
                 context.setStreamCaching(true);
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class CompactObjectCodecTest extends TestCase {
+
+    public void testPrimitives() throws Exception {
+        assertNull(roundtrip(null));
+        assertEquals("Hello World", roundtrip("Hello World"));
+        assertEquals("", roundtrip(""));
+        assertEquals("æøå 世界", roundtrip("æøå 世界"));
+        assertEquals(Boolean.TRUE, roundtrip(Boolean.TRUE));
+        assertEquals(Boolean.FALSE, roundtrip(Boolean.FALSE));
+        assertEquals(Byte.valueOf((byte) -3), roundtrip((byte) -3));
+        assertEquals(Short.valueOf((short) 1234), roundtrip((short) 1234));
+        assertEquals(Character.valueOf('x'), roundtrip('x'));
+        assertEquals(Float.valueOf(1.5f), roundtrip(1.5f));
+        assertEquals(Double.valueOf(-2.25), roundtrip(-2.25));
+
+        Date now = new Date();
+        assertEquals(now, roundtrip(now));
+    }
+
+    public void testIntegersAndLongs() throws Exception {
+        int[] ints = {0, 1, -1, 63, 64, -64, -65, 127, 128, 123456, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int i : ints) {
+            assertEquals(Integer.valueOf(i), roundtrip(i));
+        }
+        long[] longs = {0L, -1L, 1L << 40, -(1L << 40), Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long l : longs) {
+            assertEquals(Long.valueOf(l), roundtrip(l));
+        }
+
+        // small values should be compact
+        assertEquals(2, encode(63).length);
+        assertEquals(2, encode(-5L).length);
+    }
+
+    public void testBytes() throws Exception {
+        byte[] bytes = "Hello World".getBytes();
+        assertTrue(Arrays.equals(bytes, (byte[]) roundtrip(bytes)));
+        assertEquals(0, ((byte[]) roundtrip(new byte[0])).length);
+    }
+
+    public void testMapsAndLists() throws Exception {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("foo", 123);
+        map.put("bar", "Hello");
+        map.put("nil", null);
+        List<Object> list = new ArrayList<Object>();
+        list.add("a");
+        list.add(2L);
+        list.add(new HashMap<String, Object>(map));
+        map.put("list", list);
+
+        Object answer = roundtrip(map);
+        assertEquals(map, answer);
+        assertTrue(answer instanceof LinkedHashMap);
+        // the order should be kept
+        assertEquals("[foo, bar, nil, list]", ((Map<?, ?>) answer).keySet().toString());
+    }
+
+    public void testSerializedFallback() throws Exception {
+        BigDecimal decimal = new BigDecimal("123.456");
+        assertEquals(decimal, roundtrip(decimal));
+
+        TreeMap<String, Integer> tree = new TreeMap<String, Integer>();
+        tree.put("b", 2);
+        tree.put("a", 1);
+        Object answer = roundtrip(tree);
+        assertTrue(answer instanceof TreeMap);
+        assertEquals(tree, answer);
+
+        IllegalArgumentException cause = new IllegalArgumentException("Damn");
+        Exception e = (Exception) roundtrip(cause);
+        assertEquals("Damn", e.getMessage());
+    }
+
+    public void testNotSerializable() throws Exception {
+        try {
+            encode(new Object());
+            fail("Should have thrown an exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        CompactObjectCodec.writeObject(out, value);
+        out.close();
+        return bos.toByteArray();
+    }
+
+    private static Object roundtrip(Object value) throws Exception {
+        byte[] data = encode(value);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        Object answer = CompactObjectCodec.readObject(in, null);
+        assertEquals("Should read all data", -1, in.read());
+        return answer;
+    }
+
+}
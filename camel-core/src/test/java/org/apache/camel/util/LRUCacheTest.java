@@ -16,6 +16,14 @@
  */
 package org.apache.camel.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 import org.apache.camel.Service;
 
@@ -62,6 +70,118 @@ public class LRUCacheTest extends TestCase {
         assertEquals(true, service2.isStopped());
     }
 
+    public void testLRUCacheEviction() throws Exception {
+        MyService service1 = new MyService();
+        MyService service2 = new MyService();
+        MyService service3 = new MyService();
+
+        cache = new LRUCache<String, Service>(2, 2, true);
+        cache.put("A", service1);
+        cache.put("B", service2);
+
+        // access A so B is the least recently used
+        assertSame(service1, cache.get("A"));
+
+        cache.put("C", service3);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvicted());
+        assertSame(service1, cache.get("A"));
+        assertNull(cache.get("B"));
+        assertSame(service3, cache.get("C"));
+
+        // evicted services is stopped
+        assertEquals(false, service1.isStopped());
+        assertEquals(true, service2.isStopped());
+        assertEquals(false, service3.isStopped());
+    }
+
+    public void testLRUCacheNotStopOnEviction() throws Exception {
+        MyService service1 = new MyService();
+        MyService service2 = new MyService();
+
+        // evicted services is not stopped by default
+        cache = new LRUCache<String, Service>(1);
+        cache.put("A", service1);
+        cache.put("B", service2);
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get("A"));
+        assertEquals(false, service1.isStopped());
+    }
+
+    public void testLRUCacheStopOnEvictionWhenOverridden() throws Exception {
+        MyService service1 = new MyService();
+        MyService service2 = new MyService();
+        final List<String> evicted = new ArrayList<String>();
+
+        cache = new LRUCache<String, Service>(1, 1, true) {
+            @Override
+            protected void onEviction(String key, Service value) {
+                evicted.add(key);
+            }
+        };
+        cache.put("A", service1);
+        cache.put("B", service2);
+
+        // the evicted service is stopped even if the callback is overridden
+        assertEquals(1, evicted.size());
+        assertEquals("A", evicted.get(0));
+        assertEquals(true, service1.isStopped());
+        assertEquals(false, service2.isStopped());
+    }
+
+    public void testLRUCacheEntrySetValue() throws Exception {
+        MyService service1 = new MyService();
+        MyService service2 = new MyService();
+
+        cache.put("A", service1);
+        Map.Entry<String, Service> entry = cache.entrySet().iterator().next();
+        assertSame(service1, entry.setValue(service2));
+        assertSame(service2, cache.get("A"));
+    }
+
+    public void testLRUCacheConcurrentMap() throws Exception {
+        MyService service1 = new MyService();
+        MyService service2 = new MyService();
+
+        assertNull(cache.putIfAbsent("A", service1));
+        assertSame(service1, cache.putIfAbsent("A", service2));
+        assertFalse(cache.replace("A", service2, service1));
+        assertTrue(cache.replace("A", service1, service2));
+        assertSame(service2, cache.get("A"));
+        assertFalse(cache.remove("A", service1));
+        assertTrue(cache.remove("A", service2));
+        assertEquals(0, cache.size());
+        assertTrue(cache.isEmpty());
+    }
+
+    public void testLRUCacheConcurrentAccess() throws Exception {
+        final LRUCache<Integer, Integer> numbers = new LRUCache<Integer, Integer>(100);
+        final CountDownLatch latch = new CountDownLatch(10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        for (int i = 0; i < 10; i++) {
+            final int offset = i * 1000;
+            executor.execute(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        numbers.put(offset + j, j);
+                        numbers.get(offset + j / 2);
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(20, TimeUnit.SECONDS));
+        executor.shutdownNow();
+
+        assertEquals(100, numbers.size());
+        assertEquals(100, numbers.keySet().size());
+        assertEquals(9900, numbers.getEvicted());
+    }
+
     private final class MyService implements Service {
 
         private boolean stopped;
@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class ScalableBloomFilterTest extends TestCase {
+
+    public void testNoFalseNegatives() throws Exception {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("key" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue("Should contain key" + i, filter.mightContain("key" + i));
+        }
+        assertTrue("Should have grown", filter.getLayerCount() > 1);
+        assertFalse(filter.put("key123"));
+    }
+
+    public void testFalsePositiveProbability() throws Exception {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        for (int i = 0; i < 20000; i++) {
+            filter.put("key" + i);
+        }
+        int positives = 0;
+        for (int i = 20000; i < 120000; i++) {
+            if (filter.mightContain("key" + i)) {
+                positives++;
+            }
+        }
+        // the layers should keep the total probability below the configured
+        assertTrue("Too many false positives: " + positives, positives < 1000);
+        assertTrue(filter.getEstimatedFalsePositiveProbability() < 0.01);
+    }
+
+    public void testWriteAndRead() throws Exception {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put("key" + i);
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        filter.writeTo(new DataOutputStream(bos));
+        ScalableBloomFilter copy = ScalableBloomFilter.readFrom(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+
+        assertEquals(filter.getLayerCount(), copy.getLayerCount());
+        assertEquals(filter.getCount(), copy.getCount());
+        assertEquals(filter.getBitCount(), copy.getBitCount());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(filter.mightContain("key" + i), copy.mightContain("key" + i));
+        }
+    }
+
+    public void testClear() throws Exception {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put("key" + i);
+        }
+        filter.clear();
+        assertEquals(1, filter.getLayerCount());
+        assertEquals(0, filter.getCount());
+        assertFalse(filter.mightContain("key0"));
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs {@link DefaultTimeoutMap} and {@link HashedWheelTimeoutMap} with many entries, and checks
+ * they expire the same entries.
+ * <p/>
+ * Each run adds the entries, lets the purge task run a number of times while a small part of the
+ * entries expire, and then removes the remaining entries.
+ *
+ * @version $Revision$
+ */
+public class TimeoutMapPerformanceTest extends TestCase {
+
+    private ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+    private int purges = 20;
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    public void testTimeoutMap10k() throws Exception {
+        run(10000);
+    }
+
+    public void testTimeoutMap100k() throws Exception {
+        run(100000);
+    }
+
+    public void testTimeoutMap1m() throws Exception {
+        run(1000000);
+    }
+
+    private void run(int entries) throws Exception {
+        run("DefaultTimeoutMap", new TestDefaultTimeoutMap(executor), entries);
+        run("HashedWheelTimeoutMap", new TestHashedWheelTimeoutMap(executor), entries);
+    }
+
+    private void run(String name, TimeoutMap<String, String> map, int entries) throws Exception {
+        String[] keys = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = "key" + i;
+        }
+
+        for (int i = 0; i < entries; i++) {
+            // spread the timeouts so only 1 in 1000 expires during the purges
+            map.put(keys[i], keys[i], i % 1000 == 0 ? 1 : 60000 + i % 60000);
+        }
+        assertEquals(entries, map.size());
+
+        for (int i = 0; i < purges; i++) {
+            map.purge();
+        }
+        assertEquals(name + " should have expired entries", entries - entries / 1000, map.size());
+        for (int i = 0; i < entries; i++) {
+            if (i % 1000 == 0) {
+                assertNull(name + " should have expired " + keys[i], map.get(keys[i]));
+            } else {
+                assertEquals(keys[i], map.get(keys[i]));
+            }
+        }
+
+        for (int i = 0; i < entries; i++) {
+            map.remove(keys[i]);
+        }
+        assertEquals(0, map.size());
+    }
+
+    private static class TestDefaultTimeoutMap extends DefaultTimeoutMap<String, String> {
+
+        private long offset;
+
+        TestDefaultTimeoutMap(ScheduledExecutorService executor) {
+            super(executor, 1000L);
+        }
+
+        @Override
+        protected void schedulePoll() {
+            // do not let the scheduled purge task interfere as the test purges manually
+        }
+
+        @Override
+        protected long currentTime() {
+            return System.currentTimeMillis() + offset;
+        }
+
+        @Override
+        public void purge() {
+            // let the time advance a tick on every purge
+            offset += 1000;
+            super.purge();
+        }
+    }
+
+    private static class TestHashedWheelTimeoutMap extends HashedWheelTimeoutMap<String, String> {
+
+        private long offset;
+
+        TestHashedWheelTimeoutMap(ScheduledExecutorService executor) {
+            super(executor, 1000L);
+        }
+
+        @Override
+        protected void schedulePoll() {
+            // do not let the scheduled purge task interfere as the test purges manually
+        }
+
+        @Override
+        protected long currentTime() {
+            return System.currentTimeMillis() + offset;
+        }
+
+        @Override
+        public void purge() {
+            // let the time advance a tick on every purge
+            offset += 1000;
+            super.purge();
+        }
+    }
+}
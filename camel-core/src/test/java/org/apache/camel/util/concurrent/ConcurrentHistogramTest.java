@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class ConcurrentHistogramTest extends TestCase {
+
+    public void testEmpty() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    public void testSmallValuesArePrecise() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        for (int i = 0; i < 64; i++) {
+            histogram.record(i);
+        }
+        assertEquals(64, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(31, histogram.getValueAtPercentile(50));
+        assertEquals(63, histogram.getValueAtPercentile(100));
+    }
+
+    public void testBuckets() {
+        for (long value = 0; value < 1000000; value++) {
+            int index = ConcurrentHistogram.indexOf(value);
+            long highest = ConcurrentHistogram.highestValueOf(index);
+            assertTrue("Value " + value + " above bucket " + highest, value <= highest);
+            assertTrue("Value " + value + " not precise " + highest, highest - value <= value / 32);
+            if (index > 0) {
+                assertTrue(value > ConcurrentHistogram.highestValueOf(index - 1));
+            }
+        }
+    }
+
+    public void testNegativeAndHugeValues() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(ConcurrentHistogram.getHighestTrackableValue(), histogram.getValueAtPercentile(100));
+    }
+
+    public void testPercentiles() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+
+        long[] values = histogram.getValuesAtPercentiles(50.0, 90.0, 99.0, 99.9);
+        assertEquals(5000, values[0], 5000 / 32);
+        assertEquals(9000, values[1], 9000 / 32);
+        assertEquals(9900, values[2], 9900 / 32);
+        assertEquals(9990, values[3], 9990 / 32);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    public void testConcurrentRecord() throws Exception {
+        // use more stripes than threads so the values is summed over several stripes
+        final ConcurrentHistogram histogram = new ConcurrentHistogram(8);
+        final CountDownLatch latch = new CountDownLatch(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i % 100);
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executor.shutdownNow();
+
+        assertEquals(40000, histogram.getCount());
+        assertEquals(49, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+}
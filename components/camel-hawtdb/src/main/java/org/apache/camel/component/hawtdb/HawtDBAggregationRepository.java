@@ -18,17 +18,23 @@ package org.apache.camel.component.hawtdb;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
 import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.spi.AppendableAggregationRepository;
 import org.apache.camel.spi.RecoverableAggregationRepository;
+import org.apache.camel.util.ExchangeHelper;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.ServiceHelper;
 import org.apache.commons.logging.Log;
@@ -39,8 +45,14 @@ import org.fusesource.hawtdb.api.Transaction;
 
 /**
  * An instance of AggregationRepository which is backed by a HawtDB.
+ * <p/>
+ * In append mode each incoming exchange is stored as a separate part, where the first part is stored
+ * in the repository index and the following parts in a parts index. The aggregated exchanges in progress
+ * is kept in memory and only materialized from the parts, by folding them with the {@link AggregationStrategy},
+ * when not in memory such as after a restart. Do not switch append mode on or off while there are
+ * aggregated exchanges in progress in the repository.
  */
-public class HawtDBAggregationRepository extends ServiceSupport implements RecoverableAggregationRepository {
+public class HawtDBAggregationRepository extends ServiceSupport implements RecoverableAggregationRepository, AppendableAggregationRepository {
 
     private static final transient Log LOG = LogFactory.getLog(HawtDBAggregationRepository.class);
     private HawtDBFile hawtDBFile;
@@ -49,12 +61,18 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
     private int bufferSize = 8 * 1024 * 1024;
     private boolean sync = true;
     private short pageSize = 512;
+    private boolean groupCommit;
+    private long groupCommitWindow;
     private boolean returnOldExchange;
     private HawtDBCamelCodec codec = new HawtDBCamelCodec();
     private long recoveryInterval = 5000;
     private boolean useRecovery = true;
     private int maximumRedeliveries;
     private String deadLetterUri;
+    private boolean appendMode;
+    private AggregationStrategy aggregationStrategy;
+    // the aggregated exchanges in progress when using append mode
+    private final Map<String, Exchange> aggregated = new ConcurrentHashMap<String, Exchange>();
 
     /**
      * Creates an aggregation repository
@@ -114,6 +132,10 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
             Buffer rc = hawtDBFile.execute(new Work<Buffer>() {
                 public Buffer execute(Transaction tx) {
                     SortedIndex<Buffer, Buffer> index = hawtDBFile.getRepositoryIndex(tx, repositoryName, true);
+                    if (appendMode) {
+                        // the exchange replaces any parts
+                        removeParts(tx, key);
+                    }
                     return index.put(keyBuffer, exchangeBuffer);
                 }
 
@@ -122,6 +144,9 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
                     return "Adding key [" + key + "]";
                 }
             });
+            if (appendMode) {
+                aggregated.remove(key);
+            }
             if (rc == null) {
                 return null;
             }
@@ -137,7 +162,45 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
         return null;
     }
 
+    public void append(final CamelContext camelContext, final String key, final Exchange part, final Exchange exchange) {
+        // the aggregated size tells which part this is
+        final int sequence = exchange.getProperty(Exchange.AGGREGATED_SIZE, 1, Integer.class) - 1;
+        if (sequence <= 0) {
+            // the first part is stored in the repository index
+            add(camelContext, key, part);
+            aggregated.put(key, exchange);
+            return;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Appending key [" + key + "] part " + sequence + " -> " + part);
+        }
+        try {
+            final Buffer partKeyBuffer = codec.marshallKey(partKey(key, sequence));
+            final Buffer partBuffer = codec.marshallExchange(camelContext, part);
+            hawtDBFile.execute(new Work<Buffer>() {
+                public Buffer execute(Transaction tx) {
+                    SortedIndex<Buffer, Buffer> index = hawtDBFile.getRepositoryIndex(tx, getRepositoryNameParts(), true);
+                    return index.put(partKeyBuffer, partBuffer);
+                }
+
+                @Override
+                public String toString() {
+                    return "Appending key [" + key + "] part " + sequence;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error appending to repository " + repositoryName + " with key " + key, e);
+        }
+
+        aggregated.put(key, exchange);
+    }
+
     public Exchange get(final CamelContext camelContext, final String key) {
+        if (appendMode) {
+            return getAggregated(camelContext, key);
+        }
+
         Exchange answer = null;
         try {
             final Buffer keyBuffer = codec.marshallKey(key);
@@ -181,6 +244,9 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
                     SortedIndex<Buffer, Buffer> index = hawtDBFile.getRepositoryIndex(tx, repositoryName, true);
                     // remove from the in progress index
                     index.remove(keyBuffer);
+                    if (appendMode) {
+                        removeParts(tx, key);
+                    }
 
                     // and add it to the confirmed index
                     SortedIndex<Buffer, Buffer> indexCompleted = hawtDBFile.getRepositoryIndex(tx, getRepositoryNameCompleted(), true);
@@ -197,6 +263,10 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
         } catch (IOException e) {
             throw new RuntimeException("Error removing key " + key + " from repository " + repositoryName, e);
         }
+
+        if (appendMode) {
+            aggregated.remove(key);
+        }
     }
 
     public void confirm(final CamelContext camelContext, final String exchangeId) {
@@ -353,6 +423,122 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
         return answer;
     }
 
+    private Exchange getAggregated(final CamelContext camelContext, final String key) {
+        Exchange answer = aggregated.get(key);
+        if (answer == null) {
+            answer = materialize(camelContext, key);
+            if (answer != null) {
+                aggregated.put(key, answer);
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Getting key  [" + key + "] -> " + answer);
+        }
+        // return a copy as the aggregation strategy may change the exchange
+        return answer != null ? copyAggregated(answer) : null;
+    }
+
+    /**
+     * Materializes the aggregated exchange by folding its parts with the aggregation strategy
+     */
+    private Exchange materialize(final CamelContext camelContext, final String key) {
+        final List<Buffer> buffers = new ArrayList<Buffer>();
+        try {
+            final Buffer keyBuffer = codec.marshallKey(key);
+            hawtDBFile.execute(new Work<Buffer>() {
+                public Buffer execute(Transaction tx) {
+                    // the work may be retried
+                    buffers.clear();
+                    SortedIndex<Buffer, Buffer> index = hawtDBFile.getRepositoryIndex(tx, repositoryName, false);
+                    Buffer first = index != null ? index.get(keyBuffer) : null;
+                    if (first == null) {
+                        return null;
+                    }
+                    buffers.add(first);
+
+                    SortedIndex<Buffer, Buffer> parts = hawtDBFile.getRepositoryIndex(tx, getRepositoryNameParts(), false);
+                    if (parts != null) {
+                        try {
+                            for (int i = 1;; i++) {
+                                Buffer part = parts.get(codec.marshallKey(partKey(key, i)));
+                                if (part == null) {
+                                    break;
+                                }
+                                buffers.add(part);
+                            }
+                        } catch (IOException e) {
+                            throw new RuntimeException("Error marshalling part key of key: " + key, e);
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public String toString() {
+                    return "Getting parts of key [" + key + "]";
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error getting key " + key + " from repository " + repositoryName, e);
+        }
+
+        if (buffers.isEmpty()) {
+            return null;
+        }
+        if (aggregationStrategy == null) {
+            throw new IllegalStateException("AggregationStrategy must be set to materialize key " + key + " from repository " + repositoryName);
+        }
+
+        Exchange answer = null;
+        int size = 0;
+        try {
+            for (Buffer buffer : buffers) {
+                Exchange part = codec.unmarshallExchange(camelContext, buffer);
+                // the first part may be an aggregated exchange added using add
+                size += part.getProperty(Exchange.AGGREGATED_SIZE, 1, Integer.class);
+                part.removeProperty(Exchange.AGGREGATED_SIZE);
+                ExchangeHelper.prepareAggregation(answer, part);
+                answer = aggregationStrategy.aggregate(answer, part);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error unmarshalling parts of key " + key + " from repository " + repositoryName, e);
+        }
+        answer.setProperty(Exchange.AGGREGATED_SIZE, size);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Materialized key [" + key + "] from " + buffers.size() + " parts -> " + answer);
+        }
+        return answer;
+    }
+
+    private void removeParts(Transaction tx, String key) {
+        SortedIndex<Buffer, Buffer> parts = hawtDBFile.getRepositoryIndex(tx, getRepositoryNameParts(), false);
+        if (parts == null) {
+            return;
+        }
+        try {
+            // the parts is numbered in sequence so remove until there is no more
+            for (int i = 1;; i++) {
+                if (parts.remove(codec.marshallKey(partKey(key, i))) == null) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error marshalling part key of key: " + key, e);
+        }
+    }
+
+    private static String partKey(String key, int sequence) {
+        return key + "#" + sequence;
+    }
+
+    private static Exchange copyAggregated(Exchange exchange) {
+        Exchange copy = exchange.copy();
+        copy.setExchangeId(exchange.getExchangeId());
+        return copy;
+    }
+
     private int size(final String repositoryName) {
         int answer = hawtDBFile.execute(new Work<Integer>() {
             public Integer execute(Transaction tx) {
@@ -388,6 +574,10 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
         return repositoryName + "-completed";
     }
 
+    private String getRepositoryNameParts() {
+        return repositoryName + "-parts";
+    }
+
     public void setRepositoryName(String repositoryName) {
         this.repositoryName = repositoryName;
     }
@@ -408,6 +598,29 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
         this.sync = sync;
     }
 
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * Sets whether concurrent work should share a single transaction and flush of the file,
+     * which is faster when using sync.
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public long getGroupCommitWindow() {
+        return groupCommitWindow;
+    }
+
+    /**
+     * Sets the time in millis to wait for more work to arrive before committing a group.
+     */
+    public void setGroupCommitWindow(long groupCommitWindow) {
+        this.groupCommitWindow = groupCommitWindow;
+    }
+
     public Integer getBufferSize() {
         return bufferSize;
     }
@@ -460,6 +673,26 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
         this.deadLetterUri = deadLetterUri;
     }
 
+    public boolean isAppendMode() {
+        return appendMode;
+    }
+
+    /**
+     * Sets whether to store each incoming exchange as a separate part, instead of storing
+     * the entire aggregated exchange on every aggregation.
+     */
+    public void setAppendMode(boolean appendMode) {
+        this.appendMode = appendMode;
+    }
+
+    public AggregationStrategy getAggregationStrategy() {
+        return aggregationStrategy;
+    }
+
+    public void setAggregationStrategy(AggregationStrategy aggregationStrategy) {
+        this.aggregationStrategy = aggregationStrategy;
+    }
+
     public short getPageSize() {
         return pageSize;
     }
@@ -475,6 +708,8 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
             hawtDBFile = new HawtDBFile();
             hawtDBFile.setFile(new File(persistentFileName));
             hawtDBFile.setSync(isSync());
+            hawtDBFile.setGroupCommit(isGroupCommit());
+            hawtDBFile.setGroupCommitWindow(getGroupCommitWindow());
             if (getBufferSize() != null) {
                 hawtDBFile.setMappingSegementSize(getBufferSize());
             }
@@ -506,6 +741,8 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
 
     @Override
     protected void doStop() throws Exception {
+        // the aggregated exchanges in progress can be materialized from their parts
+        aggregated.clear();
         ServiceHelper.stopService(hawtDBFile);
     }
 
@@ -17,7 +17,6 @@
 package org.apache.camel.component.hawtdb;
 
 import java.io.IOException;
-import java.io.Serializable;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
@@ -32,12 +31,17 @@ import org.fusesource.hawtbuf.codec.ObjectCodec;
 import org.fusesource.hawtbuf.codec.StringCodec;
 
 /**
+ * The codec which marshals the exchanges stored in the HawtDB file.
+ * <p/>
+ * The exchanges is written in the compact binary format of {@link DefaultExchangeHolder}.
+ * Exchanges written by older versions using Java serialization can still be read.
+ *
  * @version $Revision$
  */
 public final class HawtDBCamelCodec {
 
     private Codec<String> keyCodec = new StringCodec();
-    private Codec<DefaultExchangeHolder> exchangeCodec = new ObjectCodec<DefaultExchangeHolder>();
+    private Codec<DefaultExchangeHolder> legacyExchangeCodec = new ObjectCodec<DefaultExchangeHolder>();
 
     public Buffer marshallKey(String key) throws IOException {
         DataByteArrayOutputStream baos = new DataByteArrayOutputStream();
@@ -53,7 +57,7 @@ public final class HawtDBCamelCodec {
 
     public Buffer marshallExchange(CamelContext camelContext, Exchange exchange) throws IOException {
         DataByteArrayOutputStream baos = new DataByteArrayOutputStream();
-        // use DefaultExchangeHolder to marshal to a serialized object
+        // use DefaultExchangeHolder to marshal to the binary format
         DefaultExchangeHolder pe = DefaultExchangeHolder.marshal(exchange, false);
         // add the aggregated size property as the only property we want to retain
         DefaultExchangeHolder.addProperty(pe, Exchange.AGGREGATED_SIZE, exchange.getProperty(Exchange.AGGREGATED_SIZE, Integer.class));
@@ -65,13 +69,25 @@ public final class HawtDBCamelCodec {
         if (exchange.getFromEndpoint() != null) {
             DefaultExchangeHolder.addProperty(pe, "CamelAggregatedFromEndpoint", exchange.getFromEndpoint().getEndpointUri());
         }
-        exchangeCodec.encode(pe, baos);
+        pe.writeTo(baos);
         return baos.toBuffer();
     }
 
     public Exchange unmarshallExchange(CamelContext camelContext, Buffer buffer) throws IOException {
         DataByteArrayInputStream bais = new DataByteArrayInputStream(buffer);
-        DefaultExchangeHolder pe = exchangeCodec.decode(bais);
+        DefaultExchangeHolder pe;
+        if (buffer.length > 0 && buffer.data[buffer.offset] == DefaultExchangeHolder.BINARY_FORMAT_MAGIC) {
+            try {
+                pe = DefaultExchangeHolder.readFrom(bais, camelContext.getApplicationContextClassLoader());
+            } catch (ClassNotFoundException e) {
+                IOException ioe = new IOException("Cannot unmarshal exchange: " + e.getMessage());
+                ioe.initCause(e);
+                throw ioe;
+            }
+        } else {
+            // exchange written using java serialization by an older version
+            pe = legacyExchangeCodec.decode(bais);
+        }
         Exchange answer = new DefaultExchange(camelContext);
         DefaultExchangeHolder.unmarshal(answer, pe);
         // restore the from endpoint
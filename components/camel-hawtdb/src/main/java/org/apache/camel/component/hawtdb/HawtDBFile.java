@@ -16,6 +16,14 @@
  */
 package org.apache.camel.component.hawtdb;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.camel.Service;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +43,11 @@ import org.fusesource.hawtdb.api.TxPageFileFactory;
  * <p/>
  * Will by default not sync writes which allows it to be faster.
  * You can force syncing by setting the sync option to <tt>true</tt>.
+ * <p/>
+ * When syncing it is costly to flush the file for every work executed. You can enable the group commit option
+ * which lets concurrent work share a single transaction and flush of the file. The work is executed in the
+ * order it arrives, and each caller does not return before its work has been committed and flushed.
+ * The <tt>groupCommitWindow</tt> option can be used to wait a little while for more work to arrive before committing.
  */
 public class HawtDBFile extends TxPageFileFactory implements Service {
 
@@ -46,6 +59,11 @@ public class HawtDBFile extends TxPageFileFactory implements Service {
     private static final BTreeIndexFactory<Buffer, Buffer> INDEX_FACTORY = new BTreeIndexFactory<Buffer, Buffer>();
 
     private TxPageFile pageFile;
+    private boolean groupCommit;
+    private long groupCommitWindow;
+    // the work waiting to be group committed, and the lock held by the thread committing the group
+    private final Queue<GroupWork<?>> groupWork = new ConcurrentLinkedQueue<GroupWork<?>>();
+    private final Lock groupLock = new ReentrantLock();
 
     static {
         ROOT_INDEXES_FACTORY.setKeyCodec(StringCodec.INSTANCE);
@@ -102,13 +120,41 @@ public class HawtDBFile extends TxPageFileFactory implements Service {
         pageFile = null;
     }
 
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * Sets whether concurrent work should share a single transaction and flush of the file.
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public long getGroupCommitWindow() {
+        return groupCommitWindow;
+    }
+
+    /**
+     * Sets the time in millis to wait for more work to arrive before committing a group.
+     * Is by default 0, which only groups the work arriving while the previous group is being committed.
+     */
+    public void setGroupCommitWindow(long groupCommitWindow) {
+        this.groupCommitWindow = groupCommitWindow;
+    }
+
     public <T> T execute(Work<T> work) {
         if (LOG.isTraceEnabled()) {
             LOG.trace("Executing work +++ start +++ " + work);
         }
 
-        Transaction tx = pageFile.tx();
-        T answer = doExecute(work, tx, pageFile);
+        T answer;
+        if (groupCommit) {
+            answer = executeGroupCommit(work);
+        } else {
+            Transaction tx = pageFile.tx();
+            answer = doExecute(work, tx, pageFile);
+        }
 
         if (LOG.isTraceEnabled()) {
             LOG.trace("Executing work +++ done  +++ " + work);
@@ -148,6 +194,104 @@ public class HawtDBFile extends TxPageFileFactory implements Service {
         return answer;
     }
 
+    private <T> T executeGroupCommit(Work<T> work) {
+        GroupWork<T> group = new GroupWork<T>(work);
+        groupWork.add(group);
+
+        // the first thread to get the lock commits the group, the others wait to be signalled when their work is done,
+        // without having to get the lock again, or to be woken up to commit the next group
+        boolean interrupted = false;
+        while (!group.done) {
+            if (groupLock.tryLock()) {
+                List<GroupWork<?>> works = null;
+                try {
+                    if (!group.done) {
+                        if (groupCommitWindow > 0) {
+                            try {
+                                Thread.sleep(groupCommitWindow);
+                            } catch (InterruptedException e) {
+                                // ignore and commit what we have
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        works = pollGroup();
+                        commitGroup(works);
+                    }
+                } finally {
+                    groupLock.unlock();
+                    // signal the work is done outside the lock, so the next group can be committed meanwhile
+                    if (works != null) {
+                        for (GroupWork<?> done : works) {
+                            done.signalDone();
+                        }
+                    }
+                    // and wake up the next waiting work so it can commit the next group
+                    GroupWork<?> next = groupWork.peek();
+                    if (next != null) {
+                        next.wakeUp();
+                    }
+                }
+            } else {
+                interrupted |= group.await();
+            }
+        }
+        if (interrupted) {
+            // restore the interrupt we cleared while waiting
+            Thread.currentThread().interrupt();
+        }
+
+        if (group.exception != null) {
+            throw group.exception;
+        }
+        return group.answer;
+    }
+
+    private List<GroupWork<?>> pollGroup() {
+        List<GroupWork<?>> works = new ArrayList<GroupWork<?>>();
+        GroupWork<?> next;
+        while ((next = groupWork.poll()) != null) {
+            works.add(next);
+        }
+        return works;
+    }
+
+    private void commitGroup(final List<GroupWork<?>> works) {
+        if (works.isEmpty()) {
+            // the work has been committed by a previous group which is about to signal it is done
+            return;
+        }
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Group committing " + works.size() + " work");
+        }
+
+        try {
+            doExecute(new Work<Object>() {
+                public Object execute(Transaction tx) {
+                    for (GroupWork<?> work : works) {
+                        work.execute(tx);
+                    }
+                    return null;
+                }
+
+                @Override
+                public String toString() {
+                    return "Group commit of " + works.size() + " work";
+                }
+            }, pageFile.tx(), pageFile);
+        } catch (RuntimeException e) {
+            if (works.size() == 1) {
+                works.get(0).exception = e;
+            } else {
+                // the group has been rolled back, so execute the work one by one so only the failed work fails
+                LOG.debug("Error group committing " + works.size() + " work. Will execute the work one by one.");
+                for (GroupWork<?> work : works) {
+                    work.executeAlone(pageFile);
+                }
+            }
+        }
+    }
+
     private static <T> T doExecute(Work<T> work, Transaction tx, TxPageFile page) {
         T answer = null;
 
@@ -188,4 +332,49 @@ public class HawtDBFile extends TxPageFileFactory implements Service {
         return answer;
     }
 
+    /**
+     * Work waiting to be group committed.
+     */
+    private static final class GroupWork<T> {
+        private final Work<T> work;
+        private final Thread thread = Thread.currentThread();
+        private T answer;
+        private RuntimeException exception;
+        // the answer and exception are visible to the waiting thread once done is set
+        private volatile boolean done;
+
+        private GroupWork(Work<T> work) {
+            this.work = work;
+        }
+
+        private void signalDone() {
+            done = true;
+            LockSupport.unpark(thread);
+        }
+
+        private void wakeUp() {
+            LockSupport.unpark(thread);
+        }
+
+        private boolean await() {
+            // clear the interrupt as parking would otherwise return right away, and the caller restores it
+            boolean interrupted = Thread.interrupted();
+            // a wake up before parking is not lost, as parking then returns right away
+            LockSupport.park();
+            return interrupted;
+        }
+
+        private void execute(Transaction tx) {
+            answer = work.execute(tx);
+        }
+
+        private void executeAlone(TxPageFile page) {
+            try {
+                answer = doExecute(work, page.tx(), page);
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+        }
+    }
+
 }
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hawtdb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+public class HawtDBAggregateAppendModeTest extends CamelTestSupport {
+
+    @Override
+    public void setUp() throws Exception {
+        deleteDirectory("target/data");
+        super.setUp();
+    }
+
+    @Test
+    public void testHawtDBAggregateAppendMode() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:aggregated");
+        mock.expectedBodiesReceived("ABCDE");
+        mock.expectedPropertyReceived(Exchange.AGGREGATED_SIZE, 5);
+
+        template.sendBodyAndHeader("direct:start", "A", "id", 123);
+        template.sendBodyAndHeader("direct:start", "B", "id", 123);
+        template.sendBodyAndHeader("direct:start", "C", "id", 123);
+        template.sendBodyAndHeader("direct:start", "D", "id", 123);
+        template.sendBodyAndHeader("direct:start", "E", "id", 123);
+
+        assertMockEndpointsSatisfied(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testMaterializeParts() throws Exception {
+        HawtDBAggregationRepository repo = new HawtDBAggregationRepository("repo2", "target/data/hawtdb2.dat");
+        repo.setAppendMode(true);
+        repo.setAggregationStrategy(new MyAggregationStrategy());
+        repo.start();
+
+        Exchange aggregated = null;
+        for (String body : new String[]{"A", "B", "C"}) {
+            Exchange part = new DefaultExchange(context);
+            part.getIn().setBody(body);
+            int size = aggregated == null ? 1 : aggregated.getProperty(Exchange.AGGREGATED_SIZE, Integer.class) + 1;
+            aggregated = new MyAggregationStrategy().aggregate(aggregated, part.copy());
+            aggregated.setProperty(Exchange.AGGREGATED_SIZE, size);
+            repo.append(context, "foo", part, aggregated);
+        }
+        assertEquals("ABC", repo.get(context, "foo").getIn().getBody());
+
+        // restart so the aggregated exchange must be materialized from the parts
+        repo.stop();
+        repo.start();
+
+        Exchange actual = repo.get(context, "foo");
+        assertEquals("ABC", actual.getIn().getBody());
+        assertEquals(3, actual.getProperty(Exchange.AGGREGATED_SIZE, Integer.class).intValue());
+
+        // remove should remove all the parts
+        repo.remove(context, "foo", actual);
+        repo.confirm(context, actual.getExchangeId());
+        repo.stop();
+        repo.start();
+        assertNull(repo.get(context, "foo"));
+        repo.stop();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                HawtDBAggregationRepository repo = new HawtDBAggregationRepository("repo1", "target/data/hawtdb.dat");
+                repo.setAppendMode(true);
+
+                from("direct:start")
+                    .aggregate(header("id"), new MyAggregationStrategy())
+                        .completionSize(5).aggregationRepository(repo)
+                        .to("mock:aggregated");
+            }
+        };
+    }
+
+    public static class MyAggregationStrategy implements AggregationStrategy {
+
+        public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+            if (oldExchange == null) {
+                return newExchange;
+            }
+            String body1 = oldExchange.getIn().getBody(String.class);
+            String body2 = newExchange.getIn().getBody(String.class);
+
+            oldExchange.getIn().setBody(body1 + body2);
+            return oldExchange;
+        }
+    }
+}
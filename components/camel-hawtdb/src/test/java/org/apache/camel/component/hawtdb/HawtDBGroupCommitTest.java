@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hawtdb;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtdb.api.SortedIndex;
+import org.fusesource.hawtdb.api.Transaction;
+import org.junit.Test;
+
+/**
+ * @version $Revision$
+ */
+public class HawtDBGroupCommitTest extends CamelTestSupport {
+
+    private static final int SIZE = 500;
+    private static final int THREADS = 10;
+
+    @Override
+    public void setUp() throws Exception {
+        deleteDirectory("target/data");
+        super.setUp();
+    }
+
+    @Test
+    public void testNormalCommit() throws Exception {
+        doAddExchanges(false, "target/data/hawtdb.dat");
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        doAddExchanges(true, "target/data/hawtdb-group.dat");
+    }
+
+    @Test
+    public void testGroupCommitFailedWork() throws Exception {
+        final HawtDBFile file = new HawtDBFile();
+        file.setFile(new File("target/data/hawtdb.dat"));
+        file.setSync(true);
+        file.setGroupCommit(true);
+        file.start();
+        try {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < 50; i++) {
+                final int index = i;
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        return file.execute(new Work<Object>() {
+                            public Object execute(Transaction tx) {
+                                SortedIndex<Buffer, Buffer> index1 = file.getRepositoryIndex(tx, "repo1", true);
+                                index1.put(new Buffer(("key" + index).getBytes()), new Buffer(("value" + index).getBytes()));
+                                if (index % 10 == 0) {
+                                    throw new IllegalArgumentException("Damn " + index);
+                                }
+                                return index;
+                            }
+                        });
+                    }
+                }));
+            }
+
+            for (int i = 0; i < 50; i++) {
+                try {
+                    assertEquals(i, futures.get(i).get());
+                    assertTrue("Work " + i + " should have failed", i % 10 != 0);
+                } catch (Exception e) {
+                    assertTrue("Work " + i + " should not have failed", i % 10 == 0);
+                    assertEquals("Damn " + i, e.getCause().getMessage());
+                }
+            }
+            executor.shutdownNow();
+
+            // only the failed work should have been rolled back
+            int size = file.execute(new Work<Integer>() {
+                public Integer execute(Transaction tx) {
+                    return file.getRepositoryIndex(tx, "repo1", false).size();
+                }
+            });
+            assertEquals(45, size);
+        } finally {
+            file.stop();
+        }
+    }
+
+    private void doAddExchanges(boolean groupCommit, String fileName) throws Exception {
+        final HawtDBAggregationRepository repo = new HawtDBAggregationRepository("repo1", fileName);
+        repo.setSync(true);
+        repo.setGroupCommit(groupCommit);
+        repo.start();
+        try {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < SIZE; i++) {
+                final int index = i;
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        Exchange exchange = new DefaultExchange(context);
+                        exchange.getIn().setBody("Hello " + index);
+                        return repo.add(context, "key" + index, exchange);
+                    }
+                }));
+            }
+            for (Future<Object> future : futures) {
+                // each key is only added once so there is no previous exchange
+                assertNull(future.get());
+            }
+            executor.shutdownNow();
+        } finally {
+            repo.stop();
+        }
+
+        // all the exchanges should be committed and read back when the file is opened again
+        repo.start();
+        try {
+            assertEquals(SIZE, repo.getKeys().size());
+            for (int i = 0; i < SIZE; i++) {
+                assertEquals("Hello " + i, repo.get(context, "key" + i).getIn().getBody());
+            }
+        } finally {
+            repo.stop();
+        }
+    }
+
+}
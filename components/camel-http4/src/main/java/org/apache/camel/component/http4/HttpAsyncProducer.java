@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.http4;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.SynchronizationAdapter;
+import org.apache.camel.util.AsyncProcessorHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * An asynchronous {@link HttpProducer} which does not block the caller thread while waiting for the
+ * remote server to respond.
+ * <p/>
+ * The requests are executed by the thread pool from the {@link HttpComponent} which is sized by the
+ * <tt>maxTotalConnections</tt> option, so requests exceeding the connection limits are queued without
+ * holding any caller threads.
+ * <p/>
+ * The response body is cached like {@link HttpProducer} does, so it can be read after the exchange is done.
+ * If the <tt>streamResponse</tt> option is enabled the response body is instead handed to the route as the stream
+ * from the connection, which releases the connection when the stream is read to the end or closed.
+ * The stream must then be read before the exchange is done, as any unread stream is aborted when the exchange is done.
+ *
+ * @version $Revision$
+ */
+public class HttpAsyncProducer extends HttpProducer implements AsyncProcessor {
+    private static final transient Log LOG = LogFactory.getLog(HttpAsyncProducer.class);
+
+    public HttpAsyncProducer(HttpEndpoint endpoint) {
+        super(endpoint);
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        AsyncProcessorHelper.process(this, exchange);
+    }
+
+    public boolean process(final Exchange exchange, final AsyncCallback callback) {
+        final HttpRequestBase httpRequest;
+        try {
+            httpRequest = createRequest(exchange);
+            getExecutorService().submit(new Runnable() {
+                public void run() {
+                    doProcess(exchange, httpRequest, callback);
+                }
+            });
+        } catch (Exception e) {
+            // error occurred before we had a chance to go async
+            // so set exception and invoke callback true
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        // we should continue processing this asynchronously
+        return false;
+    }
+
+    protected void doProcess(Exchange exchange, HttpRequestBase httpRequest, AsyncCallback callback) {
+        HttpResponse httpResponse = null;
+        boolean release = true;
+        try {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Executing async http " + httpRequest.getMethod() + " method: " + httpRequest.getURI().toString());
+            }
+            httpResponse = executeMethod(httpRequest);
+            boolean streaming = getEndpoint().isStreamResponse();
+            processResponse(exchange, httpRequest, httpResponse, streaming);
+
+            if (streaming) {
+                // the connection is released when the stream is read to the end or closed,
+                // but abort it when the exchange is done in case the stream was never read,
+                // which closes the connection without reading the remainder of the response
+                final HttpRequestBase request = httpRequest;
+                exchange.addOnCompletion(new SynchronizationAdapter() {
+                    @Override
+                    public void onDone(Exchange exchange) {
+                        request.abort();
+                    }
+                });
+                release = false;
+            }
+        } catch (Throwable e) {
+            exchange.setException(e);
+        } finally {
+            if (release) {
+                releaseResponse(httpResponse);
+            }
+            callback.done(false);
+        }
+    }
+
+    protected ExecutorService getExecutorService() {
+        return getEndpoint().getComponent().getAsyncExecutorService();
+    }
+
+}
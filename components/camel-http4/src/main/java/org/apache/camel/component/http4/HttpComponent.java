@@ -19,6 +19,7 @@ package org.apache.camel.component.http4;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.camel.Endpoint;
 import org.apache.camel.ResolveEndpointFailedException;
@@ -63,6 +64,10 @@ public class HttpComponent extends HeaderFilterStrategyComponent {
     protected int maxTotalConnections = 200;
     protected int connectionsPerRoute = 20;
 
+    // thread pool used by the asynchronous producers
+    protected ExecutorService asyncExecutorService;
+    private boolean shutdownAsyncExecutorService;
+
     /**
      * Connects the URL specified on the endpoint to the specified processor.
      *
@@ -151,6 +156,8 @@ public class HttpComponent extends HeaderFilterStrategyComponent {
         Boolean bridgeEndpoint = getAndRemoveParameter(parameters, "bridgeEndpoint", Boolean.class);
         Boolean matchOnUriPrefix = getAndRemoveParameter(parameters, "matchOnUriPrefix", Boolean.class);
         Boolean disableStreamCache = getAndRemoveParameter(parameters, "disableStreamCache", Boolean.class);
+        Boolean async = getAndRemoveParameter(parameters, "async", Boolean.class);
+        Boolean streamResponse = getAndRemoveParameter(parameters, "streamResponse", Boolean.class);
 
         // validate that we could resolve all httpClient. parameters as this component is lenient
         validateParameters(uri, parameters, "httpClient.");
@@ -204,6 +211,12 @@ public class HttpComponent extends HeaderFilterStrategyComponent {
         if (disableStreamCache != null) {
             endpoint.setDisableStreamCache(disableStreamCache);
         }
+        if (async != null) {
+            endpoint.setAsync(async);
+        }
+        if (streamResponse != null) {
+            endpoint.setStreamResponse(streamResponse);
+        }
 
         setProperties(endpoint, parameters);
         return endpoint;
@@ -338,6 +351,26 @@ public class HttpComponent extends HeaderFilterStrategyComponent {
         this.connectionsPerRoute = connectionsPerRoute;
     }
 
+    /**
+     * Gets the thread pool used by the asynchronous producers to call the remote servers.
+     * <p/>
+     * If no thread pool has been configured then a thread pool sized by the <tt>maxTotalConnections</tt> option
+     * is created, as no more requests than that can be executed concurrently by the connection manager.
+     */
+    public synchronized ExecutorService getAsyncExecutorService() {
+        if (asyncExecutorService == null) {
+            int poolSize = getMaxTotalConnections() > 0 ? getMaxTotalConnections() : getConnectionsPerRoute();
+            asyncExecutorService = getCamelContext().getExecutorServiceStrategy().newFixedThreadPool(this, "Http4AsyncProducer", poolSize);
+            shutdownAsyncExecutorService = true;
+        }
+        return asyncExecutorService;
+    }
+
+    public synchronized void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
+        this.shutdownAsyncExecutorService = false;
+    }
+
     @Override
     public void start() throws Exception {
         super.start();
@@ -354,6 +387,13 @@ public class HttpComponent extends HeaderFilterStrategyComponent {
             clientConnectionManager.shutdown();
             clientConnectionManager = null;
         }
+        // shutdown the thread pool for the asynchronous producers if we created it
+        synchronized (this) {
+            if (asyncExecutorService != null && shutdownAsyncExecutorService) {
+                getCamelContext().getExecutorServiceStrategy().shutdownNow(asyncExecutorService);
+                asyncExecutorService = null;
+            }
+        }
         super.stop();
     }
 }
@@ -57,6 +57,8 @@ public class HttpEndpoint extends DefaultPollingEndpoint implements HeaderFilter
     private boolean chunked = true;
     private boolean disableStreamCache;
     private boolean transferException;
+    private boolean async;
+    private boolean streamResponse;
 
     public HttpEndpoint() {
     }
@@ -80,6 +82,9 @@ public class HttpEndpoint extends DefaultPollingEndpoint implements HeaderFilter
     }
 
     public Producer createProducer() throws Exception {
+        if (isAsync()) {
+            return new HttpAsyncProducer(this);
+        }
         return new HttpProducer(this);
     }
 
@@ -287,4 +292,33 @@ public class HttpEndpoint extends DefaultPollingEndpoint implements HeaderFilter
     public void setTransferException(boolean transferException) {
         this.transferException = transferException;
     }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Whether the producer should call the remote server asynchronously, which does not block the caller thread
+     * while waiting for the response.
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public boolean isStreamResponse() {
+        return streamResponse;
+    }
+
+    /**
+     * Whether the asynchronous producer should hand the response body to the route as the stream from the connection
+     * instead of caching it. The stream must then be read before the exchange is done.
+     */
+    public void setStreamResponse(boolean streamResponse) {
+        this.streamResponse = streamResponse;
+    }
+
+    @Override
+    public HttpComponent getComponent() {
+        return (HttpComponent) super.getComponent();
+    }
 }
@@ -72,6 +72,34 @@ public class HttpProducer extends DefaultProducer {
     }
 
     public void process(Exchange exchange) throws Exception {
+        HttpRequestBase httpRequest = createRequest(exchange);
+
+        // lets store the result in the output message.
+        HttpResponse httpResponse = null;
+        try {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Executing http " + httpRequest.getMethod() + " method: " + httpRequest.getURI().toString());
+            }
+            httpResponse = executeMethod(httpRequest);
+            processResponse(exchange, httpRequest, httpResponse, false);
+        } finally {
+            releaseResponse(httpResponse);
+        }
+    }
+
+    @Override
+    public HttpEndpoint getEndpoint() {
+        return (HttpEndpoint) super.getEndpoint();
+    }
+
+    /**
+     * Creates the request to send to the remote server, with the message headers propagated as HTTP headers.
+     *
+     * @param exchange the exchange
+     * @return the request
+     * @throws Exception can be thrown
+     */
+    protected HttpRequestBase createRequest(Exchange exchange) throws Exception {
         if (getEndpoint().isBridgeEndpoint()) {
             exchange.setProperty(Exchange.SKIP_GZIP_ENCODING, Boolean.TRUE);
         }
@@ -91,47 +119,59 @@ public class HttpProducer extends DefaultProducer {
                 httpRequest.addHeader(entry.getKey(), headerValue);
             }
         }
+        return httpRequest;
+    }
 
-        // lets store the result in the output message.
-        HttpResponse httpResponse = null;
-        try {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Executing http " + httpRequest.getMethod() + " method: " + httpRequest.getURI().toString());
-            }
-            httpResponse = executeMethod(httpRequest);
-            int responseCode = httpResponse.getStatusLine().getStatusCode();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Http responseCode: " + responseCode);
-            }
+    /**
+     * Processes the response from the remote server, by either populating the response on the exchange
+     * or throwing a {@link HttpOperationFailedException} if the response code is a failure.
+     *
+     * @param exchange     the exchange
+     * @param httpRequest  the executed request
+     * @param httpResponse the response
+     * @param streaming    whether to hand over the response body as the stream from the connection, instead of caching it
+     * @throws Exception is thrown if the response is a failure
+     */
+    protected void processResponse(Exchange exchange, HttpRequestBase httpRequest, HttpResponse httpResponse, boolean streaming) throws Exception {
+        int responseCode = httpResponse.getStatusLine().getStatusCode();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Http responseCode: " + responseCode);
+        }
 
-            if (throwException && (responseCode < 100 || responseCode >= 300)) {
-                throw populateHttpOperationFailedException(exchange, httpRequest, httpResponse, responseCode);
-            } else {
-                populateResponse(exchange, httpRequest, httpResponse, in, strategy, responseCode);
-            }
-        } finally {
-            if (httpResponse != null && httpResponse.getEntity() != null) {
-                try {
-                    httpResponse.getEntity().consumeContent();
-                } catch (IOException e) {
-                    // nothing we could do
-                }
-            }
+        if (throwException && (responseCode < 100 || responseCode >= 300)) {
+            throw populateHttpOperationFailedException(exchange, httpRequest, httpResponse, responseCode);
+        } else {
+            populateResponse(exchange, httpRequest, httpResponse, exchange.getIn(), getEndpoint().getHeaderFilterStrategy(), responseCode, streaming);
         }
     }
 
-    @Override
-    public HttpEndpoint getEndpoint() {
-        return (HttpEndpoint) super.getEndpoint();
+    /**
+     * Releases the response by consuming any remaining content, which releases the connection back to the connection manager.
+     *
+     * @param httpResponse the response, can be <tt>null</tt>
+     */
+    protected static void releaseResponse(HttpResponse httpResponse) {
+        if (httpResponse != null && httpResponse.getEntity() != null) {
+            try {
+                httpResponse.getEntity().consumeContent();
+            } catch (IOException e) {
+                // nothing we could do
+            }
+        }
     }
 
     protected void populateResponse(Exchange exchange, HttpRequestBase httpRequest, HttpResponse httpResponse,
                                     Message in, HeaderFilterStrategy strategy, int responseCode) throws IOException, ClassNotFoundException {
+        populateResponse(exchange, httpRequest, httpResponse, in, strategy, responseCode, false);
+    }
+
+    protected void populateResponse(Exchange exchange, HttpRequestBase httpRequest, HttpResponse httpResponse,
+                                    Message in, HeaderFilterStrategy strategy, int responseCode, boolean streaming) throws IOException, ClassNotFoundException {
         Message answer = exchange.getOut();
 
         answer.setHeaders(in.getHeaders());
         answer.setHeader(Exchange.HTTP_RESPONSE_CODE, responseCode);
-        answer.setBody(extractResponseBody(httpRequest, httpResponse, exchange));
+        answer.setBody(extractResponseBody(httpRequest, httpResponse, exchange, streaming));
 
         // propagate HTTP response headers
         Header[] headers = httpResponse.getAllHeaders();
@@ -214,6 +254,20 @@ public class HttpProducer extends DefaultProducer {
      * @throws IOException can be thrown
      */
     protected static Object extractResponseBody(HttpRequestBase httpRequest, HttpResponse httpResponse, Exchange exchange) throws IOException, ClassNotFoundException {
+        return extractResponseBody(httpRequest, httpResponse, exchange, false);
+    }
+
+    /**
+     * Extracts the response from the method as a InputStream.
+     *
+     * @param httpRequest the method that was executed
+     * @param streaming   whether to return the stream from the connection as is, instead of caching the response.
+     *                    The connection is then not released until the stream has been consumed.
+     * @return the response either as a stream, or as a deserialized java object
+     * @throws IOException can be thrown
+     */
+    protected static Object extractResponseBody(HttpRequestBase httpRequest, HttpResponse httpResponse, Exchange exchange,
+                                                boolean streaming) throws IOException, ClassNotFoundException {
         HttpEntity entity = httpResponse.getEntity();
         if (entity == null) {
             return null;
@@ -238,7 +292,7 @@ public class HttpProducer extends DefaultProducer {
             // find the charset and set it to the Exchange
             HttpHelper.setCharsetFromContentType(contentType, exchange);
         }
-        InputStream response = doExtractResponseBodyAsStream(is, exchange);
+        InputStream response = streaming ? is : doExtractResponseBodyAsStream(is, exchange);
         // if content type is a serialized java object then de-serialize it back to a Java object
         if (contentType != null && contentType.equals(HttpConstants.CONTENT_TYPE_JAVA_SERIALIZED_OBJECT)) {
             return HttpHelper.deserializeJavaObjectFromStream(response);
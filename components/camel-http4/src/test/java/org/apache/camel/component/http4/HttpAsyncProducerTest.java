@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.http4;
+
+import org.apache.camel.Producer;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.http4.handler.DelayValidationHandler;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.http.localserver.LocalTestServer;
+import org.junit.Test;
+
+/**
+ * @version $Revision$
+ */
+public class HttpAsyncProducerTest extends BaseHttpTest {
+
+    @Test
+    public void testAsyncProducer() throws Exception {
+        Producer producer = context.getEndpoint("http4://" + getHostName() + ":" + getPort() + "?async=true").createProducer();
+        assertIsInstanceOf(HttpAsyncProducer.class, producer);
+    }
+
+    @Test
+    public void testAsyncProducerDoesNotBlockCaller() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived(getExpectedContent(), getExpectedContent(), getExpectedContent(),
+                getExpectedContent(), getExpectedContent());
+        // the remote server takes 1 sec to reply, so sending sequentially would take at least 5 sec
+        mock.setResultWaitTime(4000);
+
+        // the seda consumer only has a single thread so the http calls must not block it
+        for (int i = 0; i < 5; i++) {
+            template.sendBody("seda:start", null);
+        }
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Test
+    public void testAsyncProducerReadBodyAfterExchangeDone() throws Exception {
+        // the exchange is done when the template returns, so the body must be cached
+        String out = template.requestBody("http4://" + getHostName() + ":" + getPort() + "?async=true", null, String.class);
+        assertEquals(getExpectedContent(), out);
+    }
+
+    @Test
+    public void testAsyncProducerStreamResponse() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:stream");
+        mock.expectedBodiesReceived(getExpectedContent());
+
+        template.sendBody("direct:stream", null);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Override
+    protected void registerHandler(LocalTestServer server) {
+        server.register("/", new DelayValidationHandler("GET", null, null, getExpectedContent(), 1000));
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("seda:start")
+                    .to("http4://" + getHostName() + ":" + getPort() + "?async=true")
+                    .to("mock:result");
+
+                from("direct:stream")
+                    .to("http4://" + getHostName() + ":" + getPort() + "?async=true&streamResponse=true")
+                    // the response is streamed so read it before the exchange is done
+                    .convertBodyTo(String.class)
+                    .to("mock:stream");
+            }
+        };
+    }
+}
@@ -20,22 +20,35 @@ import java.io.IOException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.sql.DataSource;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
 import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.spi.AppendableAggregationRepository;
 import org.apache.camel.spi.RecoverableAggregationRepository;
+import org.apache.camel.util.ExchangeHelper;
 import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.concurrent.ExecutorServiceHelper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.support.AbstractLobCreatingPreparedStatementCallback;
@@ -50,12 +63,26 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * JDBC based {@link org.apache.camel.spi.AggregationRepository}
+ * <p/>
+ * In append mode each incoming exchange is stored as a separate part, where the first part is stored
+ * in the repository table and the following parts in the <tt>repositoryName_parts</tt> table, which must have
+ * the columns <tt>id</tt>, <tt>seq</tt> and <tt>exchange</tt>. The aggregated exchanges in progress is kept in memory
+ * and only materialized from the parts, by folding them with the {@link AggregationStrategy}, when not in memory
+ * such as after a restart. Do not switch append mode on or off while there are aggregated exchanges in progress
+ * in the repository.
+ * <p/>
+ * In write behind mode the added exchanges is kept in memory and written to the database in batches,
+ * either every <tt>writeBehindInterval</tt> millis or when <tt>writeBehindBatchSize</tt> correlation keys
+ * is pending. Only the latest exchange per correlation key is written. The pending exchanges is written when
+ * the repository is stopped, but will be lost if the JVM crashes. Write behind mode cannot be used together
+ * with append mode.
  */
-public class JdbcAggregationRepository extends ServiceSupport implements RecoverableAggregationRepository {
+public class JdbcAggregationRepository extends ServiceSupport implements RecoverableAggregationRepository, AppendableAggregationRepository {
 
     private static final transient Log LOG = LogFactory.getLog(JdbcAggregationRepository.class);
     private static final String ID = "id";
     private static final String EXCHANGE = "exchange";
+    private static final String SEQ = "seq";
     private PlatformTransactionManager transactionManager;
     private DataSource dataSource;
     private TransactionTemplate transactionTemplate;
@@ -69,6 +96,18 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
     private boolean useRecovery = true;
     private int maximumRedeliveries;
     private String deadLetterUri;
+    private boolean appendMode;
+    private AggregationStrategy aggregationStrategy;
+    // the aggregated exchanges in progress when using append mode
+    private final Map<String, Exchange> aggregated = new ConcurrentHashMap<String, Exchange>();
+    private boolean writeBehind;
+    private long writeBehindInterval = 1000;
+    private int writeBehindBatchSize = 100;
+    private int scanPageSize = 1000;
+    // the marshalled exchanges pending to be written when using write behind mode
+    private final ConcurrentMap<String, byte[]> pending = new ConcurrentHashMap<String, byte[]>();
+    private final Lock flushLock = new ReentrantLock();
+    private ScheduledExecutorService writeBehindExecutor;
 
     /**
      * Creates an aggregation repository
@@ -111,54 +150,210 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
 
     @SuppressWarnings("unchecked")
     public Exchange add(final CamelContext camelContext, final String correlationId, final Exchange exchange) {
+        final String key = correlationId;
+        final byte[] data;
+        try {
+            data = codec.marshallExchange(camelContext, exchange);
+        } catch (IOException e) {
+            throw new RuntimeException("Error adding to repository " + repositoryName + " with key " + key, e);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Adding exchange with key: [" + key + "]");
+        }
+
+        if (writeBehind) {
+            Exchange result = null;
+            if (isReturnOldExchange()) {
+                result = get(camelContext, key);
+            }
+            pending.put(key, data);
+            if (pending.size() >= getWriteBehindBatchSize()) {
+                flush();
+            }
+            return result;
+        }
+
         return (Exchange) transactionTemplate.execute(new TransactionCallback() {
 
             public Exchange doInTransaction(TransactionStatus status) {
-                String sql;
                 Exchange result = null;
-                final String key = correlationId;
 
-                try {
-                    final byte[] data = codec.marshallExchange(camelContext, exchange);
+                // Recover existing exchange with that ID
+                if (isReturnOldExchange()) {
+                    result = get(key, getRepositoryName(), camelContext);
+                }
 
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Adding exchange with key: [" + key + "]");
+                if (appendMode) {
+                    // the exchange replaces any parts
+                    jdbcTemplate.update("DELETE FROM " + getRepositoryNameParts() + " WHERE " + ID + " = ?", new Object[]{key});
+                    aggregated.remove(key);
+                }
+
+                upsert(key, data);
+                return result;
+            }
+        });
+
+    }
+
+    /**
+     * Updates the exchange with the key, and only inserts it if there was no exchange to update.
+     * <p/>
+     * The update is optimistic as the key is most often present, as each correlation key is added
+     * once for every exchange aggregated.
+     */
+    private void upsert(final String key, final byte[] data) {
+        Integer updated = jdbcTemplate.execute("UPDATE " + getRepositoryName() + " SET " + EXCHANGE + " = ? WHERE " + ID + " = ?",
+                new AbstractLobCreatingPreparedStatementCallback(getLobHandler()) {
+                    @Override
+                    protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+                        lobCreator.setBlobAsBytes(ps, 1, data);
+                        ps.setString(2, key);
                     }
+                });
+
+        if (updated == null || updated == 0) {
+            jdbcTemplate.execute("INSERT INTO " + getRepositoryName() + " (" + EXCHANGE + ", " + ID + ") VALUES (?, ?)",
+                    new AbstractLobCreatingPreparedStatementCallback(getLobHandler()) {
+                        @Override
+                        protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+                            lobCreator.setBlobAsBytes(ps, 1, data);
+                            ps.setString(2, key);
+                        }
+                    });
+        }
+    }
 
-                    String insert = "INSERT INTO " + getRepositoryName() + " (" + EXCHANGE + ", " + ID + ") VALUES (?, ?)";
-                    String update = "UPDATE " + getRepositoryName() + " SET " + EXCHANGE + " = ? WHERE " + ID + " = ?";
+    /**
+     * Writes the exchanges pending when using write behind mode, in batches within one transaction.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            final List<String> keys = new ArrayList<String>(pending.size());
+            final List<byte[]> values = new ArrayList<byte[]>(pending.size());
+            for (Map.Entry<String, byte[]> entry : pending.entrySet()) {
+                keys.add(entry.getKey());
+                values.add(entry.getValue());
+            }
 
-                    boolean present = jdbcTemplate.queryForInt(
-                            "SELECT COUNT (*) FROM " + getRepositoryName() + " WHERE " + ID + " = ?", key) != 0;
-                    sql = present ? update : insert;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Flushing " + keys.size() + " pending exchanges to repository: " + getRepositoryName());
+            }
+
+            transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    batchUpsert(keys, values);
+                }
+            });
+
+            // only remove the written exchanges as the keys may have been added again meanwhile
+            for (int i = 0; i < keys.size(); i++) {
+                pending.remove(keys.get(i), values.get(i));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void batchUpsert(final List<String> keys, final List<byte[]> values) {
+        final LobCreator lobCreator = getLobHandler().getLobCreator();
+        try {
+            int[] updated = jdbcTemplate.batchUpdate("UPDATE " + getRepositoryName() + " SET " + EXCHANGE + " = ? WHERE " + ID + " = ?",
+                    new BatchPreparedStatementSetter() {
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            lobCreator.setBlobAsBytes(ps, 1, values.get(i));
+                            ps.setString(2, keys.get(i));
+                        }
+
+                        public int getBatchSize() {
+                            return keys.size();
+                        }
+                    });
+
+            final List<Integer> inserts = new ArrayList<Integer>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    inserts.add(i);
+                } else if (updated[i] == Statement.SUCCESS_NO_INFO) {
+                    // the driver does not tell whether it was updated
+                    upsert(keys.get(i), values.get(i));
+                }
+            }
 
-                    // Recover existing exchange with that ID
-                    if (isReturnOldExchange() && present) {
-                        result = get(key, getRepositoryName(), camelContext);
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + getRepositoryName() + " (" + EXCHANGE + ", " + ID + ") VALUES (?, ?)",
+                        new BatchPreparedStatementSetter() {
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                int index = inserts.get(i);
+                                lobCreator.setBlobAsBytes(ps, 1, values.get(index));
+                                ps.setString(2, keys.get(index));
+                            }
+
+                            public int getBatchSize() {
+                                return inserts.size();
+                            }
+                        });
+            }
+        } finally {
+            lobCreator.close();
+        }
+    }
+
+    public void append(final CamelContext camelContext, final String correlationId, final Exchange part, final Exchange exchange) {
+        final String key = correlationId;
+        // the aggregated size tells which part this is
+        final int sequence = exchange.getProperty(Exchange.AGGREGATED_SIZE, 1, Integer.class) - 1;
+        if (sequence <= 0) {
+            // the first part is stored in the repository table
+            add(camelContext, key, part);
+            aggregated.put(key, exchange);
+            return;
+        }
+
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                try {
+                    final byte[] data = codec.marshallExchange(camelContext, part);
+
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Appending key [" + key + "] part " + sequence);
                     }
 
-                    jdbcTemplate.execute(sql,
+                    jdbcTemplate.execute("INSERT INTO " + getRepositoryNameParts() + " (" + EXCHANGE + ", " + ID + ", " + SEQ + ") VALUES (?, ?, ?)",
                             new AbstractLobCreatingPreparedStatementCallback(getLobHandler()) {
                                 @Override
                                 protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
                                     lobCreator.setBlobAsBytes(ps, 1, data);
                                     ps.setString(2, key);
+                                    ps.setInt(3, sequence);
                                 }
                             });
-
                 } catch (IOException e) {
-                    throw new RuntimeException("Error adding to repository " + repositoryName + " with key " + key, e);
+                    throw new RuntimeException("Error appending to repository " + repositoryName + " with key " + key, e);
                 }
-
-                return result;
             }
         });
 
+        aggregated.put(key, exchange);
     }
 
     public Exchange get(final CamelContext camelContext, final String correlationId) {
         final String key = correlationId;
-        Exchange result = get(key, getRepositoryName(), camelContext);
+        Exchange result;
+        byte[] data = writeBehind ? pending.get(key) : null;
+        if (data != null) {
+            result = unmarshallExchange(camelContext, key, data);
+        } else if (appendMode) {
+            result = getAggregated(camelContext, key);
+        } else {
+            result = get(key, getRepositoryName(), camelContext);
+        }
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("Getting key  [" + key + "] -> " + result);
@@ -175,21 +370,43 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
                     final byte[] data = jdbcTemplate.queryForObject(
                             "SELECT " + EXCHANGE + " FROM " + repositoryName + " WHERE " + ID + " = ?",
                             new Object[]{key}, byte[].class);
-                    return codec.unmarshallExchange(camelContext, data);
+                    return unmarshallExchange(camelContext, key, data);
                 } catch (EmptyResultDataAccessException ex) {
                     return null;
-                } catch (IOException ex) {
-                    // Rollback the transaction
-                    throw new RuntimeException("Error getting key " + key + " from repository " + repositoryName, ex);
-                } catch (ClassNotFoundException ex) {
-                    // Rollback the transaction
-                    throw new RuntimeException(ex);
                 }
             }
         });
     }
 
+    private Exchange unmarshallExchange(CamelContext camelContext, String key, byte[] data) {
+        try {
+            return codec.unmarshallExchange(camelContext, data);
+        } catch (IOException ex) {
+            // Rollback the transaction
+            throw new RuntimeException("Error getting key " + key + " from repository " + repositoryName, ex);
+        } catch (ClassNotFoundException ex) {
+            // Rollback the transaction
+            throw new RuntimeException(ex);
+        }
+    }
+
     public void remove(final CamelContext camelContext, final String correlationId, final Exchange exchange) {
+        if (writeBehind) {
+            // must not remove while flushing as the flush could then write the removed exchange
+            flushLock.lock();
+            try {
+                doRemove(camelContext, correlationId, exchange);
+                // only forget the pending exchange when it has been removed, so it is not lost if removing failed
+                pending.remove(correlationId);
+            } finally {
+                flushLock.unlock();
+            }
+        } else {
+            doRemove(camelContext, correlationId, exchange);
+        }
+    }
+
+    private void doRemove(final CamelContext camelContext, final String correlationId, final Exchange exchange) {
         transactionTemplate.execute(new TransactionCallbackWithoutResult() {
             protected void doInTransactionWithoutResult(TransactionStatus status) {
                 final String key = correlationId;
@@ -203,6 +420,10 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
 
                     jdbcTemplate.update("DELETE FROM " + getRepositoryName() + " WHERE " + ID + " = ?",
                             new Object[]{key});
+                    if (appendMode) {
+                        jdbcTemplate.update("DELETE FROM " + getRepositoryNameParts() + " WHERE " + ID + " = ?",
+                                new Object[]{key});
+                    }
 
                     jdbcTemplate.execute("INSERT INTO " + getRepositoryNameCompleted() + " (" + EXCHANGE + ", " + ID + ") VALUES (?, ?)",
                             new AbstractLobCreatingPreparedStatementCallback(getLobHandler()) {
@@ -217,6 +438,77 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
                 }
             }
         });
+
+        if (appendMode) {
+            aggregated.remove(correlationId);
+        }
+    }
+
+    private Exchange getAggregated(final CamelContext camelContext, final String key) {
+        Exchange answer = aggregated.get(key);
+        if (answer == null) {
+            answer = materialize(camelContext, key);
+            if (answer != null) {
+                aggregated.put(key, answer);
+            }
+        }
+        // return a copy as the aggregation strategy may change the exchange
+        if (answer != null) {
+            Exchange copy = answer.copy();
+            copy.setExchangeId(answer.getExchangeId());
+            answer = copy;
+        }
+        return answer;
+    }
+
+    /**
+     * Materializes the aggregated exchange by folding its parts with the aggregation strategy
+     */
+    @SuppressWarnings("unchecked")
+    private Exchange materialize(final CamelContext camelContext, final String key) {
+        final Exchange first = get(key, getRepositoryName(), camelContext);
+        if (first == null) {
+            return null;
+        }
+        if (aggregationStrategy == null) {
+            throw new IllegalStateException("AggregationStrategy must be set to materialize key " + key + " from repository " + repositoryName);
+        }
+
+        List<byte[]> parts = (List<byte[]>) transactionTemplateReadOnly.execute(new TransactionCallback() {
+            public List<byte[]> doInTransaction(TransactionStatus status) {
+                return jdbcTemplate.query("SELECT " + EXCHANGE + " FROM " + getRepositoryNameParts() + " WHERE " + ID + " = ? ORDER BY " + SEQ,
+                        new Object[]{key}, new RowMapper<byte[]>() {
+                            public byte[] mapRow(ResultSet rs, int rowNum) throws SQLException {
+                                return getLobHandler().getBlobAsBytes(rs, EXCHANGE);
+                            }
+                        });
+            }
+        });
+
+        // the first part may be an aggregated exchange added using add
+        int size = first.getProperty(Exchange.AGGREGATED_SIZE, 1, Integer.class);
+        first.removeProperty(Exchange.AGGREGATED_SIZE);
+        // fold the first part the same way as the aggregator does
+        ExchangeHelper.prepareAggregation(null, first);
+        Exchange answer = aggregationStrategy.aggregate(null, first);
+        try {
+            for (byte[] data : parts) {
+                Exchange part = codec.unmarshallExchange(camelContext, data);
+                size++;
+                ExchangeHelper.prepareAggregation(answer, part);
+                answer = aggregationStrategy.aggregate(answer, part);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error unmarshalling parts of key " + key + " from repository " + repositoryName, e);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        answer.setProperty(Exchange.AGGREGATED_SIZE, size);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Materialized key [" + key + "] from " + (parts.size() + 1) + " parts -> " + answer);
+        }
+        return answer;
     }
 
     public void confirm(final CamelContext camelContext, final String exchangeId) {
@@ -234,42 +526,59 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
         });
     }
 
-    @SuppressWarnings("unchecked")
     public Set<String> getKeys() {
-        return (LinkedHashSet<String>) transactionTemplateReadOnly.execute(new TransactionCallback() {
-            public LinkedHashSet<String> doInTransaction(TransactionStatus status) {
-                List<String> keys = jdbcTemplate.query("SELECT " + ID + " FROM " + getRepositoryName(),
-                        new RowMapper<String>() {
-                            public String mapRow(ResultSet rs, int rowNum) throws SQLException {
-                                String id = rs.getString(ID);
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace("getKey [" + id + "]");
-                                }
-                                return id;
-                            }
-                        });
-                return new LinkedHashSet<String>(keys);
-            }
-        });
+        Set<String> keys = queryKeys(getRepositoryName());
+        if (writeBehind) {
+            keys.addAll(pending.keySet());
+        }
+        return keys;
     }
 
-    @SuppressWarnings("unchecked")
     public Set<String> scan(CamelContext camelContext) {
-        return (LinkedHashSet<String>) transactionTemplateReadOnly.execute(new TransactionCallback() {
-            public LinkedHashSet<String> doInTransaction(TransactionStatus status) {
-                List<String> keys = jdbcTemplate.query("SELECT " + ID + " FROM " + getRepositoryNameCompleted(),
-                        new RowMapper<String>() {
-                            public String mapRow(ResultSet rs, int rowNum) throws SQLException {
-                                String id = rs.getString(ID);
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace("getKey [" + id + "]");
-                                }
-                                return id;
-                            }
-                        });
-                return new LinkedHashSet<String>(keys);
+        return queryKeys(getRepositoryNameCompleted());
+    }
+
+    /**
+     * Queries the keys in pages ordered by the key, so a large table is not read in one query.
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> queryKeys(final String table) {
+        final Set<String> keys = new LinkedHashSet<String>();
+        final int pageSize = getScanPageSize();
+        final JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setMaxRows(pageSize);
+        template.setFetchSize(pageSize);
+        final RowMapper<String> mapper = new RowMapper<String>() {
+            public String mapRow(ResultSet rs, int rowNum) throws SQLException {
+                String id = rs.getString(ID);
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("getKey [" + id + "]");
+                }
+                return id;
             }
-        });
+        };
+
+        String last = null;
+        while (true) {
+            final String from = last;
+            List<String> page = (List<String>) transactionTemplateReadOnly.execute(new TransactionCallback() {
+                public List<String> doInTransaction(TransactionStatus status) {
+                    if (from == null) {
+                        return template.query("SELECT " + ID + " FROM " + table + " ORDER BY " + ID, mapper);
+                    } else {
+                        return template.query("SELECT " + ID + " FROM " + table + " WHERE " + ID + " > ? ORDER BY " + ID,
+                                new Object[]{from}, mapper);
+                    }
+                }
+            });
+            keys.addAll(page);
+            if (page.size() < pageSize) {
+                break;
+            }
+            last = page.get(page.size() - 1);
+        }
+
+        return keys;
     }
 
     public Exchange recover(CamelContext camelContext, String exchangeId) {
@@ -349,15 +658,90 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
         return getRepositoryName() + "_completed";
     }
 
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Sets whether to keep the added exchanges in memory and write them to the database in batches.
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public long getWriteBehindInterval() {
+        return writeBehindInterval;
+    }
+
+    /**
+     * Sets the interval in millis between writing the pending exchanges when using write behind mode.
+     */
+    public void setWriteBehindInterval(long writeBehindInterval) {
+        this.writeBehindInterval = writeBehindInterval;
+    }
+
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    /**
+     * Sets the number of pending correlation keys which triggers writing the pending exchanges
+     * when using write behind mode.
+     */
+    public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+
+    public int getScanPageSize() {
+        return scanPageSize;
+    }
+
+    /**
+     * Sets the number of keys to query at a time when getting the keys or scanning for exchanges to recover.
+     */
+    public void setScanPageSize(int scanPageSize) {
+        this.scanPageSize = scanPageSize;
+    }
+
+    public String getRepositoryNameParts() {
+        return getRepositoryName() + "_parts";
+    }
+
+    public boolean isAppendMode() {
+        return appendMode;
+    }
+
+    /**
+     * Sets whether to store each incoming exchange as a separate part, instead of storing
+     * the entire aggregated exchange on every aggregation.
+     */
+    public void setAppendMode(boolean appendMode) {
+        this.appendMode = appendMode;
+    }
+
+    public AggregationStrategy getAggregationStrategy() {
+        return aggregationStrategy;
+    }
+
+    public void setAggregationStrategy(AggregationStrategy aggregationStrategy) {
+        this.aggregationStrategy = aggregationStrategy;
+    }
+
     @Override
     protected void doStart() throws Exception {
         ObjectHelper.notNull(repositoryName, "RepositoryName");
         ObjectHelper.notNull(transactionManager, "TransactionManager");
         ObjectHelper.notNull(dataSource, "DataSource");
+        if (writeBehind && appendMode) {
+            throw new IllegalArgumentException("Cannot use both writeBehind and appendMode on repository: " + getRepositoryName());
+        }
+        if (scanPageSize <= 0) {
+            throw new IllegalArgumentException("ScanPageSize must be a positive number, was: " + scanPageSize);
+        }
 
         // log number of existing exchanges
-        int current = getKeys().size();
-        int completed = scan(null).size();
+        int current = jdbcTemplate.queryForInt("SELECT COUNT(*) FROM " + getRepositoryName());
+        int completed = jdbcTemplate.queryForInt("SELECT COUNT(*) FROM " + getRepositoryNameCompleted());
 
         if (current > 0) {
             LOG.info("On startup there are " + current + " aggregate exchanges (not completed) in repository: " + getRepositoryName());
@@ -369,11 +753,34 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
         } else {
             LOG.info("On startup there are no completed exchanges to be recovered in repository: " + getRepositoryNameCompleted());
         }
+
+        if (writeBehind) {
+            writeBehindExecutor = ExecutorServiceHelper.newScheduledThreadPool(1, ExecutorServiceHelper.DEFAULT_PATTERN,
+                    "JdbcAggregationRepository " + getRepositoryName() + " WriteBehind", true);
+            writeBehindExecutor.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        flush();
+                    } catch (Throwable e) {
+                        // the pending exchanges is kept and written on next flush
+                        LOG.warn("Error writing pending exchanges to repository: " + getRepositoryName() + ". This exception will be ignored.", e);
+                    }
+                }
+            }, writeBehindInterval, writeBehindInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     protected void doStop() throws Exception {
-        // noop
+        if (writeBehindExecutor != null) {
+            writeBehindExecutor.shutdownNow();
+            writeBehindExecutor = null;
+        }
+        // write any pending exchanges
+        flush();
+
+        // the aggregated exchanges in progress can be materialized from their parts
+        aggregated.clear();
     }
 
 }
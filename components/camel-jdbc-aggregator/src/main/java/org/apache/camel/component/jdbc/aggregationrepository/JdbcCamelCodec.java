@@ -18,9 +18,10 @@ package org.apache.camel.component.jdbc.aggregationrepository;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
@@ -30,11 +31,14 @@ import org.apache.camel.impl.DefaultExchangeHolder;
 
 /**
  * Adapted from HawtDBCamelCodec
+ * <p/>
+ * The exchanges is written in the compact binary format of {@link DefaultExchangeHolder}.
+ * Exchanges written by older versions using Java serialization can still be read.
  */
 public final class JdbcCamelCodec {
 
     public byte[] marshallExchange(CamelContext camelContext, Exchange exchange) throws IOException {
-        // use DefaultExchangeHolder to marshal to a serialized object
+        // use DefaultExchangeHolder to marshal to the binary format
         DefaultExchangeHolder pe = DefaultExchangeHolder.marshal(exchange, false);
         // add the aggregated size property as the only property we want to retain
         DefaultExchangeHolder.addProperty(pe, Exchange.AGGREGATED_SIZE, exchange.getProperty(Exchange.AGGREGATED_SIZE, Integer.class));
@@ -50,7 +54,7 @@ public final class JdbcCamelCodec {
     }
 
     public Exchange unmarshallExchange(CamelContext camelContext, byte[] buffer) throws IOException, ClassNotFoundException {
-        DefaultExchangeHolder pe = decode(buffer);
+        DefaultExchangeHolder pe = decode(camelContext, buffer);
         Exchange answer = new DefaultExchange(camelContext);
         DefaultExchangeHolder.unmarshal(answer, pe);
         // restore the from endpoint
@@ -64,17 +68,22 @@ public final class JdbcCamelCodec {
         return answer;
     }
 
-    private byte[] encode(Object object) throws IOException {
+    private byte[] encode(DefaultExchangeHolder holder) throws IOException {
         ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-        ObjectOutputStream objectOut = new ObjectOutputStream(bytesOut);
-        objectOut.writeObject(object);
-        objectOut.close();
+        DataOutputStream dataOut = new DataOutputStream(bytesOut);
+        holder.writeTo(dataOut);
+        dataOut.close();
         byte[] data = bytesOut.toByteArray();
         return data;
     }
 
-    private DefaultExchangeHolder decode(byte[] dataIn) throws IOException, ClassNotFoundException {
+    private DefaultExchangeHolder decode(CamelContext camelContext, byte[] dataIn) throws IOException, ClassNotFoundException {
         ByteArrayInputStream bytesIn = new ByteArrayInputStream(dataIn);
+        if (dataIn.length > 0 && dataIn[0] == DefaultExchangeHolder.BINARY_FORMAT_MAGIC) {
+            return DefaultExchangeHolder.readFrom(new DataInputStream(bytesIn), camelContext.getApplicationContextClassLoader());
+        }
+
+        // exchange written using java serialization by an older version
         ObjectInputStream objectIn = new ClassLoadingAwareObjectInputStream(bytesIn);
         Object obj = objectIn.readObject();
         return (DefaultExchangeHolder) obj;
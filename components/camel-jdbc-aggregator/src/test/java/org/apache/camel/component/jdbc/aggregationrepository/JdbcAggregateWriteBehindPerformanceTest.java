@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.jdbc.aggregationrepository;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+public class JdbcAggregateWriteBehindPerformanceTest extends CamelTestSupport {
+
+    private static final int SIZE = 2000;
+    private static final int KEYS = 20;
+    private JdbcAggregationRepository repo;
+
+    @Override
+    public void setUp() throws Exception {
+        ApplicationContext applicationContext = new ClassPathXmlApplicationContext("org/apache/camel/component/jdbc/aggregationrepository/JdbcSpringDataSource.xml");
+        repo = applicationContext.getBean("repo1", JdbcAggregationRepository.class);
+
+        super.setUp();
+    }
+
+    @Test
+    public void testWriteBehindSameResult() throws Exception {
+        repo.start();
+        addExchanges("normal");
+        repo.stop();
+
+        repo.setWriteBehind(true);
+        repo.start();
+        addExchanges("writeBehind");
+        repo.stop();
+
+        // the latest exchange for each key should have been written on stop, the same as without write behind
+        repo.setWriteBehind(false);
+        repo.start();
+        for (int i = 0; i < KEYS; i++) {
+            assertTrue(repo.getKeys().contains("normal" + i));
+            assertTrue(repo.getKeys().contains("writeBehind" + i));
+        }
+        for (int i = 0; i < KEYS; i++) {
+            Exchange normal = repo.get(context, "normal" + i);
+            Exchange writeBehind = repo.get(context, "writeBehind" + i);
+            assertEquals("Hello " + (SIZE - KEYS + i), normal.getIn().getBody());
+            assertEquals(normal.getIn().getBody(), writeBehind.getIn().getBody());
+
+            repo.remove(context, "writeBehind" + i, writeBehind);
+            repo.confirm(context, writeBehind.getExchangeId());
+            repo.remove(context, "normal" + i, normal);
+            repo.confirm(context, normal.getExchangeId());
+        }
+        for (int i = 0; i < KEYS; i++) {
+            assertFalse(repo.getKeys().contains("normal" + i));
+            assertFalse(repo.getKeys().contains("writeBehind" + i));
+        }
+        repo.stop();
+    }
+
+    private void addExchanges(String prefix) {
+        for (int i = 0; i < SIZE; i++) {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("Hello " + i);
+            repo.add(context, prefix + (i % KEYS), exchange);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.jdbc.aggregationrepository;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+public class JdbcAggregateWriteBehindTest extends CamelTestSupport {
+
+    JdbcAggregationRepository repo;
+
+    @Override
+    public void setUp() throws Exception {
+        ApplicationContext applicationContext = new ClassPathXmlApplicationContext("org/apache/camel/component/jdbc/aggregationrepository/JdbcSpringDataSource.xml");
+        repo = applicationContext.getBean("repo1", JdbcAggregationRepository.class);
+        repo.setWriteBehind(true);
+        repo.setWriteBehindInterval(100);
+
+        super.setUp();
+    }
+
+    @Test
+    public void testJdbcAggregateWriteBehind() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:aggregated");
+        mock.expectedBodiesReceived("ABCDE");
+
+        template.sendBodyAndHeader("direct:start", "A", "id", 123);
+        template.sendBodyAndHeader("direct:start", "B", "id", 123);
+        template.sendBodyAndHeader("direct:start", "C", "id", 123);
+        template.sendBodyAndHeader("direct:start", "D", "id", 123);
+        template.sendBodyAndHeader("direct:start", "E", "id", 123);
+
+        assertMockEndpointsSatisfied(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testWriteBehind() throws Exception {
+        // do not write on the interval so we can test the pending exchanges
+        repo.stop();
+        repo.setWriteBehindInterval(60000);
+        repo.start();
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("A");
+        repo.add(context, "foo", exchange);
+        exchange.getIn().setBody("AB");
+        repo.add(context, "foo", exchange);
+
+        // the pending exchange should be returned
+        assertEquals("AB", repo.get(context, "foo").getIn().getBody());
+        assertTrue(repo.getKeys().contains("foo"));
+
+        // and written when flushed
+        repo.flush();
+        assertEquals("AB", repo.get(context, "foo").getIn().getBody());
+        assertTrue(repo.getKeys().contains("foo"));
+
+        // the pending exchange should be written on stop
+        exchange.getIn().setBody("ABC");
+        repo.add(context, "foo", exchange);
+        repo.stop();
+        repo.start();
+        Exchange actual = repo.get(context, "foo");
+        assertEquals("ABC", actual.getIn().getBody());
+
+        // a removed pending exchange should not be written
+        exchange.getIn().setBody("ABCD");
+        repo.add(context, "foo", exchange);
+        repo.remove(context, "foo", actual);
+        repo.confirm(context, actual.getExchangeId());
+        repo.stop();
+        repo.start();
+        assertNull(repo.get(context, "foo"));
+    }
+
+    @Test
+    public void testWriteBehindBatchSize() throws Exception {
+        repo.stop();
+        repo.setWriteBehindInterval(60000);
+        repo.setWriteBehindBatchSize(3);
+        repo.start();
+
+        for (int i = 0; i < 10; i++) {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("Hello " + i);
+            repo.add(context, "key" + i, exchange);
+        }
+
+        Set<String> keys = repo.getKeys();
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Hello " + i, repo.get(context, "key" + i).getIn().getBody());
+            assertTrue(keys.contains("key" + i));
+        }
+    }
+
+    @Test
+    public void testWriteBehindAndAppendModeNotAllowed() throws Exception {
+        repo.stop();
+        repo.setAppendMode(true);
+        try {
+            repo.start();
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        } finally {
+            repo.setAppendMode(false);
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .aggregate(header("id"), new MyAggregationStrategy())
+                        .completionSize(5).aggregationRepository(repo)
+                        .to("mock:aggregated");
+            }
+        };
+    }
+
+    public static class MyAggregationStrategy implements AggregationStrategy {
+
+        public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+            if (oldExchange == null) {
+                return newExchange;
+            }
+            String body1 = oldExchange.getIn().getBody(String.class);
+            String body2 = newExchange.getIn().getBody(String.class);
+
+            oldExchange.getIn().setBody(body1 + body2);
+            return oldExchange;
+        }
+    }
+}
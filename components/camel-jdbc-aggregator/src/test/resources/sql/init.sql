@@ -1,5 +1,6 @@
 DROP TABLE aggregationRepo1 IF EXISTS;
 DROP TABLE aggregationRepo1_completed IF EXISTS;
+DROP TABLE aggregationRepo1_parts IF EXISTS;
 CREATE TABLE aggregationRepo1 (
     id varchar(255) NOT NULL,
     exchange blob NOT NULL,
@@ -9,4 +10,10 @@ CREATE TABLE aggregationRepo1_completed (
     id varchar(255) NOT NULL,
     exchange blob NOT NULL,
     constraint aggregationRepo1_completed_pk PRIMARY KEY (id)
-);
\ No newline at end of file
+);
+CREATE TABLE aggregationRepo1_parts (
+    id varchar(255) NOT NULL,
+    seq int NOT NULL,
+    exchange blob NOT NULL,
+    constraint aggregationRepo1_parts_pk PRIMARY KEY (id, seq)
+);
@@ -312,6 +312,10 @@ public class JmsComponent extends DefaultComponent implements ApplicationContext
         getConfiguration().setTestConnectionOnStartup(testConnectionOnStartup);
     }
 
+    public void setUseTimingWheel(boolean useTimingWheel) {
+        getConfiguration().setUseTimingWheel(useTimingWheel);
+    }
+
     public void setRequestTimeout(long requestTimeout) {
         getConfiguration().setRequestTimeout(requestTimeout);
     }
@@ -121,6 +121,7 @@ public class JmsConfiguration implements Cloneable {
     private boolean transferExchange;
     private boolean transferException;
     private boolean testConnectionOnStartup;
+    private boolean useTimingWheel;
 
     public JmsConfiguration() {
     }
@@ -1157,4 +1158,16 @@ public class JmsConfiguration implements Cloneable {
     public void setTestConnectionOnStartup(boolean testConnectionOnStartup) {
         this.testConnectionOnStartup = testConnectionOnStartup;
     }
+
+    public boolean isUseTimingWheel() {
+        return useTimingWheel;
+    }
+
+    /**
+     * Whether to use a timing wheel to keep track of the request timeouts of pending request/reply messages,
+     * which scales better when there is a lot of pending replies.
+     */
+    public void setUseTimingWheel(boolean useTimingWheel) {
+        this.useTimingWheel = useTimingWheel;
+    }
 }
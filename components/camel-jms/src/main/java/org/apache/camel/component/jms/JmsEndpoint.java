@@ -898,6 +898,16 @@ public class JmsEndpoint extends DefaultEndpoint implements HeaderFilterStrategy
         configuration.setTestConnectionOnStartup(testConnectionOnStartup);
     }
 
+    @ManagedAttribute
+    public boolean isUseTimingWheel() {
+        return configuration.isUseTimingWheel();
+    }
+
+    @ManagedAttribute
+    public void setUseTimingWheel(boolean useTimingWheel) {
+        configuration.setUseTimingWheel(useTimingWheel);
+    }
+
     @ManagedAttribute(description = "Camel id")
     public String getCamelId() {
         return getCamelContext().getName();
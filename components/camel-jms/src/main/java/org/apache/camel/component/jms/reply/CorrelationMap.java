@@ -30,19 +30,31 @@ public class CorrelationMap extends DefaultTimeoutMap<String, ReplyHandler> {
     }
 
     public boolean onEviction(String key, ReplyHandler value) {
+        return onTimeout(key, value);
+    }
+
+    @Override
+    public void put(String key, ReplyHandler value, long timeoutMillis) {
+        super.put(key, value, getTimeout(timeoutMillis));
+    }
+
+    /**
+     * Triggers the timeout of the reply handler, when the reply handler is evicted from a correlation map.
+     *
+     * @return <tt>true</tt> to remove the reply handler
+     */
+    static boolean onTimeout(String key, ReplyHandler value) {
         // trigger timeout
         value.onTimeout(key);
         // return true to remove the element
         return true;
     }
 
-    @Override
-    public void put(String key, ReplyHandler value, long timeoutMillis) {
-        if (timeoutMillis <= 0) {
-            // no timeout (must use Integer.MAX_VALUE)
-            super.put(key, value, Integer.MAX_VALUE);
-        } else {
-            super.put(key, value, timeoutMillis);
-        }
+    /**
+     * Gets the timeout to use in a correlation map for the given request timeout.
+     */
+    static long getTimeout(long timeoutMillis) {
+        // no timeout (must use Integer.MAX_VALUE)
+        return timeoutMillis <= 0 ? Integer.MAX_VALUE : timeoutMillis;
     }
 }
@@ -32,6 +32,7 @@ import org.apache.camel.component.jms.JmsMessageHelper;
 import org.apache.camel.impl.ServiceSupport;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.ServiceHelper;
+import org.apache.camel.util.TimeoutMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.jms.listener.AbstractMessageListenerContainer;
@@ -50,7 +51,7 @@ public abstract class ReplyManagerSupport extends ServiceSupport implements Repl
     protected AbstractMessageListenerContainer listenerContainer;
     protected final CountDownLatch replyToLatch = new CountDownLatch(1);
     protected final long replyToTimeout = 10000;
-    protected CorrelationMap correlation;
+    protected TimeoutMap<String, ReplyHandler> correlation;
 
     public void setScheduledExecutorService(ScheduledExecutorService executorService) {
         this.executorService = executorService;
@@ -206,7 +207,11 @@ public abstract class ReplyManagerSupport extends ServiceSupport implements Repl
         ObjectHelper.notNull(endpoint, "endpoint", this);
 
         // purge for timeout every second
-        correlation = new CorrelationMap(executorService, 1000);
+        if (endpoint.getConfiguration().isUseTimingWheel()) {
+            correlation = new CorrelationTimingWheel(executorService, 1000);
+        } else {
+            correlation = new CorrelationMap(executorService, 1000);
+        }
         ServiceHelper.startService(correlation);
 
         // create JMS listener and start it
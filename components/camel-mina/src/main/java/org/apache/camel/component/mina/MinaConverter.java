@@ -16,6 +16,7 @@
  */
 package org.apache.camel.component.mina;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
@@ -23,6 +24,7 @@ import java.io.ObjectInputStream;
 
 import org.apache.camel.Converter;
 import org.apache.camel.Exchange;
+import org.apache.camel.converter.NIOConverter;
 import org.apache.mina.common.ByteBuffer;
 
 /**
@@ -73,4 +75,15 @@ public final class MinaConverter {
         buf.put(bytes);
         return buf;
     }
+
+    @Converter
+    public static ByteBuffer toByteBuffer(java.nio.ByteBuffer buffer) {
+        // wrap the buffer so a memory mapped buffer is not copied into the heap
+        return ByteBuffer.wrap(buffer);
+    }
+
+    @Converter
+    public static ByteBuffer toByteBuffer(File file) throws IOException {
+        return toByteBuffer(NIOConverter.toByteBuffer(file));
+    }
 }
@@ -77,6 +77,16 @@ public class MinaConverterTest extends TestCase {
         }
     }
 
+    public void testToByteBufferWrapsNioBuffer() {
+        java.nio.ByteBuffer nio = java.nio.ByteBuffer.allocateDirect(11);
+        nio.put("Hello World".getBytes());
+        nio.flip();
+
+        ByteBuffer bb = MinaConverter.toByteBuffer(nio);
+        assertEquals(11, bb.remaining());
+        assertEquals("Hello World", new String(MinaConverter.toByteArray(bb)));
+    }
+
     public void testToByteBuffer() {
         byte[] in = "Hello World".getBytes();
 
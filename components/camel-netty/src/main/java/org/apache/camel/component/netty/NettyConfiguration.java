@@ -76,6 +76,7 @@ public class NettyConfiguration implements Cloneable {
     private boolean disconnectOnNoReply = true;
     private LoggingLevel noReplyLogLevel = LoggingLevel.WARN;
     private boolean allowDefaultCodec = true;
+    private boolean zeroCopy = true;
     private ClientPipelineFactory clientPipelineFactory;
     private ServerPipelineFactory serverPipelineFactory;
     
@@ -456,6 +457,14 @@ public class NettyConfiguration implements Cloneable {
         this.allowDefaultCodec = allowDefaultCodec;
     }
 
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    public void setZeroCopy(boolean zeroCopy) {
+        this.zeroCopy = zeroCopy;
+    }
+
     public String getAddress() {
         return host + ":" + port;
     }
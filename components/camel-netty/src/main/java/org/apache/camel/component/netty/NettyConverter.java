@@ -17,15 +17,19 @@
 
 package org.apache.camel.component.netty;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.camel.Converter;
 import org.apache.camel.Exchange;
+import org.apache.camel.converter.NIOConverter;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBufferInputStream;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.buffer.DynamicChannelBuffer;
 
 /**
@@ -42,7 +46,13 @@ public final class NettyConverter {
 
     @Converter
     public static byte[] toByteArray(ChannelBuffer buffer) {
-        return buffer.array();
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+        // a buffer wrapping a direct or memory mapped buffer has no array so copy its content
+        byte[] answer = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), answer);
+        return answer;
     }
 
     @Converter
@@ -70,4 +80,15 @@ public final class NettyConverter {
         buf.writeBytes(bytes);
         return buf;
     }
+
+    @Converter
+    public static ChannelBuffer toChannelBuffer(ByteBuffer buffer) {
+        // wrap the buffer so a memory mapped buffer is not copied into the heap
+        return ChannelBuffers.wrappedBuffer(buffer);
+    }
+
+    @Converter
+    public static ChannelBuffer toChannelBuffer(File file) throws IOException {
+        return toChannelBuffer(NIOConverter.toByteBuffer(file));
+    }
 }
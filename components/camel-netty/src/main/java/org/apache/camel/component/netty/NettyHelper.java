@@ -16,15 +16,22 @@
  */
 package org.apache.camel.component.netty;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.net.SocketAddress;
+import java.nio.channels.FileChannel;
 
 import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Exchange;
 import org.apache.camel.NoTypeConversionAvailableException;
+import org.apache.camel.component.file.GenericFile;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.DefaultFileRegion;
+import org.jboss.netty.channel.FileRegion;
 
 /**
  * Helper class used internally by camel-netty using Netty.
@@ -76,6 +83,38 @@ public final class NettyHelper {
         return s;
     }
 
+    /**
+     * Gets the file the given body is backed by, if the body is a {@link File} or a {@link GenericFile}
+     * with a {@link File} as its body.
+     *
+     * @param body the current body
+     * @return the file, or <tt>null</tt> if the body is not backed by a file
+     */
+    public static File getFileBody(Object body) {
+        if (body instanceof GenericFile) {
+            body = ((GenericFile<?>) body).getBody();
+        }
+        if (body instanceof File && ((File) body).isFile()) {
+            return (File) body;
+        }
+        return null;
+    }
+
+    /**
+     * Creates a {@link FileRegion} for the entire content of the given file, which Netty transfers to the
+     * socket using zero copy <tt>FileChannel.transferTo</tt>.
+     * <p/>
+     * The region must be released using {@link FileRegion#releaseExternalResources()} when the write is complete.
+     *
+     * @param file the file
+     * @return the file region
+     * @throws IOException is thrown if the file could not be opened
+     */
+    public static FileRegion createFileRegion(File file) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        return new DefaultFileRegion(channel, 0, channel.size());
+    }
+
     /**
      * Writes the given body to Netty channel. Will wait until the body has been written.
      *
@@ -16,6 +16,7 @@
  */
 package org.apache.camel.component.netty;
 
+import java.io.File;
 import java.net.InetSocketAddress;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
@@ -40,6 +41,7 @@ import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
 import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.FileRegion;
 import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.channel.group.ChannelGroupFuture;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
@@ -83,6 +85,16 @@ public class NettyProducer extends DefaultAsyncProducer implements ServicePoolAw
         return configuration.getProtocol().equalsIgnoreCase("tcp");
     }
 
+    /**
+     * Whether file bodies can be written as a {@link FileRegion} which is only possible if the content
+     * is sent to the socket as is, without any encoders or SSL in the pipeline.
+     */
+    protected boolean isZeroCopy() {
+        return configuration.isZeroCopy() && isTcp() && !configuration.isSsl() && !configuration.isTextline()
+            && !configuration.isTransferExchange() && configuration.getEncoders().isEmpty()
+            && configuration.getClientPipelineFactory() == null;
+    }
+
     @Override
     protected void doStart() throws Exception {
         super.doStart();
@@ -147,12 +159,32 @@ public class NettyProducer extends DefaultAsyncProducer implements ServicePoolAw
             exchange.setProperty(Exchange.CHARSET_NAME, IOConverter.normalizeCharset(getConfiguration().getCharsetName()));
         }
 
+        // send files as a file region so the content is transferred to the socket using zero copy
+        FileRegion region = null;
+        if (isZeroCopy()) {
+            File file = NettyHelper.getFileBody(body);
+            if (file != null) {
+                try {
+                    region = NettyHelper.createFileRegion(file);
+                } catch (Exception e) {
+                    exchange.setException(e);
+                    callback.done(true);
+                    return true;
+                }
+                body = region;
+            }
+        }
+        final FileRegion fileRegion = region;
+
         ChannelFuture channelFuture;
         final Channel channel;
         try {
             channelFuture = openConnection(exchange, callback);
             channel = openChannel(channelFuture);
         } catch (Exception e) {
+            if (fileRegion != null) {
+                fileRegion.releaseExternalResources();
+            }
             exchange.setException(e);
             callback.done(true);
             return true;
@@ -171,6 +203,10 @@ public class NettyProducer extends DefaultAsyncProducer implements ServicePoolAw
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Operation complete " + channelFuture);
                 }
+                if (fileRegion != null) {
+                    // the file has been transferred so close it
+                    fileRegion.releaseExternalResources();
+                }
                 if (!channelFuture.isSuccess()) {
                     // no success the set the caused exception and signal callback and break
                     exchange.setException(channelFuture.getCause());
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.netty;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+/**
+ * Sends a file without any codecs so it is written to the socket as a zero copy file region.
+ *
+ * @version $Revision$
+ */
+public class NettyFileZeroCopyTest extends CamelTestSupport {
+
+    @Test
+    public void testFileRegion() throws Exception {
+        MockEndpoint endpoint = getMockEndpoint("mock:results");
+        endpoint.expectedMinimumMessageCount(1);
+
+        assertMockEndpointsSatisfied();
+
+        String body = endpoint.getReceivedExchanges().get(0).getIn().getBody(String.class);
+        assertTrue("Should start with Hello World: " + body, body.startsWith("Hello World"));
+    }
+
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                // lets setup a server
+                from("netty:tcp://localhost:9124?sync=false&allowDefaultCodec=false")
+                        .to("mock:results");
+
+                from("file:src/test/data?noop=true&fileName=message1.txt").
+                        to("netty:tcp://localhost:9124?sync=false&allowDefaultCodec=false");
+            }
+        };
+    }
+
+}
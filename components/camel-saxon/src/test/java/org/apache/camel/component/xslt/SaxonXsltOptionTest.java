@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.xslt;
+
+import net.sf.saxon.TransformerFactoryImpl;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.builder.xml.XsltBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.ProcessorEndpoint;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+/**
+ * @version $Revision$
+ */
+public class SaxonXsltOptionTest extends CamelTestSupport {
+
+    @Test
+    public void testSaxonOption() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(2);
+        mock.message(0).body(String.class).contains("<goodbye>world!</goodbye>");
+        mock.message(1).body(String.class).contains("<goodbye>Camel</goodbye>");
+
+        template.sendBody("direct:start", "<hello>world!</hello>");
+        template.sendBody("direct:start", "<hello>Camel</hello>");
+
+        assertMockEndpointsSatisfied();
+
+        ProcessorEndpoint endpoint = context.getEndpoint("xslt:org/apache/camel/component/xslt/example.xsl?saxon=true", ProcessorEndpoint.class);
+        XsltBuilder xslt = (XsltBuilder) endpoint.getProcessor();
+        assertIsInstanceOf(TransformerFactoryImpl.class, xslt.getConverter().getTransformerFactory());
+    }
+
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            public void configure() throws Exception {
+                from("direct:start")
+                    .to("xslt:org/apache/camel/component/xslt/example.xsl?saxon=true")
+                    .to("mock:result");
+            }
+        };
+    }
+
+}
@@ -39,9 +39,12 @@ import org.springframework.core.io.Resource;
  * @version $Revision$
  */
 public class XsltComponent extends ResourceBasedComponent {
+    public static final String SAXON_TRANSFORMER_FACTORY_CLASS_NAME = "net.sf.saxon.TransformerFactoryImpl";
+
     private XmlConverter xmlConverter;
     private URIResolver uriResolver;
     private boolean contentCache = true;
+    private boolean saxon;
 
     public XmlConverter getXmlConverter() {
         return xmlConverter;
@@ -67,6 +70,17 @@ public class XsltComponent extends ResourceBasedComponent {
         this.contentCache = contentCache;
     }
 
+    public boolean isSaxon() {
+        return saxon;
+    }
+
+    /**
+     * Whether to use Saxon as the transformer factory (requires camel-saxon on the classpath)
+     */
+    public void setSaxon(boolean saxon) {
+        this.saxon = saxon;
+    }
+
     protected Endpoint createEndpoint(String uri, final String remaining, Map<String, Object> parameters) throws Exception {
         final Resource resource = resolveMandatoryResource(remaining);
         if (log.isDebugEnabled()) {
@@ -84,6 +98,11 @@ public class XsltComponent extends ResourceBasedComponent {
         }
         
         String transformerFactoryClassName = getAndRemoveParameter(parameters, "transformerFactoryClass", String.class);
+        Boolean saxon = getAndRemoveParameter(parameters, "saxon", Boolean.class, isSaxon());
+        if (saxon && transformerFactoryClassName == null) {
+            // use Saxon which compiles the stylesheet once and let the pooled transformers reuse it
+            transformerFactoryClassName = SAXON_TRANSFORMER_FACTORY_CLASS_NAME;
+        }
         TransformerFactory factory = null;
         if (transformerFactoryClassName != null) {
             // provide the class loader of this component to work in OSGi environments